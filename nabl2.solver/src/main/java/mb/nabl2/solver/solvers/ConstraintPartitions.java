@@ -0,0 +1,368 @@
+package mb.nabl2.solver.solvers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.metaborg.util.tuple.Tuple2;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import mb.nabl2.constraints.Constraints;
+import mb.nabl2.constraints.IConstraint;
+import mb.nabl2.constraints.base.IBaseConstraint;
+import mb.nabl2.constraints.nameresolution.INameResolutionConstraint;
+import mb.nabl2.constraints.relations.IRelationConstraint;
+import mb.nabl2.relations.terms.FunctionName.RelationFunctions;
+import mb.nabl2.solver.properties.HasRelationBuildConstraints;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.matching.Transform.T;
+import mb.nabl2.terms.unification.u.IUnifier;
+import mb.scopegraph.pepm16.esop15.IEsopScopeGraph;
+import mb.scopegraph.pepm16.terms.Label;
+import mb.scopegraph.pepm16.terms.Occurrence;
+import mb.scopegraph.pepm16.terms.Scope;
+import mb.scopegraph.relations.IFunctionName;
+import mb.scopegraph.relations.IRelationName;
+
+/**
+ * Partitioning of constraints into groups that can be solved independently. Two constraints are in the same group if
+ * they share a variable, after applying the unifier, a scope with incomplete edges, or a relation that has build
+ * constraints. Scopes are connected to the variables of their incomplete edges, and resolution constraints to the
+ * scope of their reference. Constraints that call external strategies, and all constraints connected to them, are not
+ * partitioned, but kept apart to be solved sequentially.
+ *
+ * Solving the groups separately is sound but not complete: a constraint that depends on another group through the rest
+ * of the scope graph delays, and is left unsolved.
+ */
+public class ConstraintPartitions {
+
+    private static final Object EXTERNAL = new Object();
+
+    private final List<List<IConstraint>> partitions;
+    private final List<Set<String>> relations;
+    private final List<IConstraint> sequential;
+
+    private ConstraintPartitions(List<List<IConstraint>> partitions, List<Set<String>> relations,
+            List<IConstraint> sequential) {
+        this.partitions = partitions;
+        this.relations = relations;
+        this.sequential = sequential;
+    }
+
+    /**
+     * Number of partitions.
+     */
+    public int size() {
+        return partitions.size();
+    }
+
+    /**
+     * Constraints of the given partition, in the order of the input constraints.
+     */
+    public List<IConstraint> constraints(int partition) {
+        return partitions.get(partition);
+    }
+
+    /**
+     * Relations that are built by constraints of the given partition. No other partition changes these relations.
+     */
+    public Set<String> relations(int partition) {
+        return relations.get(partition);
+    }
+
+    /**
+     * Constraints that must be solved on the calling thread, after the partitions.
+     */
+    public List<IConstraint> sequential() {
+        return sequential;
+    }
+
+    /**
+     * Partition the constraints into at most the given number of partitions. Independent groups of constraints are
+     * distributed over the partitions by size, largest first, which is deterministic for a given order of the input.
+     */
+    public static ConstraintPartitions of(Iterable<IConstraint> constraints, IUnifier.Immutable unifier,
+            IEsopScopeGraph<Scope, Label, Occurrence, ITerm> scopeGraph, int maxPartitions) {
+        final List<IConstraint> constraintList = Lists.newArrayList(constraints);
+        final Groups groups = new Groups(constraintList, unifier, scopeGraph);
+
+        // number the groups in order of their first constraint
+        final int[] groupOf = new int[constraintList.size()];
+        final Map<Integer, Integer> groupOfRoot = Maps.newHashMap();
+        final List<Integer> groupSizes = Lists.newArrayList();
+        final int sequentialRoot = groups.keys.containsKey(EXTERNAL) ? groups.find(groups.keys.get(EXTERNAL)) : -1;
+        for(int i = 0; i < constraintList.size(); i++) {
+            final int root = groups.find(i);
+            if(root == sequentialRoot) {
+                groupOf[i] = -1;
+                continue;
+            }
+            Integer group;
+            if((group = groupOfRoot.get(root)) == null) {
+                group = groupSizes.size();
+                groupOfRoot.put(root, group);
+                groupSizes.add(0);
+            }
+            groupOf[i] = group;
+            groupSizes.set(group, groupSizes.get(group) + 1);
+        }
+
+        // assign groups to the least loaded partition, largest groups first
+        final int partitionCount = Math.min(maxPartitions, groupSizes.size());
+        final List<Integer> groupOrder = Lists.newArrayList();
+        for(int group = 0; group < groupSizes.size(); group++) {
+            groupOrder.add(group);
+        }
+        Collections.sort(groupOrder, Comparator.comparing(groupSizes::get, Comparator.reverseOrder()));
+        final int[] partitionOf = new int[groupSizes.size()];
+        final int[] loads = new int[partitionCount];
+        for(int group : groupOrder) {
+            int partition = 0;
+            for(int p = 1; p < partitionCount; p++) {
+                if(loads[p] < loads[partition]) {
+                    partition = p;
+                }
+            }
+            partitionOf[group] = partition;
+            loads[partition] += groupSizes.get(group);
+        }
+
+        final List<List<IConstraint>> partitions = Lists.newArrayList();
+        final List<Set<String>> relations = Lists.newArrayList();
+        for(int p = 0; p < partitionCount; p++) {
+            partitions.add(Lists.newArrayList());
+            relations.add(Sets.newHashSet());
+        }
+        final List<IConstraint> sequential = Lists.newArrayList();
+        for(int i = 0; i < constraintList.size(); i++) {
+            if(groupOf[i] < 0) {
+                sequential.add(constraintList.get(i));
+            } else {
+                partitions.get(partitionOf[groupOf[i]]).add(constraintList.get(i));
+            }
+        }
+        for(Map.Entry<Object, Integer> entry : groups.keys.entrySet()) {
+            final Integer group;
+            if(entry.getKey() instanceof String && (group = groupOfRoot.get(groups.find(entry.getValue()))) != null) {
+                relations.get(partitionOf[group]).add((String) entry.getKey());
+            }
+        }
+
+        return new ConstraintPartitions(partitions, relations, sequential);
+    }
+
+    /**
+     * Union-find over the constraints, which are nodes 0 to n-1, and the variables, scopes, and relation names that
+     * connect them, which are numbered after the constraints.
+     */
+    private static class Groups {
+
+        private final IUnifier.Immutable unifier;
+        private final IEsopScopeGraph<Scope, Label, Occurrence, ITerm> scopeGraph;
+        private final HasRelationBuildConstraints builtRelations;
+        private final Set<Scope> incompleteScopes;
+
+        private final Map<Object, Integer> keys;
+        private int[] parent;
+        private int[] rank;
+        private int size;
+
+        private Groups(List<IConstraint> constraints, IUnifier.Immutable unifier,
+                IEsopScopeGraph<Scope, Label, Occurrence, ITerm> scopeGraph) {
+            this.unifier = unifier;
+            this.scopeGraph = scopeGraph;
+            this.builtRelations = new HasRelationBuildConstraints();
+            this.incompleteScopes = Sets.newHashSet();
+            this.keys = Maps.newHashMap();
+            this.parent = new int[Math.max(16, 2 * constraints.size())];
+            this.rank = new int[parent.length];
+            this.size = 0;
+
+            for(int i = 0; i < constraints.size(); i++) {
+                node();
+            }
+            builtRelations.addAll(constraints);
+            addIncompleteEdges(scopeGraph.incompleteDirectEdges());
+            addIncompleteEdges(scopeGraph.incompleteImportEdges());
+            for(int i = 0; i < constraints.size(); i++) {
+                final int node = i;
+                Constraints.transform(constraints.get(i), t -> {
+                    addTerm(node, t);
+                    return t;
+                });
+                addConstraint(node, constraints.get(i));
+            }
+        }
+
+        private void addIncompleteEdges(Collection<? extends Map.Entry<Tuple2<Scope, Label>, ITerm>> edges) {
+            for(Map.Entry<Tuple2<Scope, Label>, ITerm> edge : edges) {
+                final Scope scope = edge.getKey()._1();
+                incompleteScopes.add(scope);
+                for(ITermVar var : unifier.getVars(edge.getValue())) {
+                    union(key(scope), key(var));
+                }
+            }
+        }
+
+        private void addTerm(int node, ITerm term) {
+            for(ITermVar var : unifier.getVars(term)) {
+                union(node, key(var));
+            }
+            if(!incompleteScopes.isEmpty()) {
+                for(Scope scope : T.collecttd(Scope.matcher()::match).apply(unifier.findRecursive(term))) {
+                    if(incompleteScopes.contains(scope)) {
+                        union(node, key(scope));
+                    }
+                }
+            }
+        }
+
+        private void addConstraint(int node, IConstraint constraint) {
+            // @formatter:off
+            constraint.match(IConstraint.Cases.of(
+                c -> null,
+                c -> c.match(IBaseConstraint.Cases.of(
+                    t -> null,
+                    f -> null,
+                    cc -> {
+                        addConstraint(node, cc.getLeft());
+                        addConstraint(node, cc.getRight());
+                        return null;
+                    },
+                    e -> {
+                        addConstraint(node, e.getConstraint());
+                        return null;
+                    },
+                    n -> null
+                )),
+                c -> null,
+                c -> null,
+                c -> c.match(INameResolutionConstraint.Cases.of(
+                    r -> {
+                        Occurrence.matcher().match(r.getReference(), unifier)
+                                .flatMap(ref -> scopeGraph.getRefs().get(ref))
+                                .filter(incompleteScopes::contains)
+                                .ifPresent(scope -> union(node, key(scope)));
+                        return null;
+                    },
+                    a -> null,
+                    p -> null
+                )),
+                c -> c.match(IRelationConstraint.Cases.of(
+                    br -> {
+                        addRelation(node, br.getRelation());
+                        return null;
+                    },
+                    cr -> {
+                        addRelation(node, cr.getRelation());
+                        return null;
+                    },
+                    ev -> {
+                        addFunction(node, ev.getFunction());
+                        return null;
+                    }
+                )),
+                c -> null,
+                c -> null
+            ));
+            // @formatter:on
+        }
+
+        private void addRelation(int node, IRelationName relation) {
+            // @formatter:off
+            relation.match(IRelationName.Cases.of(
+                name -> {
+                    if(builtRelations.contains(name)) {
+                        union(node, key(name));
+                    }
+                    return null;
+                },
+                extName -> {
+                    union(node, key(EXTERNAL));
+                    return null;
+                }
+            ));
+            // @formatter:on
+        }
+
+        private void addFunction(int node, IFunctionName function) {
+            // @formatter:off
+            function.match(IFunctionName.Cases.of(
+                name -> {
+                    relationOf(name).filter(builtRelations::contains).ifPresent(r -> union(node, key(r)));
+                    return null;
+                },
+                extName -> {
+                    union(node, key(EXTERNAL));
+                    return null;
+                }
+            ));
+            // @formatter:on
+        }
+
+        private static Optional<String> relationOf(String function) {
+            for(RelationFunctions relationFunction : RelationFunctions.values()) {
+                final String suffix = "." + relationFunction.name();
+                if(function.equals(relationFunction.name())) {
+                    return Optional.of("");
+                } else if(function.endsWith(suffix)) {
+                    return Optional.of(function.substring(0, function.length() - suffix.length()));
+                }
+            }
+            return Optional.empty();
+        }
+
+        private int key(Object key) {
+            Integer node;
+            if((node = keys.get(key)) == null) {
+                node = node();
+                keys.put(key, node);
+            }
+            return node;
+        }
+
+        private int node() {
+            if(size == parent.length) {
+                parent = Arrays.copyOf(parent, 2 * size);
+                rank = Arrays.copyOf(rank, 2 * size);
+            }
+            parent[size] = size;
+            return size++;
+        }
+
+        private int find(int node) {
+            while(parent[node] != node) {
+                parent[node] = parent[parent[node]];
+                node = parent[node];
+            }
+            return node;
+        }
+
+        private void union(int node1, int node2) {
+            final int root1 = find(node1);
+            final int root2 = find(node2);
+            if(root1 == root2) {
+                return;
+            }
+            if(rank[root1] < rank[root2]) {
+                parent[root1] = root2;
+            } else {
+                parent[root2] = root1;
+                if(rank[root1] == rank[root2]) {
+                    rank[root1]++;
+                }
+            }
+        }
+
+    }
+
+}
@@ -1,14 +1,21 @@
 package mb.nabl2.solver.solvers;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.metaborg.util.Ref;
+import org.metaborg.util.functions.Action1;
 import org.metaborg.util.functions.Function1;
 import org.metaborg.util.functions.Predicate1;
 import org.metaborg.util.task.ICancel;
 import org.metaborg.util.task.IProgress;
+import org.metaborg.util.task.NullProgress;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import io.usethesource.capsule.Set;
@@ -35,30 +42,110 @@ import mb.nabl2.solver.components.SymbolicComponent;
 import mb.nabl2.solver.exceptions.DelayException;
 import mb.nabl2.solver.exceptions.SolverException;
 import mb.nabl2.solver.messages.IMessages;
+import mb.nabl2.solver.messages.Messages;
 import mb.nabl2.solver.properties.HasRelationBuildConstraints;
 import mb.nabl2.symbolic.ISymbolicConstraints;
 import mb.nabl2.terms.ITerm;
 import mb.nabl2.terms.ITermVar;
-import mb.nabl2.terms.stratego.TermIndex;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.Unifiers;
 import mb.nabl2.terms.unification.u.IUnifier;
 import mb.nabl2.util.collections.IProperties;
+import mb.nabl2.util.collections.Properties;
 import mb.scopegraph.pepm16.ScopeGraphReducer;
 import mb.scopegraph.pepm16.esop15.CriticalEdge;
 import mb.scopegraph.pepm16.esop15.IEsopNameResolution;
 import mb.scopegraph.pepm16.esop15.IEsopScopeGraph;
+import mb.scopegraph.pepm16.esop15.reference.EsopScopeGraph;
 import mb.scopegraph.pepm16.terms.Label;
 import mb.scopegraph.pepm16.terms.Occurrence;
 import mb.scopegraph.pepm16.terms.Scope;
 
 public class SemiIncrementalMultiFileSolver extends BaseMultiFileSolver {
 
+    /**
+     * Default number of partitions of the final phase. The number is fixed, and not derived from the number of
+     * processors, so that partitions, and the fresh names they introduce, are the same on every machine.
+     */
+    public static final int DEFAULT_PARTITIONS = 8;
+
+    private final int maxPartitions;
+
     public SemiIncrementalMultiFileSolver(NaBL2DebugConfig nabl2Debug, CallExternal callExternal) {
+        this(nabl2Debug, callExternal, DEFAULT_PARTITIONS);
+    }
+
+    public SemiIncrementalMultiFileSolver(NaBL2DebugConfig nabl2Debug, CallExternal callExternal, int maxPartitions) {
         super(nabl2Debug, callExternal);
+        this.maxPartitions = maxPartitions;
     }
 
     public ISolution solveInter(ISolution initial, Iterable<? extends ISolution> unitSolutions, IMessageInfo message,
             Function1<String, String> fresh, ICancel cancel, IProgress progress)
             throws SolverException, InterruptedException {
+        final ISolution seeded = seedSolutions(initial, unitSolutions, message, fresh, cancel, progress);
+
+        final ConstraintPartitions partitions =
+                ConstraintPartitions.of(seeded.constraints(), seeded.unifier(), seeded.scopeGraph(), maxPartitions);
+        if(partitions.size() < 2) {
+            return solve(seeded, seeded.constraints(), fresh, cancel, progress);
+        }
+
+        // solve partitions concurrently, each on its own copy of the seeded state
+        final PartitionCancel partitionCancel = new PartitionCancel(cancel);
+        final Object freshLock = new Object();
+        final ISolution[] partitionSolutions = new ISolution[partitions.size()];
+        final Throwable[] partitionFailures = new Throwable[partitions.size()];
+        final List<ForkJoinTask<?>> tasks = Lists.newArrayList();
+        for(int i = 0; i < partitions.size(); i++) {
+            final int index = i;
+            // fresh names get a per-partition suffix, so that they do not depend on the interleaving of partitions
+            final Function1<String, String> partitionFresh = base -> {
+                synchronized(freshLock) {
+                    return fresh.apply(base + "#" + index);
+                }
+            };
+            tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                try {
+                    partitionSolutions[index] = solvePartition(seeded, partitions.constraints(index),
+                            partitions.relations(index), partitionFresh, partitionCancel);
+                } catch(Throwable ex) {
+                    partitionFailures[index] = ex;
+                    partitionCancel.cancel();
+                }
+            }));
+        }
+        // wait for all partitions, also after a failure, so that none of them uses fresh after this method returns
+        tasks.forEach(ForkJoinTask::quietlyJoin);
+
+        // report the first failure that is not the result of cancelling the other partitions
+        Throwable failure = null;
+        for(Throwable partitionFailure : partitionFailures) {
+            if(partitionFailure != null && (failure == null || failure instanceof InterruptedException)) {
+                failure = partitionFailure;
+            }
+        }
+        if(failure instanceof InterruptedException) {
+            throw (InterruptedException) failure;
+        } else if(failure instanceof SolverException) {
+            throw (SolverException) failure;
+        } else if(failure != null) {
+            throw new SolverException("Internal solver error.", failure);
+        }
+
+        // merge partition results in partition order, and solve what is left on this thread
+        final ISolution merged = seedSolutions(seeded.withConstraints(partitions.sequential()),
+                Arrays.asList(partitionSolutions), message, fresh, cancel, progress);
+        return solve(merged, merged.constraints(), fresh, cancel, progress);
+    }
+
+    /**
+     * Seed the unit solutions into the initial solution. The constraints of the result are the constraints of all
+     * solutions, and the constraints introduced by seeding.
+     */
+    private ISolution seedSolutions(ISolution initial, Iterable<? extends ISolution> unitSolutions,
+            IMessageInfo message, Function1<String, String> fresh, ICancel cancel, IProgress progress)
+            throws SolverException, InterruptedException {
         final SolverConfig config = initial.config();
 
         // shared
@@ -68,6 +155,95 @@ public class SemiIncrementalMultiFileSolver extends BaseMultiFileSolver {
                 IEsopNameResolution.of(config.getResolutionParams(), scopeGraph, (s, l) -> true);
         final ScopeGraphReducer scopeGraphReducer = new ScopeGraphReducer(scopeGraph, unifier);
 
+        // solver components
+        final SolverCore core = new SolverCore(config, unifier, fresh, callExternal, cancel, progress);
+        final AstComponent astSolver = new AstComponent(core, initial.astProperties().melt());
+        final EqualityComponent equalitySolver = new EqualityComponent(core, unifier);
+        final NameResolutionComponent nameResolutionSolver =
+                new NameResolutionComponent(core, scopeGraph, nameResolution, initial.declProperties().melt());
+        final RelationComponent relationSolver = new RelationComponent(core, Predicate1.never(),
+                config.getFunctions(), VariantRelations.melt(initial.relations()));
+        final SymbolicComponent symSolver = new SymbolicComponent(core, initial.symbolic());
+
+        try {
+            final java.util.Set<IConstraint> constraints = Sets.newHashSet(initial.constraints());
+            final IMessages.Transient messages = initial.messages().melt();
+            for(ISolution unitSolution : unitSolutions) {
+                seed(astSolver.seed(unitSolution.astProperties(), message), messages, constraints);
+                seed(equalitySolver.seed(unitSolution.unifier(), message), messages, constraints);
+                final NameResolutionResult nameResult = NameResolutionResult.of(unitSolution.scopeGraph(),
+                        unitSolution.nameResolutionCache(), unitSolution.declProperties());
+                seed(nameResolutionSolver.seed(nameResult, message), messages, constraints);
+                seed(relationSolver.seed(unitSolution.relations(), message), messages, constraints);
+                seed(symSolver.seed(unitSolution.symbolic(), message), messages, constraints);
+                constraints.addAll(unitSolution.constraints());
+                messages.addAll(unitSolution.messages());
+            }
+            scopeGraphReducer.updateAll();
+
+            final NameResolutionResult nameResolutionResult = nameResolutionSolver.finish();
+            return Solution.of(config, astSolver.finish(), nameResolutionResult.scopeGraph(),
+                    nameResolutionResult.declProperties(), relationSolver.finish(), equalitySolver.finish(),
+                    symSolver.finish(), messages.freeze(), constraints)
+                    .withNameResolutionCache(nameResolutionResult.resolutionCache());
+        } catch(RuntimeException ex) {
+            throw new SolverException("Internal solver error.", ex);
+        }
+    }
+
+    /**
+     * Solve a partition, and return only what it adds to the seeded solution, so that partitions can be merged by
+     * seeding them into the seeded solution. Relations are included only if they are built in this partition.
+     */
+    private ISolution solvePartition(ISolution seeded, List<IConstraint> constraints, java.util.Set<String> relations,
+            Function1<String, String> fresh, ICancel cancel) throws SolverException, InterruptedException {
+        final IUnifier.Transient unifierDiff = Unifiers.Immutable.of().melt();
+        final ISolution solution = solve(seeded.withMessages(Messages.Immutable.of()), constraints, diff -> {
+            try {
+                if(!unifierDiff.unify(diff).isPresent()) {
+                    throw new IllegalStateException("Unifier diffs of a partition are inconsistent.");
+                }
+            } catch(OccursException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }, fresh, cancel, new NullProgress());
+
+        final IProperties.Transient<Occurrence, ITerm, ITerm> declProperties = Properties.Transient.of();
+        solution.declProperties().stream()
+                .filter(entry -> !seeded.declProperties().getValue(entry._1(), entry._2()).isPresent())
+                .forEach(entry -> declProperties.putValue(entry._1(), entry._2(), entry._3()));
+        final Map<String, IVariantRelation.Immutable<ITerm>> builtRelations =
+                Maps.filterKeys(solution.relations(), relations::contains);
+
+        return Solution.of(seeded.config(), Properties.Immutable.of(), EsopScopeGraph.Immutable.of(),
+                declProperties.freeze(), builtRelations, unifierDiff.freeze(), solution.symbolic(),
+                solution.messages(), solution.constraints())
+                .withNameResolutionCache(solution.nameResolutionCache());
+    }
+
+    private ISolution solve(ISolution state, Iterable<IConstraint> constraints, Function1<String, String> fresh,
+            ICancel cancel, IProgress progress) throws SolverException, InterruptedException {
+        return solve(state, constraints, diff -> {
+        }, fresh, cancel, progress);
+    }
+
+    /**
+     * Solve the constraints in the given state, and pass every unifier diff to the given action. The messages of the
+     * result are the messages of the state and the messages from solving, and its constraints are the unsolved
+     * constraints.
+     */
+    private ISolution solve(ISolution state, Iterable<IConstraint> constraints, Action1<IUnifier.Immutable> onUnify,
+            Function1<String, String> fresh, ICancel cancel, IProgress progress)
+            throws SolverException, InterruptedException {
+        final SolverConfig config = state.config();
+
+        // shared
+        final Ref<IUnifier.Immutable> unifier = new Ref<>(state.unifier());
+        final IEsopScopeGraph.Transient<Scope, Label, Occurrence, ITerm> scopeGraph = state.scopeGraph().melt();
+        final IEsopNameResolution<Scope, Label, Occurrence> nameResolution = IEsopNameResolution
+                .of(config.getResolutionParams(), scopeGraph, (s, l) -> true, state.nameResolutionCache());
+        final ScopeGraphReducer scopeGraphReducer = new ScopeGraphReducer(scopeGraph, unifier);
+
         // constraint set properties
         final HasRelationBuildConstraints hasRelationBuildConstraints = new HasRelationBuildConstraints();
 
@@ -76,16 +252,15 @@ public class SemiIncrementalMultiFileSolver extends BaseMultiFileSolver {
 
         // solver components
         final SolverCore core = new SolverCore(config, unifier, fresh, callExternal, cancel, progress);
-        final AstComponent astSolver = new AstComponent(core, initial.astProperties().melt());
         final BaseComponent baseSolver = new BaseComponent(core);
         final EqualityComponent equalitySolver = new EqualityComponent(core, unifier);
         final NameResolutionComponent nameResolutionSolver =
-                new NameResolutionComponent(core, scopeGraph, nameResolution, initial.declProperties().melt());
+                new NameResolutionComponent(core, scopeGraph, nameResolution, state.declProperties().melt());
         final NameSetsComponent nameSetSolver = new NameSetsComponent(core, nameResolution);
         final RelationComponent relationSolver = new RelationComponent(core, isRelationComplete, config.getFunctions(),
-                VariantRelations.melt(initial.relations()));
+                VariantRelations.melt(state.relations()));
         final SetComponent setSolver = new SetComponent(core, nameSetSolver.nameSets());
-        final SymbolicComponent symSolver = new SymbolicComponent(core, initial.symbolic());
+        final SymbolicComponent symSolver = new SymbolicComponent(core, state.symbolic());
 
         // @formatter:off
         final ISolver component = c -> c.matchOrThrow(IConstraint.CheckedCases.<SolveResult, DelayException>builder()
@@ -105,6 +280,7 @@ public class SemiIncrementalMultiFileSolver extends BaseMultiFileSolver {
             r.resolveRelations(hasRelationBuildConstraints.remove(r.constraint));
             final Set.Immutable<ITermVar> vars = r.result.unifierDiff().domainSet();
             if(!vars.isEmpty()) {
+                onUnify.apply(r.result.unifierDiff());
                 try {
                     final List<CriticalEdge> criticalEdges = scopeGraphReducer.update(vars);
                     nameResolution.update(criticalEdges, cancel, progress);
@@ -116,36 +292,21 @@ public class SemiIncrementalMultiFileSolver extends BaseMultiFileSolver {
         });
 
         try {
-            // seed unit solutions
-            final java.util.Set<IConstraint> constraints = Sets.newHashSet(initial.constraints());
-            final IMessages.Transient messages = initial.messages().melt();
-            for(ISolution unitSolution : unitSolutions) {
-                seed(astSolver.seed(unitSolution.astProperties(), message), messages, constraints);
-                seed(equalitySolver.seed(unitSolution.unifier(), message), messages, constraints);
-                final NameResolutionResult nameResult = NameResolutionResult.of(unitSolution.scopeGraph(),
-                        unitSolution.nameResolutionCache(), unitSolution.declProperties());
-                seed(nameResolutionSolver.seed(nameResult, message), messages, constraints);
-                seed(relationSolver.seed(unitSolution.relations(), message), messages, constraints);
-                seed(symSolver.seed(unitSolution.symbolic(), message), messages, constraints);
-                constraints.addAll(unitSolution.constraints());
-                messages.addAll(unitSolution.messages());
-            }
-
             // solve constraints
             scopeGraphReducer.updateAll();
             hasRelationBuildConstraints.addAll(constraints);
             SolveResult solveResult = solver.solve(constraints, unifier);
+            final IMessages.Transient messages = state.messages().melt();
             messages.addAll(solveResult.messages());
 
             // build result
-            IProperties.Immutable<TermIndex, ITerm, ITerm> astResult = astSolver.finish();
             NameResolutionResult nameResolutionResult = nameResolutionSolver.finish();
             IUnifier.Immutable unifierResult = equalitySolver.finish();
             Map<String, IVariantRelation.Immutable<ITerm>> relationResult = relationSolver.finish();
             ISymbolicConstraints symbolicConstraints = symSolver.finish();
             setSolver.finish();
 
-            return Solution.of(config, astResult, nameResolutionResult.scopeGraph(),
+            return Solution.of(config, state.astProperties(), nameResolutionResult.scopeGraph(),
                     nameResolutionResult.declProperties(), relationResult, unifierResult, symbolicConstraints,
                     messages.freeze(), solveResult.constraints())
                     .withNameResolutionCache(nameResolutionResult.resolutionCache());
@@ -154,4 +315,33 @@ public class SemiIncrementalMultiFileSolver extends BaseMultiFileSolver {
         }
     }
 
+    /**
+     * Cancellation of partitions, when the caller cancels, or when another partition fails.
+     */
+    private static class PartitionCancel implements ICancel {
+
+        private final ICancel cancel;
+        private volatile boolean cancelled = false;
+
+        private PartitionCancel(ICancel cancel) {
+            this.cancel = cancel;
+        }
+
+        @Override public boolean cancelled() {
+            return cancelled || cancel.cancelled();
+        }
+
+        @Override public void throwIfCancelled() throws InterruptedException {
+            if(cancelled) {
+                throw new InterruptedException();
+            }
+            cancel.throwIfCancelled();
+        }
+
+        @Override public void cancel() {
+            cancelled = true;
+        }
+
+    }
+
 }
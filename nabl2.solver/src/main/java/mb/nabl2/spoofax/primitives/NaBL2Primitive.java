@@ -44,8 +44,8 @@ public abstract class NaBL2Primitive extends AbstractPrimitive {
             throw new InterpreterException("Expected " + tvars + " term arguments, but got " + sterms.size());
         }
         final StrategoTerms strategoTerms = new StrategoTerms(factory);
-        final ITerm term = ConstraintTerms.specialize(strategoTerms.fromStratego(sterm));
-        final List<ITerm> terms = sterms.stream().map(strategoTerms::fromStratego).map(ConstraintTerms::specialize)
+        final ITerm term = ConstraintTerms.specialize(strategoTerms.lazyFromStratego(sterm));
+        final List<ITerm> terms = sterms.stream().map(strategoTerms::lazyFromStratego).map(ConstraintTerms::specialize)
                 .collect(Collectors.toList());
         final Optional<? extends ITerm> resultTerm = call(term, terms);
         return resultTerm.map(ConstraintTerms::explicate).map(strategoTerms::toStratego);
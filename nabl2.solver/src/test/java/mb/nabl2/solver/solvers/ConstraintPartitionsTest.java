@@ -0,0 +1,177 @@
+package mb.nabl2.solver.solvers;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import mb.nabl2.constraints.IConstraint;
+import mb.nabl2.constraints.equality.CEqual;
+import mb.nabl2.constraints.messages.IMessageInfo;
+import mb.nabl2.constraints.messages.MessageInfo;
+import mb.nabl2.constraints.nameresolution.CResolve;
+import mb.nabl2.constraints.relations.CBuildRelation;
+import mb.nabl2.constraints.relations.CCheckRelation;
+import mb.nabl2.constraints.relations.CEvalFunction;
+import mb.nabl2.relations.terms.FunctionName;
+import mb.nabl2.relations.terms.RelationName;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.stratego.TermIndex;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.Unifiers;
+import mb.nabl2.terms.unification.u.IUnifier;
+import mb.scopegraph.pepm16.esop15.IEsopScopeGraph;
+import mb.scopegraph.pepm16.terms.Label;
+import mb.scopegraph.pepm16.terms.Namespace;
+import mb.scopegraph.pepm16.terms.Occurrence;
+import mb.scopegraph.pepm16.terms.OccurrenceIndex;
+import mb.scopegraph.pepm16.terms.Scope;
+
+public class ConstraintPartitionsTest {
+
+    private static final int MAX_PARTITIONS = 8;
+
+    private final IMessageInfo message = MessageInfo.empty();
+
+    private final ITermVar x = B.newVar("", "x");
+    private final ITermVar y = B.newVar("", "y");
+    private final ITermVar z = B.newVar("", "z");
+
+    private final Scope s1 = Scope.of("", "s1");
+    private final Scope s2 = Scope.of("", "s2");
+    private final Scope s3 = Scope.of("", "s3");
+
+    private final Occurrence r1 =
+            Occurrence.of(Namespace.of(""), B.newString("r"), OccurrenceIndex.of(TermIndex.of("", 1)));
+    private final Occurrence r2 =
+            Occurrence.of(Namespace.of(""), B.newString("r"), OccurrenceIndex.of(TermIndex.of("", 2)));
+
+    private final IUnifier.Immutable unifier = Unifiers.Immutable.of();
+    private final IEsopScopeGraph.Immutable<Scope, Label, Occurrence, ITerm> scopeGraph =
+            IEsopScopeGraph.<Scope, Label, Occurrence, ITerm>builder().freeze();
+
+    @Test public void testSharedVariables() throws OccursException {
+        final IConstraint c1 = CEqual.of(x, B.newString("a"), message);
+        final IConstraint c2 = CEqual.of(B.newString("b"), x, message);
+        final IConstraint c3 = CEqual.of(y, B.newString("a"), message);
+        final IConstraint c4 = CEqual.of(z, B.newString("a"), message);
+        // y is bound to a term with z, so c3 and c4 share z after applying the unifier
+        final IUnifier.Immutable unifier = this.unifier.unify(y, B.newAppl("F", z)).get().unifier();
+        final ConstraintPartitions partitions =
+                ConstraintPartitions.of(Arrays.asList(c1, c2, c3, c4), unifier, scopeGraph, MAX_PARTITIONS);
+        assertEquals(2, partitions.size());
+        assertEquals(Arrays.asList(c1, c2), partitions.constraints(partition(partitions, c1)));
+        assertEquals(Arrays.asList(c3, c4), partitions.constraints(partition(partitions, c3)));
+        assertEquals(Arrays.asList(), partitions.sequential());
+    }
+
+    @Test public void testIncompleteEdgeScopes() {
+        final IEsopScopeGraph.Transient<Scope, Label, Occurrence, ITerm> scopeGraph = IEsopScopeGraph.builder();
+        scopeGraph.addIncompleteDirectEdge(s1, Label.P, z, unifier::getVars);
+        final IConstraint c1 = CEqual.of(x, s1, message);
+        final IConstraint c2 = CEqual.of(y, B.newTuple(s1), message);
+        final IConstraint c3 = CEqual.of(z, s2, message);
+        // s3 has no incomplete edges, so sharing it does not connect constraints
+        final IConstraint c4 = CEqual.of(B.newVar("", "v1"), s3, message);
+        final IConstraint c5 = CEqual.of(B.newVar("", "v2"), s3, message);
+        final ConstraintPartitions partitions = ConstraintPartitions.of(Arrays.asList(c1, c2, c3, c4, c5), unifier,
+                scopeGraph.freeze(), MAX_PARTITIONS);
+        assertEquals(3, partitions.size());
+        assertEquals(Arrays.asList(c1, c2, c3), partitions.constraints(partition(partitions, c1)));
+        assertNotEquals(partition(partitions, c4), partition(partitions, c5));
+    }
+
+    @Test public void testResolveJoinsReferenceScope() {
+        final IEsopScopeGraph.Transient<Scope, Label, Occurrence, ITerm> scopeGraph = IEsopScopeGraph.builder();
+        scopeGraph.addRef(r1, s1);
+        scopeGraph.addRef(r2, s3);
+        scopeGraph.addIncompleteDirectEdge(s1, Label.P, z, unifier::getVars);
+        final IConstraint c1 = CResolve.of(r1, B.newVar("", "d1"), message);
+        final IConstraint c2 = CEqual.of(x, s1, message);
+        // s3 is complete, so resolving in it does not depend on other constraints that mention it
+        final IConstraint c3 = CResolve.of(r2, B.newVar("", "d2"), message);
+        final IConstraint c4 = CEqual.of(y, s3, message);
+        final ConstraintPartitions partitions = ConstraintPartitions.of(Arrays.asList(c1, c2, c3, c4), unifier,
+                scopeGraph.freeze(), MAX_PARTITIONS);
+        assertEquals(3, partitions.size());
+        assertEquals(Arrays.asList(c1, c2), partitions.constraints(partition(partitions, c1)));
+        assertNotEquals(partition(partitions, c3), partition(partitions, c4));
+    }
+
+    @Test public void testBuiltRelations() {
+        final RelationName sub = relation(B.newAppl("Relation", B.newString("sub")));
+        final RelationName other = relation(B.newAppl("Relation", B.newString("other")));
+        final RelationName defaultRelation = relation(B.newAppl("DefaultRelation"));
+        final IConstraint c1 = CBuildRelation.of(B.newString("a"), sub, B.newString("b"), message);
+        final IConstraint c2 = CCheckRelation.of(B.newString("b"), sub, B.newString("c"), message);
+        final IConstraint c3 = CEvalFunction.of(x, function(B.newAppl("Lub", sub)),
+                B.newTuple(B.newString("a"), B.newString("b")), message);
+        // other is never built, so checks on it do not depend on each other
+        final IConstraint c4 = CCheckRelation.of(B.newString("a"), other, B.newString("b"), message);
+        final IConstraint c5 = CCheckRelation.of(B.newString("b"), other, B.newString("c"), message);
+        final IConstraint c6 = CBuildRelation.of(B.newString("a"), defaultRelation, B.newString("b"), message);
+        final IConstraint c7 = CEvalFunction.of(y, function(B.newAppl("Glb", defaultRelation)),
+                B.newTuple(B.newString("a"), B.newString("b")), message);
+        final ConstraintPartitions partitions = ConstraintPartitions.of(Arrays.asList(c1, c2, c3, c4, c5, c6, c7),
+                unifier, scopeGraph, MAX_PARTITIONS);
+        assertEquals(4, partitions.size());
+        assertEquals(Arrays.asList(c1, c2, c3), partitions.constraints(partition(partitions, c1)));
+        assertEquals(ImmutableSet.of("sub"), partitions.relations(partition(partitions, c1)));
+        assertNotEquals(partition(partitions, c4), partition(partitions, c5));
+        assertEquals(Arrays.asList(c6, c7), partitions.constraints(partition(partitions, c6)));
+        assertEquals(ImmutableSet.of(""), partitions.relations(partition(partitions, c6)));
+    }
+
+    @Test public void testExternalsAreSequential() {
+        final IConstraint c1 = CCheckRelation.of(x, relation(B.newAppl("ExtRelation", B.newString("ext"))),
+                B.newString("b"), message);
+        final IConstraint c2 = CEvalFunction.of(y, function(B.newAppl("ExtFunction", B.newString("ext"))),
+                B.newString("a"), message);
+        final IConstraint c3 = CEqual.of(x, B.newString("a"), message);
+        final IConstraint c4 = CEqual.of(z, B.newString("a"), message);
+        final IConstraint c5 = CEqual.of(B.newVar("", "v"), B.newString("a"), message);
+        final ConstraintPartitions partitions =
+                ConstraintPartitions.of(Arrays.asList(c1, c2, c3, c4, c5), unifier, scopeGraph, MAX_PARTITIONS);
+        assertEquals(Arrays.asList(c1, c2, c3), partitions.sequential());
+        assertEquals(2, partitions.size());
+        assertEquals(Arrays.asList(c4), partitions.constraints(partition(partitions, c4)));
+    }
+
+    @Test public void testGroupsAreDistributedLargestFirst() {
+        final IConstraint c1 = CEqual.of(x, B.newString("a"), message);
+        final IConstraint c2 = CEqual.of(y, B.newString("a"), message);
+        final IConstraint c3 = CEqual.of(y, B.newString("b"), message);
+        final IConstraint c4 = CEqual.of(z, B.newString("a"), message);
+        final ConstraintPartitions partitions =
+                ConstraintPartitions.of(Arrays.asList(c1, c2, c3, c4), unifier, scopeGraph, 2);
+        assertEquals(2, partitions.size());
+        assertEquals(Arrays.asList(c2, c3), partitions.constraints(0));
+        assertEquals(Arrays.asList(c1, c4), partitions.constraints(1));
+    }
+
+    private static int partition(ConstraintPartitions partitions, IConstraint constraint) {
+        for(int p = 0; p < partitions.size(); p++) {
+            final List<IConstraint> constraints = partitions.constraints(p);
+            if(constraints.contains(constraint)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private static RelationName relation(ITerm term) {
+        return RelationName.matcher().match(term).get();
+    }
+
+    private static FunctionName function(ITerm term) {
+        return FunctionName.matcher().match(term).get();
+    }
+
+}
@@ -0,0 +1,92 @@
+package mb.nabl2.solver.solvers;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.metaborg.util.functions.Function1;
+import org.metaborg.util.task.NullCancel;
+import org.metaborg.util.task.NullProgress;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import mb.nabl2.config.NaBL2DebugConfig;
+import mb.nabl2.constraints.IConstraint;
+import mb.nabl2.constraints.equality.CEqual;
+import mb.nabl2.constraints.equality.CInequal;
+import mb.nabl2.constraints.messages.IMessageInfo;
+import mb.nabl2.constraints.messages.MessageInfo;
+import mb.nabl2.solver.ISolution;
+import mb.nabl2.solver.Solution;
+import mb.nabl2.solver.SolverConfig;
+import mb.nabl2.solver.exceptions.SolverException;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.unification.Unifiers;
+import mb.scopegraph.pepm16.esop15.IEsopScopeGraph;
+import mb.scopegraph.pepm16.terms.Label;
+import mb.scopegraph.pepm16.terms.Occurrence;
+import mb.scopegraph.pepm16.terms.ResolutionParameters;
+import mb.scopegraph.pepm16.terms.Scope;
+
+public class SemiIncrementalMultiFileSolverTest {
+
+    private static final int UNITS = 10;
+
+    private final IMessageInfo message = MessageInfo.empty();
+    private final SolverConfig config =
+            SolverConfig.of(ResolutionParameters.getDefault(), ImmutableMap.of(), ImmutableMap.of());
+
+    @Test(timeout = 10_000) public void testPartitionsGiveSameSolution() throws SolverException, InterruptedException {
+        final List<ITermVar> vars = Lists.newArrayList();
+        final List<IConstraint> constraints = Lists.newArrayList();
+        final List<ISolution> units = Lists.newArrayList();
+        for(int i = 0; i < UNITS; i++) {
+            final ITermVar x = B.newVar("unit" + i, "x");
+            final ITermVar y = B.newVar("unit" + i, "y");
+            final ITermVar z = B.newVar("unit" + i, "z");
+            vars.addAll(Lists.newArrayList(x, y, z));
+            final ImmutableSet.Builder<IConstraint> unitConstraints = ImmutableSet.builder();
+            unitConstraints.add(CEqual.of(x, B.newAppl("F", y), message));
+            unitConstraints.add(CEqual.of(y, B.newString("a" + i), message));
+            if(i % 3 == 0) {
+                // fails, and adds an error message
+                unitConstraints.add(CEqual.of(x, B.newAppl("G", z), message));
+            } else {
+                // cannot be decided, and is left unsolved
+                unitConstraints.add(CInequal.of(z, B.newVar("unit" + i, "w"), message));
+            }
+            constraints.addAll(unitConstraints.build());
+            units.add(Solution.of(config).withConstraints(unitConstraints.build()));
+        }
+        final IEsopScopeGraph.Immutable<Scope, Label, Occurrence, ITerm> scopeGraph =
+                IEsopScopeGraph.<Scope, Label, Occurrence, ITerm>builder().freeze();
+        assertTrue(ConstraintPartitions.of(constraints, Unifiers.Immutable.of(), scopeGraph, 4).size() > 1);
+
+        final ISolution sequential = new SemiIncrementalMultiFileSolver(NaBL2DebugConfig.NONE, CallExternal.never(), 1)
+                .solveInter(Solution.of(config), units, message, fresh(), new NullCancel(), new NullProgress());
+        final ISolution parallel = new SemiIncrementalMultiFileSolver(NaBL2DebugConfig.NONE, CallExternal.never(), 4)
+                .solveInter(Solution.of(config), units, message, fresh(), new NullCancel(), new NullProgress());
+
+        for(ITermVar var : vars) {
+            assertEquals(sequential.unifier().findRecursive(var), parallel.unifier().findRecursive(var));
+        }
+        assertFalse(parallel.messages().getAll().isEmpty());
+        assertEquals(ImmutableSet.copyOf(sequential.messages().getAll()),
+                ImmutableSet.copyOf(parallel.messages().getAll()));
+        assertFalse(parallel.constraints().isEmpty());
+        assertEquals(sequential.constraints(), parallel.constraints());
+    }
+
+    private static Function1<String, String> fresh() {
+        final int[] count = new int[1];
+        return base -> base + "-" + (count[0]++);
+    }
+
+}
@@ -1,5 +1,7 @@
 package mb.nabl2.terms;
 
+import java.util.Set;
+
 import javax.annotation.Nullable;
 
 public interface IAttachments {
@@ -17,6 +19,11 @@ public interface IAttachments {
      */
     @Nullable <T> T get(Class<T> cls);
 
+    /**
+     * Gets the classes of all attachments.
+     */
+    Set<Class<?>> keySet();
+
     Builder toBuilder();
 
     interface Builder {
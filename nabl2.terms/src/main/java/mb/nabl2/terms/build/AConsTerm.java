@@ -66,10 +66,18 @@ abstract class AConsTerm extends AbstractTerm implements IConsTerm {
     }
 
 
-    @Override public int hashCode() {
+    /**
+     * The structural hash code of the list, computed once at construction. The tail stores its own hash code, so this
+     * does not walk the list.
+     */
+    @Value.Derived @Value.Auxiliary protected int getStructuralHash() {
         return Objects.hash(getHead(), getTail());
     }
 
+    @Override public int hashCode() {
+        return getStructuralHash();
+    }
+
     @Override public boolean equals(Object other) {
         if(this == other)
             return true;
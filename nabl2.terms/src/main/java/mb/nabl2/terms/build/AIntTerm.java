@@ -38,7 +38,7 @@ abstract class AIntTerm extends AbstractTerm implements IIntTerm {
 
 
     @Override public int hashCode() {
-        return Objects.hash(getValue());
+        return 31 + Integer.hashCode(getValue()); // equal to Objects.hash(getValue()), without allocation
     }
 
     @Override public boolean equals(Object other) {
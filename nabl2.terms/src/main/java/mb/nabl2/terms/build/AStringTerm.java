@@ -39,7 +39,7 @@ abstract class AStringTerm extends AbstractTerm implements IStringTerm {
 
 
     @Override public int hashCode() {
-        return Objects.hash(getValue());
+        return 31 + getValue().hashCode(); // equal to Objects.hash(getValue()), without allocation
     }
 
     @Override public boolean equals(Object other) {
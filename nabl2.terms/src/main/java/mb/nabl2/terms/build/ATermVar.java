@@ -59,10 +59,14 @@ public abstract class ATermVar extends AbstractTerm implements ITermVar {
         return cases.caseVar(this);
     }
 
-    @Override public int hashCode() {
+    @Value.Derived @Value.Auxiliary protected int getStructuralHash() {
         return Objects.hash(getResource(), getName());
     }
 
+    @Override public int hashCode() {
+        return getStructuralHash();
+    }
+
     @Override public boolean equals(Object other) {
         if(this == other)
             return true;
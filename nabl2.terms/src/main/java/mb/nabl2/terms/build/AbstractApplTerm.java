@@ -71,10 +71,25 @@ public abstract class AbstractApplTerm extends AbstractTerm implements IApplTerm
     }
 
 
-    @Override public int hashCode() {
+    private transient volatile int hashCode;
+
+    /**
+     * The structural hash code of the term. Subterms cache their own hash codes, so this is linear in the arity of the
+     * term, instead of in its size. It is computed on first use, and not at construction, because subclasses may
+     * compute their arguments lazily.
+     */
+    protected int getStructuralHash() {
         return Objects.hash(getOp(), getArgs());
     }
 
+    @Override public int hashCode() {
+        int result;
+        if((result = hashCode) == 0) {
+            this.hashCode = (result = getStructuralHash());
+        }
+        return result;
+    }
+
     @Override public boolean equals(Object other) {
         if(this == other)
             return true;
@@ -1,11 +1,15 @@
 package mb.nabl2.terms.build;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
+import com.google.common.collect.ImmutableSet;
+
 import io.usethesource.capsule.Map;
 import mb.nabl2.terms.IAttachments;
 
@@ -28,6 +32,10 @@ public class Attachments implements IAttachments, Serializable {
         return attachments.isEmpty();
     }
 
+    @Override public Set<Class<?>> keySet() {
+        return attachments.keySet();
+    }
+
     @Override public Builder toBuilder() {
         return new Builder(attachments.asTransient());
     }
@@ -70,6 +78,10 @@ public class Attachments implements IAttachments, Serializable {
             return null;
         }
 
+        @Override public Set<Class<?>> keySet() {
+            return Collections.emptySet();
+        }
+
         @Override public Builder toBuilder() {
             return new Attachments.Builder(null);
         }
@@ -99,6 +111,10 @@ public class Attachments implements IAttachments, Serializable {
             }
         }
 
+        @Override public Set<Class<?>> keySet() {
+            return Collections.singleton(cls);
+        }
+
         @Override public Builder toBuilder() {
             return new Attachments.Builder(Map.Transient.of(cls, value));
         }
@@ -135,6 +151,10 @@ public class Attachments implements IAttachments, Serializable {
             }
         }
 
+        @Override public Set<Class<?>> keySet() {
+            return ImmutableSet.of(cls1, cls2);
+        }
+
         @Override public Builder toBuilder() {
             return new Attachments.Builder(Map.Transient.of(cls1, value1, cls2, value2));
         }
@@ -179,6 +199,10 @@ public class Attachments implements IAttachments, Serializable {
             }
         }
 
+        @Override public Set<Class<?>> keySet() {
+            return ImmutableSet.of(cls1, cls2, cls3);
+        }
+
         @Override public Builder toBuilder() {
             return new Attachments.Builder(Map.Transient.of(cls1, value1, cls2, value2, cls3, value3));
         }
@@ -230,6 +254,10 @@ public class Attachments implements IAttachments, Serializable {
             }
         }
 
+        @Override public Set<Class<?>> keySet() {
+            return ImmutableSet.of(cls1, cls2, cls3, cls4);
+        }
+
         @Override public Builder toBuilder() {
             return new Attachments.Builder(Map.Transient.of(cls1, value1, cls2, value2, cls3, value3, cls4, value4));
         }
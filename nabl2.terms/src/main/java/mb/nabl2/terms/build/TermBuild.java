@@ -4,6 +4,7 @@ import java.util.List;
 
 import javax.annotation.Nullable;
 
+import com.google.common.base.Equivalence;
 import com.google.common.collect.ImmutableList;
 
 import mb.nabl2.terms.IApplTerm;
@@ -16,7 +17,7 @@ import mb.nabl2.terms.INilTerm;
 import mb.nabl2.terms.IStringTerm;
 import mb.nabl2.terms.ITerm;
 import mb.nabl2.terms.ITermVar;
-import mb.nabl2.util.collections.ConcurrentWeakCache;
+import mb.nabl2.util.collections.ConcurrentWeakInterner;
 
 public class TermBuild {
 
@@ -26,11 +27,12 @@ public class TermBuild {
 
         private static final INilTerm NIL = NilTerm.builder().build();
 
-        // FIXME Use hash-consing to improve sharing between simple terms. Terms could be shared if:
+        // Terms are hash-consed if:
         // 1. They have no attachments.
-        // 2. The have no subterms (because their subterms may have attachments, even if the outer term does not).
-        // In practice this means mostly nil, strings, ints, and variables are shared.
-        final ConcurrentWeakCache<ITerm, ITerm> cache = new ConcurrentWeakCache<>();
+        // 2. All their subterms are hash-consed themselves (because their subterms may have attachments, even if
+        //    the outer term does not, and term equality ignores attachments).
+        // Since subterms of shared terms are shared, compound terms are compared on the identity of their subterms.
+        final ConcurrentWeakInterner<ITerm> cache = new ConcurrentWeakInterner<>(new ShallowTermEquivalence());
 
         @Override public IApplTerm newAppl(String op, Iterable<? extends ITerm> args,
                 @Nullable IAttachments attachments) {
@@ -39,21 +41,23 @@ public class TermBuild {
                 case 0: {
                     if((attachments == null || attachments.isEmpty())) {
                         final ITerm term = Appl0Term.of(op);
-                        return (IApplTerm) cache.getOrPut(term, term);
+                        return (IApplTerm) cache.intern(term);
                     } else {
                         return Appl0Term.builder().op(op).attachments(attachments).build();
                     }
                 }
                 case 1: {
                     if((attachments == null || attachments.isEmpty())) {
-                        return Appl1Term.of(op, argList.get(0));
+                        final IApplTerm term = Appl1Term.of(op, argList.get(0));
+                        return isShared(argList) ? (IApplTerm) cache.intern(term) : term;
                     } else {
                         return Appl1Term.builder().op(op).arg0(argList.get(0)).attachments(attachments).build();
                     }
                 }
                 case 2: {
                     if((attachments == null || attachments.isEmpty())) {
-                        return Appl2Term.of(op, argList.get(0), argList.get(1));
+                        final IApplTerm term = Appl2Term.of(op, argList.get(0), argList.get(1));
+                        return isShared(argList) ? (IApplTerm) cache.intern(term) : term;
                     } else {
                         return Appl2Term.builder().op(op).arg0(argList.get(0)).arg1(argList.get(1))
                                 .attachments(attachments).build();
@@ -61,7 +65,8 @@ public class TermBuild {
                 }
                 case 3: {
                     if((attachments == null || attachments.isEmpty())) {
-                        return Appl3Term.of(op, argList.get(0), argList.get(1), argList.get(2));
+                        final IApplTerm term = Appl3Term.of(op, argList.get(0), argList.get(1), argList.get(2));
+                        return isShared(argList) ? (IApplTerm) cache.intern(term) : term;
                     } else {
                         return Appl3Term.builder().op(op).arg0(argList.get(0)).arg1(argList.get(1)).arg2(argList.get(2))
                                 .attachments(attachments).build();
@@ -69,7 +74,9 @@ public class TermBuild {
                 }
                 case 4: {
                     if((attachments == null || attachments.isEmpty())) {
-                        return Appl4Term.of(op, argList.get(0), argList.get(1), argList.get(2), argList.get(3));
+                        final IApplTerm term =
+                                Appl4Term.of(op, argList.get(0), argList.get(1), argList.get(2), argList.get(3));
+                        return isShared(argList) ? (IApplTerm) cache.intern(term) : term;
                     } else {
                         return Appl4Term.builder().op(op).arg0(argList.get(0)).arg1(argList.get(1)).arg2(argList.get(2))
                                 .arg3(argList.get(3)).attachments(attachments).build();
@@ -95,7 +102,8 @@ public class TermBuild {
 
         @Override public IConsTerm newCons(ITerm head, IListTerm tail, @Nullable IAttachments attachments) {
             if(attachments == null || attachments.isEmpty()) {
-                return ConsTerm.of(head, tail);
+                final IConsTerm term = ConsTerm.of(head, tail);
+                return isShared(head) && isShared(tail) ? (IConsTerm) cache.intern(term) : term;
             } else {
                 return ConsTerm.builder().head(head).tail(tail).attachments(attachments).build();
             }
@@ -104,7 +112,7 @@ public class TermBuild {
         @Override public IStringTerm newString(String value, @Nullable IAttachments attachments) {
             if((attachments == null || attachments.isEmpty())) {
                 final IStringTerm term = StringTerm.of(value);
-                return (IStringTerm) cache.getOrPut(term, term);
+                return (IStringTerm) cache.intern(term);
             } else {
                 return StringTerm.builder().value(value).attachments(attachments).build();
             }
@@ -113,7 +121,7 @@ public class TermBuild {
         @Override public IIntTerm newInt(int value, @Nullable IAttachments attachments) {
             if((attachments == null || attachments.isEmpty())) {
                 final IIntTerm term = IntTerm.of(value);
-                return (IIntTerm) cache.getOrPut(term, term);
+                return (IIntTerm) cache.intern(term);
             } else {
                 return IntTerm.builder().value(value).attachments(attachments).build();
             }
@@ -130,12 +138,104 @@ public class TermBuild {
         @Override public ITermVar newVar(String resource, String name, @Nullable IAttachments attachments) {
             if((attachments == null || attachments.isEmpty())) {
                 final ITermVar term = TermVar.of(resource, name);
-                return (ITermVar) cache.getOrPut(term, term);
+                return (ITermVar) cache.intern(term);
             } else {
                 return TermVar.builder().resource(resource).name(name).attachments(attachments).build();
             }
         }
 
+        private boolean isShared(List<ITerm> terms) {
+            for(ITerm term : terms) {
+                if(!isShared(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isShared(ITerm term) {
+            return term == NIL || cache.isInterned(term);
+        }
+
+    }
+
+    /**
+     * Equivalence used for hash-consing. Compound terms are equivalent if they have the same constructor and identical
+     * subterms, which is only correct for terms whose subterms are hash-consed. Other terms are compared using equals.
+     */
+    private static class ShallowTermEquivalence extends Equivalence<ITerm> {
+
+        @Override protected boolean doEquivalent(ITerm a, ITerm b) {
+            if(a instanceof Appl1Term) {
+                if(!(b instanceof Appl1Term)) {
+                    return false;
+                }
+                final Appl1Term t1 = (Appl1Term) a, t2 = (Appl1Term) b;
+                return t1.getOp().equals(t2.getOp()) && t1.getArg0() == t2.getArg0();
+            } else if(a instanceof Appl2Term) {
+                if(!(b instanceof Appl2Term)) {
+                    return false;
+                }
+                final Appl2Term t1 = (Appl2Term) a, t2 = (Appl2Term) b;
+                return t1.getOp().equals(t2.getOp()) && t1.getArg0() == t2.getArg0() && t1.getArg1() == t2.getArg1();
+            } else if(a instanceof Appl3Term) {
+                if(!(b instanceof Appl3Term)) {
+                    return false;
+                }
+                final Appl3Term t1 = (Appl3Term) a, t2 = (Appl3Term) b;
+                return t1.getOp().equals(t2.getOp()) && t1.getArg0() == t2.getArg0() && t1.getArg1() == t2.getArg1()
+                        && t1.getArg2() == t2.getArg2();
+            } else if(a instanceof Appl4Term) {
+                if(!(b instanceof Appl4Term)) {
+                    return false;
+                }
+                final Appl4Term t1 = (Appl4Term) a, t2 = (Appl4Term) b;
+                return t1.getOp().equals(t2.getOp()) && t1.getArg0() == t2.getArg0() && t1.getArg1() == t2.getArg1()
+                        && t1.getArg2() == t2.getArg2() && t1.getArg3() == t2.getArg3();
+            } else if(a instanceof ConsTerm) {
+                if(!(b instanceof ConsTerm)) {
+                    return false;
+                }
+                final ConsTerm t1 = (ConsTerm) a, t2 = (ConsTerm) b;
+                return t1.getHead() == t2.getHead() && t1.getTail() == t2.getTail();
+            } else {
+                return !isCompound(b) && a.equals(b);
+            }
+        }
+
+        @Override protected int doHash(ITerm t) {
+            if(t instanceof Appl1Term) {
+                final Appl1Term appl = (Appl1Term) t;
+                return 31 * appl.getOp().hashCode() + System.identityHashCode(appl.getArg0());
+            } else if(t instanceof Appl2Term) {
+                final Appl2Term appl = (Appl2Term) t;
+                int hash = 31 * appl.getOp().hashCode() + System.identityHashCode(appl.getArg0());
+                return 31 * hash + System.identityHashCode(appl.getArg1());
+            } else if(t instanceof Appl3Term) {
+                final Appl3Term appl = (Appl3Term) t;
+                int hash = 31 * appl.getOp().hashCode() + System.identityHashCode(appl.getArg0());
+                hash = 31 * hash + System.identityHashCode(appl.getArg1());
+                return 31 * hash + System.identityHashCode(appl.getArg2());
+            } else if(t instanceof Appl4Term) {
+                final Appl4Term appl = (Appl4Term) t;
+                int hash = 31 * appl.getOp().hashCode() + System.identityHashCode(appl.getArg0());
+                hash = 31 * hash + System.identityHashCode(appl.getArg1());
+                hash = 31 * hash + System.identityHashCode(appl.getArg2());
+                return 31 * hash + System.identityHashCode(appl.getArg3());
+            } else if(t instanceof ConsTerm) {
+                final ConsTerm cons = (ConsTerm) t;
+                return 31 * System.identityHashCode(cons.getHead()) + System.identityHashCode(cons.getTail());
+            } else {
+                return t.hashCode();
+            }
+        }
+
+        private static boolean isCompound(ITerm t) {
+            return t instanceof Appl1Term || t instanceof Appl2Term || t instanceof Appl3Term
+                    || t instanceof Appl4Term || t instanceof ConsTerm;
+        }
+
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package mb.nabl2.terms.io;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.IBlobTerm;
+import mb.nabl2.terms.IConsTerm;
+import mb.nabl2.terms.IIntTerm;
+import mb.nabl2.terms.INilTerm;
+import mb.nabl2.terms.IStringTerm;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.stratego.TermIndex;
+
+/**
+ * Computes content hashes of terms, which are stable between runs. The hash depends on the structure of the term and on
+ * its {@link TermIndex} attachments, but not on how subterms are shared, or on other attachments. Blobs are hashed by
+ * their string representation.
+ */
+public final class TermDigest {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private final MessageDigest digest;
+
+    private TermDigest() {
+        try {
+            this.digest = MessageDigest.getInstance(ALGORITHM);
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not supported.", e);
+        }
+    }
+
+    /**
+     * Compute the hash of a term, as a hexadecimal string.
+     */
+    public static String of(ITerm term) {
+        final TermDigest digest = new TermDigest();
+        digest.update(term);
+        final StringBuilder sb = new StringBuilder();
+        for(byte b : digest.digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Update the digest in a loop, to avoid deep recursion on long lists.
+     */
+    private void update(ITerm root) {
+        final Deque<ITerm> worklist = new ArrayDeque<>();
+        worklist.push(root);
+        while(!worklist.isEmpty()) {
+            final ITerm term = worklist.pop();
+            if(term instanceof IApplTerm) {
+                final IApplTerm appl = (IApplTerm) term;
+                update(TermFormat.APPL);
+                update(appl.getOp());
+                updateInt(appl.getArity());
+                for(int i = appl.getArity() - 1; i >= 0; i--) {
+                    worklist.push(appl.getArgs().get(i));
+                }
+            } else if(term instanceof IConsTerm) {
+                final IConsTerm cons = (IConsTerm) term;
+                update(TermFormat.CONS);
+                worklist.push(cons.getTail());
+                worklist.push(cons.getHead());
+            } else if(term instanceof INilTerm) {
+                update(TermFormat.NIL);
+            } else if(term instanceof IStringTerm) {
+                update(TermFormat.STRING);
+                update(((IStringTerm) term).getValue());
+            } else if(term instanceof IIntTerm) {
+                update(TermFormat.INT);
+                updateInt(((IIntTerm) term).getValue());
+            } else if(term instanceof IBlobTerm) {
+                update(TermFormat.BLOB);
+                update(String.valueOf(((IBlobTerm) term).getValue()));
+            } else if(term instanceof ITermVar) {
+                final ITermVar var = (ITermVar) term;
+                update(TermFormat.VAR);
+                update(var.getResource());
+                update(var.getName());
+            } else {
+                throw new IllegalArgumentException("Unsupported term " + term);
+            }
+            final TermIndex index = TermIndex.get(term).orElse(null);
+            if(index != null) {
+                update(1);
+                update(index.getResource());
+                updateInt(index.getId());
+            } else {
+                update(0);
+            }
+        }
+    }
+
+    private void update(int tag) {
+        digest.update((byte) tag);
+    }
+
+    private void update(String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateInt(bytes.length);
+        digest.update(bytes);
+    }
+
+    private void updateInt(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+}
@@ -0,0 +1,46 @@
+package mb.nabl2.terms.io;
+
+/**
+ * Constants of the binary term format, written by {@link TermWriter} and read by {@link TermReader}.
+ *
+ * <pre>
+ * stream     := MAGIC:int32 VERSION:byte value*
+ * term       := REF index:varint
+ *             | APPL op:string arity:varint term* attachments
+ *             | CONS head:term attachments (CONS head:term attachments)* tail:term
+ *             | NIL attachments
+ *             | STRING value:string attachments
+ *             | INT value:zigzag attachments
+ *             | BLOB value:serialized attachments
+ *             | VAR resource:string name:string attachments
+ * attachment := TERM_INDEX class:string resource:string id:zigzag
+ *             | SERIALIZED class:string value:serialized
+ * attachments:= size:varint attachment*
+ * string     := 0:varint length:varint utf8:byte* | (index + 1):varint
+ * serialized := length:varint byte*
+ * </pre>
+ *
+ * Terms are numbered in the order they are completed, which is after their subterms. Conses of a list are completed
+ * from the last to the first, after the tail. Strings are numbered in the order they first occur.
+ */
+final class TermFormat {
+
+    static final int MAGIC = 0x4E425452;
+    static final int VERSION = 1;
+
+    static final int REF = 0;
+    static final int APPL = 1;
+    static final int CONS = 2;
+    static final int NIL = 3;
+    static final int STRING = 4;
+    static final int INT = 5;
+    static final int BLOB = 6;
+    static final int VAR = 7;
+
+    static final int TERM_INDEX = 0;
+    static final int SERIALIZED = 1;
+
+    private TermFormat() {
+    }
+
+}
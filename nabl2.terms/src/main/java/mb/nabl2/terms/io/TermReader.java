@@ -0,0 +1,245 @@
+package mb.nabl2.terms.io;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.metaborg.util.functions.Function1;
+
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.IAttachments;
+import mb.nabl2.terms.IListTerm;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.build.Attachments;
+import mb.nabl2.terms.stratego.TermIndex;
+
+/**
+ * Reads terms written by {@link TermWriter}. Values must be read in the same order as they were written.
+ */
+public class TermReader implements Closeable {
+
+    private final DataInputStream in;
+    private final Function1<IApplTerm, ? extends ITerm> applReader;
+
+    private final List<ITerm> terms = new ArrayList<>();
+    private final List<String> strings = new ArrayList<>();
+
+    public TermReader(InputStream in) throws IOException {
+        this(in, appl -> appl);
+    }
+
+    /**
+     * @param applReader
+     *            Applied to every application that is read. Used to restore specialized application terms, such as
+     *            scopes.
+     */
+    public TermReader(InputStream in, Function1<IApplTerm, ? extends ITerm> applReader) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        this.applReader = applReader;
+        if(this.in.readInt() != TermFormat.MAGIC) {
+            throw new StreamCorruptedException("Not a term stream.");
+        }
+        final int version = this.in.readUnsignedByte();
+        if(version != TermFormat.VERSION) {
+            throw new StreamCorruptedException(
+                    "Unsupported term stream version " + version + ", expected " + TermFormat.VERSION + ".");
+        }
+    }
+
+    public ITerm readTerm() throws IOException {
+        return readTerm(in.readUnsignedByte());
+    }
+
+    public ITermVar readVar() throws IOException {
+        final ITerm term = readTerm();
+        if(!(term instanceof ITermVar)) {
+            throw new StreamCorruptedException("Expected variable, got " + term);
+        }
+        return (ITermVar) term;
+    }
+
+    public String readString() throws IOException {
+        final int index = readVarint();
+        if(index > 0) {
+            return get(strings, index - 1);
+        }
+        final byte[] bytes = new byte[readVarint()];
+        in.readFully(bytes);
+        final String value = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(value);
+        return value;
+    }
+
+    public int readInt() throws IOException {
+        final int value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    public Object readSerializable() throws IOException {
+        final byte[] bytes = new byte[readVarint()];
+        in.readFully(bytes);
+        try(final ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return objectIn.readObject();
+        } catch(ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override public void close() throws IOException {
+        in.close();
+    }
+
+    private ITerm readTerm(int tag) throws IOException {
+        final ITerm term;
+        switch(tag) {
+            case TermFormat.REF:
+                return get(terms, readVarint());
+            case TermFormat.APPL: {
+                final String op = readString();
+                final int arity = readVarint();
+                final List<ITerm> args = new ArrayList<>(arity);
+                for(int i = 0; i < arity; i++) {
+                    args.add(readTerm());
+                }
+                term = applReader.apply(B.newAppl(op, args, readAttachments()));
+                break;
+            }
+            case TermFormat.CONS:
+                return readList();
+            case TermFormat.NIL:
+                term = B.newNil(readAttachments());
+                break;
+            case TermFormat.STRING: {
+                final String value = readString();
+                term = B.newString(value, readAttachments());
+                break;
+            }
+            case TermFormat.INT: {
+                final int value = readInt();
+                term = B.newInt(value, readAttachments());
+                break;
+            }
+            case TermFormat.BLOB: {
+                final Object value = readSerializable();
+                term = B.newBlob(value, readAttachments());
+                break;
+            }
+            case TermFormat.VAR: {
+                final String resource = readString();
+                final String name = readString();
+                term = B.newVar(resource, name, readAttachments());
+                break;
+            }
+            default:
+                throw new StreamCorruptedException("Unknown term tag " + tag);
+        }
+        terms.add(term);
+        return term;
+    }
+
+    /**
+     * Read the conses of a list in a loop, to avoid deep recursion on long lists.
+     */
+    private IListTerm readList() throws IOException {
+        final Deque<ITerm> heads = new ArrayDeque<>();
+        final Deque<IAttachments> attachments = new ArrayDeque<>();
+        int tag;
+        do {
+            heads.push(readTerm());
+            attachments.push(readAttachments());
+        } while((tag = in.readUnsignedByte()) == TermFormat.CONS);
+        final ITerm tail = readTerm(tag);
+        if(!(tail instanceof IListTerm)) {
+            throw new StreamCorruptedException("Expected list tail, got " + tail);
+        }
+        IListTerm list = (IListTerm) tail;
+        while(!heads.isEmpty()) {
+            list = B.newCons(heads.pop(), list, attachments.pop());
+            terms.add(list);
+        }
+        return list;
+    }
+
+    private IAttachments readAttachments() throws IOException {
+        final int size = readVarint();
+        if(size == 0) {
+            return Attachments.empty();
+        }
+        final IAttachments.Builder attachments = Attachments.Builder.of();
+        for(int i = 0; i < size; i++) {
+            final int tag = in.readUnsignedByte();
+            final String cls = readString();
+            final Object value;
+            switch(tag) {
+                case TermFormat.TERM_INDEX: {
+                    final String resource = readString();
+                    value = TermIndex.of(resource, readInt());
+                    break;
+                }
+                case TermFormat.SERIALIZED:
+                    value = readSerializable();
+                    break;
+                default:
+                    throw new StreamCorruptedException("Unknown attachment tag " + tag);
+            }
+            put(attachments, loadClass(cls, value), value);
+        }
+        return attachments.build();
+    }
+
+    private static Class<?> loadClass(String name, Object value) throws IOException {
+        if(name.equals(value.getClass().getName())) {
+            return value.getClass();
+        }
+        try {
+            return Class.forName(name, false, value.getClass().getClassLoader());
+        } catch(ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked") private static <T> void put(IAttachments.Builder attachments, Class<T> cls,
+            Object value) {
+        attachments.put(cls, (T) value);
+    }
+
+    private static <T> T get(List<T> table, int index) throws StreamCorruptedException {
+        if(index < 0 || index >= table.size()) {
+            throw new StreamCorruptedException("Invalid reference " + index);
+        }
+        return table.get(index);
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if(shift > 28) {
+                throw new StreamCorruptedException("Malformed integer.");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+}
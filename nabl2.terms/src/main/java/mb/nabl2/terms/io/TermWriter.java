@@ -0,0 +1,246 @@
+package mb.nabl2.terms.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.metaborg.util.unit.Unit;
+
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.IAttachments;
+import mb.nabl2.terms.IBlobTerm;
+import mb.nabl2.terms.IConsTerm;
+import mb.nabl2.terms.IIntTerm;
+import mb.nabl2.terms.IListTerm;
+import mb.nabl2.terms.INilTerm;
+import mb.nabl2.terms.IStringTerm;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.stratego.TermIndex;
+
+/**
+ * Writes terms in a compact binary format, which is read by {@link TermReader}. All values written to the same writer
+ * share a term table and a string table, so a term or string that was written before is written as a reference.
+ *
+ * Terms are shared if they are the same object. Strings, integers, nils and variables without attachments are also
+ * shared if they are equal. Larger terms are not shared by equality, because equality ignores the attachments of
+ * subterms. Attachments of type {@link TermIndex} are written directly, other attachments and blobs are written with
+ * Java serialization.
+ */
+public class TermWriter implements Closeable, Flushable {
+
+    private final DataOutputStream out;
+
+    private final Map<ITerm, Integer> terms = new IdentityHashMap<>();
+    private final Map<ITerm, Integer> leafs = new HashMap<>();
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    private final ITerm.CheckedCases<Unit, IOException> cases = new ITerm.CheckedCases<Unit, IOException>() {
+
+        @Override public Unit caseAppl(IApplTerm appl) throws IOException {
+            writeAppl(appl);
+            return Unit.unit;
+        }
+
+        @Override public Unit caseList(IListTerm list) throws IOException {
+            writeList(list);
+            return Unit.unit;
+        }
+
+        @Override public Unit caseString(IStringTerm string) throws IOException {
+            out.writeByte(TermFormat.STRING);
+            writeString(string.getValue());
+            writeAttachments(string.getAttachments());
+            register(string);
+            return Unit.unit;
+        }
+
+        @Override public Unit caseInt(IIntTerm integer) throws IOException {
+            out.writeByte(TermFormat.INT);
+            writeInt(integer.getValue());
+            writeAttachments(integer.getAttachments());
+            register(integer);
+            return Unit.unit;
+        }
+
+        @Override public Unit caseBlob(IBlobTerm blob) throws IOException {
+            out.writeByte(TermFormat.BLOB);
+            writeSerializable(blob.getValue());
+            writeAttachments(blob.getAttachments());
+            register(blob);
+            return Unit.unit;
+        }
+
+        @Override public Unit caseVar(ITermVar var) throws IOException {
+            out.writeByte(TermFormat.VAR);
+            writeString(var.getResource());
+            writeString(var.getName());
+            writeAttachments(var.getAttachments());
+            register(var);
+            return Unit.unit;
+        }
+
+    };
+
+    public TermWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(TermFormat.MAGIC);
+        this.out.writeByte(TermFormat.VERSION);
+    }
+
+    public void writeTerm(ITerm term) throws IOException {
+        if(!writeRef(term)) {
+            term.matchOrThrow(cases);
+        }
+    }
+
+    public void writeString(String value) throws IOException {
+        final Integer index;
+        if((index = strings.get(value)) != null) {
+            writeVarint(index + 1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(0);
+        writeVarint(bytes.length);
+        out.write(bytes);
+        strings.put(value, strings.size());
+    }
+
+    public void writeInt(int value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    /**
+     * Write a value with Java serialization. The value does not share terms or strings with the rest of the stream.
+     */
+    public void writeSerializable(Object value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(final ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+            objectOut.writeObject(value);
+        }
+        writeVarint(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    @Override public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeAppl(IApplTerm appl) throws IOException {
+        out.writeByte(TermFormat.APPL);
+        writeString(appl.getOp());
+        writeVarint(appl.getArity());
+        for(ITerm arg : appl.getArgs()) {
+            writeTerm(arg);
+        }
+        writeAttachments(appl.getAttachments());
+        register(appl);
+    }
+
+    /**
+     * Write the conses of a list in a loop, to avoid deep recursion on long lists.
+     */
+    private void writeList(IListTerm list) throws IOException {
+        final Deque<IConsTerm> conses = new ArrayDeque<>();
+        IListTerm current = list;
+        while(current instanceof IConsTerm && (conses.isEmpty() || !writeRef(current))) {
+            final IConsTerm cons = (IConsTerm) current;
+            out.writeByte(TermFormat.CONS);
+            writeTerm(cons.getHead());
+            writeAttachments(cons.getAttachments());
+            conses.push(cons);
+            current = cons.getTail();
+        }
+        if(current instanceof INilTerm) {
+            if(conses.isEmpty() || !writeRef(current)) {
+                out.writeByte(TermFormat.NIL);
+                writeAttachments(current.getAttachments());
+                register(current);
+            }
+        } else if(!(current instanceof IConsTerm)) {
+            writeTerm(current);
+        }
+        while(!conses.isEmpty()) {
+            register(conses.pop());
+        }
+    }
+
+    private void writeAttachments(IAttachments attachments) throws IOException {
+        if(attachments.isEmpty()) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(attachments.keySet().size());
+        for(Class<?> cls : attachments.keySet()) {
+            final Object value = attachments.get(cls);
+            if(value instanceof TermIndex) {
+                final TermIndex index = (TermIndex) value;
+                out.writeByte(TermFormat.TERM_INDEX);
+                writeString(cls.getName());
+                writeString(index.getResource());
+                writeInt(index.getId());
+            } else {
+                out.writeByte(TermFormat.SERIALIZED);
+                writeString(cls.getName());
+                writeSerializable(value);
+            }
+        }
+    }
+
+    private boolean writeRef(ITerm term) throws IOException {
+        Integer index = terms.get(term);
+        if(index == null && isLeaf(term)) {
+            index = leafs.get(term);
+        }
+        if(index == null) {
+            return false;
+        }
+        out.writeByte(TermFormat.REF);
+        writeVarint(index);
+        return true;
+    }
+
+    private void register(ITerm term) {
+        final int index = terms.size() + leafs.size();
+        if(isLeaf(term)) {
+            leafs.put(term, index);
+        } else {
+            terms.put(term, index);
+        }
+    }
+
+    private static boolean isLeaf(ITerm term) {
+        return term.getAttachments().isEmpty() && (term instanceof IStringTerm || term instanceof IIntTerm
+                || term instanceof INilTerm || term instanceof ITermVar);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        int rest = value;
+        while((rest & ~0x7F) != 0) {
+            out.writeByte((rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        out.writeByte(rest);
+    }
+
+}
@@ -55,6 +55,10 @@ class ApplPattern extends Pattern {
         return true;
     }
 
+    @Override public TermHead getHead() {
+        return TermHead.appl(op, args.size());
+    }
+
     @Override protected boolean matchTerm(ITerm term, ISubstitution.Transient subst, IUnifier.Immutable unifier,
             Eqs eqs) {
         // @formatter:off
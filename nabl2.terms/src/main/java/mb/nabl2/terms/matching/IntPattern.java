@@ -41,6 +41,10 @@ class IntPattern extends Pattern {
         return true;
     }
 
+    @Override public TermHead getHead() {
+        return TermHead.integer(value);
+    }
+
     @Override protected boolean matchTerm(ITerm term, ISubstitution.Transient subst, IUnifier.Immutable unifier,
             Eqs eqs) {
         // @formatter:off
@@ -34,6 +34,10 @@ class NilPattern extends Pattern {
         return true;
     }
 
+    @Override public TermHead getHead() {
+        return TermHead.nil();
+    }
+
     @Override protected boolean matchTerm(ITerm term, ISubstitution.Transient subst, IUnifier.Immutable unifier,
             Eqs eqs) {
         // @formatter:off
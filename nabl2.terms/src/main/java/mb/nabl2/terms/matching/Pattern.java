@@ -47,6 +47,14 @@ public abstract class Pattern implements Serializable {
 
     public abstract boolean isConstructed();
 
+    /**
+     * Return the head of terms matched by this pattern, or null if this pattern matches terms regardless of their head.
+     * A term can only match this pattern if it is a variable, or if {@link TermHead#of(ITerm)} is equal to this head.
+     */
+    public @Nullable TermHead getHead() {
+        return null;
+    }
+
     public Optional<ISubstitution.Immutable> match(ITerm term) {
         return match(term, Unifiers.Immutable.of()).match(t -> t, v -> Optional.empty());
     }
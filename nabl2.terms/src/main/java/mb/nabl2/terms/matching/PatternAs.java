@@ -67,6 +67,10 @@ class PatternAs extends Pattern {
         return pattern.isConstructed();
     }
 
+    @Override public @Nullable TermHead getHead() {
+        return pattern.getHead();
+    }
+
     @Override protected boolean matchTerm(ITerm term, ISubstitution.Transient subst, IUnifier.Immutable unifier,
             Eqs eqs) {
         return matchTerms(Iterables2.from(var, pattern), Iterables2.from(term, term), subst, unifier, eqs);
@@ -0,0 +1,134 @@
+package mb.nabl2.terms.matching;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.IBlobTerm;
+import mb.nabl2.terms.IIntTerm;
+import mb.nabl2.terms.IListTerm;
+import mb.nabl2.terms.IStringTerm;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.ListTerms;
+
+/**
+ * The outermost constructor of a term or pattern: the operator and arity of applications, the literal value of strings
+ * and integers, or the list constructor.
+ *
+ * A term can only match a pattern if both have the same head, or if either has no head (i.e., the term is a variable,
+ * or the pattern is a variable or wildcard).
+ */
+public final class TermHead implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private enum Kind {
+        APPL, CONS, NIL, STRING, INT
+    }
+
+    private static final TermHead CONS = new TermHead(Kind.CONS, null, 2);
+    private static final TermHead NIL = new TermHead(Kind.NIL, null, 0);
+
+    private final Kind kind;
+    private final @Nullable Object value;
+    private final int arity;
+
+    private TermHead(Kind kind, @Nullable Object value, int arity) {
+        this.kind = kind;
+        this.value = value;
+        this.arity = arity;
+    }
+
+    public static TermHead appl(String op, int arity) {
+        return new TermHead(Kind.APPL, op, arity);
+    }
+
+    public static TermHead cons() {
+        return CONS;
+    }
+
+    public static TermHead nil() {
+        return NIL;
+    }
+
+    public static TermHead string(String value) {
+        return new TermHead(Kind.STRING, value, 0);
+    }
+
+    public static TermHead integer(int value) {
+        return new TermHead(Kind.INT, value, 0);
+    }
+
+    /**
+     * Return the head of the given term, or null if the term is a variable or blob, which do not have a head that can
+     * be used for discrimination. Callers should pass in terms that are already resolved in their unifier.
+     */
+    public static @Nullable TermHead of(ITerm term) {
+        // @formatter:off
+        return term.match(new ITerm.Cases<TermHead>() {
+
+            @Override public TermHead caseAppl(IApplTerm appl) {
+                return appl(appl.getOp(), appl.getArity());
+            }
+
+            @Override public TermHead caseList(IListTerm list) {
+                return list.match(ListTerms.<TermHead>cases()
+                    .cons(cons -> CONS)
+                    .nil(nil -> NIL)
+                    .otherwise(var -> null)
+                );
+            }
+
+            @Override public TermHead caseString(IStringTerm string) {
+                return string(string.getValue());
+            }
+
+            @Override public TermHead caseInt(IIntTerm integer) {
+                return integer(integer.getValue());
+            }
+
+            @Override public TermHead caseBlob(IBlobTerm blob) {
+                return null;
+            }
+
+            @Override public TermHead caseVar(ITermVar var) {
+                return null;
+            }
+
+        });
+        // @formatter:on
+    }
+
+    @Override public boolean equals(Object o) {
+        if(this == o)
+            return true;
+        if(o == null || getClass() != o.getClass())
+            return false;
+        TermHead that = (TermHead) o;
+        return kind == that.kind && arity == that.arity && Objects.equals(value, that.value);
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(kind, value, arity);
+    }
+
+    @Override public String toString() {
+        switch(kind) {
+            case APPL:
+                return value + "/" + arity;
+            case CONS:
+                return "[_|_]";
+            case NIL:
+                return "[]";
+            case STRING:
+                return "\"" + value + "\"";
+            case INT:
+            default:
+                return String.valueOf(value);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package mb.nabl2.terms.stratego;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.functions.Action1;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+import com.google.common.collect.ImmutableList;
+
+import io.usethesource.capsule.Set;
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.IAttachments;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.build.AbstractApplTerm;
+
+/**
+ * View of a Stratego application or tuple. The arguments and attachments are converted on first use. Concurrent first
+ * uses may convert them more than once, which gives equal results.
+ */
+class StrategoApplView extends AbstractApplTerm implements StrategoTermView, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient IStrategoTerm sterm;
+    private final String op;
+
+    private transient volatile @Nullable List<ITerm> args;
+    private transient volatile @Nullable IAttachments attachments;
+
+    StrategoApplView(IStrategoTerm sterm, String op) {
+        this.sterm = sterm;
+        this.op = op;
+    }
+
+    @Override public IStrategoTerm getStrategoTerm() {
+        return sterm;
+    }
+
+    @Override protected IApplTerm check() {
+        return this;
+    }
+
+    @Override public String getOp() {
+        return op;
+    }
+
+    @Override public int getArity() {
+        return sterm.getSubtermCount();
+    }
+
+    @Override public List<ITerm> getArgs() {
+        List<ITerm> result;
+        if((result = args) == null) {
+            final IStrategoTerm[] subTerms = sterm.getAllSubterms();
+            final ImmutableList.Builder<ITerm> args = ImmutableList.builderWithExpectedSize(subTerms.length);
+            for(IStrategoTerm subTerm : subTerms) {
+                args.add(StrategoTermView.of(subTerm));
+            }
+            this.args = (result = args.build());
+        }
+        return result;
+    }
+
+    @Override public IAttachments getAttachments() {
+        IAttachments result;
+        if((result = attachments) == null) {
+            this.attachments = (result = StrategoTerms.getAttachments(sterm));
+        }
+        return result;
+    }
+
+    @Override public IApplTerm withAttachments(IAttachments value) {
+        return B.newAppl(op, getArgs(), value);
+    }
+
+    @Override public boolean isGround() {
+        return true;
+    }
+
+    @Override public Set.Immutable<ITermVar> getVars() {
+        return CapsuleUtil.immutableSet();
+    }
+
+    @Override public void visitVars(Action1<ITermVar> onVar) {
+    }
+
+    @Override public boolean equals(Object other) {
+        if(other instanceof StrategoTermView && ((StrategoTermView) other).getStrategoTerm() == sterm) {
+            return true;
+        }
+        return super.equals(other);
+    }
+
+    /**
+     * Views are serialized as regular terms, because Stratego terms may not be serializable.
+     */
+    private Object writeReplace() {
+        return B.newAppl(op, getArgs(), getAttachments());
+    }
+
+}
@@ -0,0 +1,169 @@
+package mb.nabl2.terms.stratego;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.functions.Action1;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+import io.usethesource.capsule.Set;
+import mb.nabl2.terms.IAttachments;
+import mb.nabl2.terms.IConsTerm;
+import mb.nabl2.terms.IListTerm;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.build.AbstractTerm;
+
+/**
+ * View of a non-empty Stratego list. The head, tail and attachments are converted on first use. Concurrent first uses
+ * may convert them more than once, which gives equal results.
+ *
+ * Hash codes are equal to those of regular lists. Regular lists compute them on construction, from the tail to the
+ * head, but views compute them on first use, so they are computed in a loop to avoid deep recursion on long lists.
+ */
+class StrategoConsView extends AbstractTerm implements IConsTerm, StrategoTermView, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient IStrategoList sterm;
+
+    private transient volatile @Nullable ITerm head;
+    private transient volatile @Nullable IListTerm tail;
+    private transient volatile @Nullable IAttachments attachments;
+    private transient volatile int hashCode;
+
+    StrategoConsView(IStrategoList sterm) {
+        this.sterm = sterm;
+    }
+
+    @Override public IStrategoTerm getStrategoTerm() {
+        return sterm;
+    }
+
+    @Override public ITerm getHead() {
+        ITerm result;
+        if((result = head) == null) {
+            this.head = (result = StrategoTermView.of(sterm.head()));
+        }
+        return result;
+    }
+
+    @Override public IListTerm getTail() {
+        IListTerm result;
+        if((result = tail) == null) {
+            this.tail = (result = (IListTerm) StrategoTermView.of(sterm.tail()));
+        }
+        return result;
+    }
+
+    @Override public IAttachments getAttachments() {
+        IAttachments result;
+        if((result = attachments) == null) {
+            this.attachments = (result = StrategoTerms.getAttachments(sterm));
+        }
+        return result;
+    }
+
+    @Override public IConsTerm withAttachments(IAttachments value) {
+        return B.newCons(getHead(), getTail(), value);
+    }
+
+    @Override public int getMinSize() {
+        return sterm.size();
+    }
+
+    @Override public boolean isGround() {
+        return true;
+    }
+
+    @Override public Set.Immutable<ITermVar> getVars() {
+        return CapsuleUtil.immutableSet();
+    }
+
+    @Override public void visitVars(Action1<ITermVar> onVar) {
+    }
+
+    @Override public <T> T match(ITerm.Cases<T> cases) {
+        return cases.caseList(this);
+    }
+
+    @Override public <T, E extends Throwable> T matchOrThrow(ITerm.CheckedCases<T, E> cases) throws E {
+        return cases.caseList(this);
+    }
+
+    @Override public <T> T match(IListTerm.Cases<T> cases) {
+        return cases.caseCons(this);
+    }
+
+    @Override public <T, E extends Throwable> T matchOrThrow(IListTerm.CheckedCases<T, E> cases) throws E {
+        return cases.caseCons(this);
+    }
+
+    @Override public int hashCode() {
+        if(hashCode == 0) {
+            final List<StrategoConsView> conses = new ArrayList<>();
+            IListTerm list = this;
+            while(list instanceof StrategoConsView && ((StrategoConsView) list).hashCode == 0) {
+                conses.add((StrategoConsView) list);
+                list = ((StrategoConsView) list).getTail();
+            }
+            int tailHash = list.hashCode();
+            for(int i = conses.size() - 1; i >= 0; i--) {
+                final StrategoConsView cons = conses.get(i);
+                cons.hashCode = (tailHash = Objects.hash(cons.getHead(), tailHash));
+            }
+        }
+        return hashCode;
+    }
+
+    @Override public boolean equals(Object other) {
+        IListTerm list = this;
+        Object that = other;
+        while(list instanceof StrategoConsView) {
+            final StrategoConsView cons = (StrategoConsView) list;
+            if(cons == that || (that instanceof StrategoTermView
+                    && ((StrategoTermView) that).getStrategoTerm() == cons.sterm)) {
+                return true;
+            }
+            if(!(that instanceof IConsTerm)) {
+                return false;
+            }
+            final IConsTerm thatCons = (IConsTerm) that;
+            if(cons.hashCode() != thatCons.hashCode() || !cons.getHead().equals(thatCons.getHead())) {
+                return false;
+            }
+            list = cons.getTail();
+            that = thatCons.getTail();
+        }
+        return list.equals(that);
+    }
+
+    @Override public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        sb.append(getHead());
+        IListTerm list = getTail();
+        while(list instanceof IConsTerm) {
+            sb.append(",");
+            sb.append(((IConsTerm) list).getHead());
+            list = ((IConsTerm) list).getTail();
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Views are serialized as regular terms, because Stratego terms may not be serializable.
+     */
+    private Object writeReplace() {
+        return B.newCons(getHead(), getTail(), getAttachments());
+    }
+
+}
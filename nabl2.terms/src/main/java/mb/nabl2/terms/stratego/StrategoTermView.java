@@ -0,0 +1,36 @@
+package mb.nabl2.terms.stratego;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.Terms;
+
+/**
+ * A term that is a view of an unchanged Stratego term, which is returned as is when the term is converted back.
+ *
+ * Views are created for compound terms only, and convert their subterms when they are first accessed. Leaf terms are
+ * cheap to convert, and are converted with the children of their parent. Views never contain variables, because
+ * placeholders are not supported.
+ */
+interface StrategoTermView extends ITerm {
+
+    IStrategoTerm getStrategoTerm();
+
+    static ITerm of(IStrategoTerm sterm) {
+        // @formatter:off
+        return StrategoTerms.match(sterm, StrategoTerms.cases(
+            appl -> new StrategoApplView(appl, appl.getConstructor().getName()),
+            tuple -> tuple.getSubtermCount() == 1 ? of(tuple.getSubterm(0)) : new StrategoApplView(tuple, Terms.TUPLE_OP),
+            list -> list.isEmpty() ? B.newNil(StrategoTerms.getAttachments(list)) : new StrategoConsView(list),
+            integer -> B.newInt(integer.intValue(), StrategoTerms.getAttachments(integer)),
+            real -> { throw new IllegalArgumentException("Real values are not supported."); },
+            string -> B.newString(string.stringValue(), StrategoTerms.getAttachments(string)),
+            blob -> B.newBlob(blob.value()),
+            plhdr -> { throw new IllegalArgumentException("Placeholders are not supported."); }
+        ));
+        // @formatter:on
+    }
+
+}
@@ -45,6 +45,9 @@ public class StrategoTerms {
     }
 
     public IStrategoTerm toStratego(ITerm term, boolean varsToPlhdrs) {
+        if(term instanceof StrategoTermView) {
+            return ((StrategoTermView) term).getStrategoTerm();
+        }
         // @formatter:off
         IStrategoTerm strategoTerm = term.match(Terms.cases(
             appl -> {
@@ -79,7 +82,12 @@ public class StrategoTerms {
     private IStrategoTerm toStrategoList(IListTerm list, boolean varsToPlhdrs) {
         final LinkedList<IStrategoTerm> terms = Lists.newLinkedList();
         final LinkedList<IAttachments> attachments = Lists.newLinkedList();
+        @Nullable IStrategoList strategoTail = null;
         while(list != null) {
+            if(list instanceof StrategoTermView) {
+                strategoTail = (IStrategoList) ((StrategoTermView) list).getStrategoTerm();
+                break;
+            }
             attachments.push(list.getAttachments());
             // @formatter:off
             list = list.match(ListTerms.<IListTerm>cases(
@@ -96,8 +104,13 @@ public class StrategoTerms {
             ));
             // @formatter:on
         }
-        IStrategoList strategoList = termFactory.makeList();
-        putAttachments(strategoList, attachments.pop());
+        IStrategoList strategoList;
+        if(strategoTail != null) {
+            strategoList = strategoTail;
+        } else {
+            strategoList = termFactory.makeList();
+            putAttachments(strategoList, attachments.pop());
+        }
         while(!terms.isEmpty()) {
             strategoList = termFactory.makeListCons(terms.pop(), strategoList);
             putAttachments(strategoList, attachments.pop());
@@ -136,6 +149,15 @@ public class StrategoTerms {
         return fromStratego(sterm, null);
     }
 
+    /**
+     * Convert a Stratego term lazily. Compound terms are returned as views, which convert their subterms when they are
+     * first accessed. Views that are converted back to Stratego return the original term, so unchanged subterms of a
+     * result are not copied. Placeholders are not supported, and are reported when they are accessed.
+     */
+    public ITerm lazyFromStratego(IStrategoTerm sterm) {
+        return StrategoTermView.of(sterm);
+    }
+
     public ITerm fromStratego(IStrategoTerm sterm, @Nullable VarProvider varProvider) {
         @Nullable IAttachments attachments = getAttachments(sterm);
         // @formatter:off
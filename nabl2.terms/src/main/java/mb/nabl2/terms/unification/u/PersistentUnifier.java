@@ -8,8 +8,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
 
-import org.metaborg.util.Ref;
 import org.metaborg.util.collection.CapsuleUtil;
 import org.metaborg.util.collection.MultiSet;
 import org.metaborg.util.functions.Predicate1;
@@ -57,15 +59,23 @@ public abstract class PersistentUnifier extends BaseUnifier implements IUnifier,
 
         private final boolean finite;
 
-        private final Ref<Map.Immutable<ITermVar, ITermVar>> reps;
+        private final Map.Immutable<ITermVar, ITermVar> reps;
         private final Map.Immutable<ITermVar, Integer> ranks;
         private final Map.Immutable<ITermVar, ITerm> terms;
 
-        private final Ref<MultiSet.Immutable<ITermVar>> repAndTermVarsCache;
+        private final MultiSet.Immutable<ITermVar> repAndTermVarsCache;
         private final Set.Immutable<ITermVar> domainSetCache;
         private final Set.Immutable<ITermVar> rangeSetCache;
         private final Set.Immutable<ITermVar> varSetCache;
 
+        /**
+         * Representatives of variables that are more than one step away from their representative. The unifier is
+         * immutable, so entries never become stale. Lookups do not change the unifier itself, which makes them safe
+         * for concurrent readers. The compressed paths are applied in one batch to the representatives of unifiers
+         * derived from this one. Created on first use; a race may create it twice, which only loses some paths.
+         */
+        private transient volatile @Nullable ConcurrentHashMap<ITermVar, ITermVar> compressedReps;
+
         // FIXME Should be `package`, but is `public` for constructor in PersistentUniDisunifier
         public Immutable(final boolean finite, final Map.Immutable<ITermVar, ITermVar> reps,
                 final Map.Immutable<ITermVar, Integer> ranks, final Map.Immutable<ITermVar, ITerm> terms,
@@ -73,11 +83,11 @@ public abstract class PersistentUnifier extends BaseUnifier implements IUnifier,
                 Set.Immutable<ITermVar> rangeSetCache, Set.Immutable<ITermVar> varSetCache) {
             this.finite = finite;
 
-            this.reps = new Ref<>(reps);
+            this.reps = reps;
             this.ranks = ranks;
             this.terms = terms;
 
-            this.repAndTermVarsCache = new Ref<>(repAndTermVarsCache);
+            this.repAndTermVarsCache = repAndTermVarsCache;
             this.domainSetCache = domainSetCache;
             this.rangeSetCache = rangeSetCache;
             this.varSetCache = varSetCache;
@@ -88,20 +98,40 @@ public abstract class PersistentUnifier extends BaseUnifier implements IUnifier,
         }
 
         @Override protected Map.Immutable<ITermVar, ITermVar> reps() {
-            return reps.get();
+            return reps;
         }
 
         @Override protected Map.Immutable<ITermVar, ITerm> terms() {
             return terms;
         }
 
+        Map.Immutable<ITermVar, Integer> ranks() {
+            return ranks;
+        }
+
         @Override public ITermVar findRep(ITermVar var) {
-            final Map.Transient<ITermVar, ITermVar> reps = this.reps.get().asTransient();
-            final MultiSet.Transient<ITermVar> repAndTermVarsCache = this.repAndTermVarsCache.get().melt();
-            final ITermVar rep = findRep(var, reps, repAndTermVarsCache);
-            this.reps.set(reps.freeze());
-            this.repAndTermVarsCache.set(repAndTermVarsCache.freeze());
-            return rep;
+            final ITermVar rep;
+            if((rep = reps.get(var)) == null) {
+                return var;
+            }
+            ITermVar next;
+            if((next = reps.get(rep)) == null) {
+                return rep;
+            }
+            ConcurrentHashMap<ITermVar, ITermVar> compressedReps;
+            if((compressedReps = this.compressedReps) == null) {
+                this.compressedReps = (compressedReps = new ConcurrentHashMap<>());
+            }
+            ITermVar root;
+            if((root = compressedReps.get(var)) != null) {
+                return root;
+            }
+            root = next;
+            while((next = reps.get(root)) != null) {
+                root = next;
+            }
+            compressedReps.put(var, root);
+            return root;
         }
 
         ///////////////////////////////////////////
@@ -535,7 +565,7 @@ public abstract class PersistentUnifier extends BaseUnifier implements IUnifier,
                 return this;
             }
             final Map.Transient<ITermVar, ITermVar> reps = Map.Transient.of();
-            for(Entry<ITermVar, ITermVar> e : this.reps.get().entrySet()) {
+            for(Entry<ITermVar, ITermVar> e : this.reps.entrySet()) {
                 reps.__put(renaming.rename(e.getKey()), renaming.rename(e.getValue()));
             }
             final Map.Transient<ITermVar, Integer> ranks = Map.Transient.of();
@@ -547,7 +577,7 @@ public abstract class PersistentUnifier extends BaseUnifier implements IUnifier,
                 terms.__put(renaming.rename(e.getKey()), renaming.apply(e.getValue()));
             }
             final MultiSet.Transient<ITermVar> repAndTermVarsCache = MultiSet.Transient.of();
-            for(Entry<ITermVar, Integer> e : this.repAndTermVarsCache.get().entrySet()) {
+            for(Entry<ITermVar, Integer> e : this.repAndTermVarsCache.entrySet()) {
                 repAndTermVarsCache.add(renaming.rename(e.getKey()), e.getValue());
             }
             final Set.Transient<ITermVar> domainSetCache = CapsuleUtil.transientSet();
@@ -643,10 +673,16 @@ public abstract class PersistentUnifier extends BaseUnifier implements IUnifier,
         }
 
         public Transient(PersistentUnifier.Immutable unifier) {
-            this(unifier.finite, unifier.reps.get().asTransient(), unifier.ranks.asTransient(),
-                    unifier.terms.asTransient(), unifier.repAndTermVarsCache.get().melt(),
+            this(unifier.finite, unifier.reps.asTransient(), unifier.ranks.asTransient(),
+                    unifier.terms.asTransient(), unifier.repAndTermVarsCache.melt(),
                     unifier.domainSetCache.asTransient(), unifier.rangeSetCache.asTransient(),
                     unifier.varSetCache.asTransient());
+            final ConcurrentHashMap<ITermVar, ITermVar> compressedReps;
+            if((compressedReps = unifier.compressedReps) != null) {
+                for(Entry<ITermVar, ITermVar> e : compressedReps.entrySet()) {
+                    compressRep(e.getKey(), e.getValue());
+                }
+            }
         }
 
         Transient(boolean finite, Map.Transient<ITermVar, ITermVar> reps, Map.Transient<ITermVar, Integer> ranks,
@@ -678,6 +714,14 @@ public abstract class PersistentUnifier extends BaseUnifier implements IUnifier,
             return PersistentUnifier.findRep(var, reps, repAndTermVarsCache);
         }
 
+        private void compressRep(ITermVar var, ITermVar root) {
+            final ITermVar rep = reps.__put(var, root);
+            if(!root.equals(rep)) {
+                repAndTermVarsCache.remove(rep);
+                repAndTermVarsCache.add(root);
+            }
+        }
+
         protected ITermVar getRep(ITermVar var) {
             return reps.get(var);
         }
@@ -0,0 +1,64 @@
+package mb.nabl2.terms.unification.u;
+
+import java.io.IOException;
+import java.util.Map.Entry;
+
+import io.usethesource.capsule.Map;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.io.TermReader;
+import mb.nabl2.terms.io.TermWriter;
+
+/**
+ * Writes and reads persistent unifiers with the binary term format. The representatives, ranks and terms are written
+ * as they are, so the read unifier is structurally the same as the written one.
+ */
+public final class UnifierCodec {
+
+    private UnifierCodec() {
+    }
+
+    public static void write(TermWriter out, IUnifier.Immutable unifier) throws IOException {
+        if(!(unifier instanceof PersistentUnifier.Immutable)) {
+            throw new IllegalArgumentException("Cannot write unifier of " + unifier.getClass());
+        }
+        final PersistentUnifier.Immutable persistent = (PersistentUnifier.Immutable) unifier;
+        out.writeBoolean(persistent.isFinite());
+        out.writeInt(persistent.reps().size());
+        for(Entry<ITermVar, ITermVar> e : persistent.reps().entrySet()) {
+            out.writeTerm(e.getKey());
+            out.writeTerm(e.getValue());
+        }
+        out.writeInt(persistent.ranks().size());
+        for(Entry<ITermVar, Integer> e : persistent.ranks().entrySet()) {
+            out.writeTerm(e.getKey());
+            out.writeInt(e.getValue());
+        }
+        out.writeInt(persistent.terms().size());
+        for(Entry<ITermVar, ITerm> e : persistent.terms().entrySet()) {
+            out.writeTerm(e.getKey());
+            out.writeTerm(e.getValue());
+        }
+    }
+
+    public static PersistentUnifier.Immutable read(TermReader in) throws IOException {
+        final boolean finite = in.readBoolean();
+        final Map.Transient<ITermVar, ITermVar> reps = Map.Transient.of();
+        for(int i = in.readInt(); i > 0; i--) {
+            final ITermVar var = in.readVar();
+            reps.__put(var, in.readVar());
+        }
+        final Map.Transient<ITermVar, Integer> ranks = Map.Transient.of();
+        for(int i = in.readInt(); i > 0; i--) {
+            final ITermVar var = in.readVar();
+            ranks.__put(var, in.readInt());
+        }
+        final Map.Transient<ITermVar, ITerm> terms = Map.Transient.of();
+        for(int i = in.readInt(); i > 0; i--) {
+            final ITermVar var = in.readVar();
+            terms.__put(var, in.readTerm());
+        }
+        return PersistentUnifier.Immutable.of(finite, reps.freeze(), ranks.freeze(), terms.freeze());
+    }
+
+}
@@ -36,7 +36,7 @@ public class Diseq {
     private final Set.Immutable<ITermVar> domainSetCache;
     private final Set.Immutable<ITermVar> freeVarSetCache;
 
-    private Diseq(Set.Immutable<ITermVar> universals, IUnifier.Immutable diseqs) {
+    Diseq(Set.Immutable<ITermVar> universals, IUnifier.Immutable diseqs) {
         this.universals = CapsuleUtil.toSet(universals);
         this.diseqs = diseqs;
         this.domainSetCache = this.diseqs.domainSet().__removeAll(this.universals);
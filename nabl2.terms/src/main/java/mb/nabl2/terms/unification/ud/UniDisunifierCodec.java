@@ -0,0 +1,54 @@
+package mb.nabl2.terms.unification.ud;
+
+import java.io.IOException;
+
+import org.metaborg.util.collection.CapsuleUtil;
+
+import io.usethesource.capsule.Set;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.io.TermReader;
+import mb.nabl2.terms.io.TermWriter;
+import mb.nabl2.terms.unification.u.PersistentUnifier;
+import mb.nabl2.terms.unification.u.UnifierCodec;
+
+/**
+ * Writes and reads persistent unifiers with disequalities with the binary term format.
+ */
+public final class UniDisunifierCodec {
+
+    private UniDisunifierCodec() {
+    }
+
+    public static void write(TermWriter out, IUniDisunifier.Immutable unifier) throws IOException {
+        if(!(unifier instanceof PersistentUniDisunifier.Immutable)) {
+            throw new IllegalArgumentException("Cannot write unifier of " + unifier.getClass());
+        }
+        final PersistentUniDisunifier.Immutable persistent = (PersistentUniDisunifier.Immutable) unifier;
+        UnifierCodec.write(out, persistent.unifier());
+        out.writeInt(persistent.disequalities().size());
+        for(Diseq diseq : persistent.disequalities()) {
+            out.writeInt(diseq.universals().size());
+            for(ITermVar var : diseq.universals()) {
+                out.writeTerm(var);
+            }
+            UnifierCodec.write(out, diseq.disequalities());
+        }
+    }
+
+    public static PersistentUniDisunifier.Immutable read(TermReader in) throws IOException {
+        final PersistentUnifier.Immutable unifier = UnifierCodec.read(in);
+        final Set.Transient<Diseq> disequalities = CapsuleUtil.transientSet();
+        for(int i = in.readInt(); i > 0; i--) {
+            final Set.Transient<ITermVar> universals = CapsuleUtil.transientSet();
+            for(int j = in.readInt(); j > 0; j--) {
+                universals.__insert(in.readVar());
+            }
+            disequalities.__insert(new Diseq(universals.freeze(), UnifierCodec.read(in)));
+        }
+        if(unifier.isEmpty() && disequalities.isEmpty()) {
+            return PersistentUniDisunifier.Immutable.of(unifier.isFinite());
+        }
+        return new PersistentUniDisunifier.Immutable(unifier, disequalities.freeze());
+    }
+
+}
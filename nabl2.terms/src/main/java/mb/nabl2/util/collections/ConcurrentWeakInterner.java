@@ -0,0 +1,221 @@
+package mb.nabl2.util.collections;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Equivalence;
+
+/**
+ * A concurrent interning table that holds its values weakly.
+ *
+ * The table is split into independently locked stripes. Lookups of values that are already interned do not take any
+ * locks, and only inserts and the removal of collected values lock the stripe they belong to. Values are compared
+ * using the given equivalence, which allows hash-consing on something else than the values' own equals and hashCode.
+ */
+public class ConcurrentWeakInterner<T> {
+
+    private static final int MAX_STRIPES = 1 << 10;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Equivalence<? super T> equivalence;
+    private final Stripe<T>[] stripes;
+    private final int stripeShift;
+
+    public ConcurrentWeakInterner() {
+        this(Equivalence.equals());
+    }
+
+    public ConcurrentWeakInterner(Equivalence<? super T> equivalence) {
+        this(equivalence, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked") public ConcurrentWeakInterner(Equivalence<? super T> equivalence,
+            int concurrencyLevel) {
+        this.equivalence = equivalence;
+        int stripeCount = 1;
+        int stripeBits = 0;
+        while(stripeCount < concurrencyLevel && stripeCount < MAX_STRIPES) {
+            stripeCount <<= 1;
+            stripeBits++;
+        }
+        this.stripeShift = 32 - stripeBits;
+        this.stripes = new Stripe[stripeCount];
+        for(int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    /**
+     * Return the interned value equivalent to the given value. If no such value is interned yet, the given value is
+     * interned and returned.
+     */
+    public T intern(T value) {
+        final int hash = hash(value);
+        final Stripe<T> stripe = stripeFor(hash);
+        final T interned;
+        if((interned = stripe.get(value, hash, equivalence)) != null) {
+            return interned;
+        }
+        return stripe.put(value, hash, equivalence);
+    }
+
+    /**
+     * Return the interned value equivalent to the given value, or null if no such value is interned.
+     */
+    public @Nullable T get(T value) {
+        final int hash = hash(value);
+        return stripeFor(hash).get(value, hash, equivalence);
+    }
+
+    /**
+     * Test whether the given value is itself the interned representative of its equivalence class.
+     */
+    public boolean isInterned(T value) {
+        return get(value) == value;
+    }
+
+    /**
+     * Return the number of interned values. Values that have been collected, but whose entries have not been removed
+     * yet, are included in the count.
+     */
+    public int size() {
+        int size = 0;
+        for(Stripe<T> stripe : stripes) {
+            size += stripe.count;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for(Stripe<T> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private int hash(T value) {
+        final int h = equivalence.hash(value);
+        return h ^ (h >>> 16);
+    }
+
+    private Stripe<T> stripeFor(int hash) {
+        return stripeShift == 32 ? stripes[0] : stripes[(hash * 0x9E3779B9) >>> stripeShift];
+    }
+
+    private static final class Entry<T> extends WeakReference<T> {
+
+        private final int hash;
+        private volatile @Nullable Entry<T> next;
+
+        private Entry(T value, int hash, @Nullable Entry<T> next, ReferenceQueue<? super T> queue) {
+            super(value, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+
+    }
+
+    private static final class Stripe<T> {
+
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+        private volatile AtomicReferenceArray<Entry<T>> table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        private volatile int count = 0;
+
+        /**
+         * Lock-free lookup. A concurrent insert or removal may cause a miss for a value that is interned, which is
+         * why put checks again under the lock.
+         */
+        private @Nullable T get(T value, int hash, Equivalence<? super T> equivalence) {
+            final AtomicReferenceArray<Entry<T>> table = this.table;
+            Entry<T> entry = table.get(hash & (table.length() - 1));
+            while(entry != null) {
+                final T interned;
+                if(entry.hash == hash && (interned = entry.get()) != null
+                        && equivalence.equivalent(interned, value)) {
+                    return interned;
+                }
+                entry = entry.next;
+            }
+            return null;
+        }
+
+        private synchronized T put(T value, int hash, Equivalence<? super T> equivalence) {
+            expungeStaleEntries();
+            final T interned;
+            if((interned = get(value, hash, equivalence)) != null) {
+                return interned;
+            }
+            AtomicReferenceArray<Entry<T>> table = this.table;
+            if(count + 1 > table.length() * LOAD_FACTOR) {
+                table = resize(table);
+            }
+            final int index = hash & (table.length() - 1);
+            table.set(index, new Entry<>(value, hash, table.get(index), queue));
+            count++;
+            return value;
+        }
+
+        private synchronized void clear() {
+            while(queue.poll() != null) {
+            }
+            table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+            count = 0;
+        }
+
+        /**
+         * Copy all live entries to a new table, leaving the old table intact for concurrent readers.
+         */
+        private AtomicReferenceArray<Entry<T>> resize(AtomicReferenceArray<Entry<T>> oldTable) {
+            final AtomicReferenceArray<Entry<T>> newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+            final int mask = newTable.length() - 1;
+            int newCount = 0;
+            for(int i = 0; i < oldTable.length(); i++) {
+                for(Entry<T> entry = oldTable.get(i); entry != null; entry = entry.next) {
+                    final T value;
+                    if((value = entry.get()) != null) {
+                        final int index = entry.hash & mask;
+                        newTable.set(index, new Entry<>(value, entry.hash, newTable.get(index), queue));
+                        newCount++;
+                    }
+                }
+            }
+            this.table = newTable;
+            this.count = newCount;
+            return newTable;
+        }
+
+        /**
+         * Unlink entries whose values have been collected. Entries that were already dropped by a resize are not found
+         * in the current table, and are ignored.
+         */
+        @SuppressWarnings("unchecked") private void expungeStaleEntries() {
+            final AtomicReferenceArray<Entry<T>> table = this.table;
+            Object ref;
+            while((ref = queue.poll()) != null) {
+                final Entry<T> stale = (Entry<T>) ref;
+                final int index = stale.hash & (table.length() - 1);
+                Entry<T> prev = null;
+                for(Entry<T> entry = table.get(index); entry != null; prev = entry, entry = entry.next) {
+                    if(entry == stale) {
+                        if(prev == null) {
+                            table.set(index, entry.next);
+                        } else {
+                            prev.next = entry.next;
+                        }
+                        count--;
+                        break;
+                    }
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,42 @@
+package mb.nabl2.terms.build;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import mb.nabl2.terms.ITerm;
+
+public class HashConsingTest {
+
+    @Test public void testSameScalarsAreShared() {
+        assertSame(B.newInt(1), B.newInt(1));
+        assertSame(B.newString("x"), B.newString("x"));
+        assertSame(B.newAppl("Ctor"), B.newAppl("Ctor"));
+        assertSame(B.newVar("r", "x"), B.newVar("r", "x"));
+    }
+
+    @Test public void testSameApplsAreShared() {
+        ITerm t1 = B.newAppl("Ctor", B.newString("x"), B.newAppl("Nested", B.newInt(1)));
+        ITerm t2 = B.newAppl("Ctor", B.newString("x"), B.newAppl("Nested", B.newInt(1)));
+        assertSame(t1, t2);
+    }
+
+    @Test public void testSameListsAreShared() {
+        ITerm t1 = B.newList(B.newInt(1), B.newTuple(B.newInt(2), B.newInt(3)));
+        ITerm t2 = B.newList(B.newInt(1), B.newTuple(B.newInt(2), B.newInt(3)));
+        assertSame(t1, t2);
+    }
+
+    @Test public void testTermsWithAttachmentsAreNotShared() {
+        ITerm t1 = B.newAppl("Ctor", B.newString("x", Attachments.of(String.class, "a")));
+        ITerm t2 = B.newAppl("Ctor", B.newString("x"));
+        assertEquals(t1, t2);
+        assertNotSame(t1, t2);
+        assertNotSame(t1, B.newAppl("Ctor", B.newString("x", Attachments.of(String.class, "a"))));
+        assertSame(t2, B.newAppl("Ctor", B.newString("x")));
+    }
+
+}
@@ -0,0 +1,131 @@
+package mb.nabl2.terms.io;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.IConsTerm;
+import mb.nabl2.terms.IListTerm;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.ListTerms;
+import mb.nabl2.terms.build.Attachments;
+import mb.nabl2.terms.stratego.TermIndex;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.UnifierTests;
+import mb.nabl2.terms.unification.u.IUnifier;
+import mb.nabl2.terms.unification.u.PersistentUnifier;
+import mb.nabl2.terms.unification.u.UnifierCodec;
+import mb.nabl2.terms.unification.ud.IUniDisunifier;
+import mb.nabl2.terms.unification.ud.PersistentUniDisunifier;
+import mb.nabl2.terms.unification.ud.UniDisunifierCodec;
+
+public class TermCodecTest {
+
+    private final ITermVar x = B.newVar("", "x");
+    private final ITermVar y = B.newVar("", "y");
+    private final ITermVar z = B.newVar("", "z");
+
+    @Test public void testRoundTrip() throws IOException {
+        final ITerm term = B.newAppl("F", B.newString("a"), B.newInt(-42), B.newTuple(B.newInt(1), x),
+                B.newList(B.newString("b"), B.newNil()), B.newCons(B.newInt(2), y),
+                B.newBlob("blob"), B.newString("é中"));
+        assertEquals(term, roundTrip(term));
+    }
+
+    @Test public void testSharedSubtermsAreRead() throws IOException {
+        final ITerm shared = B.newAppl("G", B.newString("shared"), B.newInt(1));
+        final IApplTerm result = (IApplTerm) roundTrip(B.newAppl("F", shared, shared, B.newList(shared)));
+        assertSame(result.getArgs().get(0), result.getArgs().get(1));
+        assertSame(result.getArgs().get(0), ((IConsTerm) result.getArgs().get(2)).getHead());
+    }
+
+    @Test public void testSharedSubtermsAreWrittenOnce() throws IOException {
+        final ITerm shared = B.newAppl("G", B.newString("shared"), B.newInt(1), B.newList(x, y, z));
+        final int once = write(B.newAppl("F", shared)).length;
+        final int twice = write(B.newAppl("F", shared, shared)).length;
+        assertTrue(twice - once < 4);
+    }
+
+    @Test public void testAttachmentsArePreserved() throws IOException {
+        final ITerm a = TermIndex.of("r", 1).put(B.newString("a"));
+        final ITerm b = B.newString("a", Attachments.of(TermIndex.class, TermIndex.of("r", 2), String.class, "b"));
+        final IApplTerm result = (IApplTerm) roundTrip(B.newAppl("F", a, b, B.newString("a")));
+        assertEquals(TermIndex.of("r", 1), TermIndex.get(result.getArgs().get(0)).get());
+        assertEquals(TermIndex.of("r", 2), TermIndex.get(result.getArgs().get(1)).get());
+        assertEquals("b", result.getArgs().get(1).getAttachments().get(String.class));
+        assertTrue(result.getArgs().get(2).getAttachments().isEmpty());
+    }
+
+    @Test public void testLongList() throws IOException {
+        final List<ITerm> elems = new ArrayList<>();
+        for(int i = 0; i < 100_000; i++) {
+            elems.add(B.newInt(i));
+        }
+        final List<ITerm> result = new ArrayList<>();
+        ListTerms.iterable((IListTerm) roundTrip(B.newList(elems))).forEach(result::add);
+        assertEquals(elems, result);
+    }
+
+    @Test public void testSharedListTail() throws IOException {
+        final IListTerm tail = B.newList(B.newInt(1), B.newInt(2));
+        final ITerm term = B.newTuple(B.newCons(B.newInt(0), tail), tail, B.newCons(B.newInt(3), tail));
+        assertEquals(term, roundTrip(term));
+    }
+
+    @Test(expected = StreamCorruptedException.class) public void testInvalidStream() throws IOException {
+        new TermReader(new ByteArrayInputStream(new byte[] { 0, 1, 2, 3, 4 }));
+    }
+
+    @Test public void testUnifierRoundTrip() throws IOException, OccursException {
+        final IUnifier.Immutable unifier = PersistentUnifier.Immutable.of()
+                .unify(B.newTuple(x, y), B.newTuple(y, B.newAppl("F", z))).get().unifier();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(final TermWriter out = new TermWriter(bytes)) {
+            UnifierCodec.write(out, unifier);
+        }
+        try(final TermReader in = new TermReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            UnifierTests.assertSame(unifier, UnifierCodec.read(in));
+        }
+    }
+
+    @Test public void testUniDisunifierRoundTrip() throws IOException, OccursException {
+        final IUniDisunifier.Immutable unifier = PersistentUniDisunifier.Immutable.of().unify(x, B.newAppl("F", y))
+                .get().unifier().disunify(y, B.newAppl("G", z)).get().unifier();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(final TermWriter out = new TermWriter(bytes)) {
+            UniDisunifierCodec.write(out, unifier);
+        }
+        try(final TermReader in = new TermReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final IUniDisunifier.Immutable result = UniDisunifierCodec.read(in);
+            UnifierTests.assertSame(unifier, result);
+            assertEquals(1, result.disequalities().size());
+        }
+    }
+
+    private static ITerm roundTrip(ITerm term) throws IOException {
+        try(final TermReader in = new TermReader(new ByteArrayInputStream(write(term)))) {
+            return in.readTerm();
+        }
+    }
+
+    private static byte[] write(ITerm term) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(final TermWriter out = new TermWriter(bytes)) {
+            out.writeTerm(term);
+        }
+        return bytes.toByteArray();
+    }
+
+}
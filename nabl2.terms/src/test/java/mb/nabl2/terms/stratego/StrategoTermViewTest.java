@@ -0,0 +1,88 @@
+package mb.nabl2.terms.stratego;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.TermFactory;
+
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.IConsTerm;
+import mb.nabl2.terms.ITerm;
+
+public class StrategoTermViewTest {
+
+    private final ITermFactory factory = new TermFactory();
+    private final StrategoTerms strategoTerms = new StrategoTerms(factory);
+
+    private final IStrategoList elems = factory.makeList(factory.makeInt(1), factory.makeString("a"),
+            factory.makeTuple(factory.makeInt(2), factory.makeInt(3)));
+    private final IStrategoTerm sterm = factory.makeAppl("Module", factory.makeString("m"), elems,
+            factory.makeAppl("Body", factory.makeList()));
+
+    @Test public void testEqualToEagerConversion() {
+        final ITerm lazy = strategoTerms.lazyFromStratego(sterm);
+        final ITerm eager = strategoTerms.fromStratego(sterm);
+        assertEquals(eager.hashCode(), lazy.hashCode());
+        assertEquals(eager, lazy);
+        assertEquals(lazy, eager);
+        assertEquals(eager.toString(), lazy.toString());
+    }
+
+    @Test public void testUnchangedTermIsReused() {
+        final ITerm lazy = strategoTerms.lazyFromStratego(sterm);
+        assertSame(sterm, strategoTerms.toStratego(lazy));
+    }
+
+    @Test public void testUnchangedSubtermsAreReused() {
+        final IApplTerm lazy = (IApplTerm) strategoTerms.lazyFromStratego(sterm);
+        final ITerm changed = B.newAppl("Module", B.newString("n"), lazy.getArgs().get(1), lazy.getArgs().get(2));
+        final IStrategoTerm result = strategoTerms.toStratego(changed);
+        assertSame(elems, result.getSubterm(1));
+        assertSame(sterm.getSubterm(2), result.getSubterm(2));
+    }
+
+    @Test public void testUnchangedListTailIsReused() {
+        final IConsTerm lazy = (IConsTerm) strategoTerms.lazyFromStratego(elems);
+        final ITerm changed = B.newCons(B.newInt(0), lazy.getTail());
+        final IStrategoList result = (IStrategoList) strategoTerms.toStratego(changed);
+        assertEquals(3, result.size());
+        assertSame(elems.tail(), result.tail());
+    }
+
+    @Test public void testSerializedAsRegularTerm() throws Exception {
+        final ITerm lazy = strategoTerms.lazyFromStratego(sterm);
+        final ITerm copy = deserialize(serialize(lazy));
+        assertFalse(copy instanceof StrategoTermView);
+        assertEquals(lazy, copy);
+    }
+
+    private static byte[] serialize(Object obj) throws IOException {
+        try(final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                final ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(obj);
+            objectOutputStream.flush();
+            return outputStream.toByteArray();
+        }
+    }
+
+    @SuppressWarnings("unchecked") private static <T> T deserialize(byte[] bytes)
+            throws ClassNotFoundException, IOException {
+        try(final ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+                final ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)) {
+            return (T) objectInputStream.readObject();
+        }
+    }
+
+}
@@ -386,6 +386,27 @@ public class UnifierFiniteTest {
         }
     }
 
+    @Test(timeout = 10000) public void testFindRepOnChain() throws OccursException, RigidException {
+        final Map.Transient<ITermVar, ITermVar> reps = Map.Transient.of();
+        reps.__put(a, b);
+        reps.__put(b, c);
+        reps.__put(c, d);
+        final PersistentUnifier.Immutable phi =
+                PersistentUnifier.Immutable.of(true, reps.freeze(), Map.Immutable.of(), Map.Immutable.of());
+        assertEquals(d, phi.findRep(a));
+        assertEquals(d, phi.findRep(a));
+        assertEquals(d, phi.findRep(c));
+        assertEquals(d, phi.findRep(d));
+        // lookups do not change the unifier
+        assertEquals(b, phi.reps().get(a));
+        // derived unifiers use the compressed paths
+        final IUnifier.Immutable theta = phi.unify(d, x).get().unifier();
+        assertEquals(x, theta.findTerm(a));
+        assertEquals(x, theta.findTerm(b));
+        assertTrue(theta.varSet().containsAll(Arrays.asList(a, b, c, d)));
+        assertPresent(theta.unify(a, x));
+    }
+
     @Test(timeout = 10000) public void testSpecializedToString() throws OccursException {
         SpecializedTermFormatter stf = (t, u, fmt) -> M.appl1(f, M.term(), (t0, t1) -> {
             return "`f`(" + fmt.format(t1) + ")";
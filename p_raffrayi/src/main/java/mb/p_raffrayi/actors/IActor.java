@@ -38,6 +38,17 @@ public interface IActor<T> extends IActorRef<T> {
      */
     <U> void complete(ICompletable<U> completable, U result, Throwable ex);
 
+    /**
+     * Declare that this actor is waiting for the given actor. Schedulers may use this to run actors that others are
+     * waiting for first. Every call must be balanced by a call to {@link #granted(IActorRef)}.
+     */
+    void waitFor(IActorRef<?> actor);
+
+    /**
+     * Declare that this actor is no longer waiting for the given actor.
+     */
+    void granted(IActorRef<?> actor);
+
     /**
      * Get sender of the current message being handled.
      */
@@ -0,0 +1,38 @@
+package mb.p_raffrayi.actors;
+
+import org.metaborg.util.functions.Action1;
+import org.metaborg.util.functions.Function1;
+import org.metaborg.util.future.IFuture;
+
+/**
+ * Channel used by typed async interfaces to send messages to an actor. Both methods must be called on the sender's
+ * thread, and the message is applied to the actor implementation on the actor's thread. The name is only used for
+ * logging.
+ *
+ * A typed async interface implements the actor interface by forwarding every method to this channel, e.g.,
+ *
+ * <pre>
+ * public void ping(int n) {
+ *     channel.send("ping", impl -&gt; impl.ping(n));
+ * }
+ *
+ * public IFuture&lt;String&gt; get() {
+ *     return channel.ask("get", impl -&gt; impl.get());
+ * }
+ * </pre>
+ */
+public interface IAsyncChannel<T> {
+
+    void send(String name, Action1<? super T> message);
+
+    /**
+     * Send a message that may be coalesced with the previous message, if that was sent by the same sender with an equal
+     * key and is still waiting in the mailbox. A coalesced message is applied once for every send, so the key must
+     * identify the message and its arguments, e.g., a tuple of the name and the arguments. Coalescing saves mailbox
+     * and scheduling overhead when the same message is sent repeatedly.
+     */
+    void sendCoalesced(String name, Object key, Action1<? super T> message);
+
+    <R> IFuture<R> ask(String name, Function1<? super T, ? extends IFuture<R>> message);
+
+}
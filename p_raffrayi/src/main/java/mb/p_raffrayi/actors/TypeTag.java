@@ -1,19 +1,41 @@
 package mb.p_raffrayi.actors;
 
+import javax.annotation.Nullable;
+
+import org.metaborg.util.functions.Function1;
+
 public class TypeTag<T> {
 
     private final Class<? super T> type;
+    private final @Nullable Function1<IAsyncChannel<T>, ? extends T> stub;
 
-    private TypeTag(Class<? super T> type) {
+    private TypeTag(Class<? super T> type, @Nullable Function1<IAsyncChannel<T>, ? extends T> stub) {
         this.type = type;
+        this.stub = stub;
     }
 
     public Class<?> type() {
         return type;
     }
 
+    /**
+     * Factory for the typed async interface of actors of this type, or null if the actor system should fall back to a
+     * reflective proxy.
+     */
+    public @Nullable Function1<IAsyncChannel<T>, ? extends T> stub() {
+        return stub;
+    }
+
     public static <T> TypeTag<T> of(Class<? super T> type) {
-        return new TypeTag<>(type);
+        return new TypeTag<>(type, null);
+    }
+
+    /**
+     * Create a type tag with a typed async interface. The stub implements every method of the actor interface by
+     * sending a message through the given channel, which avoids reflection when messages are sent and dispatched.
+     */
+    public static <T> TypeTag<T> of(Class<? super T> type, Function1<IAsyncChannel<T>, ? extends T> stub) {
+        return new TypeTag<>(type, stub);
     }
 
-}
\ No newline at end of file
+}
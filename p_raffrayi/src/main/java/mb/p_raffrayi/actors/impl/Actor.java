@@ -1,10 +1,15 @@
 package mb.p_raffrayi.actors.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -12,6 +17,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
 
+import org.metaborg.util.functions.Action1;
 import org.metaborg.util.functions.Action2;
 import org.metaborg.util.functions.Function0;
 import org.metaborg.util.functions.Function1;
@@ -28,6 +34,7 @@ import mb.p_raffrayi.actors.IActor;
 import mb.p_raffrayi.actors.IActorMonitor;
 import mb.p_raffrayi.actors.IActorRef;
 import mb.p_raffrayi.actors.IActorStats;
+import mb.p_raffrayi.actors.IAsyncChannel;
 import mb.p_raffrayi.actors.TypeTag;
 
 class Actor<T> implements IActorImpl<T>, Runnable {
@@ -45,7 +52,9 @@ class Actor<T> implements IActorImpl<T>, Runnable {
 
     private volatile ActorState state;
     private final AtomicInteger priority;
+    private final AtomicInteger waitFors;
     private final Deque<Message> messages;
+    private final int batchSize;
 
     private T impl;
     private @Nullable IActorMonitor monitor;
@@ -78,7 +87,9 @@ class Actor<T> implements IActorImpl<T>, Runnable {
 
         this.state = ActorState.INITIAL;
         this.priority = new AtomicInteger(0);
+        this.waitFors = new AtomicInteger(0);
         this.messages = new ConcurrentLinkedDeque<>();
+        this.batchSize = Math.max(1, context.scheduler().batchSize());
     }
 
     @Override public String id() {
@@ -101,20 +112,30 @@ class Actor<T> implements IActorImpl<T>, Runnable {
             while(true) {
                 stats.maxPendingMessages = Math.max(stats.maxPendingMessages, priority.get());
 
-                final Message message = messages.poll();
-                if(message != null) {
-
-                    stats.messages += 1;
-                    this.priority.decrementAndGet();
+                // Process a batch of messages, and only update the pending count and check for preemption after the
+                // batch. The batch is bounded, so that a busy actor still checks for preemption regularly.
+                int processed = 0;
+                Message message;
+                while(processed < batchSize && (message = messages.poll()) != null) {
+                    processed += 1;
                     try {
                         message.dispatch();
                     } catch(Throwable ex) {
                         doStop(ex);
                     }
+                }
+
+                if(processed > 0) {
 
-                    if(!messages.isEmpty() && context.scheduler().preempt(priority.get())) {
+                    context.pending(-processed);
+                    stats.messages += processed;
+                    stats.batches += 1;
+                    stats.maxBatchSize = Math.max(stats.maxBatchSize, processed);
+                    final int pending = this.priority.addAndGet(-processed);
+
+                    if(!messages.isEmpty() && context.scheduler().preempt(schedulingPriority(pending))) {
                         finalizeThread();
-                        context.scheduler().schedule(this, priority.get(), scheduledTask);
+                        context.scheduler().schedule(this, schedulingPriority(), scheduledTask);
                         return;
                     }
 
@@ -139,8 +160,10 @@ class Actor<T> implements IActorImpl<T>, Runnable {
                     if(!running.compareAndSet(true, false)) {
                         throw new IllegalStateException("Unexpected state, should be running.");
                     }
+                    context.pending(-1);
 
                     if(!messages.isEmpty() && running.compareAndSet(false, true)) {
+                        context.pending(1);
                         initThread();
                     } else {
                         return;
@@ -172,24 +195,41 @@ class Actor<T> implements IActorImpl<T>, Runnable {
     private void scheduleIfNotRunning() {
         if(running.compareAndSet(false, true)) {
             logger.debug("resume {}", this);
-            context.scheduler().schedule(this, priority.get(), scheduledTask);
+            context.pending(1);
+            context.scheduler().schedule(this, schedulingPriority(), scheduledTask);
         } else {
-            final Runnable oldTask = scheduledTask.getAndSet(null);
-            if(oldTask != null) {
-                // only the case when running == true, but the thread is not
-                // running the message loop---but task may be unqueued, and/or
-                // the thread may be started already
-
-                // if the thread starts in the meantime, it sets the scheduledTask
-                // to null, and we should not set it to anything anymore. But, if
-                // the thread started, it also means the task is not active anymore,
-                // so rescheduling will fail.
-
-                context.scheduler().reschedule(oldTask, priority.get(), scheduledTask);
-            }
+            rescheduleIfQueued();
         }
     }
 
+    private void rescheduleIfQueued() {
+        final Runnable oldTask = scheduledTask.getAndSet(null);
+        if(oldTask != null) {
+            // only the case when running == true, but the thread is not
+            // running the message loop---but task may be unqueued, and/or
+            // the thread may be started already
+
+            // if the thread starts in the meantime, it sets the scheduledTask
+            // to null, and we should not set it to anything anymore. But, if
+            // the thread started, it also means the task is not active anymore,
+            // so rescheduling will fail.
+
+            context.scheduler().reschedule(oldTask, schedulingPriority(), scheduledTask);
+        }
+    }
+
+    private int schedulingPriority() {
+        return schedulingPriority(priority.get());
+    }
+
+    /**
+     * Priority for the scheduler, see {@link IActorScheduler#schedule(Runnable, int, AtomicReference)}.
+     */
+    private int schedulingPriority(int pending) {
+        final int n = Math.min(Math.max(waitFors.get(), 0), IActorScheduler.MAX_WAIT_FORS);
+        return pending + n * IActorScheduler.WAIT_FOR_PRIORITY;
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     // Messages
     ///////////////////////////////////////////////////////////////////////////
@@ -202,11 +242,69 @@ class Actor<T> implements IActorImpl<T>, Runnable {
     }
 
     private void put(Message message) {
+        // count the message before it can be dispatched, so that the system is never quiescent while it is in flight
+        context.pending(1);
         priority.incrementAndGet();
         messages.add(message);
         scheduleIfNotRunning();
     }
 
+    /**
+     * Put a message that may be merged with the last message in the mailbox. If the last message was sent by the same
+     * sender with an equal key, and was not dispatched yet, the message is not added, and the last message is
+     * dispatched once more instead. Because only the last message is considered, messages are never reordered.
+     */
+    private void putCoalesced(IActorInternal<?> sender, Object key, Message message) {
+        final Message last = messages.peekLast();
+        if(last instanceof CoalescedMessage && ((CoalescedMessage) last).merge(sender, key)) {
+            return;
+        }
+        put(new CoalescedMessage(stats, sender, key, message));
+    }
+
+    private static class CoalescedMessage implements Message {
+
+        private final Stats stats;
+        private final IActorInternal<?> sender;
+        private final Object key;
+        private final Message message;
+        private final AtomicInteger count;
+
+        private CoalescedMessage(Stats stats, IActorInternal<?> sender, Object key, Message message) {
+            this.stats = stats;
+            this.sender = sender;
+            this.key = key;
+            this.message = message;
+            this.count = new AtomicInteger(1);
+        }
+
+        /**
+         * Merge a message into this one. Fails if the message is from a different sender, has a different key, or if
+         * this message is already being dispatched.
+         */
+        private boolean merge(IActorInternal<?> sender, Object key) {
+            if(!this.sender.equals(sender) || !this.key.equals(key)) {
+                return false;
+            }
+            int n;
+            while((n = count.get()) > 0) {
+                if(count.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override public void dispatch() throws ActorException {
+            final int n = count.getAndSet(0);
+            stats.coalesced += n - 1;
+            for(int i = 0; i < n; i++) {
+                message.dispatch();
+            }
+        }
+
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     // IActorInternal -- unsafe, called from other actors and system
     ///////////////////////////////////////////////////////////////////////////
@@ -230,53 +328,159 @@ class Actor<T> implements IActorImpl<T>, Runnable {
         return newAsync(() -> sender);
     }
 
-    @SuppressWarnings({ "unchecked" }) private T newAsync(Function0<IActorInternal<?>> senderGetter) {
+    private T newAsync(Function0<IActorInternal<?>> senderGetter) {
+        final Function1<IAsyncChannel<T>, ? extends T> stub;
+        if((stub = type.stub()) != null) {
+            return stub.apply(new Channel(senderGetter));
+        }
+        return newProxy(senderGetter);
+    }
+
+    /**
+     * Channel for typed async interfaces. The sender is determined when the message is sent.
+     */
+    private class Channel implements IAsyncChannel<T> {
+
+        private final Function0<IActorInternal<?>> senderGetter;
+
+        private Channel(Function0<IActorInternal<?>> senderGetter) {
+            this.senderGetter = senderGetter;
+        }
+
+        @Override public void send(String name, Action1<? super T> message) {
+            // WARNING This runs on the sender's thread!
+            final IActorInternal<?> sender = senderGetter.apply();
+            put(() -> doInvoke(sender, name, impl -> {
+                message.apply(impl);
+                return null;
+            }, null));
+        }
+
+        @Override public void sendCoalesced(String name, Object key, Action1<? super T> message) {
+            // WARNING This runs on the sender's thread!
+            final IActorInternal<?> sender = senderGetter.apply();
+            putCoalesced(sender, key, () -> doInvoke(sender, name, impl -> {
+                message.apply(impl);
+                return null;
+            }, null));
+        }
+
+        @Override public <R> IFuture<R> ask(String name, Function1<? super T, ? extends IFuture<R>> message) {
+            // WARNING This runs on the sender's thread!
+            final IActorInternal<?> sender = senderGetter.apply();
+            final ICompletableFuture<R> result = new CompletableFuture<>();
+            put(() -> doInvoke(sender, name, message::apply, (r, ex) -> sender._return(sender, name, result, r, ex)));
+            return result;
+        }
+
+    }
+
+    @SuppressWarnings({ "unchecked" }) private T newProxy(Function0<IActorInternal<?>> senderGetter) {
         return (T) Proxy.newProxyInstance(this.type.type().getClassLoader(), new Class[] { this.type.type() },
                 (proxy, method, args) -> {
                     // WARNING This runs on the sender's thread!
 
-                    if(method.getDeclaringClass().equals(Object.class)) {
-                        return method.invoke(this, args);
+                    final Dispatch dispatch = Dispatch.of(method);
+                    switch(dispatch.kind) {
+                        case OBJECT:
+                            return method.invoke(this, args);
+                        case VOID: {
+                            final IActorInternal<?> sender = senderGetter.apply();
+                            put(() -> doInvoke(sender, dispatch.name, impl -> dispatch.invoke(impl, args), null));
+                            return null;
+                        }
+                        case FUTURE: {
+                            final IActorInternal<?> sender = senderGetter.apply();
+                            final ICompletableFuture<?> result = new CompletableFuture<>();
+                            put(() -> doInvoke(sender, dispatch.name, impl -> dispatch.invoke(impl, args),
+                                    (r, ex) -> sender._return(sender, dispatch.name, result, r, ex)));
+                            return result;
+                        }
+                        case MONITOR:
+                            logger.error("Illegal async actor monitor method called: {}", method);
+                            throw new IllegalStateException("Illegal async actor monitor method called: " + method);
+                        default:
+                            logger.error("Unsupported method called: {}", method);
+                            throw new IllegalStateException("Unsupported method called: " + method);
                     }
+                });
+    }
 
-                    if(method.getDeclaringClass().equals(IActorMonitor.class)) {
-                        logger.error("Illegal async actor monitor method called: {}", method);
-                        throw new IllegalStateException("Illegal async actor monitor method called: " + method);
-                    }
+    /**
+     * How a method of a proxied actor interface is dispatched. Dispatch information is computed once per method, and
+     * methods are invoked through a method handle, instead of reflectively on every message.
+     */
+    private static class Dispatch {
 
-                    final IActorInternal<?> sender = senderGetter.apply();
-
-                    final Class<?> returnType = method.getReturnType();
-                    final IFuture<?> returnValue;
-
-                    if(Void.TYPE.isAssignableFrom(returnType)) {
-                        final Method method1 = method;
-                        final Object[] args1 = args;
-                        put(() -> {
-                            doInvoke(sender, method1, args1, (Action2<Object, Throwable>) null);
-                        });
-                        returnValue = null;
-                    } else if(IFuture.class.isAssignableFrom(returnType)) {
-                        final ICompletableFuture<?> result = new CompletableFuture<>();
-                        final Method method1 = method;
-                        final Object[] args1 = args;
-                        final Action2<Object, Throwable> _return =
-                                (r, ex) -> sender._return(sender, method, result, r, ex);
-                        ;
-                        put(() -> {
-                            doInvoke((IActorInternal<?>) sender, method1, args1, _return);
-                        });
-                        returnValue = result;
-                    } else {
-                        logger.error("Unsupported method called: {}", method);
-                        throw new IllegalStateException("Unsupported method called: " + method);
-                    }
+        private static final Object[] NO_ARGS = new Object[0];
+        private static final Map<Method, Dispatch> cache = new ConcurrentHashMap<>();
+
+        private enum Kind {
+            OBJECT, MONITOR, VOID, FUTURE, UNSUPPORTED
+        }
+
+        private final Kind kind;
+        private final String name;
+        private final @Nullable MethodHandle handle;
+
+        private Dispatch(Kind kind, String name, @Nullable MethodHandle handle) {
+            this.kind = kind;
+            this.name = name;
+            this.handle = handle;
+        }
+
+        private Object invoke(Object impl, @Nullable Object[] args) throws Throwable {
+            final Object[] arguments = args != null ? args : NO_ARGS;
+            return handle.invokeExact(impl, arguments);
+        }
+
+        private static Dispatch of(Method method) {
+            Dispatch dispatch;
+            if((dispatch = cache.get(method)) == null) {
+                dispatch = create(method);
+                cache.put(method, dispatch);
+            }
+            return dispatch;
+        }
+
+        private static Dispatch create(Method method) {
+            if(method.getDeclaringClass().equals(Object.class)) {
+                return new Dispatch(Kind.OBJECT, method.getName(), null);
+            }
+            if(method.getDeclaringClass().equals(IActorMonitor.class)) {
+                return new Dispatch(Kind.MONITOR, method.getName(), null);
+            }
+            final Class<?> returnType = method.getReturnType();
+            final Kind kind;
+            if(Void.TYPE.isAssignableFrom(returnType)) {
+                kind = Kind.VOID;
+            } else if(IFuture.class.isAssignableFrom(returnType)) {
+                kind = Kind.FUTURE;
+            } else {
+                return new Dispatch(Kind.UNSUPPORTED, method.getName(), null);
+            }
+            try {
+                method.setAccessible(true);
+                final MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                        .asSpreader(Object[].class, method.getParameterCount())
+                        .asType(MethodType.genericMethodType(1, true));
+                return new Dispatch(kind, method.getName(), handle);
+            } catch(IllegalAccessException ex) {
+                throw new IllegalStateException("Cannot dispatch " + method, ex);
+            }
+        }
 
-                    return returnValue;
-                });
     }
 
-    @Override public void _return(IActorInternal<?> sender, Method method,
+    @Override public void _waitFors(int delta) {
+        // WARNING This runs on the waiting actor's thread!
+        waitFors.addAndGet(delta);
+        if(delta > 0) {
+            rescheduleIfQueued();
+        }
+    }
+
+    @Override public void _return(IActorInternal<?> sender, String method,
             @SuppressWarnings("rawtypes") ICompletable result, Object value, Throwable ex) {
         put(() -> doReturn(sender, method, result, value, ex));
     }
@@ -327,20 +531,26 @@ class Actor<T> implements IActorImpl<T>, Runnable {
         }
     }
 
-    private void doInvoke(final IActorInternal<?> sender, final Method method, final Object[] args,
-            Action2<Object, Throwable> result) throws ActorException {
+    @FunctionalInterface
+    private interface Invocation<T> {
+
+        Object invoke(T impl) throws Throwable;
+
+    }
+
+    private void doInvoke(final IActorInternal<?> sender, final String method, final Invocation<T> invocation,
+            @Nullable Action2<Object, Throwable> result) throws ActorException {
         assertOnActorThread();
 
         updateStateOnReceive(sender);
 
-        logger.debug("{} invoke {} from {}", this, method.getName(), sender);
+        logger.debug("{} invoke {} from {}", this, method, sender);
 
         final Object returnValue;
         try {
-            method.setAccessible(true);
             try {
                 Actor.sender.set(sender);
-                returnValue = method.invoke(impl, args);
+                returnValue = invocation.invoke(impl);
             } finally {
                 Actor.sender.remove();
             }
@@ -356,13 +566,13 @@ class Actor<T> implements IActorImpl<T>, Runnable {
         }
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" }) private void doReturn(final IActorInternal<?> sender, Method method,
+    @SuppressWarnings({ "rawtypes", "unchecked" }) private void doReturn(final IActorInternal<?> sender, String method,
             ICompletable completable, Object value, Throwable ex) throws ActorException {
         assertOnActorThread();
 
         updateStateOnReceive(sender);
 
-        logger.debug("{} return {} from {}", this, method.getName(), sender);
+        logger.debug("{} return {} from {}", this, method, sender);
 
         try {
             try {
@@ -519,6 +729,18 @@ class Actor<T> implements IActorImpl<T>, Runnable {
         put(() -> completable.complete(result, ex));
     }
 
+    @Override public void waitFor(IActorRef<?> actor) {
+        if(actor != this && actor instanceof IActorInternal) {
+            ((IActorInternal<?>) actor)._waitFors(1);
+        }
+    }
+
+    @Override public void granted(IActorRef<?> actor) {
+        if(actor != this && actor instanceof IActorInternal) {
+            ((IActorInternal<?>) actor)._waitFors(-1);
+        }
+    }
+
     @Override public IActorRef<?> sender() {
         return sender.get();
     }
@@ -572,22 +794,27 @@ class Actor<T> implements IActorImpl<T>, Runnable {
         private int preempted = 0;
         private int rescheduled = 0;
         private int messages = 0;
+        private int batches = 0;
+        private int maxBatchSize = 0;
+        private int coalesced = 0;
         private int maxPendingMessages = 0;
         private int maxPendingMessagesOnActivate = 0;
 
         @Override public Iterable<String> csvHeaders() {
-            return ImmutableList.of("suspended", "preempted", "rescheduled", "messages", "maxPendingMessages",
-                    "maxPendingMessagesOnActivate");
+            return ImmutableList.of("suspended", "preempted", "rescheduled", "messages", "batches", "maxBatchSize",
+                    "coalesced", "maxPendingMessages", "maxPendingMessagesOnActivate");
         }
 
         @Override public Iterable<String> csvRow() {
             return ImmutableList.of(Integer.toString(suspended), Integer.toString(preempted),
-                    Integer.toString(rescheduled), Integer.toString(messages), Integer.toString(maxPendingMessages),
+                    Integer.toString(rescheduled), Integer.toString(messages), Integer.toString(batches),
+                    Integer.toString(maxBatchSize), Integer.toString(coalesced), Integer.toString(maxPendingMessages),
                     Integer.toString(maxPendingMessagesOnActivate));
         }
 
         @Override public String toString() {
-            return "ActorStats{messages=" + messages + ",maxPendingMessages=" + maxPendingMessages
+            return "ActorStats{messages=" + messages + ",batches=" + batches + ",maxBatchSize=" + maxBatchSize
+                    + ",coalesced=" + coalesced + ",maxPendingMessages=" + maxPendingMessages
                     + ",maxPendingMessagesOnActivate=" + maxPendingMessagesOnActivate + ",suspended=" + suspended
                     + ",preempted=" + preempted + ",rescheduled=" + rescheduled + "}";
         }
@@ -1,9 +1,11 @@
 package mb.p_raffrayi.actors.impl;
 
-import java.lang.reflect.Method;
 import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
 
 import org.metaborg.util.functions.Function1;
 import org.metaborg.util.future.CompletableFuture;
@@ -33,6 +35,9 @@ public class ActorSystem implements IActorSystem, IActorInternal<Void> {
     private volatile ActorSystemState state;
     private final IActorContext context;
 
+    private final AtomicInteger pending;
+    private volatile @Nullable Runnable quiescenceHandler;
+
     private final ICompletableFuture<Unit> done;
 
     public ActorSystem() {
@@ -49,6 +54,8 @@ public class ActorSystem implements IActorSystem, IActorInternal<Void> {
         this.scheduler = scheduler;
         this.state = ActorSystemState.RUNNING;
         this.context = new ActorContext();
+        this.pending = new AtomicInteger();
+        this.quiescenceHandler = null;
         this.done = new CompletableFuture<>();
 
         done.whenComplete((r, ex) -> {
@@ -115,6 +122,16 @@ public class ActorSystem implements IActorSystem, IActorInternal<Void> {
         }
     }
 
+    /**
+     * Set a handler that is called when the system becomes quiescent while it is running, i.e., when no actor is running
+     * and no messages are pending. No actor can make progress after that, unless the system is stopped or a message is
+     * sent from outside the system. The handler is called on the thread of the last actor that was running, and must
+     * not block.
+     */
+    public void onQuiescence(Runnable handler) {
+        this.quiescenceHandler = handler;
+    }
+
     private void doStop(Throwable ex) {
         synchronized(lock) {
             switch(state) {
@@ -168,11 +185,14 @@ public class ActorSystem implements IActorSystem, IActorInternal<Void> {
     }
 
     @SuppressWarnings("unchecked") @Override public void _return(@SuppressWarnings("unused") IActorInternal<?> sender,
-            @SuppressWarnings("unused") Method method, @SuppressWarnings("rawtypes") ICompletable result, Object value,
+            @SuppressWarnings("unused") String method, @SuppressWarnings("rawtypes") ICompletable result, Object value,
             Throwable ex) {
         result.complete(value, ex);
     }
 
+    @SuppressWarnings("unused") @Override public void _waitFors(int delta) {
+    }
+
     @Override public void _stop(@SuppressWarnings("unused") IActorInternal<?> sender, Throwable ex) {
         doStop(ex);
     }
@@ -213,6 +233,19 @@ public class ActorSystem implements IActorSystem, IActorInternal<Void> {
             return scheduler;
         }
 
+        @Override public void pending(int delta) {
+            if(pending.addAndGet(delta) == 0 && delta < 0) {
+                final Runnable handler;
+                if((handler = quiescenceHandler) != null && running()) {
+                    try {
+                        handler.run();
+                    } catch(Throwable ex) {
+                        logger.error("Quiescence handler failed.", ex);
+                    }
+                }
+            }
+        }
+
     }
 
     @Override public String toString() {
@@ -11,4 +11,10 @@ interface IActorContext {
 
     IActorScheduler scheduler();
 
+    /**
+     * Change the number of pending messages and running actors in the system. The system is quiescent when this number
+     * drops to zero.
+     */
+    void pending(int delta);
+
 }
\ No newline at end of file
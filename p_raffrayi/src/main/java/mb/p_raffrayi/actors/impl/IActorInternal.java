@@ -1,6 +1,5 @@
 package mb.p_raffrayi.actors.impl;
 
-import java.lang.reflect.Method;
 
 import org.metaborg.util.functions.Function1;
 import org.metaborg.util.future.ICompletable;
@@ -29,7 +28,13 @@ public interface IActorInternal<T> extends IActorRef<T> {
      */
     T _invokeStatic(IActorInternal<?> sender);
 
-    void _return(IActorInternal<?> sender, Method method, @SuppressWarnings("rawtypes") ICompletable result,
+    /**
+     * Change the number of wait-fors that other actors have on this actor. Called from other actors, see
+     * {@link IActor#waitFor(IActorRef)}.
+     */
+    void _waitFors(int delta);
+
+    void _return(IActorInternal<?> sender, String method, @SuppressWarnings("rawtypes") ICompletable result,
             Object value, Throwable ex);
 
     /**
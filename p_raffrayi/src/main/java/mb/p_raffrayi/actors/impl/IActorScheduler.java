@@ -4,12 +4,32 @@ import java.util.concurrent.atomic.AtomicReference;
 
 public interface IActorScheduler {
 
+    /**
+     * Priority added for every wait-for that other actors have on an actor, up to {@link #MAX_WAIT_FORS}.
+     */
+    int WAIT_FOR_PRIORITY = 1 << 20;
+
+    int MAX_WAIT_FORS = 1 << 10;
+
+    /**
+     * Schedule an actor.
+     *
+     * @param priority
+     *            The number of pending messages of the actor, plus {@link #WAIT_FOR_PRIORITY} for every wait-for that
+     *            other actors have on it. Actors with higher priority should run first.
+     */
     void schedule(Runnable runnable, int priority, AtomicReference<Runnable> taskRef);
 
     void reschedule(Runnable oldTask, int newPriority, AtomicReference<Runnable> taskRef);
 
     boolean preempt(int priority);
 
+    /**
+     * The maximum number of messages an actor processes per activation before it checks for preemption. Schedulers that
+     * never preempt can use large batches, schedulers that do should use small batches.
+     */
+    int batchSize();
+
     boolean isActive();
 
     void shutdown();
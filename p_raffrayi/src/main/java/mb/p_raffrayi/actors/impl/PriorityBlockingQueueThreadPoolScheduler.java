@@ -50,7 +50,8 @@ public class PriorityBlockingQueueThreadPoolScheduler implements IActorScheduler
 
     @Override public void reschedule(Runnable oldTask, int newPriority, AtomicReference<Runnable> taskRef) {
         Task task = (Task) oldTask;
-        if(task.priority * RESCHEDULE_FACTOR < newPriority) {
+        // priorities include wait-fors, and may come close to the maximum int, so scale in long arithmetic
+        if((long) task.priority * RESCHEDULE_FACTOR < newPriority) {
             if(task.active.compareAndSet(true, false)) {
                 schedule(task.runnable, newPriority, taskRef);
             }
@@ -59,7 +60,11 @@ public class PriorityBlockingQueueThreadPoolScheduler implements IActorScheduler
 
     @Override public boolean preempt(int priority) {
         // FIXME preempting when the executor is shutting down results in an exception in the actor
-        return priority * PREEMPT_FACTOR < maxPriority;
+        return (long) priority * PREEMPT_FACTOR < maxPriority;
+    }
+
+    @Override public int batchSize() {
+        return 1;
     }
 
     @Override public void shutdown() {
@@ -100,7 +105,7 @@ public class PriorityBlockingQueueThreadPoolScheduler implements IActorScheduler
         }
 
         @Override public int compareTo(Task o) {
-            return o.priority - priority;
+            return Integer.compare(o.priority, priority);
         }
 
     }
@@ -0,0 +1,230 @@
+package mb.p_raffrayi.actors.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+/**
+ * Work-stealing scheduler that runs actors that others are waiting for first.
+ *
+ * Every worker has a lock-free deque per priority level. The level of an actor is logarithmic in the number of
+ * wait-fors that other actors have on it, so that actors that many others are waiting for, such as the project unit,
+ * run before actors that only their parent is waiting for. Workers take the task with the highest level from their own
+ * deques or, if another worker has a task with a higher level, steal that one. Workers take their own tasks in FIFO
+ * order, and steal from the other end of the deque. Actors are preempted if a task with a higher level is waiting.
+ * Queued actors are rescheduled when their level increases.
+ *
+ * The scheduler uses no locks. Workers that find no tasks park until a task is pushed.
+ */
+public class PriorityWorkStealingScheduler implements IActorScheduler {
+
+    private static final ILogger logger = LoggerUtils.logger(PriorityWorkStealingScheduler.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 16;
+
+    private static final int LEVELS = 32 - Integer.numberOfLeadingZeros(MAX_WAIT_FORS) + 1;
+
+    private final int parallelism;
+    private final int batchSize;
+    private final Worker[] workers;
+    private final Queue<Worker> idleWorkers;
+
+    /**
+     * Number of tasks that were scheduled, but did not finish yet, including inactive tasks.
+     */
+    private final AtomicInteger pendingTasks;
+
+    private volatile boolean shutdown;
+
+    public PriorityWorkStealingScheduler(int parallelism) {
+        this(parallelism, DEFAULT_BATCH_SIZE);
+    }
+
+    public PriorityWorkStealingScheduler(int parallelism, int batchSize) {
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.workers = new Worker[parallelism];
+        this.idleWorkers = new ConcurrentLinkedQueue<>();
+        this.pendingTasks = new AtomicInteger();
+        this.shutdown = false;
+        for(int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker("PRaffrayiWorker-" + i);
+        }
+        for(Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    @Override public int parallelism() {
+        return parallelism;
+    }
+
+    @Override public void schedule(Runnable runnable, int priority, AtomicReference<Runnable> taskRef) {
+        if(shutdown) {
+            throw new IllegalStateException("Scheduler is shut down.");
+        }
+        final Task task = new Task(runnable, level(priority));
+        if(!taskRef.compareAndSet(null, task)) {
+            logger.error("Actor {} already scheduled", runnable);
+            throw new IllegalStateException("Actor " + runnable + " already scheduled.");
+        }
+        pendingTasks.incrementAndGet();
+        push(task);
+    }
+
+    @Override public void reschedule(Runnable oldTask, int newPriority, AtomicReference<Runnable> taskRef) {
+        final Task task = (Task) oldTask;
+        if(level(newPriority) > task.level && task.active.compareAndSet(true, false)) {
+            schedule(task.runnable, newPriority, taskRef);
+        }
+    }
+
+    @Override public boolean preempt(int priority) {
+        final int level = level(priority);
+        for(Worker worker : workers) {
+            for(int l = LEVELS - 1; l > level; l--) {
+                if(!worker.tasks[l].isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override public int batchSize() {
+        return batchSize;
+    }
+
+    @Override public boolean isActive() {
+        return pendingTasks.get() != 0;
+    }
+
+    @Override public void shutdown() {
+        shutdown = true;
+        for(Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    @Override public void shutdownNow() {
+        shutdown = true;
+        for(Worker worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private static int level(int priority) {
+        final int waitFors = Math.min(priority / WAIT_FOR_PRIORITY, MAX_WAIT_FORS);
+        return 32 - Integer.numberOfLeadingZeros(waitFors);
+    }
+
+    /**
+     * Push a task on the deque of the current worker, or of a random worker if called from outside the scheduler, and
+     * wake up an idle worker to steal it.
+     */
+    private void push(Task task) {
+        final Thread thread = Thread.currentThread();
+        final Worker worker;
+        if(thread instanceof Worker && ((Worker) thread).scheduler() == this) {
+            worker = (Worker) thread;
+        } else {
+            worker = workers[ThreadLocalRandom.current().nextInt(workers.length)];
+        }
+        worker.tasks[task.level].addLast(task);
+        final Worker idleWorker;
+        if((idleWorker = idleWorkers.poll()) != null) {
+            LockSupport.unpark(idleWorker);
+        }
+    }
+
+    private class Worker extends Thread {
+
+        private final ConcurrentLinkedDeque<Task>[] tasks;
+
+        @SuppressWarnings("unchecked") Worker(String name) {
+            super(name);
+            setDaemon(true);
+            this.tasks = new ConcurrentLinkedDeque[LEVELS];
+            for(int l = 0; l < LEVELS; l++) {
+                tasks[l] = new ConcurrentLinkedDeque<>();
+            }
+        }
+
+        private PriorityWorkStealingScheduler scheduler() {
+            return PriorityWorkStealingScheduler.this;
+        }
+
+        @Override public void run() {
+            while(!shutdown && !isInterrupted()) {
+                Task task;
+                if((task = next()) == null) {
+                    // register as idle before checking again, so that a task pushed after the check wakes us up
+                    idleWorkers.add(this);
+                    if((task = next()) == null && !shutdown) {
+                        LockSupport.park(this);
+                    }
+                    idleWorkers.remove(this);
+                }
+                if(task != null) {
+                    try {
+                        task.run();
+                    } catch(Throwable ex) {
+                        logger.error("Task failed.", ex);
+                    } finally {
+                        pendingTasks.decrementAndGet();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Take the next task with the highest level, preferring own tasks over stolen tasks of the same level.
+         */
+        private Task next() {
+            for(int l = LEVELS - 1; l >= 0; l--) {
+                Task task;
+                if((task = tasks[l].pollFirst()) != null) {
+                    return task;
+                }
+                final int offset = ThreadLocalRandom.current().nextInt(workers.length);
+                for(int i = 0; i < workers.length; i++) {
+                    final Worker victim = workers[(offset + i) % workers.length];
+                    if(victim != this && (task = victim.tasks[l].pollLast()) != null) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private static class Task implements Runnable {
+
+        private final Runnable runnable;
+        private final int level;
+        private final AtomicBoolean active;
+
+        Task(Runnable runnable, int level) {
+            this.runnable = runnable;
+            this.level = level;
+            this.active = new AtomicBoolean(true);
+        }
+
+        @Override public void run() {
+            if(active.compareAndSet(true, false)) {
+                runnable.run();
+            }
+        }
+
+    }
+
+}
@@ -13,11 +13,19 @@ public class ThreadPoolScheduler implements IActorScheduler {
 
     private static final ILogger logger = LoggerUtils.logger(ThreadPoolScheduler.class);
 
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
     private final int parallelism;
+    private final int batchSize;
     private final ThreadPoolExecutor executor;
 
     public ThreadPoolScheduler(int parallelism) {
+        this(parallelism, DEFAULT_BATCH_SIZE);
+    }
+
+    public ThreadPoolScheduler(int parallelism, int batchSize) {
         this.parallelism = parallelism;
+        this.batchSize = batchSize;
         this.executor =
                 new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS, new LinkedBlockingDeque<>());
     }
@@ -48,6 +56,10 @@ public class ThreadPoolScheduler implements IActorScheduler {
         return false;
     }
 
+    @Override public int batchSize() {
+        return batchSize;
+    }
+
     @Override public void shutdown() {
         executor.shutdown();
     }
@@ -53,6 +53,10 @@ public class WonkyScheduler implements IActorScheduler {
         return rnd.nextDouble() < preemptProbability;
     }
 
+    @Override public int batchSize() {
+        return 1;
+    }
+
     @Override public void shutdown() {
         executor.shutdown();
     }
@@ -13,11 +13,19 @@ public class WorkStealingScheduler implements IActorScheduler {
 
     private static final ILogger logger = LoggerUtils.logger(WorkStealingScheduler.class);
 
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
     private final int parallelism;
+    private final int batchSize;
     private final ForkJoinPool executor;
 
     public WorkStealingScheduler(int parallelism) {
+        this(parallelism, DEFAULT_BATCH_SIZE);
+    }
+
+    public WorkStealingScheduler(int parallelism, int batchSize) {
         this.parallelism = parallelism;
+        this.batchSize = batchSize;
         final ForkJoinWorkerThreadFactory factory = new ForkJoinWorkerThreadFactory() {
             @Override public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
                 final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
@@ -54,6 +62,10 @@ public class WorkStealingScheduler implements IActorScheduler {
         return executor.getActiveThreadCount() != 0 || executor.getQueuedTaskCount() != 0;
     }
 
+    @Override public int batchSize() {
+        return batchSize;
+    }
+
     @Override public void shutdown() {
         executor.shutdown();
     }
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -16,6 +17,7 @@ import org.metaborg.util.collection.HashTrieRelation3;
 import org.metaborg.util.collection.IRelation3;
 import org.metaborg.util.collection.MultiSet;
 import org.metaborg.util.collection.MultiSetMap;
+import org.metaborg.util.functions.Function1;
 import org.metaborg.util.functions.Function2;
 import org.metaborg.util.future.CompletableFuture;
 import org.metaborg.util.future.ICompletable;
@@ -88,6 +90,7 @@ public abstract class AbstractUnit<S, L, D, R>
     protected final Set.Immutable<L> edgeLabels;
     protected final Set.Transient<S> scopes;
     private final IRelation3.Transient<S, EdgeOrData<L>, Delay> delays;
+    private final Map<RemoteQuery, IFuture<Env<S, L, D>>> remoteEnvs;
 
     private final MultiSet.Transient<String> scopeNameCounters;
 
@@ -112,6 +115,7 @@ public abstract class AbstractUnit<S, L, D, R>
         this.edgeLabels = CapsuleUtil.toSet(edgeLabels);
         this.scopes = CapsuleUtil.transientSet();
         this.delays = HashTrieRelation3.Transient.of();
+        this.remoteEnvs = new HashMap<>();
 
         this.scopeNameCounters = MultiSet.Transient.of();
 
@@ -350,17 +354,31 @@ public abstract class AbstractUnit<S, L, D, R>
                     return Optional.empty();
                 } else {
                     final IActorRef<? extends IUnit<S, L, D, ?>> owner = context.owner(scope);
-                    logger.debug("remote env {} at {}", scope, owner);
+                    final RemoteQuery key = dataWF.pure() && dataEquiv.pure()
+                            ? new RemoteQuery(path, re, labelOrder, dataWF, dataEquiv) : null;
+                    IFuture<Env<S, L, D>> result;
+                    if(key != null && (result = remoteEnvs.get(key)) != null) {
+                        logger.debug("cached remote env {} at {}", scope, owner);
+                        stats.remoteEnvCacheHits += 1;
+                        if(result.isDone()) {
+                            return Optional.of(result);
+                        }
+                    } else {
+                        logger.debug("remote env {} at {}", scope, owner);
+                        result = self.async(owner)._query(path, re, dataWF, labelOrder, dataEquiv);
+                        if(key != null) {
+                            stats.remoteEnvCacheMisses += 1;
+                            cacheRemoteEnv(key, result);
+                        }
+                        if(external) {
+                            stats.forwardedQueries += 1;
+                        } else {
+                            stats.outgoingQueries += 1;
+                        }
+                    }
                     // this code mirrors query(...)
-                    final IFuture<Env<S, L, D>> result =
-                            self.async(owner)._query(path, re, dataWF, labelOrder, dataEquiv);
                     final Query<S, L, D> wf = Query.of(sender, path, re, dataWF, labelOrder, dataEquiv, result);
                     waitFor(wf, owner);
-                    if(external) {
-                        stats.forwardedQueries += 1;
-                    } else {
-                        stats.outgoingQueries += 1;
-                    }
                     return Optional.of(result.whenComplete((r, ex) -> {
                         logger.debug("got answer from {}", sender);
                         resume();
@@ -458,15 +476,77 @@ public abstract class AbstractUnit<S, L, D, R>
                 return dataEquiv.alwaysTrue(queryContext, cancel);
             }
 
+            @Override protected @Nullable Function1<D, Optional<?>> dataLeqKey() {
+                return external || dataEquivInternal == null ? dataEquiv.key() : null;
+            }
+
         };
 
         final IFuture<Env<S, L, D>> result = nr.env(path, labelWF, context.cancel());
         result.whenComplete((env, ex) -> {
             logger.debug("have answer for {}", sender);
+            stats.envCacheHits += nr.envCacheHits();
+            stats.envCacheMisses += nr.envCacheMisses();
         });
         return result;
     }
 
+    /**
+     * Cache the answer to a remote query, so that the same query from this unit is not sent again. Answers are only
+     * returned when all scopes they depend on are closed, so successful answers are final. Failed answers are removed,
+     * so that the query is sent again next time.
+     */
+    private void cacheRemoteEnv(RemoteQuery key, IFuture<Env<S, L, D>> result) {
+        remoteEnvs.put(key, result);
+        result.whenComplete((env, ex) -> {
+            if(ex != null) {
+                remoteEnvs.remove(key, result);
+            }
+        });
+    }
+
+    /**
+     * Key for remote query answers. The path is part of the key, because the owner does not traverse scopes that are
+     * already on the path, which may change the answer.
+     */
+    private class RemoteQuery {
+
+        private final ScopePath<S, L> path;
+        private final LabelWf<L> labelWF;
+        private final LabelOrder<L> labelOrder;
+        private final DataWf<S, L, D> dataWF;
+        private final DataLeq<S, L, D> dataEquiv;
+        private final int hashCode;
+
+        RemoteQuery(ScopePath<S, L> path, LabelWf<L> labelWF, LabelOrder<L> labelOrder, DataWf<S, L, D> dataWF,
+                DataLeq<S, L, D> dataEquiv) {
+            this.path = path;
+            this.labelWF = labelWF;
+            this.labelOrder = labelOrder;
+            this.dataWF = dataWF;
+            this.dataEquiv = dataEquiv;
+            this.hashCode = Objects.hash(path, labelWF, labelOrder, dataWF, dataEquiv);
+        }
+
+        @Override public int hashCode() {
+            return hashCode;
+        }
+
+        @Override public boolean equals(Object obj) {
+            if(this == obj)
+                return true;
+            if(obj == null)
+                return false;
+            if(getClass() != obj.getClass())
+                return false;
+            @SuppressWarnings("unchecked") final RemoteQuery other = (RemoteQuery) obj;
+            return hashCode == other.hashCode && path.equals(other.path) && labelWF.equals(other.labelWF)
+                    && labelOrder.equals(other.labelOrder) && dataWF.equals(other.dataWF)
+                    && dataEquiv.equals(other.dataEquiv);
+        }
+
+    }
+
     private final ITypeCheckerContext<S, L, D> queryContext = new ITypeCheckerContext<S, L, D>() {
 
         @Override public String id() {
@@ -563,6 +643,7 @@ public abstract class AbstractUnit<S, L, D, R>
         logger.debug("{} wait for {}/{}", self, actor, token);
         waitFors = waitFors.add(token);
         waitForsByActor = waitForsByActor.put(actor, token);
+        self.waitFor(actor);
     }
 
     protected void granted(IWaitFor<S, L, D> token, IActorRef<? extends IUnit<S, L, D, ?>> actor) {
@@ -572,6 +653,7 @@ public abstract class AbstractUnit<S, L, D, R>
         }
         waitFors = waitFors.remove(token);
         waitForsByActor = waitForsByActor.remove(actor, token);
+        self.granted(actor);
     }
 
     /**
@@ -651,8 +733,14 @@ public abstract class AbstractUnit<S, L, D, R>
     // Deadlock handling
     ///////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Time at which deadlock detection was last initiated, to measure the time to detect a deadlock.
+     */
+    private long idleTimeNanos;
+
     protected void suspend() {
         if(cmh.idle()) {
+            idleTimeNanos = System.nanoTime();
         }
     }
 
@@ -679,6 +767,8 @@ public abstract class AbstractUnit<S, L, D, R>
 
     private void handleDeadlock(java.util.Set<IActorRef<? extends IUnit<S, L, D, ?>>> nodes) {
         logger.debug("{} deadlocked with {}", this, nodes);
+        stats.deadlocks += 1;
+        stats.deadlockDetectionNanos += System.nanoTime() - idleTimeNanos;
         if(!nodes.contains(self)) {
             throw new IllegalStateException("Deadlock unrelated to this unit.");
         }
@@ -866,6 +956,12 @@ public abstract class AbstractUnit<S, L, D, R>
         protected long runtimeNanos;
         protected int dataWfChecks;
         protected int dataLeqChecks;
+        protected long envCacheHits;
+        protected long envCacheMisses;
+        protected long remoteEnvCacheHits;
+        protected long remoteEnvCacheMisses;
+        protected int deadlocks;
+        protected long deadlockDetectionNanos;
 
         private IActorStats actorStats;
 
@@ -882,7 +978,13 @@ public abstract class AbstractUnit<S, L, D, R>
                 "outgoingQueries",
                 "forwardedQueries",
                 "dataWfChecks",
-                "dataLeqChecks"
+                "dataLeqChecks",
+                "envCacheHits",
+                "envCacheMisses",
+                "remoteEnvCacheHits",
+                "remoteEnvCacheMisses",
+                "deadlocks",
+                "deadlockDetectionMillis"
             ), actorStats.csvHeaders());
             // @formatter:on
         }
@@ -896,7 +998,13 @@ public abstract class AbstractUnit<S, L, D, R>
                 Integer.toString(outgoingQueries),
                 Integer.toString(forwardedQueries),
                 Integer.toString(dataWfChecks),
-                Integer.toString(dataLeqChecks)
+                Integer.toString(dataLeqChecks),
+                Long.toString(envCacheHits),
+                Long.toString(envCacheMisses),
+                Long.toString(remoteEnvCacheHits),
+                Long.toString(remoteEnvCacheMisses),
+                Integer.toString(deadlocks),
+                Long.toString(TimeUnit.MILLISECONDS.convert(deadlockDetectionNanos, TimeUnit.NANOSECONDS))
             ), actorStats.csvRow());
             // @formatter:on
         }
@@ -22,17 +22,16 @@ import mb.p_raffrayi.ITypeChecker;
 import mb.p_raffrayi.IUnitResult;
 import mb.p_raffrayi.actors.IActor;
 import mb.p_raffrayi.actors.IActorRef;
-import mb.p_raffrayi.actors.TypeTag;
 import mb.p_raffrayi.actors.impl.ActorSystem;
 import mb.p_raffrayi.actors.impl.IActorScheduler;
+import mb.p_raffrayi.actors.impl.PriorityWorkStealingScheduler;
 import mb.p_raffrayi.actors.impl.WonkyScheduler;
-import mb.p_raffrayi.actors.impl.WorkStealingScheduler;
 
 public class Broker<S, L, D, R> {
 
     private static final ILogger logger = LoggerUtils.logger(Broker.class);
 
-    private static final int INACTIVE_TIMEOUT = 5;
+    private static final int CANCEL_POLL_INTERVAL_MILLIS = 100;
 
     private final String id;
     private final ITypeChecker<S, L, D, R> typeChecker;
@@ -64,7 +63,9 @@ public class Broker<S, L, D, R> {
     }
 
     private IFuture<IUnitResult<S, L, D, R>> run() {
-        final IActor<IUnit<S, L, D, R>> unit = system.add(id, TypeTag.of(IUnit.class),
+        startQuiescenceDetection();
+
+        final IActor<IUnit<S, L, D, R>> unit = system.add(id, UnitStub.type(),
                 self -> new TypeCheckerUnit<>(self, null, new UnitContext(self), typeChecker, edgeLabels));
         addUnit(unit);
 
@@ -75,7 +76,7 @@ public class Broker<S, L, D, R> {
             return system.stop().compose((r2, ex2) -> CompletableFuture.completed(r, ex));
         });
 
-        startWatcherThread();
+        startCancelWatcherThread();
 
         return runResult;
     }
@@ -92,8 +93,25 @@ public class Broker<S, L, D, R> {
                 totalUnits.get());
     }
 
-    private void startWatcherThread() {
-        final AtomicInteger inactive = new AtomicInteger();
+    /**
+     * Cancel the system as soon as it becomes quiescent before the root unit finished. Units start deadlock detection
+     * when they suspend, and resolve the deadlocks they detect, so if no actor is running and no messages are pending,
+     * no unit can make progress anymore.
+     */
+    private void startQuiescenceDetection() {
+        final long t0 = System.currentTimeMillis();
+        system.onQuiescence(() -> {
+            final long dt = System.currentTimeMillis() - t0;
+            logger.error("Deadlock detected: system quiescent after {} s with {} of {} units unfinished.",
+                    (dt / 1_000d), unfinishedUnits.get(), totalUnits.get());
+            system.cancel();
+        });
+    }
+
+    /**
+     * Cancellation is only observable by polling, so that is done in a separate thread.
+     */
+    private void startCancelWatcherThread() {
         final Thread watcher = new Thread(() -> {
             try {
                 while(true) {
@@ -102,24 +120,13 @@ public class Broker<S, L, D, R> {
                     } else if(cancel.cancelled()) {
                         system.cancel();
                         return;
-                    } else if(!scheduler.isActive()) {
-                        if(inactive.incrementAndGet() < INACTIVE_TIMEOUT) {
-                            logger.error("Potential deadlock...");
-                        } else {
-                            logger.error("Deadlock detected.");
-                            system.cancel();
-                            return;
-                        }
-                    } else {
-                        if(inactive.getAndSet(0) != 0) {
-                            logger.error("False deadlock.");
-                        }
                     }
-                    Thread.sleep(1000);
+                    Thread.sleep(CANCEL_POLL_INTERVAL_MILLIS);
                 }
             } catch(InterruptedException e) {
             }
         }, "PRaffrayiWatcher");
+        watcher.setDaemon(true);
         watcher.start();
     }
 
@@ -150,7 +157,7 @@ public class Broker<S, L, D, R> {
         @Override public <Q> Tuple2<IFuture<IUnitResult<S, L, D, Q>>, IActorRef<? extends IUnit<S, L, D, Q>>> add(
                 String id, Function2<IActor<IUnit<S, L, D, Q>>, IUnitContext<S, L, D>, IUnit<S, L, D, Q>> unitProvider,
                 List<S> rootScopes) {
-            final IActorRef<IUnit<S, L, D, Q>> unit = self.add(id, TypeTag.of(IUnit.class),
+            final IActorRef<IUnit<S, L, D, Q>> unit = self.add(id, UnitStub.type(),
                     (subself) -> unitProvider.apply(subself, new UnitContext(subself)));
             addUnit(unit);
             final IFuture<IUnitResult<S, L, D, Q>> unitResult = self.async(unit)._start(rootScopes);
@@ -171,8 +178,8 @@ public class Broker<S, L, D, R> {
 
     public static <S, L, D, R> IFuture<IUnitResult<S, L, D, R>> run(String id, ITypeChecker<S, L, D, R> typeChecker,
             IScopeImpl<S, D> scopeImpl, Iterable<L> edgeLabels, ICancel cancel, int parallelism) {
-        return new Broker<>(id, typeChecker, scopeImpl, edgeLabels, cancel, new WorkStealingScheduler(parallelism))
-                .run();
+        return new Broker<>(id, typeChecker, scopeImpl, edgeLabels, cancel,
+                new PriorityWorkStealingScheduler(parallelism)).run();
     }
 
     public static <S, L, D, R> IFuture<IUnitResult<S, L, D, R>> debug(String id, ITypeChecker<S, L, D, R> typeChecker,
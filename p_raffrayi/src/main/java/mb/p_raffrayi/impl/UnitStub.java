@@ -0,0 +1,91 @@
+package mb.p_raffrayi.impl;
+
+import java.util.List;
+import java.util.Set;
+
+import org.metaborg.util.future.IFuture;
+import org.metaborg.util.tuple.Tuple2;
+import org.metaborg.util.tuple.Tuple3;
+
+import mb.p_raffrayi.IUnitResult;
+import mb.p_raffrayi.actors.IActorRef;
+import mb.p_raffrayi.actors.IAsyncChannel;
+import mb.p_raffrayi.actors.TypeTag;
+import mb.p_raffrayi.nameresolution.DataLeq;
+import mb.p_raffrayi.nameresolution.DataWf;
+import mb.scopegraph.ecoop21.LabelOrder;
+import mb.scopegraph.ecoop21.LabelWf;
+import mb.scopegraph.oopsla20.reference.EdgeOrData;
+import mb.scopegraph.oopsla20.reference.Env;
+import mb.scopegraph.oopsla20.terms.newPath.ScopePath;
+
+/**
+ * Typed async interface of units, which sends messages without reflection. Every method of {@link IUnit} must be
+ * forwarded to the channel here.
+ *
+ * Repeated {@link #_addShare} and {@link #_closeEdge} messages for the same scope are coalesced. Both are counted by
+ * the receiver, so coalesced messages are still delivered once per send, but only take one mailbox entry.
+ */
+class UnitStub<S, L, D, R> implements IUnit<S, L, D, R> {
+
+    private final IAsyncChannel<IUnit<S, L, D, R>> channel;
+
+    private UnitStub(IAsyncChannel<IUnit<S, L, D, R>> channel) {
+        this.channel = channel;
+    }
+
+    static <S, L, D, R> TypeTag<IUnit<S, L, D, R>> type() {
+        return TypeTag.of(IUnit.class, UnitStub::new);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // IBroker2UnitProtocol
+    ///////////////////////////////////////////////////////////////////////////
+
+    @Override public IFuture<IUnitResult<S, L, D, R>> _start(List<S> rootScopes) {
+        return channel.ask("_start", unit -> unit._start(rootScopes));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // IUnit2UnitProtocol
+    ///////////////////////////////////////////////////////////////////////////
+
+    @Override public void _initShare(S scope, Iterable<EdgeOrData<L>> edges, boolean sharing) {
+        channel.send("_initShare", unit -> unit._initShare(scope, edges, sharing));
+    }
+
+    @Override public void _addShare(S scope) {
+        channel.sendCoalesced("_addShare", Tuple2.of("_addShare", scope), unit -> unit._addShare(scope));
+    }
+
+    @Override public void _doneSharing(S scope) {
+        channel.send("_doneSharing", unit -> unit._doneSharing(scope));
+    }
+
+    @Override public void _addEdge(S source, L label, S target) {
+        channel.send("_addEdge", unit -> unit._addEdge(source, label, target));
+    }
+
+    @Override public void _closeEdge(S scope, EdgeOrData<L> edge) {
+        channel.sendCoalesced("_closeEdge", Tuple3.of("_closeEdge", scope, edge), unit -> unit._closeEdge(scope, edge));
+    }
+
+    @Override public IFuture<Env<S, L, D>> _query(ScopePath<S, L> path, LabelWf<L> labelWF, DataWf<S, L, D> dataWF,
+            LabelOrder<L> labelOrder, DataLeq<S, L, D> dataEquiv) {
+        return channel.ask("_query", unit -> unit._query(path, labelWF, dataWF, labelOrder, dataEquiv));
+    }
+
+    @Override public void _deadlockQuery(IActorRef<? extends IUnit<S, L, D, ?>> i, int m) {
+        channel.send("_deadlockQuery", unit -> unit._deadlockQuery(i, m));
+    }
+
+    @Override public void _deadlockReply(IActorRef<? extends IUnit<S, L, D, ?>> i, int m,
+            Set<IActorRef<? extends IUnit<S, L, D, ?>>> r) {
+        channel.send("_deadlockReply", unit -> unit._deadlockReply(i, m, r));
+    }
+
+    @Override public void _deadlocked(Set<IActorRef<? extends IUnit<S, L, D, ?>>> nodes) {
+        channel.send("_deadlocked", unit -> unit._deadlocked(nodes));
+    }
+
+}
@@ -1,5 +1,10 @@
 package mb.p_raffrayi.nameresolution;
 
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.util.functions.Function1;
 import org.metaborg.util.future.CompletableFuture;
 import org.metaborg.util.future.IFuture;
 import org.metaborg.util.task.ICancel;
@@ -10,6 +15,22 @@ public interface DataLeq<S, L, D> {
 
     IFuture<Boolean> leq(D d1, D d2, ITypeCheckerContext<S, L, D> context, ICancel cancel) throws InterruptedException;
 
+    /**
+     * Whether this order is pure, see {@link DataWf#pure()}.
+     */
+    default boolean pure() {
+        return false;
+    }
+
+    /**
+     * Key function if this order is equality on a projection of the datum, or null otherwise. The key function must
+     * return the same key for d1 and d2 iff d1 <= d2, and no key for data that are not related to any datum. Only
+     * orders that do not depend on the type checker context can have a key function.
+     */
+    default @Nullable Function1<D, Optional<?>> key() {
+        return null;
+    }
+
     default IFuture<Boolean> alwaysTrue(@SuppressWarnings("unused") ITypeCheckerContext<S, L, D> context,
             @SuppressWarnings("unused") ICancel cancel) {
         return CompletableFuture.completedFuture(false);
@@ -29,6 +50,10 @@ public interface DataLeq<S, L, D> {
                 return CompletableFuture.completedFuture(true);
             }
 
+            @Override public boolean pure() {
+                return true;
+            }
+
         };
     }
 
@@ -38,6 +63,10 @@ public interface DataLeq<S, L, D> {
                     ITypeCheckerContext<S, L, D> context, ICancel cancel) throws InterruptedException {
                 return CompletableFuture.completedFuture(false);
             }
+
+            @Override public boolean pure() {
+                return true;
+            }
         };
     }
 
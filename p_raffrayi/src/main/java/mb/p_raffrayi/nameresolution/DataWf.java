@@ -10,12 +10,24 @@ public interface DataWf<S, L, D> {
 
     IFuture<Boolean> wf(D d, ITypeCheckerContext<S, L, D> context, ICancel cancel) throws InterruptedException;
 
+    /**
+     * Whether the result only depends on the datum and the scope graph, and equal objects give equal results. Answers
+     * to queries with pure predicates may be cached, using the predicate as part of the key.
+     */
+    default boolean pure() {
+        return false;
+    }
+
     static <S, L, D> DataWf<S, L, D> any() {
         return new DataWf<S, L, D>() {
             @SuppressWarnings("unused") @Override public IFuture<Boolean> wf(D d, ITypeCheckerContext<S, L, D> context,
                     ICancel cancel) throws InterruptedException {
                 return CompletableFuture.completedFuture(true);
             }
+
+            @Override public boolean pure() {
+                return true;
+            }
         };
     }
 
@@ -18,6 +18,8 @@ public class ActorTest {
 
     private static final TypeTag<EmptyActor> EMPTY_ACTOR = TypeTag.of(EmptyActor.class);
     private static final TypeTag<PingActor> PING_ACTOR = TypeTag.of(PingActor.class);
+    private static final TypeTag<PingActor> PING_ACTOR_STUB = TypeTag.of(PingActor.class, PingActorStub::new);
+    private static final TypeTag<CountActor> COUNT_ACTOR_STUB = TypeTag.of(CountActor.class, CountActorStub::new);
 
     @Test(timeout = 10_000) public void testNoActors() throws InterruptedException, ExecutionException {
         final IActorSystem system = new ActorSystem();
@@ -140,6 +142,68 @@ public class ActorTest {
         system.stop().asJavaCompletion().get();
     }
 
+    @Test(timeout = 10_000) public void testPingFromSystemWithStub() throws InterruptedException, ExecutionException {
+        final IActorSystem system = new ActorSystem();
+        final IActorRef<PingActor> one = system.add("one", PING_ACTOR_STUB, (self) -> new PingActor() {
+
+            @Override public IFuture<Unit> ping() {
+                return CompletableFuture.completedFuture(Unit.unit);
+            };
+
+        });
+        final IFuture<Unit> pong = system.async(one).ping();
+        pong.asJavaCompletion().get();
+        system.stop().asJavaCompletion().get();
+    }
+
+    @Test(timeout = 10_000) public void testPingFromParentWithStub() throws InterruptedException, ExecutionException {
+        final ICompletableFuture<Unit> oneGotPong = new CompletableFuture<>();
+        final IActorSystem system = new ActorSystem();
+        system.add("one", EMPTY_ACTOR, (self) -> new EmptyActor() {
+
+            @Override public void started() {
+                final IActorRef<PingActor> two = self.add("two", PING_ACTOR_STUB, (self) -> new PingActor() {
+
+                    @Override public IFuture<Unit> ping() {
+                        return CompletableFuture.completedFuture(Unit.unit);
+                    }
+
+                });
+                final IFuture<Unit> pong = self.async(two).ping();
+                pong.thenAccept((u) -> {
+                    oneGotPong.complete(Unit.unit);
+                });
+            }
+
+        });
+        oneGotPong.asJavaCompletion().get();
+        system.stop().asJavaCompletion().get();
+    }
+
+    @Test(timeout = 10_000) public void testCoalescedMessagesAreDeliveredOncePerSend()
+            throws InterruptedException, ExecutionException {
+        final IActorSystem system = new ActorSystem();
+        final IActorRef<CountActor> one = system.add("one", COUNT_ACTOR_STUB, (self) -> new CountActor() {
+
+            private int count = 0;
+
+            @Override public void inc() {
+                count += 1;
+            }
+
+            @Override public IFuture<Integer> count() {
+                return CompletableFuture.completedFuture(count);
+            }
+
+        });
+        final CountActor async = system.async(one);
+        for(int i = 0; i < 1000; i++) {
+            async.inc();
+        }
+        assertEquals(1000, (int) async.count().asJavaCompletion().get());
+        system.stop().asJavaCompletion().get();
+    }
+
     @Test(timeout = 10_000) public void testActorsStopInOrder0() throws InterruptedException, ExecutionException {
         final AtomicInteger order = new AtomicInteger();
         final ICompletableFuture<Integer> oneStopped = new CompletableFuture<>();
@@ -296,6 +360,29 @@ public class ActorTest {
         system.stop().asJavaCompletion().get();
     }
 
+    @Test(timeout = 10_000) public void testQuiescenceWhenWaitingForUnansweredPing()
+            throws InterruptedException, ExecutionException {
+        final ICompletableFuture<Unit> quiescent = new CompletableFuture<>();
+        final ActorSystem system = new ActorSystem();
+        system.onQuiescence(() -> quiescent.complete(Unit.unit));
+        system.add("one", EMPTY_ACTOR, (self) -> new EmptyActor() {
+
+            @Override public void started() {
+                final IActorRef<PingActor> two = self.add("two", PING_ACTOR, (self) -> new PingActor() {
+
+                    @Override public IFuture<Unit> ping() {
+                        return new CompletableFuture<>();
+                    }
+
+                });
+                self.async(two).ping();
+            }
+
+        });
+        quiescent.asJavaCompletion().get();
+        system.stop().asJavaCompletion().get();
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////
     // Actor Interfaces
@@ -311,4 +398,44 @@ public class ActorTest {
 
     }
 
+    private interface CountActor {
+
+        void inc();
+
+        IFuture<Integer> count();
+
+    }
+
+    private static class CountActorStub implements CountActor {
+
+        private final IAsyncChannel<CountActor> channel;
+
+        private CountActorStub(IAsyncChannel<CountActor> channel) {
+            this.channel = channel;
+        }
+
+        @Override public void inc() {
+            channel.sendCoalesced("inc", "inc", impl -> impl.inc());
+        }
+
+        @Override public IFuture<Integer> count() {
+            return channel.ask("count", impl -> impl.count());
+        }
+
+    }
+
+    private static class PingActorStub implements PingActor {
+
+        private final IAsyncChannel<PingActor> channel;
+
+        private PingActorStub(IAsyncChannel<PingActor> channel) {
+            this.channel = channel;
+        }
+
+        @Override public IFuture<Unit> ping() {
+            return channel.ask("ping", impl -> impl.ping());
+        }
+
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package mb.p_raffrayi.actors.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class PriorityBlockingQueueThreadPoolSchedulerTest {
+
+    @Test(timeout = 10_000) public void testPreemptWithManyWaitFors() throws InterruptedException {
+        final PriorityBlockingQueueThreadPoolScheduler scheduler = new PriorityBlockingQueueThreadPoolScheduler(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            blocked.countDown();
+            await(release);
+        }, 0, new AtomicReference<>());
+        blocked.await();
+        final int priority = IActorScheduler.MAX_WAIT_FORS * IActorScheduler.WAIT_FOR_PRIORITY;
+        scheduler.schedule(done::countDown, priority, new AtomicReference<>());
+        assertTrue(scheduler.preempt(IActorScheduler.WAIT_FOR_PRIORITY));
+        assertFalse(scheduler.preempt(priority));
+        release.countDown();
+        done.await();
+        scheduler.shutdown();
+    }
+
+    @Test(timeout = 10_000) public void testRescheduleWithManyWaitFors() throws InterruptedException {
+        final PriorityBlockingQueueThreadPoolScheduler scheduler = new PriorityBlockingQueueThreadPoolScheduler(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        scheduler.schedule(() -> {
+            blocked.countDown();
+            await(release);
+        }, 0, new AtomicReference<>());
+        blocked.await();
+        final int priority = IActorScheduler.MAX_WAIT_FORS * IActorScheduler.WAIT_FOR_PRIORITY;
+        final AtomicReference<Runnable> taskRef = new AtomicReference<>();
+        scheduler.schedule(done::countDown, priority, taskRef);
+        scheduler.reschedule(taskRef.getAndSet(null), priority + 1, taskRef);
+        assertNull(taskRef.get());
+        release.countDown();
+        done.await();
+        scheduler.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
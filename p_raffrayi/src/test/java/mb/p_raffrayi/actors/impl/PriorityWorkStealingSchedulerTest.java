@@ -0,0 +1,92 @@
+package mb.p_raffrayi.actors.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class PriorityWorkStealingSchedulerTest {
+
+    @Test(timeout = 10_000) public void testAllTasksRun() throws InterruptedException {
+        final PriorityWorkStealingScheduler scheduler = new PriorityWorkStealingScheduler(4);
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(10_000);
+        for(int i = 0; i < 10_000; i++) {
+            final int priority = (i % 5) * IActorScheduler.WAIT_FOR_PRIORITY;
+            scheduler.schedule(() -> {
+                count.incrementAndGet();
+                done.countDown();
+            }, priority, new AtomicReference<>());
+        }
+        done.await();
+        assertEquals(10_000, count.get());
+        scheduler.shutdown();
+    }
+
+    @Test(timeout = 10_000) public void testWaitedForTasksRunFirst() throws InterruptedException {
+        final PriorityWorkStealingScheduler scheduler = new PriorityWorkStealingScheduler(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        scheduler.schedule(() -> {
+            blocked.countDown();
+            await(release);
+        }, 0, new AtomicReference<>());
+        blocked.await();
+        scheduler.schedule(task("none", order, done), 0, new AtomicReference<>());
+        scheduler.schedule(task("one", order, done), IActorScheduler.WAIT_FOR_PRIORITY, new AtomicReference<>());
+        scheduler.schedule(task("many", order, done), 8 * IActorScheduler.WAIT_FOR_PRIORITY, new AtomicReference<>());
+        assertTrue(scheduler.preempt(0));
+        assertFalse(scheduler.preempt(8 * IActorScheduler.WAIT_FOR_PRIORITY));
+        release.countDown();
+        done.await();
+        assertEquals(Arrays.asList("many", "one", "none"), order);
+        scheduler.shutdown();
+    }
+
+    @Test(timeout = 10_000) public void testRescheduleRaisesLevel() throws InterruptedException {
+        final PriorityWorkStealingScheduler scheduler = new PriorityWorkStealingScheduler(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        scheduler.schedule(() -> {
+            blocked.countDown();
+            await(release);
+        }, 0, new AtomicReference<>());
+        blocked.await();
+        final AtomicReference<Runnable> taskRef = new AtomicReference<>();
+        scheduler.schedule(task("first", order, done), 0, new AtomicReference<>());
+        scheduler.schedule(task("second", order, done), 0, taskRef);
+        scheduler.reschedule(taskRef.getAndSet(null), IActorScheduler.WAIT_FOR_PRIORITY, taskRef);
+        release.countDown();
+        done.await();
+        assertEquals(Arrays.asList("second", "first"), order);
+        scheduler.shutdown();
+    }
+
+    private static Runnable task(String name, List<String> order, CountDownLatch done) {
+        return () -> {
+            order.add(name);
+            done.countDown();
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -1,56 +1,123 @@
 package mb.renaming.namegraph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import org.spoofax.interpreter.terms.IStrategoTerm;
 
+/**
+ * Clusters of names that are related by resolution, and must be renamed together.
+ * 
+ * Names are interned to dense ids, and clusters are kept in a disjoint-set structure with path compression and union
+ * by rank, so that adding a resolution pair takes nearly constant amortized time. The members of every cluster are
+ * linked in a circular list, which is spliced on union, so that the cluster of a name is found in time linear in its
+ * size.
+ */
 public final class NameGraph {
-	
-	private final Set<Set<NameIndex>> clusters;
-	
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Map<NameIndex, Integer> ids;
+	private final List<NameIndex> names;
+
+	private int[] parent;
+	private int[] rank;
+	private int[] next;
+
 	public NameGraph() {
-		clusters = new HashSet<>();
+		ids = new HashMap<>();
+		names = new ArrayList<>();
+		parent = new int[INITIAL_CAPACITY];
+		rank = new int[INITIAL_CAPACITY];
+		next = new int[INITIAL_CAPACITY];
 	}
-	
+
 	public NameGraph(List<IStrategoTerm> resolutionRelation) {
-		clusters = new HashSet<>();
+		this();
 		for(IStrategoTerm pair: resolutionRelation) {
 			addResolutionPair(new ResolutionPair(pair));
 		}
 	}
-	
+
 	public void addResolutionPair(ResolutionPair pair) {
-		Optional<Set<NameIndex>> decCluster = find(pair.getDeclaration());
-		Optional<Set<NameIndex>> refCluster = find(pair.getReference());
-		
-		if(!(decCluster.isPresent() || refCluster.isPresent())) {
-			Set<NameIndex> cluster = new HashSet<>();
-			cluster.add(pair.getDeclaration());
-			cluster.add(pair.getReference());
-			clusters.add(cluster);
-		} else if (decCluster.isPresent() && !refCluster.isPresent()) {
-			decCluster.get().add(pair.getReference());
-		} else if (!decCluster.isPresent() && refCluster.isPresent()) {
-			refCluster.get().add(pair.getDeclaration());
-		} else if (decCluster.isPresent() && refCluster.isPresent()) {
-			union(decCluster.get(), refCluster.get());
-		}
+		union(id(pair.getDeclaration()), id(pair.getReference()));
 	}
 
+	/**
+	 * The cluster of the given name, or nothing if the name does not occur in any resolution pair.
+	 */
 	public Optional<Set<NameIndex>> find(NameIndex index) {
-		return clusters.stream()
-				.filter(cluster -> cluster.contains(index))
-				.findFirst();
-	}
-	
-	public void union(Set<NameIndex> decCluster, Set<NameIndex> refCluster) {
-		if (decCluster != refCluster) {
-			decCluster.addAll(refCluster);
-			clusters.remove(refCluster);
+		final Integer id = ids.get(index);
+		if(id == null) {
+			return Optional.empty();
+		}
+		final Set<NameIndex> cluster = new HashSet<>();
+		int member = id;
+		do {
+			cluster.add(names.get(member));
+			member = next[member];
+		} while(member != id);
+		return Optional.of(cluster);
+	}
+
+	/**
+	 * Number of distinct names in the graph.
+	 */
+	public int size() {
+		return names.size();
+	}
+
+	private int id(NameIndex index) {
+		final Integer id = ids.get(index);
+		if(id != null) {
+			return id;
+		}
+		final int newId = names.size();
+		if(newId == parent.length) {
+			final int capacity = 2 * parent.length;
+			parent = Arrays.copyOf(parent, capacity);
+			rank = Arrays.copyOf(rank, capacity);
+			next = Arrays.copyOf(next, capacity);
+		}
+		parent[newId] = newId;
+		next[newId] = newId;
+		ids.put(index, newId);
+		names.add(index);
+		return newId;
+	}
+
+	private int root(int id) {
+		while(parent[id] != id) {
+			parent[id] = parent[parent[id]];
+			id = parent[id];
+		}
+		return id;
+	}
+
+	private void union(int id1, int id2) {
+		final int root1 = root(id1);
+		final int root2 = root(id2);
+		if(root1 == root2) {
+			return;
+		}
+		if(rank[root1] < rank[root2]) {
+			parent[root1] = root2;
+		} else {
+			parent[root2] = root1;
+			if(rank[root1] == rank[root2]) {
+				rank[root1]++;
+			}
 		}
+		// swapping the successors of members of two different cycles joins them into one
+		final int next1 = next[id1];
+		next[id1] = next[id2];
+		next[id2] = next1;
 	}
 
 }
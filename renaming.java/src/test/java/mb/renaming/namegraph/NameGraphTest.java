@@ -2,8 +2,11 @@ package mb.renaming.namegraph;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.junit.Test;
@@ -220,6 +223,36 @@ public class NameGraphTest {
 		assertTrue(cluster.contains(pair4.getReference()));
 
 	}
+	
+	@Test
+	public void testMergeLongChains() {
+		NameIndex[] nodes = createNodes(1000, "foo");
+		
+		//Build two chains, with cycles in each, and join them at the end
+		NameGraph graph = new NameGraph();
+		for(int i = 0; i + 2 < nodes.length; i += 2) {
+			graph.addResolutionPair(new ResolutionPair(nodes[i + 2], nodes[i]));
+			graph.addResolutionPair(new ResolutionPair(nodes[i + 3], nodes[i + 1]));
+			graph.addResolutionPair(new ResolutionPair(nodes[i], nodes[i + 2]));
+		}
+		assertEquals(500, graph.find(nodes[0]).get().size());
+		assertEquals(500, graph.find(nodes[1]).get().size());
+		assertFalse(graph.find(nodes[0]).get().contains(nodes[1]));
+		
+		graph.addResolutionPair(new ResolutionPair(nodes[998], nodes[1]));
+		Set<NameIndex> cluster = graph.find(nodes[500]).get();
+		assertEquals(new HashSet<>(Arrays.asList(nodes)), cluster);
+		assertEquals(nodes.length, graph.size());
+	}
+	
+	@Test
+	public void testUnknownName() {
+		NameGraph graph = new NameGraph();
+		graph.addResolutionPair(new ResolutionPair("foo", 2, 1));
+		
+		assertFalse(graph.find(new NameIndex(3, "foo")).isPresent());
+		assertFalse(graph.find(new NameIndex(1, "bar")).isPresent());
+	}
 
 
 }
@@ -1,9 +1,14 @@
 package mb.scopegraph.ecoop21;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.functions.Function1;
 import org.metaborg.util.future.AggregateFuture;
 import org.metaborg.util.future.CompletableFuture;
 import org.metaborg.util.future.Futures;
@@ -15,6 +20,7 @@ import org.metaborg.util.task.ICancel;
 import org.metaborg.util.unit.Unit;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import io.usethesource.capsule.Set;
 import mb.scopegraph.oopsla20.reference.EdgeOrData;
@@ -31,6 +37,9 @@ public abstract class NameResolution<S, L, D> {
 
     private final LabelOrder<L> labelOrder;
 
+    private long envCacheHits = 0;
+    private long envCacheMisses = 0;
+
     public NameResolution(Set.Immutable<L> edgeLabels, LabelOrder<L> labelOrder) {
         this.dataLabel = EdgeOrData.data();
         this.edgeLabels = edgeLabels;
@@ -53,8 +62,31 @@ public abstract class NameResolution<S, L, D> {
 
     protected abstract IFuture<Boolean> dataLeqAlwaysTrue(ICancel cancel);
 
+    /**
+     * Key function for data orders that are equality on a projection of the datum, such that d1 <= d2 iff both data
+     * have a key, and the keys are equal. If present, shadowing uses a hash set of keys instead of comparing all pairs
+     * with {@link #dataLeq(Object, Object, ICancel)}.
+     */
+    protected @Nullable Function1<D, Optional<?>> dataLeqKey() {
+        return null;
+    }
+
     ///////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Number of sub-environments that were reused instead of recomputed.
+     */
+    public long envCacheHits() {
+        return envCacheHits;
+    }
+
+    /**
+     * Number of sub-environments that were computed.
+     */
+    public long envCacheMisses() {
+        return envCacheMisses;
+    }
+
     public ICompletableFuture<Env<S, L, D>> env(ScopePath<S, L> path, LabelWf<L> re, ICancel cancel) {
         final ICompletableFuture<Env<S, L, D>> result = new CompletableFuture<>();
         logger.trace("env {}", path);
@@ -68,12 +100,32 @@ public abstract class NameResolution<S, L, D> {
                     labels.__insert(EdgeOrData.edge(l));
                 }
             }
-            return env_L(path, re, labels.freeze(), cancel);
+            return env_L(path, re, labels.freeze(), Maps.newHashMap(), cancel);
         }).whenComplete(result::complete);
         return result;
     }
 
+    /**
+     * Compute the environment for the labels in L. The path and label well-formedness are fixed within one call of
+     * env, so the result only depends on L and is memoized. This only prevents recomputing the environment of labels
+     * that are smaller than several maximal labels in the same scope. Diamonds in the graph, where a scope is reached
+     * by several paths, are not covered: results are not shared between paths, because external environments and
+     * cycle checks depend on the path, and the scopes a pending environment reaches are not known until it completes.
+     */
     private IFuture<Env<S, L, D>> env_L(ScopePath<S, L> path, LabelWf<L> re, Set.Immutable<EdgeOrData<L>> L,
+            Map<Set.Immutable<EdgeOrData<L>>, IFuture<Env<S, L, D>>> memo, ICancel cancel) {
+        IFuture<Env<S, L, D>> env;
+        if((env = memo.get(L)) != null) {
+            envCacheHits += 1;
+            return env;
+        }
+        envCacheMisses += 1;
+        memo.put(L, (env = compute_env_L(path, re, L, memo, cancel)));
+        return env;
+    }
+
+    private IFuture<Env<S, L, D>> compute_env_L(ScopePath<S, L> path, LabelWf<L> re,
+            Set.Immutable<EdgeOrData<L>> L, Map<Set.Immutable<EdgeOrData<L>>, IFuture<Env<S, L, D>>> memo,
             ICancel cancel) {
         logger.trace("env_L {} {} {}", path, re, L);
         if(cancel.cancelled()) {
@@ -82,7 +134,7 @@ public abstract class NameResolution<S, L, D> {
         final Set<EdgeOrData<L>> max_L = max(L);
         final List<IFuture<Env<S, L, D>>> envs = Lists.newArrayList();
         for(EdgeOrData<L> l : max_L) {
-            envs.add(env_lL(path, re, l, smaller(L, l), cancel));
+            envs.add(env_lL(path, re, l, smaller(L, l), memo, cancel));
         }
         final AggregateFuture<Env<S, L, D>> listEnv = new AggregateFuture<>(envs);
         logger.trace("env_L {} {} {}: listEnv: {}", path, re, L, listEnv);
@@ -98,8 +150,9 @@ public abstract class NameResolution<S, L, D> {
     }
 
     private IFuture<Env<S, L, D>> env_lL(ScopePath<S, L> path, LabelWf<L> re, EdgeOrData<L> l,
-            Set.Immutable<EdgeOrData<L>> L, ICancel cancel) {
-        final IFuture<Env<S, L, D>> env1 = env_L(path, re, L, cancel);
+            Set.Immutable<EdgeOrData<L>> L, Map<Set.Immutable<EdgeOrData<L>>, IFuture<Env<S, L, D>>> memo,
+            ICancel cancel) {
+        final IFuture<Env<S, L, D>> env1 = env_L(path, re, L, memo, cancel);
         logger.trace("env_L {} {} {}: env1: {}", path, re, L, env1);
         env1.whenComplete((r, ex) -> logger.trace("env_L {} {} {}: result1: {}", path, re, L, env1));
         return env1.thenCompose(e1 -> {
@@ -213,6 +266,10 @@ public abstract class NameResolution<S, L, D> {
     ///////////////////////////////////////////////////////////////////////////
 
     private IFuture<Env<S, L, D>> shadows(Env<S, L, D> env1, Env<S, L, D> env2, ICancel cancel) {
+        final Function1<D, Optional<?>> key;
+        if((key = dataLeqKey()) != null) {
+            return CompletableFuture.completedFuture(shadows(env1, env2, key));
+        }
         final Env.Builder<S, L, D> env = Env.builder();
         env.addAll(env1);
         return Futures.reduce(Unit.unit, env2, (u, p2) -> {
@@ -225,4 +282,20 @@ public abstract class NameResolution<S, L, D> {
         }).thenApply(u -> env.build());
     }
 
+    private Env<S, L, D> shadows(Env<S, L, D> env1, Env<S, L, D> env2, Function1<D, Optional<?>> key) {
+        final Env.Builder<S, L, D> env = Env.builder();
+        env.addAll(env1);
+        final java.util.Set<Object> keys1 = new HashSet<>();
+        for(ResolutionPath<S, L, D> p1 : env1) {
+            key.apply(p1.getDatum()).ifPresent(keys1::add);
+        }
+        for(ResolutionPath<S, L, D> p2 : env2) {
+            final Optional<?> key2 = key.apply(p2.getDatum());
+            if(!key2.isPresent() || !keys1.contains(key2.get())) {
+                env.add(p2);
+            }
+        }
+        return env.build();
+    }
+
 }
@@ -3,17 +3,32 @@ package mb.scopegraph.ecoop21;
 import java.util.Objects;
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 import mb.scopegraph.regexp.IRegExpMatcher;
+import mb.scopegraph.regexp.RegExpAutomaton;
+import mb.scopegraph.regexp.RegExpMatcher;
 
 public class RegExpLabelWf<L> implements LabelWf<L> {
 
     private final IRegExpMatcher<L> re;
+    private final @Nullable Steps<L> steps;
 
     public RegExpLabelWf(IRegExpMatcher<L> re) {
         this.re = re;
+        this.steps = re instanceof RegExpMatcher ? new Steps<>(((RegExpMatcher<L>) re).automaton()) : null;
+    }
+
+    private RegExpLabelWf(Steps<L> steps, int state) {
+        this.re = steps.automaton.matcher(state);
+        this.steps = steps;
     }
 
     @Override public Optional<LabelWf<L>> step(L l) {
+        if(steps != null) {
+            final RegExpAutomaton<L> automaton = steps.automaton;
+            return steps.get(automaton.step(((RegExpMatcher<L>) re).state(), automaton.labelId(l)));
+        }
         final IRegExpMatcher<L> re = this.re.match(l);
         if(re.isEmpty()) {
             return Optional.empty();
@@ -49,4 +64,31 @@ public class RegExpLabelWf<L> implements LabelWf<L> {
         return new RegExpLabelWf<>(re);
     }
 
-}
\ No newline at end of file
+    /**
+     * Step results per automaton state, shared by all label well-formedness objects derived from the same root, so
+     * that stepping does not allocate after the first visit of a state.
+     */
+    private static class Steps<L> {
+
+        private final RegExpAutomaton<L> automaton;
+        private final Optional<LabelWf<L>>[] results;
+
+        @SuppressWarnings("unchecked") private Steps(RegExpAutomaton<L> automaton) {
+            this.automaton = automaton;
+            this.results = new Optional[automaton.stateCount()];
+        }
+
+        private Optional<LabelWf<L>> get(int state) {
+            if(automaton.isEmpty(state)) {
+                return Optional.empty();
+            }
+            Optional<LabelWf<L>> result;
+            if((result = results[state]) == null) {
+                results[state] = (result = Optional.of(new RegExpLabelWf<>(this, state)));
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package mb.scopegraph.ecoop21;
 
+import java.util.Objects;
+
 import mb.scopegraph.oopsla20.reference.EdgeOrData;
 import mb.scopegraph.relations.IRelation;
 
@@ -15,6 +17,21 @@ public class RelationLabelOrder<L> implements LabelOrder<L> {
         return labelOrd.contains(l1, l2);
     }
 
+    @Override public int hashCode() {
+        return Objects.hash(labelOrd);
+    }
+
+    @Override public boolean equals(Object obj) {
+        if(this == obj)
+            return true;
+        if(obj == null)
+            return false;
+        if(getClass() != obj.getClass())
+            return false;
+        RelationLabelOrder<?> other = (RelationLabelOrder<?>) obj;
+        return Objects.equals(labelOrd, other.labelOrd);
+    }
+
     @Override public String toString() {
         return labelOrd.toString();
     }
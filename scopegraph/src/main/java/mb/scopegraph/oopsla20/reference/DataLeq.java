@@ -1,11 +1,30 @@
 package mb.scopegraph.oopsla20.reference;
 
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
 public interface DataLeq<D> {
 
     boolean leq(D d1, D d2) throws ResolutionException, InterruptedException;
 
     boolean alwaysTrue() throws InterruptedException;
 
+    /**
+     * Key function if this order is equality on a projection of the datum, or null otherwise. The key function must
+     * return the same key for d1 and d2 iff d1 <= d2, and no key for data that are not related to any datum.
+     */
+    default @Nullable Key<D> key() {
+        return null;
+    }
+
+    @FunctionalInterface
+    interface Key<D> {
+
+        Optional<?> apply(D datum) throws ResolutionException, InterruptedException;
+
+    }
+
     static <V> DataLeq<V> ALL() {
         return new DataLeq<V>() {
 
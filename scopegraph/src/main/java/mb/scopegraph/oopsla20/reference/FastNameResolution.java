@@ -3,10 +3,13 @@ package mb.scopegraph.oopsla20.reference;
 import java.util.Map;
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 import org.metaborg.util.collection.CapsuleUtil;
 import org.metaborg.util.functions.Predicate2;
 import org.metaborg.util.task.ICancel;
 import org.metaborg.util.tuple.Tuple2;
+import org.metaborg.util.tuple.Tuple3;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
@@ -15,6 +18,7 @@ import io.usethesource.capsule.Set;
 import io.usethesource.capsule.util.stream.CapsuleCollectors;
 import mb.scopegraph.oopsla20.INameResolution;
 import mb.scopegraph.oopsla20.IScopeGraph;
+import mb.scopegraph.oopsla20.path.IStep;
 import mb.scopegraph.oopsla20.terms.newPath.ResolutionPath;
 import mb.scopegraph.oopsla20.terms.newPath.ScopePath;
 
@@ -33,6 +37,16 @@ public class FastNameResolution<S, L, D> implements INameResolution<S, L, D> {
 
     private final Predicate2<S, EdgeOrData<L>> isComplete; // default: true
 
+    /**
+     * Environments of the current query, per scope, label well-formedness state and more specific data. Cleared at the
+     * start of every query. Sharing environments assumes that {@link #getData} and {@link #getEdges} only depend on the
+     * target scope and the well-formedness state, not on the rest of the path.
+     */
+    private final Map<Tuple3<S, LabelWF<L>, Set.Immutable<Object>>, CachedEnv> envCache = Maps.newHashMap();
+
+    private long envCacheHits = 0;
+    private long envCacheMisses = 0;
+
     public FastNameResolution(IScopeGraph<S, L, D> scopeGraph, java.util.Set<L> edgeLabels, LabelWF<L> labelWF,
             LabelOrder<L> labelOrder, DataWF<D> dataWF, DataLeq<D> dataEquiv, Predicate2<S, EdgeOrData<L>> isComplete) {
         this.scopeGraph = scopeGraph;
@@ -47,42 +61,106 @@ public class FastNameResolution<S, L, D> implements INameResolution<S, L, D> {
     }
 
     @Override public Env<S, L, D> resolve(S scope, ICancel cancel) throws ResolutionException, InterruptedException {
-        return env(labelWF, new ScopePath<>(scope), Env.empty(), cancel);
+        envCache.clear();
+        return env(labelWF, new ScopePath<>(scope), new Specifics(), CapsuleUtil.transientSet(), cancel);
+    }
+
+    /**
+     * Number of sub-environments that were reused instead of recomputed.
+     */
+    public long envCacheHits() {
+        return envCacheHits;
+    }
+
+    /**
+     * Number of sub-environments that were computed.
+     */
+    public long envCacheMisses() {
+        return envCacheMisses;
     }
 
-    private Env<S, L, D> env(LabelWF<L> re, ScopePath<S, L> path, Iterable<ResolutionPath<S, L, D>> specifics,
+    /**
+     * Compute the environment of the target scope of the path. The path only affects the result through the cycle
+     * checks and the prefix of the resolution paths. Within a query, environments are therefore shared between paths
+     * that reach the same scope in the same well-formedness state with the same more specific data, such as the two
+     * paths of a diamond, if none of the scopes reached from the target is on either path. The cached paths are
+     * re-prefixed with the current path. The scopes reached while computing the environment are added to reached.
+     */
+    private Env<S, L, D> env(LabelWF<L> re, ScopePath<S, L> path, Specifics specifics, Set.Transient<S> reached,
             ICancel cancel) throws ResolutionException, InterruptedException {
-        return env_L(allLabels, re, path, specifics, cancel);
+        final Tuple3<S, LabelWF<L>, Set.Immutable<Object>> key = Tuple3.of(path.getTarget(), re, specifics.keys);
+        final CachedEnv cachedEnv;
+        if((cachedEnv = envCache.get(key)) != null && !revisits(path, cachedEnv.reached)) {
+            envCacheHits += 1;
+            reached.__insertAll(cachedEnv.reached);
+            return cachedEnv.env(path);
+        }
+        final Set.Transient<S> envReached = CapsuleUtil.transientSet();
+        final Env<S, L, D> env = env_L(allLabels, re, path, specifics, envReached, Maps.newHashMap(), cancel);
+        reached.__insertAll(envReached);
+        if(!revisits(path, envReached)) {
+            envCache.put(key, new CachedEnv(path, env, envReached.freeze()));
+        }
+        return env;
+    }
+
+    /**
+     * Test if any of the reached scopes, other than the target, is on the path, which means the cycle checks depend on
+     * the path.
+     */
+    private boolean revisits(ScopePath<S, L> path, java.util.Set<S> reached) {
+        for(S scope : path.scopeSet()) {
+            if(!scope.equals(path.getTarget()) && reached.contains(scope)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    // FIXME Use caching of single label environments to prevent recalculation in case of diamonds in
-    // the graph
+    /**
+     * Compute the environment for the labels in L. Within one call of env, the path, the label well-formedness and the
+     * more specific environments are fixed, so the result only depends on L and is memoized. This prevents recomputing
+     * the environment of labels that are smaller than several maximal labels in the same scope. Incompleteness is
+     * reported by exceptions, which are never memoized.
+     */
     private Env<S, L, D> env_L(Set.Immutable<EdgeOrData<L>> L, LabelWF<L> re, ScopePath<S, L> path,
-            Iterable<ResolutionPath<S, L, D>> specifics, ICancel cancel)
-            throws ResolutionException, InterruptedException {
+            Specifics specifics, Set.Transient<S> reached, Map<Set.Immutable<EdgeOrData<L>>, Env<S, L, D>> memo,
+            ICancel cancel) throws ResolutionException, InterruptedException {
+        Env<S, L, D> env;
+        if((env = memo.get(L)) != null) {
+            envCacheHits += 1;
+            return env;
+        }
+        envCacheMisses += 1;
+        memo.put(L, (env = compute_env_L(L, re, path, specifics, reached, memo, cancel)));
+        return env;
+    }
+
+    private Env<S, L, D> compute_env_L(Set.Immutable<EdgeOrData<L>> L, LabelWF<L> re, ScopePath<S, L> path,
+            Specifics specifics, Set.Transient<S> reached, Map<Set.Immutable<EdgeOrData<L>>, Env<S, L, D>> memo,
+            ICancel cancel) throws ResolutionException, InterruptedException {
         cancel.throwIfCancelled();
         final Env.Builder<S, L, D> env = Env.builder();
         final Set.Immutable<EdgeOrData<L>> max_L = max(L);
         for(EdgeOrData<L> l : max_L) {
             final Set.Immutable<EdgeOrData<L>> smaller = smaller(L, l);
-            final Env<S, L, D> env1 = env_L(smaller, re, path, specifics, cancel);
+            final Env<S, L, D> env1 = env_L(smaller, re, path, specifics, reached, memo, cancel);
             env.addAll(env1);
             if(env1.isEmpty() || !dataEquiv.alwaysTrue()) {
-                final Env<S, L, D> env2 = env_l(l, re, path, Iterables.concat(specifics, env1), cancel);
+                final Env<S, L, D> env2 = env_l(l, re, path, specifics.concat(env1), reached, cancel);
                 env.addAll(env2);
             }
         }
         return env.build();
     }
 
-    private Env<S, L, D> env_l(EdgeOrData<L> l, LabelWF<L> re, ScopePath<S, L> path,
-            Iterable<ResolutionPath<S, L, D>> specifics, ICancel cancel)
-            throws ResolutionException, InterruptedException {
+    private Env<S, L, D> env_l(EdgeOrData<L> l, LabelWF<L> re, ScopePath<S, L> path, Specifics specifics,
+            Set.Transient<S> reached, ICancel cancel) throws ResolutionException, InterruptedException {
         return l.matchInResolution(() -> env_data(re, path, specifics),
-                lbl -> env_edges(lbl, re, path, specifics, cancel));
+                lbl -> env_edges(lbl, re, path, specifics, reached, cancel));
     }
 
-    private Env<S, L, D> env_data(LabelWF<L> re, ScopePath<S, L> path, Iterable<ResolutionPath<S, L, D>> specifics)
+    private Env<S, L, D> env_data(LabelWF<L> re, ScopePath<S, L> path, Specifics specifics)
             throws ResolutionException, InterruptedException {
         if(!re.accepting()) {
             return Env.empty();
@@ -91,15 +169,14 @@ public class FastNameResolution<S, L, D> implements INameResolution<S, L, D> {
             throw new IncompleteException(path.getTarget(), dataLabel);
         }
         final D datum;
-        if((datum = getData(re, path).orElse(null)) == null || !dataWF.wf(datum) || isShadowed(datum, specifics)) {
+        if((datum = getData(re, path).orElse(null)) == null || !dataWF.wf(datum) || specifics.shadow(datum)) {
             return Env.empty();
         }
         return Env.of(path.resolve(datum));
     }
 
-    private Env<S, L, D> env_edges(L l, LabelWF<L> re, ScopePath<S, L> path,
-            Iterable<ResolutionPath<S, L, D>> specifics, ICancel cancel)
-            throws ResolutionException, InterruptedException {
+    private Env<S, L, D> env_edges(L l, LabelWF<L> re, ScopePath<S, L> path, Specifics specifics,
+            Set.Transient<S> reached, ICancel cancel) throws ResolutionException, InterruptedException {
         final Optional<LabelWF<L>> newRe = re.step(l);
         if(!newRe.isPresent()) {
             return Env.empty();
@@ -112,22 +189,107 @@ public class FastNameResolution<S, L, D> implements INameResolution<S, L, D> {
         }
         final Env.Builder<S, L, D> env = Env.builder();
         for(S nextScope : getEdges(re, path, l)) {
+            reached.__insert(nextScope);
             final Optional<ScopePath<S, L>> p = path.step(l, nextScope);
             if(p.isPresent()) {
-                env.addAll(env(re, p.get(), specifics, cancel));
+                env.addAll(env(re, p.get(), specifics, reached, cancel));
             }
         }
         return env.build();
     }
 
-    private boolean isShadowed(D datum, Iterable<ResolutionPath<S, L, D>> specifics)
-            throws ResolutionException, InterruptedException {
-        for(ResolutionPath<S, L, D> p : specifics) {
-            if(dataEquiv.leq(p.getDatum(), datum)) {
-                return true;
+    /**
+     * Environment of a scope, computed for the given path, and the scopes reached while computing it.
+     */
+    private class CachedEnv {
+
+        private final ScopePath<S, L> path;
+        private final Env<S, L, D> env;
+        private final Set.Immutable<S> reached;
+
+        private CachedEnv(ScopePath<S, L> path, Env<S, L, D> env, Set.Immutable<S> reached) {
+            this.path = path;
+            this.env = env;
+            this.reached = reached;
+        }
+
+        /**
+         * The environment for another path to the same scope. The steps after the original path are replayed on the new
+         * path, which cannot fail on cycles if none of the reached scopes is on the new path.
+         */
+        private Env<S, L, D> env(ScopePath<S, L> newPath) {
+            final Env.Builder<S, L, D> newEnv = Env.builder();
+            for(ResolutionPath<S, L, D> p : env) {
+                ScopePath<S, L> q = newPath;
+                int skip = path.size();
+                for(IStep<S, L> step : p.getPath()) {
+                    if(skip > 0) {
+                        skip -= 1;
+                    } else {
+                        q = q.step(step.getLabel(), step.getTarget())
+                                .orElseThrow(() -> new IllegalStateException("Cached path revisits a scope."));
+                    }
+                }
+                newEnv.add(q.resolve(p.getDatum()));
             }
+            return newEnv.build();
         }
-        return false;
+
+    }
+
+    /**
+     * Paths from more specific environments, which shadow data in less specific ones. If the data order has a key
+     * function, the keys of the paths are kept in a set, so that shadowing is a lookup instead of a comparison with
+     * every path. Otherwise, the set contains the data of the paths. Either way, shadowing only depends on the set, so
+     * it identifies the specifics in the environment cache.
+     */
+    private class Specifics {
+
+        private final @Nullable DataLeq.Key<D> key;
+        private final Iterable<ResolutionPath<S, L, D>> paths;
+        private final Set.Immutable<Object> keys;
+
+        private Specifics() {
+            this(dataEquiv.key(), Env.empty(), CapsuleUtil.immutableSet());
+        }
+
+        private Specifics(@Nullable DataLeq.Key<D> key, Iterable<ResolutionPath<S, L, D>> paths,
+                Set.Immutable<Object> keys) {
+            this.key = key;
+            this.paths = paths;
+            this.keys = keys;
+        }
+
+        private Specifics concat(Env<S, L, D> env) throws ResolutionException, InterruptedException {
+            if(env.isEmpty()) {
+                return this;
+            }
+            final Set.Transient<Object> newKeys = keys.asTransient();
+            if(key == null) {
+                for(ResolutionPath<S, L, D> p : env) {
+                    newKeys.__insert(p.getDatum());
+                }
+                return new Specifics(null, Iterables.concat(paths, env), newKeys.freeze());
+            }
+            for(ResolutionPath<S, L, D> p : env) {
+                key.apply(p.getDatum()).ifPresent(newKeys::__insert);
+            }
+            return new Specifics(key, paths, newKeys.freeze());
+        }
+
+        private boolean shadow(D datum) throws ResolutionException, InterruptedException {
+            if(key != null) {
+                final Optional<?> datumKey = key.apply(datum);
+                return datumKey.isPresent() && keys.contains(datumKey.get());
+            }
+            for(ResolutionPath<S, L, D> p : paths) {
+                if(dataEquiv.leq(p.getDatum(), datum)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
     }
 
     ///////////////////////////////////////////////////////////////////////////
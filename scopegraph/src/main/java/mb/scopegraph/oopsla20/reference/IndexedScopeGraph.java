@@ -0,0 +1,545 @@
+package mb.scopegraph.oopsla20.reference;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.metaborg.util.collection.ConsList;
+import org.metaborg.util.tuple.Tuple2;
+
+import io.usethesource.capsule.Map;
+import io.usethesource.capsule.Set;
+import mb.scopegraph.oopsla20.IScopeGraph;
+
+/**
+ * A scope graph that interns scopes and labels to dense integer ids, and stores edges in adjacency arrays.
+ *
+ * The immutable graph stores edges in compressed sparse row layout, where the targets of every (scope, label) pair are
+ * a contiguous range in a single array. The transient graph keeps a growable array per (scope, label) pair, so adding
+ * edges is amortized constant time. Melting and freezing copy the edges, so the immutable operations that add a single
+ * edge or datum are linear in the size of the graph. Use a transient to make many changes at once.
+ *
+ * Besides the {@link IScopeGraph} interface, which looks up edges without allocating keys, the graph offers an id-based
+ * interface ({@link #scopeId}, {@link #labelId}, {@link #edgeCount}, {@link #edgeTarget}) that does not allocate at
+ * all. Edges are returned in the same order as {@link ScopeGraph}: most recently added first.
+ */
+public abstract class IndexedScopeGraph<S, L, D> implements IScopeGraph<S, L, D> {
+
+    protected IndexedScopeGraph() {
+    }
+
+    // ------------------------------------------------------------
+    // id-based interface
+    // ------------------------------------------------------------
+
+    /**
+     * Return the id of the given scope, or -1 if the scope is not the source or target of any edge in this graph.
+     */
+    public abstract int scopeId(S scope);
+
+    /**
+     * Return the id of the given label, or -1 if no edges with this label are in this graph.
+     */
+    public abstract int labelId(L label);
+
+    public abstract S scope(int scopeId);
+
+    public abstract L label(int labelId);
+
+    public abstract int scopeCount();
+
+    public abstract int labelCount();
+
+    /**
+     * Return the number of edges from the given scope with the given label.
+     */
+    public abstract int edgeCount(int scopeId, int labelId);
+
+    /**
+     * Return the id of the target of the i-th edge from the given scope with the given label.
+     */
+    public abstract int edgeTarget(int scopeId, int labelId, int i);
+
+    // ------------------------------------------------------------
+    // IScopeGraph interface
+    // ------------------------------------------------------------
+
+    @Override public Iterable<S> getEdges(S scope, L label) {
+        final int scopeId;
+        final int labelId;
+        if((scopeId = scopeId(scope)) < 0 || (labelId = labelId(label)) < 0) {
+            return ConsList.nil();
+        }
+        final int count = edgeCount(scopeId, labelId);
+        if(count == 0) {
+            return ConsList.nil();
+        }
+        return () -> new Iterator<S>() {
+
+            private int i = 0;
+
+            @Override public boolean hasNext() {
+                return i < count;
+            }
+
+            @Override public S next() {
+                if(i >= count) {
+                    throw new NoSuchElementException();
+                }
+                return scope(edgeTarget(scopeId, labelId, i++));
+            }
+
+        };
+    }
+
+    /**
+     * Return all edges in this graph. This creates a new map, and should not be used in performance critical code.
+     */
+    @Override public Map.Immutable<Tuple2<S, L>, ConsList<S>> getEdges() {
+        final Map.Transient<Tuple2<S, L>, ConsList<S>> edges = Map.Transient.of();
+        for(int scopeId = 0; scopeId < scopeCount(); scopeId++) {
+            for(int labelId = 0; labelId < labelCount(); labelId++) {
+                final int count = edgeCount(scopeId, labelId);
+                if(count == 0) {
+                    continue;
+                }
+                ConsList<S> targets = ConsList.nil();
+                for(int i = count - 1; i >= 0; i--) {
+                    targets = targets.prepend(scope(edgeTarget(scopeId, labelId, i)));
+                }
+                edges.__put(Tuple2.of(scope(scopeId), label(labelId)), targets);
+            }
+        }
+        return edges.freeze();
+    }
+
+    @Override public abstract Map<S, D> getData();
+
+    @Override public Optional<D> getData(S scope) {
+        return Optional.ofNullable(getData().get(scope));
+    }
+
+    /**
+     * Convert this graph to a {@link ScopeGraph}.
+     */
+    public ScopeGraph.Immutable<S, L, D> toScopeGraph() {
+        final ScopeGraph.Transient<S, L, D> scopeGraph = ScopeGraph.Transient.of();
+        scopeGraph.addAll(this);
+        return scopeGraph.freeze();
+    }
+
+    // ------------------------------------------------------------
+
+    public static class Immutable<S, L, D> extends IndexedScopeGraph<S, L, D>
+            implements IScopeGraph.Immutable<S, L, D>, Serializable {
+        private static final long serialVersionUID = 42L;
+
+        private static final int[] NO_EDGES = new int[] { 0 };
+
+        private final HashMap<S, Integer> scopeIds;
+        private final Object[] scopes;
+        private final HashMap<L, Integer> labelIds;
+        private final Object[] labels;
+        private final Set.Immutable<L> labelSet;
+
+        /**
+         * The targets of scope s and label l are at targets[offsets[s * labels.length + l]] up to (exclusive)
+         * targets[offsets[s * labels.length + l + 1]].
+         */
+        private final int[] offsets;
+        private final int[] targets;
+
+        private final Map.Immutable<S, D> data;
+
+        private Immutable(HashMap<S, Integer> scopeIds, Object[] scopes, HashMap<L, Integer> labelIds, Object[] labels,
+                int[] offsets, int[] targets, Map.Immutable<S, D> data) {
+            this.scopeIds = scopeIds;
+            this.scopes = scopes;
+            this.labelIds = labelIds;
+            this.labels = labels;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.data = data;
+            final Set.Transient<L> labelSet = Set.Transient.of();
+            for(Object label : labels) {
+                @SuppressWarnings("unchecked") final L l = (L) label;
+                labelSet.__insert(l);
+            }
+            this.labelSet = labelSet.freeze();
+        }
+
+        // ------------------------------------------------------------
+
+        @Override public int scopeId(S scope) {
+            final Integer scopeId = scopeIds.get(scope);
+            return scopeId != null ? scopeId : -1;
+        }
+
+        @Override public int labelId(L label) {
+            final Integer labelId = labelIds.get(label);
+            return labelId != null ? labelId : -1;
+        }
+
+        @SuppressWarnings("unchecked") @Override public S scope(int scopeId) {
+            return (S) scopes[scopeId];
+        }
+
+        @SuppressWarnings("unchecked") @Override public L label(int labelId) {
+            return (L) labels[labelId];
+        }
+
+        @Override public int scopeCount() {
+            return scopes.length;
+        }
+
+        @Override public int labelCount() {
+            return labels.length;
+        }
+
+        @Override public int edgeCount(int scopeId, int labelId) {
+            final int slot = scopeId * labels.length + labelId;
+            return offsets[slot + 1] - offsets[slot];
+        }
+
+        @Override public int edgeTarget(int scopeId, int labelId, int i) {
+            return targets[offsets[scopeId * labels.length + labelId] + i];
+        }
+
+        // ------------------------------------------------------------
+
+        @Override public Set.Immutable<L> getLabels() {
+            return labelSet;
+        }
+
+        @Override public Map.Immutable<S, D> getData() {
+            return data;
+        }
+
+        // ------------------------------------------------------------
+
+        @Override public IndexedScopeGraph.Immutable<S, L, D> addEdge(S sourceScope, L label, S targetScope) {
+            final IndexedScopeGraph.Transient<S, L, D> scopeGraph = melt();
+            scopeGraph.addEdge(sourceScope, label, targetScope);
+            return scopeGraph.freeze();
+        }
+
+        @Override public IndexedScopeGraph.Immutable<S, L, D> setDatum(S scope, D datum) {
+            return new IndexedScopeGraph.Immutable<>(scopeIds, scopes, labelIds, labels, offsets, targets,
+                    data.__put(scope, datum));
+        }
+
+        @Override public IndexedScopeGraph.Immutable<S, L, D> addAll(IScopeGraph<S, L, D> other) {
+            final IndexedScopeGraph.Transient<S, L, D> scopeGraph = melt();
+            scopeGraph.addAll(other);
+            return scopeGraph.freeze();
+        }
+
+        // ------------------------------------------------------------
+
+        @Override public IndexedScopeGraph.Transient<S, L, D> melt() {
+            final IndexedScopeGraph.Transient<S, L, D> scopeGraph = IndexedScopeGraph.Transient.of();
+            for(int l = 0; l < labels.length; l++) {
+                scopeGraph.internLabel(label(l));
+            }
+            for(int s = 0; s < scopes.length; s++) {
+                scopeGraph.internScope(scope(s));
+            }
+            for(int s = 0; s < scopes.length; s++) {
+                for(int l = 0; l < labels.length; l++) {
+                    // edges are stored newest first, so add them in reverse
+                    for(int i = edgeCount(s, l) - 1; i >= 0; i--) {
+                        scopeGraph.addEdge(s, l, edgeTarget(s, l, i));
+                    }
+                }
+            }
+            scopeGraph.data.__putAll(data);
+            return scopeGraph;
+        }
+
+        @Override public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + getEdges().hashCode();
+            result = prime * result + data.hashCode();
+            return result;
+        }
+
+        @Override public boolean equals(Object obj) {
+            if(this == obj)
+                return true;
+            if(obj == null)
+                return false;
+            if(getClass() != obj.getClass())
+                return false;
+            @SuppressWarnings("unchecked") IndexedScopeGraph.Immutable<S, L, D> other =
+                    (IndexedScopeGraph.Immutable<S, L, D>) obj;
+            if(!getEdges().equals(other.getEdges()))
+                return false;
+            if(!data.equals(other.data))
+                return false;
+            return true;
+        }
+
+        public static <S, L, D> IndexedScopeGraph.Immutable<S, L, D> of() {
+            return new IndexedScopeGraph.Immutable<>(new HashMap<>(), new Object[0], new HashMap<>(), new Object[0],
+                    NO_EDGES, new int[0], Map.Immutable.of());
+        }
+
+        /**
+         * Create an indexed copy of the given scope graph.
+         */
+        public static <S, L, D> IndexedScopeGraph.Immutable<S, L, D> of(IScopeGraph<S, L, D> scopeGraph) {
+            if(scopeGraph instanceof IndexedScopeGraph.Immutable) {
+                return (IndexedScopeGraph.Immutable<S, L, D>) scopeGraph;
+            }
+            final IndexedScopeGraph.Transient<S, L, D> indexedScopeGraph = IndexedScopeGraph.Transient.of();
+            indexedScopeGraph.addAll(scopeGraph);
+            return indexedScopeGraph.freeze();
+        }
+
+    }
+
+    // ------------------------------------------------------------
+
+    public static class Transient<S, L, D> extends IndexedScopeGraph<S, L, D>
+            implements IScopeGraph.Transient<S, L, D> {
+
+        private static final int[] NO_TARGETS = new int[0];
+
+        private final HashMap<S, Integer> scopeIds;
+        private final ArrayList<S> scopes;
+        private final HashMap<L, Integer> labelIds;
+        private final ArrayList<L> labels;
+        private final Set.Transient<L> labelSet;
+
+        /**
+         * Per scope, an array indexed by label of edge targets. The number of targets in each array is stored in the
+         * matching entry of counts.
+         */
+        private final ArrayList<int[][]> targets;
+        private final ArrayList<int[]> counts;
+        private int edges;
+
+        private final Map.Transient<S, D> data;
+
+        private Transient() {
+            this.scopeIds = new HashMap<>();
+            this.scopes = new ArrayList<>();
+            this.labelIds = new HashMap<>();
+            this.labels = new ArrayList<>();
+            this.labelSet = Set.Transient.of();
+            this.targets = new ArrayList<>();
+            this.counts = new ArrayList<>();
+            this.edges = 0;
+            this.data = Map.Transient.of();
+        }
+
+        // ------------------------------------------------------------
+
+        @Override public int scopeId(S scope) {
+            final Integer scopeId = scopeIds.get(scope);
+            return scopeId != null ? scopeId : -1;
+        }
+
+        @Override public int labelId(L label) {
+            final Integer labelId = labelIds.get(label);
+            return labelId != null ? labelId : -1;
+        }
+
+        @Override public S scope(int scopeId) {
+            return scopes.get(scopeId);
+        }
+
+        @Override public L label(int labelId) {
+            return labels.get(labelId);
+        }
+
+        @Override public int scopeCount() {
+            return scopes.size();
+        }
+
+        @Override public int labelCount() {
+            return labels.size();
+        }
+
+        @Override public int edgeCount(int scopeId, int labelId) {
+            final int[] counts = this.counts.get(scopeId);
+            return labelId < counts.length ? counts[labelId] : 0;
+        }
+
+        @Override public int edgeTarget(int scopeId, int labelId, int i) {
+            // targets are stored oldest first, but returned newest first
+            return targets.get(scopeId)[labelId][counts.get(scopeId)[labelId] - 1 - i];
+        }
+
+        // ------------------------------------------------------------
+
+        @Override public Set<L> getLabels() {
+            return labelSet;
+        }
+
+        @Override public Map<S, D> getData() {
+            return data;
+        }
+
+        // ------------------------------------------------------------
+
+        int internScope(S scope) {
+            final Integer scopeId = scopeIds.get(scope);
+            if(scopeId != null) {
+                return scopeId;
+            }
+            final int newScopeId = scopes.size();
+            scopeIds.put(scope, newScopeId);
+            scopes.add(scope);
+            targets.add(new int[0][]);
+            counts.add(NO_TARGETS);
+            return newScopeId;
+        }
+
+        int internLabel(L label) {
+            final Integer labelId = labelIds.get(label);
+            if(labelId != null) {
+                return labelId;
+            }
+            final int newLabelId = labels.size();
+            labelIds.put(label, newLabelId);
+            labels.add(label);
+            labelSet.__insert(label);
+            return newLabelId;
+        }
+
+        void addEdge(int sourceScopeId, int labelId, int targetScopeId) {
+            int[][] scopeTargets = targets.get(sourceScopeId);
+            int[] scopeCounts = counts.get(sourceScopeId);
+            if(labelId >= scopeTargets.length) {
+                scopeTargets = Arrays.copyOf(scopeTargets, labels.size());
+                scopeCounts = Arrays.copyOf(scopeCounts, labels.size());
+                targets.set(sourceScopeId, scopeTargets);
+                counts.set(sourceScopeId, scopeCounts);
+            }
+            int[] labelTargets = scopeTargets[labelId];
+            final int count = scopeCounts[labelId];
+            if(labelTargets == null) {
+                labelTargets = scopeTargets[labelId] = new int[2];
+            } else if(count == labelTargets.length) {
+                labelTargets = scopeTargets[labelId] = Arrays.copyOf(labelTargets, 2 * count);
+            }
+            labelTargets[count] = targetScopeId;
+            scopeCounts[labelId] = count + 1;
+            edges++;
+        }
+
+        @Override public boolean addEdge(S sourceScope, L label, S targetScope) {
+            final int labelId = internLabel(label);
+            final int sourceScopeId = internScope(sourceScope);
+            final int targetScopeId = internScope(targetScope);
+            addEdge(sourceScopeId, labelId, targetScopeId);
+            return true;
+        }
+
+        @Override public boolean setDatum(S scope, D datum) {
+            data.__put(scope, datum);
+            return true;
+        }
+
+        @Override public boolean addAll(IScopeGraph<S, L, D> other) {
+            if(other instanceof IndexedScopeGraph) {
+                final IndexedScopeGraph<S, L, D> indexedOther = (IndexedScopeGraph<S, L, D>) other;
+                final int[] labelIds = new int[indexedOther.labelCount()];
+                for(int l = 0; l < labelIds.length; l++) {
+                    labelIds[l] = internLabel(indexedOther.label(l));
+                }
+                final int[] scopeIds = new int[indexedOther.scopeCount()];
+                for(int s = 0; s < scopeIds.length; s++) {
+                    scopeIds[s] = internScope(indexedOther.scope(s));
+                }
+                for(int s = 0; s < scopeIds.length; s++) {
+                    for(int l = 0; l < labelIds.length; l++) {
+                        for(int i = indexedOther.edgeCount(s, l) - 1; i >= 0; i--) {
+                            addEdge(scopeIds[s], labelIds[l], scopeIds[indexedOther.edgeTarget(s, l, i)]);
+                        }
+                    }
+                }
+            } else {
+                for(Entry<? extends Entry<S, L>, ? extends Iterable<S>> entry : other.getEdges().entrySet()) {
+                    final S sourceScope = entry.getKey().getKey();
+                    final L label = entry.getKey().getValue();
+                    // ScopeGraph returns edges newest first, so add them in reverse
+                    final List<S> targetScopes = new ArrayList<>();
+                    entry.getValue().forEach(targetScopes::add);
+                    for(int i = targetScopes.size() - 1; i >= 0; i--) {
+                        addEdge(sourceScope, label, targetScopes.get(i));
+                    }
+                }
+                for(L label : other.getLabels()) {
+                    internLabel(label);
+                }
+            }
+            for(Entry<S, D> entry : other.getData().entrySet()) {
+                setDatum(entry.getKey(), entry.getValue());
+            }
+            return true;
+        }
+
+        // ------------------------------------------------------------
+
+        @Override public IndexedScopeGraph.Immutable<S, L, D> freeze() {
+            final int labelCount = labels.size();
+            final int[] offsets = new int[scopes.size() * labelCount + 1];
+            final int[] frozenTargets = new int[edges];
+            int offset = 0;
+            for(int s = 0; s < scopes.size(); s++) {
+                final int[][] scopeTargets = targets.get(s);
+                final int[] scopeCounts = counts.get(s);
+                for(int l = 0; l < labelCount; l++) {
+                    offsets[s * labelCount + l] = offset;
+                    if(l < scopeCounts.length) {
+                        // store newest first, so the immutable graph can return them in order
+                        for(int i = scopeCounts[l] - 1; i >= 0; i--) {
+                            frozenTargets[offset++] = scopeTargets[l][i];
+                        }
+                    }
+                }
+            }
+            offsets[scopes.size() * labelCount] = offset;
+            return new IndexedScopeGraph.Immutable<>(new HashMap<>(scopeIds), scopes.toArray(),
+                    new HashMap<>(labelIds), labels.toArray(), offsets, frozenTargets, data.freeze());
+        }
+
+        public static <S, L, D> IndexedScopeGraph.Transient<S, L, D> of() {
+            return new IndexedScopeGraph.Transient<>();
+        }
+
+    }
+
+    @Override public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        final AtomicBoolean first = new AtomicBoolean(true);
+        getEdges().forEach((key, targetScope) -> {
+            sb.append(first.getAndSet(false) ? " " : ", ");
+            sb.append(key._1());
+            sb.append(" -");
+            sb.append(key._2());
+            sb.append("-> ");
+            sb.append(targetScope);
+        });
+        getData().forEach((key, datum) -> {
+            sb.append(first.getAndSet(false) ? " " : ", ");
+            sb.append(key);
+            sb.append(" : ");
+            sb.append(datum);
+        });
+        sb.append(first.get() ? "}" : " }");
+        return sb.toString();
+    }
+
+}
@@ -1,5 +1,6 @@
 package mb.scopegraph.oopsla20.reference;
 
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -96,6 +97,10 @@ public class NameResolution<S extends D, L, D> implements INameResolution<S, L,
     }
 
     private Env<S, L, D> minus(Env<S, L, D> env1, Env<S, L, D> env2) throws ResolutionException, InterruptedException {
+        final DataLeq.Key<D> key;
+        if((key = dataEquiv.key()) != null) {
+            return minus(env1, env2, key);
+        }
         final Env.Builder<S, L, D> env = Env.builder();
         outer: for(ResolutionPath<S, L, D> p1 : env1) {
             for(ResolutionPath<S, L, D> p2 : env2) {
@@ -108,6 +113,22 @@ public class NameResolution<S extends D, L, D> implements INameResolution<S, L,
         return env.build();
     }
 
+    private Env<S, L, D> minus(Env<S, L, D> env1, Env<S, L, D> env2, DataLeq.Key<D> key)
+            throws ResolutionException, InterruptedException {
+        final Set<Object> keys2 = new HashSet<>();
+        for(ResolutionPath<S, L, D> p2 : env2) {
+            key.apply(p2.getDatum()).ifPresent(keys2::add);
+        }
+        final Env.Builder<S, L, D> env = Env.builder();
+        for(ResolutionPath<S, L, D> p1 : env1) {
+            final Optional<?> key1 = key.apply(p1.getDatum());
+            if(!key1.isPresent() || !keys2.contains(key1.get())) {
+                env.add(p1);
+            }
+        }
+        return env.build();
+    }
+
     private Env<S, L, D> env_l(EdgeOrData<L> l, LabelWF<L> re, ScopePath<S, L> path, ICancel cancel)
             throws ResolutionException, InterruptedException {
         return l.matchInResolution(() -> env_data(re, path), lbl -> env_edges(lbl, re, path, cancel));
@@ -2,22 +2,32 @@ package mb.scopegraph.oopsla20.reference;
 
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 import mb.scopegraph.regexp.IRegExpMatcher;
+import mb.scopegraph.regexp.RegExpAutomaton;
+import mb.scopegraph.regexp.RegExpMatcher;
 
 public class RegExpLabelWF<L> implements LabelWF<L> {
 
     private final IRegExpMatcher<L> re;
+    private final @Nullable Steps<L> steps;
 
-    private RegExpLabelWF(IRegExpMatcher<L> re) {
+    private RegExpLabelWF(IRegExpMatcher<L> re, @Nullable Steps<L> steps) {
         this.re = re;
+        this.steps = steps;
     }
 
     @Override public Optional<LabelWF<L>> step(L l) throws ResolutionException, InterruptedException {
+        if(steps != null) {
+            final RegExpAutomaton<L> automaton = steps.automaton;
+            return steps.get(automaton.step(((RegExpMatcher<L>) re).state(), automaton.labelId(l)));
+        }
         final IRegExpMatcher<L> re = this.re.match(l);
         if(re.isEmpty()) {
             return Optional.empty();
         } else {
-            return Optional.of(new RegExpLabelWF<>(re));
+            return Optional.of(new RegExpLabelWF<>(re, null));
         }
     }
 
@@ -30,7 +40,37 @@ public class RegExpLabelWF<L> implements LabelWF<L> {
     }
 
     public static <L> RegExpLabelWF<L> of(IRegExpMatcher<L> re) {
-        return new RegExpLabelWF<>(re);
+        if(re instanceof RegExpMatcher) {
+            return new RegExpLabelWF<>(re, new Steps<>(((RegExpMatcher<L>) re).automaton()));
+        }
+        return new RegExpLabelWF<>(re, null);
+    }
+
+    /**
+     * Step results per automaton state, shared by all label well-formedness objects derived from the same root, so
+     * that stepping does not allocate after the first visit of a state.
+     */
+    private static class Steps<L> {
+
+        private final RegExpAutomaton<L> automaton;
+        private final Optional<LabelWF<L>>[] results;
+
+        @SuppressWarnings("unchecked") private Steps(RegExpAutomaton<L> automaton) {
+            this.automaton = automaton;
+            this.results = new Optional[automaton.stateCount()];
+        }
+
+        private Optional<LabelWF<L>> get(int state) {
+            if(automaton.isEmpty(state)) {
+                return Optional.empty();
+            }
+            Optional<LabelWF<L>> result;
+            if((result = results[state]) == null) {
+                results[state] = (result = Optional.of(new RegExpLabelWF<>(automaton.matcher(state), this)));
+            }
+            return result;
+        }
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,228 @@
+package mb.scopegraph.regexp;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+
+import mb.scopegraph.regexp.impl.RegExpNormalizingBuilder;
+import mb.scopegraph.regexp.impl.RegExps;
+
+/**
+ * Deterministic automaton for a regular expression, compiled to a dense transition table.
+ *
+ * States and labels are identified by integers. Label ids {@code 0 .. labelCount() - 1} correspond to the symbols that
+ * occur in the regular expression, and all other symbols share the id {@link #otherLabelId()}. Stepping with
+ * {@link #step(int, int)} and the state predicates do not allocate.
+ *
+ * Automata are immutable, and {@link #of(IRegExp)} shares them between equal regular expressions.
+ */
+public final class RegExpAutomaton<S> implements Serializable {
+
+    private static final long serialVersionUID = 42L;
+
+    private static final LoadingCache<IRegExp<?>, RegExpAutomaton<?>> cache =
+            CacheBuilder.newBuilder().weakValues().build(new CacheLoader<IRegExp<?>, RegExpAutomaton<?>>() {
+                @Override public RegExpAutomaton<?> load(IRegExp<?> regexp) {
+                    return compile(regexp);
+                }
+            });
+
+    private final List<S> labels;
+    private final Map<S, Integer> labelIds;
+    private final IRegExp<S>[] states;
+    private final int[][] transitions;
+    private final BitSet accepting;
+    private final BitSet finals;
+    private final RegExpMatcher<S>[] matchers;
+
+    @SuppressWarnings("unchecked") private RegExpAutomaton(List<S> labels, List<IRegExp<S>> states,
+            int[][] transitions, BitSet accepting, BitSet finals) {
+        this.labels = labels;
+        this.labelIds = Maps.newHashMapWithExpectedSize(labels.size());
+        for(int i = 0; i < labels.size(); i++) {
+            labelIds.put(labels.get(i), i);
+        }
+        this.states = states.toArray(new IRegExp[states.size()]);
+        this.transitions = transitions;
+        this.accepting = accepting;
+        this.finals = finals;
+        this.matchers = new RegExpMatcher[this.states.length];
+        for(int i = 0; i < this.states.length; i++) {
+            matchers[i] = new RegExpMatcher<>(this, i);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // labels
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Number of labels in the alphabet of the regular expression. Does not include {@link #otherLabelId()}.
+     */
+    public int labelCount() {
+        return labels.size();
+    }
+
+    public int labelId(S label) {
+        final Integer id = labelIds.get(label);
+        return id != null ? id : labels.size();
+    }
+
+    /**
+     * The id of all labels that do not occur in the regular expression.
+     */
+    public int otherLabelId() {
+        return labels.size();
+    }
+
+    public S label(int labelId) {
+        return labels.get(labelId);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // states
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    public int stateCount() {
+        return states.length;
+    }
+
+    public int initial() {
+        return 0;
+    }
+
+    public int step(int state, int labelId) {
+        return transitions[state][labelId];
+    }
+
+    public boolean isAccepting(int state) {
+        return accepting.get(state);
+    }
+
+    public boolean isFinal(int state) {
+        return finals.get(state);
+    }
+
+    /**
+     * Whether no word is accepted from the given state.
+     */
+    public boolean isEmpty(int state) {
+        return finals.get(state) && !accepting.get(state);
+    }
+
+    public IRegExp<S> regexp(int state) {
+        return states[state];
+    }
+
+    /**
+     * Matcher for the given state. Matchers are created once per state, so stepping them does not allocate.
+     */
+    public RegExpMatcher<S> matcher(int state) {
+        return matchers[state];
+    }
+
+    @Override public String toString() {
+        return states[0].toString();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+    // compilation
+    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Return the automaton for the given regular expression. Automata are memoized, so equal regular expressions share
+     * the same automaton as long as it is in use.
+     */
+    @SuppressWarnings("unchecked") public static <S> RegExpAutomaton<S> of(IRegExp<S> regexp) {
+        return (RegExpAutomaton<S>) cache.getUnchecked(regexp);
+    }
+
+    /**
+     * Compile the given regular expression, using derivatives to compute the states. Unlike {@link #of(IRegExp)}, this
+     * always creates a new automaton.
+     */
+    public static <S> RegExpAutomaton<S> compile(final IRegExp<S> initial) {
+        final IAlphabet<S> alphabet = RegExps.alphabet(initial);
+        final RegExpNormalizingBuilder<S> builder = new RegExpNormalizingBuilder<>(alphabet);
+
+        final List<S> labels = Lists.newArrayList(alphabet);
+        final List<Deriver<S>> derivers = Lists.newArrayListWithCapacity(labels.size() + 1);
+        for(S label : labels) {
+            derivers.add(new Deriver<>(label, builder));
+        }
+        derivers.add(new Deriver<>(null, builder)); // the column for labels outside the alphabet
+
+        final Map<IRegExp<S>, Integer> stateIds = Maps.newHashMap();
+        final List<IRegExp<S>> states = new ArrayList<>();
+        final List<int[]> transitions = new ArrayList<>();
+        final List<BitSet> reverseTransitions = new ArrayList<>();
+        final Deque<Integer> worklist = Queues.newArrayDeque();
+        stateId(initial, stateIds, states, reverseTransitions, worklist);
+        stateId(builder.emptySet(), stateIds, states, reverseTransitions, worklist);
+        while(!worklist.isEmpty()) {
+            final int state = worklist.pop();
+            final int[] row = new int[derivers.size()];
+            for(int l = 0; l < derivers.size(); l++) {
+                final IRegExp<S> next = builder.apply(derivers.get(l).apply(states.get(state)));
+                final int nextState = stateId(next, stateIds, states, reverseTransitions, worklist);
+                reverseTransitions.get(nextState).set(state);
+                row[l] = nextState;
+            }
+            while(transitions.size() <= state) {
+                transitions.add(null);
+            }
+            transitions.set(state, row);
+        }
+
+        // states from which a nullable state is reachable in one or more steps are not final
+        final BitSet accepting = new BitSet(states.size());
+        for(int state = 0; state < states.size(); state++) {
+            if(RegExps.isNullable(states.get(state))) {
+                accepting.set(state);
+                worklist.push(state);
+            }
+        }
+        final BitSet visited = new BitSet(states.size());
+        final BitSet nonFinal = new BitSet(states.size());
+        while(!worklist.isEmpty()) {
+            final int state = worklist.pop();
+            if(!visited.get(state)) {
+                visited.set(state);
+                final BitSet previous = reverseTransitions.get(state);
+                for(int prev = previous.nextSetBit(0); prev >= 0; prev = previous.nextSetBit(prev + 1)) {
+                    nonFinal.set(prev);
+                    worklist.push(prev);
+                }
+            }
+        }
+        final BitSet finals = new BitSet(states.size());
+        finals.set(0, states.size());
+        finals.andNot(nonFinal);
+
+        return new RegExpAutomaton<>(labels, states, transitions.toArray(new int[states.size()][]), accepting,
+                finals);
+    }
+
+    private static <S> int stateId(IRegExp<S> state, Map<IRegExp<S>, Integer> stateIds, List<IRegExp<S>> states,
+            List<BitSet> reverseTransitions, Deque<Integer> worklist) {
+        Integer id;
+        if((id = stateIds.get(state)) == null) {
+            stateIds.put(state, (id = states.size()));
+            states.add(state);
+            reverseTransitions.add(new BitSet());
+            worklist.push(id);
+        }
+        return id;
+    }
+
+}
@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
+
 import org.metaborg.util.collection.CapsuleUtil;
 import org.metaborg.util.collection.HashTrieRelation2;
 import org.metaborg.util.collection.IRelation2;
@@ -192,6 +194,8 @@ public abstract class Relation<T> implements IRelation<T> {
         protected final RelationDescription description;
         protected final IRelation2.Immutable<T, T> entries;
 
+        private transient volatile @Nullable RelationIndex<T> index;
+
         public Immutable(RelationDescription description, IRelation2.Immutable<T, T> entries) {
             this.description = description;
             this.entries = entries;
@@ -205,6 +209,29 @@ public abstract class Relation<T> implements IRelation<T> {
             return entries;
         }
 
+        /**
+         * The reachability index is built on first use, because many relations are frozen without ever being queried.
+         */
+        private RelationIndex<T> index() {
+            RelationIndex<T> index;
+            if((index = this.index) == null) {
+                this.index = (index = new RelationIndex<>(description, entries));
+            }
+            return index;
+        }
+
+        @Override public Set.Immutable<T> smaller(T t) {
+            return index().smaller(t);
+        }
+
+        @Override public Set.Immutable<T> larger(T t) {
+            return index().larger(t);
+        }
+
+        @Override public boolean contains(T t1, T t2) {
+            return index().contains(t1, t2);
+        }
+
         @Override public IRelation.Transient<T> melt() {
             return new Relation.Transient<>(description, entries.melt());
         }
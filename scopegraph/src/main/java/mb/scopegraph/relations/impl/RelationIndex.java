@@ -0,0 +1,179 @@
+package mb.scopegraph.relations.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.collection.IRelation2;
+import org.metaborg.util.tuple.Tuple2;
+
+import com.google.common.collect.Maps;
+
+import io.usethesource.capsule.Set;
+import mb.scopegraph.relations.ARelationDescription.Reflexivity;
+import mb.scopegraph.relations.ARelationDescription.Symmetry;
+import mb.scopegraph.relations.ARelationDescription.Transitivity;
+import mb.scopegraph.relations.RelationDescription;
+
+/**
+ * Reachability index for an immutable relation, with the same results as the search in {@link Relation}.
+ *
+ * Elements are numbered, and edges stored as adjacency arrays. Reachable sets are bitsets that are computed per
+ * element on first use, so the index only uses quadratic space if all elements are queried. Smaller and larger sets are
+ * cached as well. All lazily computed parts are safe to use from multiple threads; concurrent initialization at worst
+ * computes the same value twice.
+ */
+class RelationIndex<T> {
+
+    private final RelationDescription description;
+    private final boolean transitive;
+    private final boolean symmetric;
+
+    private final Map<T, Integer> ids;
+    private final List<T> elements;
+    private final int[][] successors;
+    private final int[][] predecessors;
+
+    private final AtomicReferenceArray<BitSet> larger;
+    private final AtomicReferenceArray<BitSet> smaller;
+    private final AtomicReferenceArray<Set.Immutable<T>> largerSets;
+    private final AtomicReferenceArray<Set.Immutable<T>> smallerSets;
+
+    RelationIndex(RelationDescription description, IRelation2<T, T> entries) {
+        this.description = description;
+        this.transitive = description.getTransitivity().equals(Transitivity.TRANSITIVE);
+        this.symmetric = description.getSymmetry().equals(Symmetry.SYMMETRIC);
+
+        this.ids = Maps.newHashMap();
+        this.elements = new ArrayList<>();
+        final List<Tuple2<T, T>> edges = new ArrayList<>();
+        entries.stream().forEach(edges::add);
+        final int[] outDegree = new int[2 * edges.size()];
+        final int[] inDegree = new int[2 * edges.size()];
+        for(Tuple2<T, T> edge : edges) {
+            outDegree[id(edge._1())] += 1;
+            inDegree[id(edge._2())] += 1;
+        }
+        final int n = elements.size();
+        this.successors = new int[n][];
+        this.predecessors = new int[n][];
+        for(int i = 0; i < n; i++) {
+            successors[i] = new int[outDegree[i]];
+            predecessors[i] = new int[inDegree[i]];
+        }
+        for(Tuple2<T, T> edge : edges) {
+            final int from = ids.get(edge._1());
+            final int to = ids.get(edge._2());
+            successors[from][--outDegree[from]] = to;
+            predecessors[to][--inDegree[to]] = from;
+        }
+
+        this.larger = new AtomicReferenceArray<>(n);
+        this.smaller = new AtomicReferenceArray<>(n);
+        this.largerSets = new AtomicReferenceArray<>(n);
+        this.smallerSets = new AtomicReferenceArray<>(n);
+    }
+
+    private int id(T element) {
+        Integer id;
+        if((id = ids.get(element)) == null) {
+            ids.put(element, (id = elements.size()));
+            elements.add(element);
+        }
+        return id;
+    }
+
+    boolean contains(T t1, T t2) {
+        if(t1.equals(t2)) {
+            switch(description.getReflexivity()) {
+                case REFLEXIVE:
+                    return true;
+                case IRREFLEXIVE:
+                    return false;
+                case NON_REFLEXIVE:
+                    break;
+            }
+        }
+        final Integer i1 = ids.get(t1);
+        final Integer i2;
+        if(i1 == null || (i2 = ids.get(t2)) == null) {
+            return false;
+        }
+        return reachable(i1, larger, successors).get(i2)
+                || (symmetric && reachable(i2, larger, successors).get(i1));
+    }
+
+    Set.Immutable<T> smaller(T t) {
+        return bound(t, smallerSets, smaller, predecessors, larger, successors);
+    }
+
+    Set.Immutable<T> larger(T t) {
+        return bound(t, largerSets, larger, successors, smaller, predecessors);
+    }
+
+    private Set.Immutable<T> bound(T t, AtomicReferenceArray<Set.Immutable<T>> sets,
+            AtomicReferenceArray<BitSet> reachable, int[][] edges, AtomicReferenceArray<BitSet> reverseReachable,
+            int[][] reverseEdges) {
+        final Integer i = ids.get(t);
+        if(i == null) {
+            return description.getReflexivity().equals(Reflexivity.REFLEXIVE) ? CapsuleUtil.immutableSet(t)
+                    : CapsuleUtil.immutableSet();
+        }
+        Set.Immutable<T> set;
+        if((set = sets.get(i)) == null) {
+            final Set.Transient<T> ts = CapsuleUtil.transientSet();
+            addAll(reachable(i, reachable, edges), ts);
+            if(symmetric) {
+                addAll(reachable(i, reverseReachable, reverseEdges), ts);
+            }
+            if(description.getReflexivity().equals(Reflexivity.REFLEXIVE)) {
+                ts.__insert(t);
+            }
+            sets.set(i, (set = ts.freeze()));
+        }
+        return set;
+    }
+
+    private void addAll(BitSet ids, Set.Transient<T> ts) {
+        for(int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            ts.__insert(elements.get(i));
+        }
+    }
+
+    /**
+     * Elements reachable from the given element in one or more steps, or exactly one step if the relation is not
+     * transitive.
+     */
+    private BitSet reachable(int i, AtomicReferenceArray<BitSet> cache, int[][] edges) {
+        BitSet reachable;
+        if((reachable = cache.get(i)) == null) {
+            reachable = new BitSet(elements.size());
+            if(transitive) {
+                final int[] stack = new int[elements.size()];
+                int top = 0;
+                stack[top++] = i;
+                final BitSet visited = new BitSet(elements.size());
+                visited.set(i);
+                while(top > 0) {
+                    for(int next : edges[stack[--top]]) {
+                        reachable.set(next);
+                        if(!visited.get(next)) {
+                            visited.set(next);
+                            stack[top++] = next;
+                        }
+                    }
+                }
+            } else {
+                for(int next : edges[i]) {
+                    reachable.set(next);
+                }
+            }
+            cache.set(i, reachable);
+        }
+        return reachable;
+    }
+
+}
@@ -0,0 +1,197 @@
+package mb.scopegraph.ecoop21;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.functions.Function1;
+import org.metaborg.util.future.CompletableFuture;
+import org.metaborg.util.future.IFuture;
+import org.metaborg.util.task.ICancel;
+import org.metaborg.util.task.NullCancel;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+
+import mb.scopegraph.oopsla20.IScopeGraph;
+import mb.scopegraph.oopsla20.reference.DataLeq;
+import mb.scopegraph.oopsla20.reference.EdgeOrData;
+import mb.scopegraph.oopsla20.reference.Env;
+import mb.scopegraph.oopsla20.reference.LabelWF;
+import mb.scopegraph.oopsla20.reference.ResolutionException;
+import mb.scopegraph.oopsla20.reference.ScopeGraph;
+import mb.scopegraph.oopsla20.terms.newPath.ResolutionPath;
+import mb.scopegraph.oopsla20.terms.newPath.ScopePath;
+
+public class NameResolutionTest {
+
+    private static final String P = "P";
+    private static final String I = "I";
+
+    @Test public void testSharedSmallerLabelsAreComputedOnce() throws Exception {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", I, "s3");
+        sg.setDatum("s1", "a:1");
+        sg.setDatum("s2", "a:2");
+        sg.setDatum("s3", "b:3");
+        for(boolean keyed : new boolean[] { false, true }) {
+            final Resolution nr = new Resolution(sg.freeze(), keyed);
+            final Env<String, String, String> env = assertSameAsReference(nr);
+            assertEquals(ImmutableSet.of("a:1", "b:3"), data(env));
+            assertTrue(nr.envCacheHits() > 0);
+        }
+    }
+
+    @Test public void testDiamond() throws Exception {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", P, "s3");
+        sg.addEdge("s2", P, "s4");
+        sg.addEdge("s3", P, "s4");
+        sg.addEdge("s4", P, "s5");
+        sg.setDatum("s1", "a:1");
+        sg.setDatum("s4", "b:4");
+        sg.setDatum("s5", "b:5");
+        for(boolean keyed : new boolean[] { false, true }) {
+            final Env<String, String, String> env = assertSameAsReference(new Resolution(sg.freeze(), keyed));
+            assertEquals(ImmutableSet.of("a:1", "b:4"), data(env));
+            assertEquals(3, env.size());
+        }
+    }
+
+    @Test public void testDiamondWithDifferentShadowing() throws Exception {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", P, "s3");
+        sg.addEdge("s2", P, "s4");
+        sg.addEdge("s3", P, "s4");
+        sg.setDatum("s2", "a:2");
+        sg.setDatum("s4", "a:4");
+        for(boolean keyed : new boolean[] { false, true }) {
+            final Env<String, String, String> env = assertSameAsReference(new Resolution(sg.freeze(), keyed));
+            assertEquals(ImmutableSet.of("a:2", "a:4"), data(env));
+        }
+    }
+
+    @Test public void testDiamondWithCycle() throws Exception {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", P, "s3");
+        sg.addEdge("s2", P, "s4");
+        sg.addEdge("s3", P, "s4");
+        sg.addEdge("s4", P, "s2");
+        sg.addEdge("s4", P, "s3");
+        sg.setDatum("s2", "a:2");
+        sg.setDatum("s3", "b:3");
+        sg.setDatum("s4", "c:4");
+        for(boolean keyed : new boolean[] { false, true }) {
+            assertSameAsReference(new Resolution(sg.freeze(), keyed));
+        }
+    }
+
+    /**
+     * Resolve in s1, and compare the paths to those of the reference resolution, which does not memoize.
+     */
+    private static Env<String, String, String> assertSameAsReference(Resolution nr)
+            throws ResolutionException, InterruptedException, ExecutionException {
+        final Env<String, String, String> expected =
+                mb.scopegraph.oopsla20.reference.NameResolution.<String, String, String>builder()
+                        .withLabelWF(LabelWF.ANY()).withLabelOrder(NameResolutionTest::lt)
+                        .withDataEquiv(nr.dataEquiv()).build(nr.graph, ImmutableSet.of(P, I))
+                        .resolve("s1", new NullCancel());
+        final Env<String, String, String> env =
+                nr.env(new ScopePath<>("s1"), LabelWf.any(), new NullCancel()).asJavaCompletion().get();
+        assertEquals(paths(expected), paths(env));
+        return env;
+    }
+
+    private static boolean lt(EdgeOrData<String> l1, EdgeOrData<String> l2) {
+        return l1.equals(EdgeOrData.data()) && !l2.equals(EdgeOrData.data());
+    }
+
+    private static ImmutableSet<ResolutionPath<String, String, String>> paths(Env<String, String, String> env) {
+        return ImmutableSet.copyOf(env);
+    }
+
+    private static ImmutableSet<String> data(Env<String, String, String> env) {
+        return Streams.stream(env).map(p -> p.getDatum()).collect(ImmutableSet.toImmutableSet());
+    }
+
+    private static String name(String datum) {
+        return datum.substring(0, datum.indexOf(':'));
+    }
+
+    /**
+     * Resolution in a local scope graph, that shadows data with the same name, optionally with a key function. All
+     * futures are completed when they are created.
+     */
+    private static class Resolution extends NameResolution<String, String, String> {
+
+        private final IScopeGraph<String, String, String> graph;
+        private final boolean keyed;
+
+        private Resolution(IScopeGraph<String, String, String> graph, boolean keyed) {
+            super(CapsuleUtil.immutableSet(P, I), NameResolutionTest::lt);
+            this.graph = graph;
+            this.keyed = keyed;
+        }
+
+        private DataLeq<String> dataEquiv() {
+            return new DataLeq<String>() {
+
+                @Override public boolean leq(String d1, String d2) {
+                    return name(d1).equals(name(d2));
+                }
+
+                @Override public boolean alwaysTrue() {
+                    return false;
+                }
+
+                @Override public Key<String> key() {
+                    return keyed ? d -> Optional.of(name(d)) : null;
+                }
+
+            };
+        }
+
+        @Override protected Optional<IFuture<Env<String, String, String>>> externalEnv(
+                @SuppressWarnings("unused") ScopePath<String, String> path,
+                @SuppressWarnings("unused") LabelWf<String> re,
+                @SuppressWarnings("unused") LabelOrder<String> labelOrder) {
+            return Optional.empty();
+        }
+
+        @Override protected IFuture<Optional<String>> getDatum(String scope) {
+            return CompletableFuture.completedFuture(graph.getData(scope));
+        }
+
+        @Override protected IFuture<Iterable<String>> getEdges(String scope, String label) {
+            return CompletableFuture.completedFuture(graph.getEdges(scope, label));
+        }
+
+        @Override protected IFuture<Boolean> dataWf(@SuppressWarnings("unused") String datum,
+                @SuppressWarnings("unused") ICancel cancel) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override protected IFuture<Boolean> dataLeq(String d1, String d2,
+                @SuppressWarnings("unused") ICancel cancel) {
+            return CompletableFuture.completedFuture(name(d1).equals(name(d2)));
+        }
+
+        @Override protected IFuture<Boolean> dataLeqAlwaysTrue(@SuppressWarnings("unused") ICancel cancel) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        @Override protected Function1<String, Optional<?>> dataLeqKey() {
+            return keyed ? d -> Optional.of(name(d)) : null;
+        }
+
+    }
+
+}
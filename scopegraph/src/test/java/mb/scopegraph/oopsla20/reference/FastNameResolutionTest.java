@@ -0,0 +1,227 @@
+package mb.scopegraph.oopsla20.reference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+
+import org.junit.Test;
+import org.metaborg.util.task.NullCancel;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Streams;
+
+import mb.scopegraph.oopsla20.IScopeGraph;
+import mb.scopegraph.oopsla20.terms.newPath.ResolutionPath;
+import mb.scopegraph.oopsla20.terms.newPath.ScopePath;
+
+public class FastNameResolutionTest {
+
+    private static final String P = "P";
+    private static final String I = "I";
+
+    @Test public void testSharedSmallerLabelsAreComputedOnce() throws ResolutionException, InterruptedException {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", I, "s3");
+        sg.setDatum("s1", "a:1");
+        sg.setDatum("s2", "b:2");
+        sg.setDatum("s3", "c:3");
+        assertSameAsReference(sg.freeze(), LabelWF.ANY(), FastNameResolutionTest::lt, byName(false));
+        final FastNameResolution<String, String, String> nr = resolve(sg.freeze(), LabelWF.ANY(), byName(false));
+        assertEquals(3, nr.resolve("s1", new NullCancel()).size());
+        assertTrue(nr.envCacheHits() > 0);
+    }
+
+    @Test public void testDiamondIsComputedOnce() throws ResolutionException, InterruptedException {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", P, "s3");
+        sg.addEdge("s2", P, "s4");
+        sg.addEdge("s3", P, "s4");
+        sg.addEdge("s4", P, "s5");
+        sg.setDatum("s1", "a:1");
+        sg.setDatum("s4", "b:4");
+        sg.setDatum("s5", "b:5");
+        for(boolean keyed : new boolean[] { false, true }) {
+            final Env<String, String, String> env =
+                    assertSameAsReference(sg.freeze(), LabelWF.ANY(), FastNameResolutionTest::lt, byName(keyed));
+            assertEquals(ImmutableSet.of("a:1", "b:4"), data(env));
+            assertEquals(3, env.size());
+        }
+        final Multiset<String> edgeQueries = HashMultiset.create();
+        final FastNameResolution<String, String, String> nr = new FastNameResolution<String, String, String>(
+                sg.freeze(), ImmutableSet.of(P), LabelWF.ANY(), FastNameResolutionTest::lt, DataWF.ANY(),
+                byName(true), (s, l) -> true) {
+
+            @Override protected Iterable<String> getEdges(LabelWF<String> re, ScopePath<String, String> path,
+                    String l) {
+                edgeQueries.add(path.getTarget());
+                return super.getEdges(re, path, l);
+            }
+
+        };
+        assertEquals(3, nr.resolve("s1", new NullCancel()).size());
+        assertEquals(1, edgeQueries.count("s4"));
+        assertEquals(1, edgeQueries.count("s5"));
+        assertTrue(nr.envCacheHits() > 0);
+    }
+
+    @Test public void testDiamondWithDifferentShadowing() throws ResolutionException, InterruptedException {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", P, "s3");
+        sg.addEdge("s2", P, "s4");
+        sg.addEdge("s3", P, "s4");
+        sg.setDatum("s2", "a:2");
+        sg.setDatum("s4", "a:4");
+        for(boolean keyed : new boolean[] { false, true }) {
+            final Env<String, String, String> env =
+                    assertSameAsReference(sg.freeze(), LabelWF.ANY(), FastNameResolutionTest::lt, byName(keyed));
+            assertEquals(ImmutableSet.of("a:2", "a:4"), data(env));
+        }
+    }
+
+    @Test public void testDiamondWithCycle() throws ResolutionException, InterruptedException {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", P, "s3");
+        sg.addEdge("s2", P, "s4");
+        sg.addEdge("s3", P, "s4");
+        sg.addEdge("s4", P, "s2");
+        sg.addEdge("s4", P, "s3");
+        sg.setDatum("s2", "a:2");
+        sg.setDatum("s3", "b:3");
+        sg.setDatum("s4", "c:4");
+        // without a label order there is no more specific data, so only the cycle checks prevent sharing environments
+        assertEquals(6, assertSameAsReference(sg.freeze(), LabelWF.ANY(), LabelOrder.NONE(), DataLeq.NONE()).size());
+        assertSameAsReference(sg.freeze(), LabelWF.ANY(), FastNameResolutionTest::lt, byName(false));
+        assertSameAsReference(sg.freeze(), LabelWF.ANY(), FastNameResolutionTest::lt, byName(true));
+    }
+
+    @Test public void testDiamondWithDifferentWellFormedness() throws ResolutionException, InterruptedException {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", I, "s2");
+        sg.addEdge("s2", P, "s3");
+        sg.setDatum("s2", "a:2");
+        sg.setDatum("s3", "b:3");
+        final Env<String, String, String> env = assertSameAsReference(sg.freeze(), ParentsThenImport.PARENTS,
+                FastNameResolutionTest::lt, DataLeq.NONE());
+        assertEquals(3, env.size());
+    }
+
+    @Test public void testShadowingWithKeyAgreesWithPairwiseShadowing()
+            throws ResolutionException, InterruptedException {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", P, "s2");
+        sg.addEdge("s1", P, "s3");
+        sg.addEdge("s2", P, "s4");
+        sg.setDatum("s1", "a:1");
+        sg.setDatum("s2", "a:2");
+        sg.setDatum("s3", "b:3");
+        sg.setDatum("s4", "b:4");
+        final DataLeq<String> keyed = new DataLeq<String>() {
+
+            @Override public boolean leq(@SuppressWarnings("unused") String d1,
+                    @SuppressWarnings("unused") String d2) {
+                throw new AssertionError("Pairwise comparison of keyed order.");
+            }
+
+            @Override public boolean alwaysTrue() {
+                return false;
+            }
+
+            @Override public Key<String> key() {
+                return d -> Optional.of(name(d));
+            }
+
+        };
+        final Env<String, String, String> expected = resolve(sg.freeze(), LabelWF.ANY(), byName(false)).resolve("s1",
+                new NullCancel());
+        assertEquals(ImmutableSet.of("a:1", "b:3", "b:4"), data(expected));
+        assertEquals(data(expected), data(resolve(sg.freeze(), LabelWF.ANY(), keyed).resolve("s1", new NullCancel())));
+    }
+
+    /**
+     * Resolve in s1, and compare the paths to those of the reference resolution, which does not memoize.
+     */
+    private static Env<String, String, String> assertSameAsReference(IScopeGraph<String, String, String> sg,
+            LabelWF<String> labelWF, LabelOrder<String> labelOrder, DataLeq<String> dataEquiv)
+            throws ResolutionException, InterruptedException {
+        final Env<String, String, String> expected = NameResolution.<String, String, String>builder()
+                .withLabelWF(labelWF).withLabelOrder(labelOrder).withDataEquiv(dataEquiv)
+                .build(sg, ImmutableSet.of(P, I)).resolve("s1", new NullCancel());
+        final Env<String, String, String> env = FastNameResolution.<String, String, String>builder()
+                .withLabelWF(labelWF).withLabelOrder(labelOrder).withDataEquiv(dataEquiv)
+                .build(sg, ImmutableSet.of(P, I)).resolve("s1", new NullCancel());
+        assertEquals(paths(expected), paths(env));
+        return env;
+    }
+
+    private static FastNameResolution<String, String, String> resolve(IScopeGraph<String, String, String> sg,
+            LabelWF<String> labelWF, DataLeq<String> dataEquiv) {
+        return FastNameResolution.<String, String, String>builder().withLabelWF(labelWF)
+                .withLabelOrder(FastNameResolutionTest::lt).withDataEquiv(dataEquiv).build(sg, ImmutableSet.of(P, I));
+    }
+
+    private static boolean lt(EdgeOrData<String> l1, EdgeOrData<String> l2) {
+        return l1.equals(EdgeOrData.data()) && !l2.equals(EdgeOrData.data());
+    }
+
+    /**
+     * Data order that shadows data with the same name, optionally with a key function.
+     */
+    private static DataLeq<String> byName(boolean keyed) {
+        return new DataLeq<String>() {
+
+            @Override public boolean leq(String d1, String d2) {
+                return name(d1).equals(name(d2));
+            }
+
+            @Override public boolean alwaysTrue() {
+                return false;
+            }
+
+            @Override public Key<String> key() {
+                return keyed ? d -> Optional.of(name(d)) : null;
+            }
+
+        };
+    }
+
+    private static ImmutableSet<ResolutionPath<String, String, String>> paths(Env<String, String, String> env) {
+        return ImmutableSet.copyOf(env);
+    }
+
+    private static ImmutableSet<String> data(Env<String, String, String> env) {
+        return Streams.stream(env).map(p -> p.getDatum()).collect(ImmutableSet.toImmutableSet());
+    }
+
+    private static String name(String datum) {
+        return datum.substring(0, datum.indexOf(':'));
+    }
+
+    /**
+     * Label well-formedness P* I?, with one instance per state.
+     */
+    private enum ParentsThenImport implements LabelWF<String> {
+
+        PARENTS, IMPORTED;
+
+        @Override public Optional<LabelWF<String>> step(String l) {
+            if(this == IMPORTED) {
+                return Optional.empty();
+            }
+            return Optional.of(l.equals(I) ? IMPORTED : PARENTS);
+        }
+
+        @Override public boolean accepting() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,52 @@
+package mb.scopegraph.oopsla20.reference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import mb.scopegraph.oopsla20.IScopeGraph;
+
+public class IndexedScopeGraphTest {
+
+    @Test public void testEdgesAreReturnedNewestFirst() {
+        final IndexedScopeGraph.Transient<String, String, String> sg = IndexedScopeGraph.Transient.of();
+        sg.addEdge("s1", "P", "s2");
+        sg.addEdge("s1", "P", "s3");
+        sg.addEdge("s1", "I", "s4");
+        assertEquals(ImmutableList.of("s3", "s2"), ImmutableList.copyOf(sg.getEdges("s1", "P")));
+        final IndexedScopeGraph.Immutable<String, String, String> frozen = sg.freeze();
+        assertEquals(ImmutableList.of("s3", "s2"), ImmutableList.copyOf(frozen.getEdges("s1", "P")));
+        assertEquals(ImmutableList.of("s4"), ImmutableList.copyOf(frozen.getEdges("s1", "I")));
+        assertFalse(frozen.getEdges("s2", "P").iterator().hasNext());
+        assertFalse(frozen.getEdges("s5", "P").iterator().hasNext());
+    }
+
+    @Test public void testImmutableUpdates() {
+        final IndexedScopeGraph.Immutable<String, String, String> sg1 = IndexedScopeGraph.Immutable.of();
+        final IndexedScopeGraph.Immutable<String, String, String> sg2 =
+                sg1.addEdge("s1", "P", "s2").setDatum("s2", "d");
+        final IndexedScopeGraph.Immutable<String, String, String> sg3 = sg2.addEdge("s1", "P", "s3");
+        assertFalse(sg1.getEdges("s1", "P").iterator().hasNext());
+        assertEquals(ImmutableList.of("s2"), ImmutableList.copyOf(sg2.getEdges("s1", "P")));
+        assertEquals(ImmutableList.of("s3", "s2"), ImmutableList.copyOf(sg3.getEdges("s1", "P")));
+        assertEquals("d", sg3.getData("s2").get());
+    }
+
+    @Test public void testConversionRoundTrip() {
+        final ScopeGraph.Transient<String, String, String> sg = ScopeGraph.Transient.of();
+        sg.addEdge("s1", "P", "s2");
+        sg.addEdge("s1", "P", "s3");
+        sg.addEdge("s2", "I", "s1");
+        sg.setDatum("s3", "d");
+        final IScopeGraph.Immutable<String, String, String> original = sg.freeze();
+        final IndexedScopeGraph.Immutable<String, String, String> indexed = IndexedScopeGraph.Immutable.of(original);
+        assertEquals(ImmutableList.copyOf(original.getEdges("s1", "P")),
+                ImmutableList.copyOf(indexed.getEdges("s1", "P")));
+        assertEquals(original.getLabels(), indexed.getLabels());
+        assertEquals(original, indexed.toScopeGraph());
+    }
+
+}
@@ -1,6 +1,8 @@
 package mb.scopegraph.regexp;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.BeforeClass;
@@ -121,4 +123,28 @@ public class RegExpTest {
         assertFalse(m.isAccepting());
     }
 
-}
\ No newline at end of file
+    @Test public void testAutomatonStepping() {
+        IRegExp<Integer> re = b.concat(b.closure(b.symbol(1)), b.symbol(3));
+        RegExpAutomaton<Integer> a = RegExpAutomaton.of(re);
+        int s = a.initial();
+        assertFalse(a.isAccepting(s));
+        s = a.step(s, a.labelId(1));
+        s = a.step(s, a.labelId(1));
+        assertFalse(a.isEmpty(s));
+        s = a.step(s, a.labelId(3));
+        assertTrue(a.isAccepting(s));
+        assertTrue(a.isFinal(s));
+        s = a.step(s, a.otherLabelId());
+        assertTrue(a.isEmpty(s));
+        assertEquals(a.otherLabelId(), a.labelId(7));
+    }
+
+    @Test public void testAutomataAreShared() {
+        IRegExp<Integer> re1 = b.concat(b.closure(b.symbol(1)), b.symbol(3));
+        IRegExp<Integer> re2 = b.concat(b.closure(b.symbol(1)), b.symbol(3));
+        assertSame(RegExpAutomaton.of(re1), RegExpAutomaton.of(re2));
+        IRegExpMatcher<Integer> m = RegExpMatcher.create(re1);
+        assertSame(m.match(1), m.match(1).match(1));
+    }
+
+}
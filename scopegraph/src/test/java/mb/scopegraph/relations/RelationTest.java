@@ -1,5 +1,6 @@
 package mb.scopegraph.relations;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -176,4 +177,33 @@ public class RelationTest {
         r.add(3, 1);
     }
 
-}
\ No newline at end of file
+    // frozen relations
+
+    @Test public void testFrozenAgreesWithTransient() {
+        for(Reflexivity reflexivity : Reflexivity.values()) {
+            for(Symmetry symmetry : Symmetry.values()) {
+                for(Transitivity transitivity : Transitivity.values()) {
+                    IRelation.Transient<Integer> r =
+                            Relation.Transient.of(RelationDescription.of(reflexivity, symmetry, transitivity));
+                    int[][] edges = { { 1, 2 }, { 2, 3 }, { 3, 4 }, { 1, 5 }, { 5, 4 }, { 4, 2 }, { 6, 6 } };
+                    for(int[] edge : edges) {
+                        try {
+                            r.add(edge[0], edge[1]);
+                        } catch(RelationException e) {
+                            // skip edges the description does not allow
+                        }
+                    }
+                    IRelation.Immutable<Integer> f = r.freeze();
+                    for(int i = 0; i <= 7; i++) {
+                        assertEquals(r.smaller(i), f.smaller(i));
+                        assertEquals(r.larger(i), f.larger(i));
+                        for(int j = 0; j <= 7; j++) {
+                            assertEquals(r.contains(i, j), f.contains(i, j));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package mb.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the JMH command line, and writes the results as JSON to {@code solver-benchmark.json},
+ * unless a result format or file is given on the command line.
+ */
+public class Main {
+
+    private static final String RESULT_FORMAT = "json";
+    private static final String RESULT_FILE = "solver-benchmark.json";
+
+    public static void main(String[] args) throws Exception {
+        final List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if(!jmhArgs.contains("-rf")) {
+            jmhArgs.add("-rf");
+            jmhArgs.add(RESULT_FORMAT);
+        }
+        if(!jmhArgs.contains("-rff")) {
+            jmhArgs.add("-rff");
+            jmhArgs.add(RESULT_FILE);
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+
+}
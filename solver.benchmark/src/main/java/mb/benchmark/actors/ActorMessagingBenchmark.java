@@ -0,0 +1,151 @@
+package mb.benchmark.actors;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.metaborg.util.future.CompletableFuture;
+import org.metaborg.util.future.IFuture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mb.p_raffrayi.actors.IActor;
+import mb.p_raffrayi.actors.IActorRef;
+import mb.p_raffrayi.actors.IAsyncChannel;
+import mb.p_raffrayi.actors.TypeTag;
+import mb.p_raffrayi.actors.impl.ActorSystem;
+
+/**
+ * Messages per second between two actors. The sender sends a batch of messages to the receiver, and waits for the
+ * receiver to confirm it processed them. Messages are sent through the reflective proxy, or through a typed stub.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActorMessagingBenchmark {
+
+    private static final int MESSAGES = 10_000;
+
+    /** The async interface: {@code proxy} or {@code stub}. */
+    @Param({ "proxy", "stub" }) public String dispatch;
+
+    private ActorSystem system;
+    private IActorRef<ISender> sender;
+
+    @Setup public void setup() {
+        final boolean stub = dispatch.equals("stub");
+        final TypeTag<IReceiver> receiverType =
+                stub ? TypeTag.of(IReceiver.class, ReceiverStub::new) : TypeTag.of(IReceiver.class);
+        final TypeTag<ISender> senderType =
+                stub ? TypeTag.of(ISender.class, SenderStub::new) : TypeTag.of(ISender.class);
+        system = new ActorSystem(2);
+        final IActorRef<IReceiver> receiver = system.add("receiver", receiverType, self -> new Receiver());
+        sender = system.add("sender", senderType, self -> new Sender(self, receiver));
+    }
+
+    @TearDown public void tearDown() throws InterruptedException, ExecutionException {
+        system.stop().asJavaCompletion().get();
+    }
+
+    @Benchmark @OperationsPerInvocation(MESSAGES) public int send() throws InterruptedException, ExecutionException {
+        return system.async(sender).send(MESSAGES).asJavaCompletion().get();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Actors
+    ///////////////////////////////////////////////////////////////////////////
+
+    public interface IReceiver {
+
+        void tell(int value);
+
+        IFuture<Integer> sync();
+
+    }
+
+    public interface ISender {
+
+        IFuture<Integer> send(int messages);
+
+    }
+
+    private static class Receiver implements IReceiver {
+
+        private int sum = 0;
+
+        @Override public void tell(int value) {
+            sum += value;
+        }
+
+        @Override public IFuture<Integer> sync() {
+            return CompletableFuture.completedFuture(sum);
+        }
+
+    }
+
+    private static class Sender implements ISender {
+
+        private final IActor<ISender> self;
+        private final IActorRef<IReceiver> receiver;
+
+        private Sender(IActor<ISender> self, IActorRef<IReceiver> receiver) {
+            this.self = self;
+            this.receiver = receiver;
+        }
+
+        @Override public IFuture<Integer> send(int messages) {
+            final IReceiver async = self.async(receiver);
+            for(int i = 0; i < messages; i++) {
+                async.tell(i);
+            }
+            return async.sync();
+        }
+
+    }
+
+    private static class ReceiverStub implements IReceiver {
+
+        private final IAsyncChannel<IReceiver> channel;
+
+        private ReceiverStub(IAsyncChannel<IReceiver> channel) {
+            this.channel = channel;
+        }
+
+        @Override public void tell(int value) {
+            channel.send("tell", impl -> impl.tell(value));
+        }
+
+        @Override public IFuture<Integer> sync() {
+            return channel.ask("sync", impl -> impl.sync());
+        }
+
+    }
+
+    private static class SenderStub implements ISender {
+
+        private final IAsyncChannel<ISender> channel;
+
+        private SenderStub(IAsyncChannel<ISender> channel) {
+            this.channel = channel;
+        }
+
+        @Override public IFuture<Integer> send(int messages) {
+            return channel.ask("send", impl -> impl.send(messages));
+        }
+
+    }
+
+}
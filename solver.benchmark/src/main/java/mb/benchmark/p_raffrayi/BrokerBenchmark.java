@@ -0,0 +1,186 @@
+package mb.benchmark.p_raffrayi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.future.AggregateFuture;
+import org.metaborg.util.future.CompletableFuture;
+import org.metaborg.util.future.IFuture;
+import org.metaborg.util.task.ICancel;
+import org.metaborg.util.task.NullCancel;
+import org.metaborg.util.unit.Unit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mb.p_raffrayi.IScopeImpl;
+import mb.p_raffrayi.ITypeChecker;
+import mb.p_raffrayi.ITypeCheckerContext;
+import mb.p_raffrayi.IUnitResult;
+import mb.p_raffrayi.impl.Broker;
+import mb.p_raffrayi.nameresolution.DataLeq;
+import mb.p_raffrayi.nameresolution.DataWf;
+import mb.scopegraph.ecoop21.LabelOrder;
+import mb.scopegraph.ecoop21.RegExpLabelWf;
+import mb.scopegraph.regexp.RegExpMatcher;
+import mb.scopegraph.regexp.impl.RegExpBuilder;
+
+/**
+ * A complete run of the concurrent solver, with a root unit that shares a scope with a number of synthetic units.
+ * Every unit declares a name in the shared scope and resolves the name declared by the next unit, so every query waits
+ * until all units have closed their edges.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BrokerBenchmark {
+
+    private static final Integer DECL = 1;
+
+    @Param({ "10", "100" }) public int units;
+
+    @Benchmark public IUnitResult<UnitScope, Integer, Integer, Unit> run()
+            throws ExecutionException, InterruptedException {
+        return Broker.run(".", new RootChecker(units), new ScopeImpl(), CapsuleUtil.immutableSet(DECL),
+                new NullCancel()).asJavaCompletion().get();
+    }
+
+    private static class RootChecker implements ITypeChecker<UnitScope, Integer, Integer, Unit> {
+
+        private final int units;
+
+        private RootChecker(int units) {
+            this.units = units;
+        }
+
+        @Override public IFuture<Unit> run(ITypeCheckerContext<UnitScope, Integer, Integer> unit,
+                List<UnitScope> rootScopes) {
+            final UnitScope s = unit.freshScope("s", Collections.emptySet(), false, true);
+            final List<IFuture<?>> results = new ArrayList<>();
+            for(int i = 0; i < units; i++) {
+                results.add(unit.add("unit-" + i, new UnitChecker(i, (i + 1) % units), Arrays.asList(s)));
+            }
+            unit.closeScope(s);
+            return new AggregateFuture<>(results).thenApply(r -> Unit.unit);
+        }
+
+    }
+
+    private static class UnitChecker implements ITypeChecker<UnitScope, Integer, Integer, Unit> {
+
+        private final int name;
+        private final int ref;
+
+        private UnitChecker(int name, int ref) {
+            this.name = name;
+            this.ref = ref;
+        }
+
+        @Override public IFuture<Unit> run(ITypeCheckerContext<UnitScope, Integer, Integer> unit,
+                List<UnitScope> rootScopes) {
+            final UnitScope s = rootScopes.get(0);
+            unit.initScope(s, CapsuleUtil.immutableSet(DECL), false);
+
+            final UnitScope d = unit.freshScope("d", Collections.emptySet(), true, false);
+            unit.setDatum(d, name);
+            unit.addEdge(s, DECL, d);
+            unit.closeEdge(s, DECL);
+
+            final RegExpBuilder<Integer> reb = new RegExpBuilder<>();
+            final RegExpLabelWf<Integer> labelWf = new RegExpLabelWf<>(RegExpMatcher.create(reb.symbol(DECL)));
+            return unit.query(s, labelWf, LabelOrder.none(), new NameWf(ref), DataLeq.none()).thenApply(paths -> {
+                if(paths.size() != 1) {
+                    throw new IllegalStateException("Expected one declaration of " + ref + ", got " + paths);
+                }
+                return Unit.unit;
+            });
+        }
+
+    }
+
+    private static class NameWf implements DataWf<UnitScope, Integer, Integer> {
+
+        private final int name;
+
+        private NameWf(int name) {
+            this.name = name;
+        }
+
+        @Override public IFuture<Boolean> wf(Integer d, ITypeCheckerContext<UnitScope, Integer, Integer> context,
+                ICancel cancel) {
+            return CompletableFuture.completedFuture(d == name);
+        }
+
+    }
+
+    private static class ScopeImpl implements IScopeImpl<UnitScope, Integer> {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override public UnitScope make(String id, String name) {
+            return new UnitScope(id, count.getAndIncrement());
+        }
+
+        @Override public String id(UnitScope scope) {
+            return scope.id;
+        }
+
+        @Override public Collection<UnitScope> getAllScopes(Integer datum) {
+            return Collections.emptySet();
+        }
+
+        @Override public Integer substituteScopes(Integer datum, Map<UnitScope, UnitScope> substitution) {
+            return datum;
+        }
+
+    }
+
+    public static final class UnitScope {
+
+        private final String id;
+        private final int index;
+
+        private UnitScope(String id, int index) {
+            this.id = id;
+            this.index = index;
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(id, index);
+        }
+
+        @Override public boolean equals(Object obj) {
+            if(this == obj)
+                return true;
+            if(obj == null || getClass() != obj.getClass())
+                return false;
+            final UnitScope other = (UnitScope) obj;
+            return Objects.equals(id, other.id) && index == other.index;
+        }
+
+        @Override public String toString() {
+            return id + "-" + index;
+        }
+
+    }
+
+}
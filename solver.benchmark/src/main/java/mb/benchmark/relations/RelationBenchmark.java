@@ -0,0 +1,165 @@
+package mb.benchmark.relations;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mb.scopegraph.relations.IRelation;
+import mb.scopegraph.relations.RelationDescription;
+import mb.scopegraph.relations.RelationException;
+import mb.scopegraph.relations.impl.Relation;
+
+/**
+ * Queries on frozen relations, which use a reachability index, compared to the same queries on transient relations,
+ * which search the relation on every call. The label order is shaped like the orders in Statix specifications; the
+ * subtype lattices are class hierarchies with single inheritance and interfaces.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelationBenchmark {
+
+    private static final int QUERIES = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Relations {
+
+        /** Either {@code labels}, or {@code types-N} for a subtype lattice of N types. */
+        @Param({ "labels", "types-100", "types-1000" }) public String shape;
+
+        IRelation.Transient<Integer> searched;
+        IRelation.Immutable<Integer> indexed;
+        final int[] lefts = new int[QUERIES];
+        final int[] rights = new int[QUERIES];
+
+        @Setup public void setup() throws RelationException {
+            if(shape.equals("labels")) {
+                searched = labelOrder();
+                queries(8, lefts, rights);
+            } else {
+                final int size = Integer.parseInt(shape.substring("types-".length()));
+                searched = subtypes(size);
+                queries(size, lefts, rights);
+            }
+            indexed = searched.freeze();
+        }
+
+    }
+
+    /**
+     * Bounds are only defined on partial orders, so these only use subtype lattices.
+     */
+    @State(Scope.Benchmark)
+    public static class Lattices {
+
+        @Param({ "100", "1000" }) public int types;
+
+        IRelation.Transient<Integer> searched;
+        IRelation.Immutable<Integer> indexed;
+        final int[] lefts = new int[QUERIES];
+        final int[] rights = new int[QUERIES];
+
+        @Setup public void setup() throws RelationException {
+            searched = subtypes(types);
+            indexed = searched.freeze();
+            queries(types, lefts, rights);
+        }
+
+    }
+
+    @Benchmark public void containsSearched(Relations r, Blackhole bh) {
+        for(int q = 0; q < QUERIES; q++) {
+            bh.consume(r.searched.contains(r.lefts[q], r.rights[q]));
+        }
+    }
+
+    @Benchmark public void containsIndexed(Relations r, Blackhole bh) {
+        for(int q = 0; q < QUERIES; q++) {
+            bh.consume(r.indexed.contains(r.lefts[q], r.rights[q]));
+        }
+    }
+
+    @Benchmark public void largerSearched(Relations r, Blackhole bh) {
+        for(int q = 0; q < QUERIES; q++) {
+            bh.consume(r.searched.larger(r.lefts[q]));
+        }
+    }
+
+    @Benchmark public void largerIndexed(Relations r, Blackhole bh) {
+        for(int q = 0; q < QUERIES; q++) {
+            bh.consume(r.indexed.larger(r.lefts[q]));
+        }
+    }
+
+    @Benchmark public void lubSearched(Lattices r, Blackhole bh) {
+        for(int q = 0; q < QUERIES; q++) {
+            bh.consume(r.searched.leastUpperBound(r.lefts[q], r.rights[q]));
+        }
+    }
+
+    @Benchmark public void lubIndexed(Lattices r, Blackhole bh) {
+        for(int q = 0; q < QUERIES; q++) {
+            bh.consume(r.indexed.leastUpperBound(r.lefts[q], r.rights[q]));
+        }
+    }
+
+    /**
+     * A label order like those in Statix specifications: $ < LEX < P < IMPORT < EXT, LEX < IMPORT, $ < FIELD, and
+     * $ < METHOD.
+     */
+    private static IRelation.Transient<Integer> labelOrder() throws RelationException {
+        final IRelation.Transient<Integer> r = Relation.Transient.of(RelationDescription.STRICT_PARTIAL_ORDER);
+        r.add(0, 1);
+        r.add(1, 2);
+        r.add(2, 3);
+        r.add(3, 4);
+        r.add(1, 3);
+        r.add(0, 5);
+        r.add(0, 6);
+        return r;
+    }
+
+    /**
+     * A class hierarchy where the first tenth of the types are interfaces. Classes have one superclass and up to two
+     * interfaces. Every type is a subtype of type 0.
+     */
+    private static IRelation.Transient<Integer> subtypes(int size) throws RelationException {
+        final IRelation.Transient<Integer> r = Relation.Transient.of(RelationDescription.PARTIAL_ORDER);
+        final Random rnd = new Random(42);
+        final int interfaces = Math.max(1, size / 10);
+        for(int i = 1; i < size; i++) {
+            if(i < interfaces) {
+                r.add(i, rnd.nextInt(i));
+            } else {
+                r.add(i, interfaces - 1 + rnd.nextInt(i - interfaces + 1));
+                for(int k = rnd.nextInt(3); k > 0; k--) {
+                    r.add(i, rnd.nextInt(interfaces));
+                }
+            }
+        }
+        return r;
+    }
+
+    private static void queries(int size, int[] lefts, int[] rights) {
+        final Random rnd = new Random(1);
+        for(int q = 0; q < lefts.length; q++) {
+            lefts[q] = rnd.nextInt(size);
+            rights[q] = rnd.nextInt(size);
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package mb.benchmark.renaming;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mb.renaming.namegraph.NameGraph;
+import mb.renaming.namegraph.NameIndex;
+import mb.renaming.namegraph.ResolutionPair;
+
+/**
+ * Building the name graph from a resolution relation, and finding the related occurrences of a name, as done for every
+ * rename. References resolve to one of a fixed number of declarations per file, and a fraction of the declarations are
+ * related across files, so clusters grow and merge while the graph is built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NameGraphBenchmark {
+
+    private static final int FILES = 100;
+
+    /** Number of resolution pairs. */
+    @Param({ "1000", "10000", "100000", "1000000" }) public int pairs;
+
+    /** Number of declarations per file. */
+    @Param({ "100" }) public int declarations;
+
+    private final List<ResolutionPair> relation = new ArrayList<>();
+    private NameGraph graph;
+    private NameIndex selected;
+
+    @Setup public void setup() {
+        final Random random = new Random(42);
+        final int perFile = pairs / FILES;
+        for(int f = 0; f < FILES; f++) {
+            final String path = "src/File" + f + ".java";
+            for(int i = 0; i < perFile; i++) {
+                final int ref = declarations + i;
+                final int dec = random.nextInt(declarations);
+                relation.add(new ResolutionPair(path, ref, dec));
+            }
+        }
+        // relate every tenth declaration to the same declaration in the next file, as for imported names
+        for(int f = 0; f + 1 < FILES; f++) {
+            for(int dec = 0; dec < declarations; dec += 10) {
+                relation.add(new ResolutionPair(new NameIndex(dec, "src/File" + (f + 1) + ".java"),
+                        new NameIndex(dec, "src/File" + f + ".java")));
+            }
+        }
+        graph = build();
+        selected = relation.get(random.nextInt(relation.size())).getReference();
+    }
+
+    @Benchmark public NameGraph build() {
+        final NameGraph graph = new NameGraph();
+        for(ResolutionPair pair : relation) {
+            graph.addResolutionPair(pair);
+        }
+        return graph;
+    }
+
+    @Benchmark public Optional<Set<NameIndex>> find() {
+        return graph.find(selected);
+    }
+
+}
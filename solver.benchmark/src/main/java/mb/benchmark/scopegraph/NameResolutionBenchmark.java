@@ -0,0 +1,223 @@
+package mb.benchmark.scopegraph;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.future.CompletableFuture;
+import org.metaborg.util.future.IFuture;
+import org.metaborg.util.task.ICancel;
+import org.metaborg.util.task.NullCancel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableSet;
+
+import mb.scopegraph.ecoop21.LabelWf;
+import mb.scopegraph.ecoop21.NameResolution;
+import mb.scopegraph.oopsla20.reference.DataLeq;
+import mb.scopegraph.oopsla20.reference.DataWF;
+import mb.scopegraph.oopsla20.reference.EdgeOrData;
+import mb.scopegraph.oopsla20.reference.Env;
+import mb.scopegraph.oopsla20.reference.FastNameResolution;
+import mb.scopegraph.oopsla20.reference.LabelWF;
+import mb.scopegraph.oopsla20.reference.ResolutionException;
+import mb.scopegraph.oopsla20.reference.ScopeGraph;
+import mb.scopegraph.oopsla20.terms.newPath.ScopePath;
+
+/**
+ * Queries on random scope graphs, resolved by the synchronous resolution of the persistent solver and the
+ * future-based resolution of the concurrent solver.
+ *
+ * Scopes are divided over levels. Every scope has a parent edge to a scope on the previous level, half of the scopes
+ * have an import edge to a scope on any lower level, and every scope has a name as its datum. Queries follow parent
+ * edges and at most one import edge, prefer local names over imported names and imported names over names in
+ * parents, and shadow names by equality.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NameResolutionBenchmark {
+
+    private static final int QUERIES = 100;
+    private static final int NAMES = 100;
+
+    private static final String P = "P";
+    private static final String I = "I";
+
+    @Param({ "1000", "10000" }) public int scopes;
+
+    @Param({ "10", "50" }) public int depth;
+
+    private ScopeGraph.Immutable<Integer, String, Integer> graph;
+    private final int[] queryScopes = new int[QUERIES];
+    private final int[] queryNames = new int[QUERIES];
+
+    @Setup public void setup() {
+        final Random rnd = new Random(42);
+        final ScopeGraph.Transient<Integer, String, Integer> graph = ScopeGraph.Transient.of();
+        final int perLevel = Math.max(1, scopes / depth);
+        for(int s = 0; s < scopes; s++) {
+            final int level = s / perLevel;
+            graph.setDatum(s, rnd.nextInt(NAMES));
+            if(level > 0) {
+                graph.addEdge(s, P, (level - 1) * perLevel + rnd.nextInt(perLevel));
+                if(rnd.nextBoolean()) {
+                    graph.addEdge(s, I, rnd.nextInt(level * perLevel));
+                }
+            }
+        }
+        this.graph = graph.freeze();
+        for(int q = 0; q < QUERIES; q++) {
+            queryScopes[q] = scopes - 1 - rnd.nextInt(perLevel);
+            queryNames[q] = rnd.nextInt(NAMES);
+        }
+    }
+
+    @Benchmark public void fastNameResolution(Blackhole bh) throws ResolutionException, InterruptedException {
+        final ICancel cancel = new NullCancel();
+        for(int q = 0; q < QUERIES; q++) {
+            final int name = queryNames[q];
+            // @formatter:off
+            final FastNameResolution<Integer, String, Integer> nr = FastNameResolution.<Integer, String, Integer>builder()
+                    .withLabelWF(new ParentsThenImport(false))
+                    .withLabelOrder(NameResolutionBenchmark::lt)
+                    .withDataWF(new DataWF<Integer>() {
+                        @Override public boolean wf(Integer d) {
+                            return d == name;
+                        }
+                    })
+                    .withDataEquiv(new DataLeq<Integer>() {
+                        @Override public boolean leq(Integer d1, Integer d2) {
+                            return d1.equals(d2);
+                        }
+
+                        @Override public boolean alwaysTrue() {
+                            return false;
+                        }
+                    })
+                    .build(graph, ImmutableSet.of(P, I));
+            // @formatter:on
+            bh.consume(nr.resolve(queryScopes[q], cancel));
+        }
+    }
+
+    /**
+     * All futures are completed when they are created, so the resolution completes before env returns.
+     */
+    @Benchmark public void ecoop21NameResolution(Blackhole bh) {
+        final ICancel cancel = new NullCancel();
+        for(int q = 0; q < QUERIES; q++) {
+            final Resolution nr = new Resolution(queryNames[q]);
+            bh.consume(nr.env(new ScopePath<>(queryScopes[q]), new ParentsThenImportWf(false), cancel));
+        }
+    }
+
+    private static int rank(EdgeOrData<String> l) {
+        return l.match(() -> 0, lbl -> lbl.equals(I) ? 1 : 2);
+    }
+
+    private static boolean lt(EdgeOrData<String> l1, EdgeOrData<String> l2) {
+        return rank(l1) < rank(l2);
+    }
+
+    private final class Resolution extends NameResolution<Integer, String, Integer> {
+
+        private final int name;
+
+        private Resolution(int name) {
+            super(CapsuleUtil.immutableSet(P, I), NameResolutionBenchmark::lt);
+            this.name = name;
+        }
+
+        @Override protected Optional<IFuture<Env<Integer, String, Integer>>> externalEnv(
+                ScopePath<Integer, String> path, LabelWf<String> re,
+                mb.scopegraph.ecoop21.LabelOrder<String> labelOrder) {
+            return Optional.empty();
+        }
+
+        @Override protected IFuture<Optional<Integer>> getDatum(Integer scope) {
+            return CompletableFuture.completedFuture(graph.getData(scope));
+        }
+
+        @Override protected IFuture<Iterable<Integer>> getEdges(Integer scope, String label) {
+            return CompletableFuture.completedFuture(graph.getEdges(scope, label));
+        }
+
+        @Override protected IFuture<Boolean> dataWf(Integer datum, ICancel cancel) {
+            return CompletableFuture.completedFuture(datum == name);
+        }
+
+        @Override protected IFuture<Boolean> dataLeq(Integer d1, Integer d2, ICancel cancel) {
+            return CompletableFuture.completedFuture(d1.equals(d2));
+        }
+
+        @Override protected IFuture<Boolean> dataLeqAlwaysTrue(ICancel cancel) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+    }
+
+    /**
+     * Label well-formedness P* I?, for the persistent solver.
+     */
+    private static class ParentsThenImport implements LabelWF<String> {
+
+        private final boolean imported;
+
+        private ParentsThenImport(boolean imported) {
+            this.imported = imported;
+        }
+
+        @Override public Optional<LabelWF<String>> step(String l) {
+            if(imported) {
+                return Optional.empty();
+            }
+            return Optional.of(l.equals(I) ? new ParentsThenImport(true) : this);
+        }
+
+        @Override public boolean accepting() {
+            return true;
+        }
+
+    }
+
+    /**
+     * Label well-formedness P* I?, for the concurrent solver.
+     */
+    private static class ParentsThenImportWf implements LabelWf<String> {
+
+        private final boolean imported;
+
+        private ParentsThenImportWf(boolean imported) {
+            this.imported = imported;
+        }
+
+        @Override public Optional<LabelWf<String>> step(String l) {
+            if(imported) {
+                return Optional.empty();
+            }
+            return Optional.of(l.equals(I) ? new ParentsThenImportWf(true) : this);
+        }
+
+        @Override public boolean accepting() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+package mb.benchmark.statix;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+
+import mb.nabl2.terms.ITermVar;
+import mb.statix.constraints.CEqual;
+import mb.statix.constraints.CUser;
+import mb.statix.solver.Delay;
+import mb.statix.solver.IConstraint;
+import mb.statix.solver.IConstraintStore;
+import mb.statix.solver.log.IDebugContext;
+import mb.statix.solver.log.NullDebugContext;
+import mb.statix.solver.store.BaseConstraintStore;
+import mb.statix.solver.store.PriorityConstraintStore;
+import mb.statix.solver.store.SchedulingPolicies;
+
+/**
+ * Replays a solver-like workload on a constraint store: constraints are added and removed, most are delayed on one to
+ * three variables, and variables are instantiated in random order, activating the constraints waiting on them. The
+ * delayed constraints are requested a few times, as the solver does when it finishes or reports progress.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstraintStoreBenchmark {
+
+    private static final IDebugContext debug = new NullDebugContext();
+
+    /** The store implementation: {@code base}, {@code lifo} or {@code equalities-first}. */
+    @Param({ "base", "lifo", "equalities-first" }) public String store;
+
+    @Param({ "10000" }) public int constraints;
+
+    private final List<IConstraint> initial = new ArrayList<>();
+    private final List<Delay> delays = new ArrayList<>();
+    private final List<ITermVar> vars = new ArrayList<>();
+
+    @Setup public void setup() {
+        final Random rnd = new Random(42);
+        final int varCount = constraints / 2;
+        for(int i = 0; i < varCount; i++) {
+            vars.add(B.newVar("", "x" + i));
+        }
+        for(int i = 0; i < constraints; i++) {
+            final ITermVar var = vars.get(rnd.nextInt(varCount));
+            if(rnd.nextInt(3) == 0) {
+                initial.add(new CEqual(var, B.newAppl("T", B.newInt(i))));
+            } else {
+                initial.add(new CUser("c", ImmutableList.of(var, B.newInt(i))));
+            }
+            final ImmutableList.Builder<ITermVar> delayVars = ImmutableList.builder();
+            for(int k = 1 + rnd.nextInt(3); k > 0; k--) {
+                delayVars.add(vars.get(rnd.nextInt(varCount)));
+            }
+            delays.add(Delay.ofVars(delayVars.build()));
+        }
+    }
+
+    private IConstraintStore newStore() {
+        switch(store) {
+            case "base":
+                return new BaseConstraintStore(debug);
+            case "lifo":
+                return new PriorityConstraintStore(debug, SchedulingPolicies.LIFO);
+            case "equalities-first":
+                return new PriorityConstraintStore(debug, SchedulingPolicies.EQUALITIES_FIRST_QUERIES_LAST);
+            default:
+                throw new IllegalArgumentException("Unknown store " + store);
+        }
+    }
+
+    @Benchmark public void solve(Blackhole bh) {
+        final IConstraintStore store = newStore();
+        store.addAll(initial);
+        // first pass: every constraint is delayed once
+        int i = 0;
+        IConstraint constraint;
+        while((constraint = store.remove()) != null) {
+            store.delay(constraint, delays.get(i++ % delays.size()));
+        }
+        bh.consume(store.delayed());
+        // second pass: instantiate variables, which activates delayed constraints
+        for(int v = 0; v < vars.size(); v++) {
+            store.activateFromVars(ImmutableList.of(vars.get(v)), debug);
+            while((constraint = store.remove()) != null) {
+                bh.consume(constraint);
+            }
+            if(v % (vars.size() / 4) == 0) {
+                bh.consume(store.delayed());
+            }
+        }
+        bh.consume(store.delayedSize());
+    }
+
+}
@@ -0,0 +1,209 @@
+package mb.benchmark.statix;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static mb.nabl2.terms.matching.TermPattern.P;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.metaborg.util.task.NullCancel;
+import org.metaborg.util.task.NullProgress;
+import org.metaborg.util.tuple.Tuple2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.matching.Pattern;
+import mb.scopegraph.oopsla20.reference.EdgeOrData;
+import mb.scopegraph.regexp.IRegExpBuilder;
+import mb.scopegraph.regexp.impl.RegExpBuilder;
+import mb.scopegraph.relations.IRelation;
+import mb.scopegraph.relations.RelationDescription;
+import mb.scopegraph.relations.RelationException;
+import mb.scopegraph.relations.impl.Relation;
+import mb.statix.constraints.CEqual;
+import mb.statix.constraints.CExists;
+import mb.statix.constraints.CNew;
+import mb.statix.constraints.CResolveQuery;
+import mb.statix.constraints.CTellEdge;
+import mb.statix.constraints.CTrue;
+import mb.statix.constraints.CUser;
+import mb.statix.constraints.Constraints;
+import mb.statix.solver.IConstraint;
+import mb.statix.solver.log.IDebugContext;
+import mb.statix.solver.log.NullDebugContext;
+import mb.statix.solver.persistent.Solver;
+import mb.statix.solver.persistent.SolverResult;
+import mb.statix.solver.query.QueryFilter;
+import mb.statix.solver.query.QueryMin;
+import mb.statix.spec.Rule;
+import mb.statix.spec.RuleSet;
+import mb.statix.spec.Spec;
+
+/**
+ * Solves a generated program with nested blocks, declarations and references, as a Statix specification for a block
+ * structured language would. Every block is a scope with a parent edge, declarations are relation entries, and every
+ * reference is resolved with a query that prefers local declarations over those in parent blocks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GreedySolverBenchmark {
+
+    private static final int DECLS_PER_BLOCK = 5;
+    private static final int REFS_PER_BLOCK = 5;
+
+    private static final ITerm P_LBL = B.newAppl("Label", B.newString("P"));
+    private static final ITerm VAR_REL = B.newAppl("Label", B.newString("var"));
+
+    private static final IDebugContext debug = new NullDebugContext();
+
+    @Param({ "100", "1000" }) public int blocks;
+
+    private Spec spec;
+    private IConstraint program;
+
+    @Setup public void setup() throws RelationException, InterruptedException {
+        spec = spec();
+        program = new CUser("prog", ImmutableList.of(program(blocks)));
+        final SolverResult result = solve();
+        if(result.hasErrors() || !result.delays().isEmpty()) {
+            throw new IllegalStateException("Generated program does not solve.");
+        }
+    }
+
+    @Benchmark public SolverResult solve() throws InterruptedException {
+        return Solver.solve(spec, mb.statix.solver.persistent.State.of(), program, debug, new NullCancel(),
+                new NullProgress(), 0);
+    }
+
+    private static Spec spec() throws RelationException {
+        final ITermVar s = B.newVar("", "s");
+        final ITermVar p = B.newVar("", "p");
+        final ITermVar d = B.newVar("", "d");
+        final ITermVar r = B.newVar("", "r");
+        final ITermVar x = B.newVar("", "x");
+        final ITermVar y = B.newVar("", "y");
+        final ITermVar b = B.newVar("", "b");
+        final ITermVar bs = B.newVar("", "bs");
+        final ITermVar ds = B.newVar("", "ds");
+        final ITermVar rs = B.newVar("", "rs");
+
+        final IRegExpBuilder<ITerm> re = new RegExpBuilder<>();
+        final QueryFilter filter = new QueryFilter(re.concat(re.closure(re.symbol(P_LBL)), re.symbol(VAR_REL)),
+                Rule.of("", Arrays.asList(P.newVar(y)), new CEqual(y, x)));
+        final IRelation.Transient<EdgeOrData<ITerm>> labelOrder =
+                Relation.Transient.of(RelationDescription.STRICT_PARTIAL_ORDER);
+        labelOrder.add(EdgeOrData.edge(VAR_REL), EdgeOrData.edge(P_LBL));
+        final QueryMin min = new QueryMin(labelOrder.freeze(),
+                Rule.of("", Arrays.asList(P.newWld(), P.newWld()), new CTrue()));
+
+        // @formatter:off
+        final RuleSet rules = RuleSet.of(Arrays.asList(
+            Rule.of("prog", Arrays.asList(P.newVar(b)),
+                new CExists(Arrays.asList(s), Constraints.conjoin(Arrays.asList(
+                    new CNew(s, s),
+                    new CUser("block", Arrays.asList(s, b))
+                )))),
+            Rule.of("block", Arrays.asList(P.newVar(p), P.newAppl("Block", P.newVar(ds), P.newVar(rs), P.newVar(bs))),
+                new CExists(Arrays.asList(s), Constraints.conjoin(Arrays.asList(
+                    new CNew(s, s),
+                    new CTellEdge(s, P_LBL, p),
+                    new CUser("decls", Arrays.asList(s, ds)),
+                    new CUser("refs", Arrays.asList(s, rs)),
+                    new CUser("blocks", Arrays.asList(s, bs))
+                )))),
+            Rule.of("blocks", Arrays.asList(P.newWld(), P.newNil()), new CTrue()),
+            Rule.of("blocks", Arrays.asList(P.newVar(s), cons(P.newVar(b), P.newVar(bs))),
+                Constraints.conjoin(Arrays.asList(
+                    new CUser("block", Arrays.asList(s, b)),
+                    new CUser("blocks", Arrays.asList(s, bs))
+                ))),
+            Rule.of("decls", Arrays.asList(P.newWld(), P.newNil()), new CTrue()),
+            Rule.of("decls", Arrays.asList(P.newVar(s), cons(P.newAppl("Def", P.newVar(x)), P.newVar(ds))),
+                new CExists(Arrays.asList(d), Constraints.conjoin(Arrays.asList(
+                    new CNew(d, x),
+                    new CTellEdge(s, VAR_REL, d),
+                    new CUser("decls", Arrays.asList(s, ds))
+                )))),
+            Rule.of("refs", Arrays.asList(P.newWld(), P.newNil()), new CTrue()),
+            Rule.of("refs", Arrays.asList(P.newVar(s), cons(P.newAppl("Ref", P.newVar(x)), P.newVar(rs))),
+                new CExists(Arrays.asList(r), Constraints.conjoin(Arrays.asList(
+                    new CResolveQuery(filter, min, s, r),
+                    new CUser("refs", Arrays.asList(s, rs))
+                ))))
+        ));
+        // @formatter:on
+        return Spec.of(rules, ImmutableSet.of(P_LBL, VAR_REL), ImmutableSet.of(VAR_REL),
+                ImmutableSetMultimap.of("decls", Tuple2.of(0, VAR_REL))).precomputeCriticalEdges();
+    }
+
+    private static Pattern cons(Pattern head, Pattern tail) {
+        return P.newListTail(Arrays.asList(head), tail);
+    }
+
+    /**
+     * A random tree of blocks. References in a block refer to names declared in the block or one of its ancestors.
+     */
+    private static ITerm program(int size) {
+        final Random rnd = new Random(42);
+        final int[] parents = new int[size];
+        final List<List<String>> names = new ArrayList<>();
+        for(int i = 0; i < size; i++) {
+            parents[i] = i == 0 ? -1 : rnd.nextInt(i);
+            final List<String> visible = new ArrayList<>();
+            for(int k = 0; k < DECLS_PER_BLOCK; k++) {
+                visible.add("x" + rnd.nextInt(10 * DECLS_PER_BLOCK));
+            }
+            names.add(visible);
+        }
+        final List<List<ITerm>> children = new ArrayList<>();
+        for(int i = 0; i < size; i++) {
+            children.add(new ArrayList<>());
+        }
+        ITerm root = null;
+        for(int i = size - 1; i >= 0; i--) {
+            final List<ITerm> decls = new ArrayList<>();
+            for(String name : names.get(i)) {
+                decls.add(B.newAppl("Def", B.newString(name)));
+            }
+            final List<ITerm> refs = new ArrayList<>();
+            for(int k = 0; k < REFS_PER_BLOCK; k++) {
+                int ancestor = i;
+                for(int up = rnd.nextInt(3); up > 0 && parents[ancestor] >= 0; up--) {
+                    ancestor = parents[ancestor];
+                }
+                final List<String> visible = names.get(ancestor);
+                refs.add(B.newAppl("Ref", B.newString(visible.get(rnd.nextInt(visible.size())))));
+            }
+            final ITerm block = B.newAppl("Block", B.newList(decls), B.newList(refs), B.newList(children.get(i)));
+            if(parents[i] >= 0) {
+                children.get(parents[i]).add(block);
+            } else {
+                root = block;
+            }
+        }
+        return root;
+    }
+
+}
@@ -0,0 +1,130 @@
+package mb.benchmark.statix;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static mb.nabl2.terms.matching.TermPattern.P;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.metaborg.util.tuple.Tuple3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.unification.ud.IUniDisunifier;
+import mb.nabl2.terms.unification.ud.PersistentUniDisunifier;
+import mb.statix.constraints.CEqual;
+import mb.statix.constraints.CUser;
+import mb.statix.constraints.Constraints;
+import mb.statix.solver.IConstraint;
+import mb.statix.spec.ApplyMode;
+import mb.statix.spec.ApplyMode.Safety;
+import mb.statix.spec.ApplyResult;
+import mb.statix.spec.Rule;
+import mb.statix.spec.RuleSet;
+import mb.statix.spec.RuleUtil;
+
+/**
+ * Rule selection and application for user constraints, as done by the greedy solver. The rule set has one rule per
+ * constructor, shaped like typing rules, and a catch-all rule. The arguments are constructor applications with an
+ * unbound variable for the type, so the selected rule is unconditional and its body is instantiated. If the term is
+ * {@code unbound}, all rules match conditionally, and the solver delays without using any body. Run with
+ * {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleApplicationBenchmark {
+
+    private static final int APPLICATIONS = 1000;
+
+    @Param({ "10", "100" }) public int constructors;
+
+    /** Either {@code all} rules are tried in order, or only the {@code candidates} selected by the rule index. */
+    @Param({ "all", "candidates" }) public String selection;
+
+    /** The term is either a constructor application, or an {@code unbound} variable. */
+    @Param({ "appl", "unbound" }) public String term;
+
+    /** Number of constraints in the rule bodies. */
+    @Param({ "1", "10" }) public int bodySize;
+
+    private final IUniDisunifier.Immutable unifier = PersistentUniDisunifier.Immutable.of();
+    private RuleSet rules;
+    private final List<List<ITerm>> args = new ArrayList<>();
+    private final List<List<Rule>> selected = new ArrayList<>();
+
+    @Setup public void setup() {
+        final ITermVar x = B.newVar("", "x");
+        final ITermVar y = B.newVar("", "y");
+        final ITermVar t = B.newVar("", "t");
+        final List<Rule> ruleList = new ArrayList<>();
+        final List<IConstraint> body = new ArrayList<>();
+        for(int j = 0; j < bodySize; j++) {
+            body.add(new CUser("typeOf", Arrays.asList(j % 2 == 0 ? x : y, B.newAppl("T" + j, t))));
+        }
+        for(int i = 0; i < constructors; i++) {
+            ruleList.add(Rule.of("typeOf", Arrays.asList(P.newAppl("C" + i, P.newVar(x), P.newVar(y)), P.newVar(t)),
+                    Constraints.conjoin(body)));
+        }
+        ruleList.add(Rule.of("typeOf", Arrays.asList(P.newWld(), P.newVar(t)), new CEqual(t, B.newAppl("TUnknown"))));
+        rules = RuleSet.of(ruleList);
+
+        final Random rnd = new Random(42);
+        for(int a = 0; a < APPLICATIONS; a++) {
+            final ITerm arg = term.equals("unbound") ? B.newVar("r", "e" + a)
+                    : B.newAppl("C" + rnd.nextInt(constructors), B.newAppl("Leaf"), B.newInt(a));
+            final List<ITerm> arguments = Arrays.asList(arg, B.newVar("r", "t" + a));
+            args.add(arguments);
+            selected.add(selection.equals("all") ? rules.getRules("typeOf")
+                    : rules.getCandidateRules("typeOf", arguments, unifier));
+        }
+    }
+
+    /**
+     * Apply the rules selected during setup, which measures matching only, because bodies are instantiated on use.
+     */
+    @Benchmark public void applyOrderedOne(Blackhole bh) {
+        for(int a = 0; a < APPLICATIONS; a++) {
+            bh.consume(RuleUtil.applyOrderedOne(unifier, selected.get(a), args.get(a), null, ApplyMode.RELAXED,
+                    Safety.UNSAFE));
+        }
+    }
+
+    /**
+     * Select and apply the rules, as the solver does for every user constraint, and use the body if the selected rule
+     * is the only match.
+     */
+    @Benchmark public void selectAndApply(Blackhole bh) {
+        for(int a = 0; a < APPLICATIONS; a++) {
+            final List<ITerm> arguments = args.get(a);
+            final List<Rule> candidates = selection.equals("all") ? rules.getRules("typeOf")
+                    : rules.getCandidateRules("typeOf", arguments, unifier);
+            final Tuple3<Rule, ApplyResult, Boolean> result;
+            if((result = RuleUtil.applyOrderedOne(unifier, candidates, arguments, null, ApplyMode.RELAXED,
+                    Safety.UNSAFE).orElse(null)) != null && result._3()) {
+                bh.consume(result._2().body());
+            } else {
+                bh.consume(result);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package mb.benchmark.statix;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.metaborg.util.tuple.Tuple2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.substitution.Renaming;
+import mb.statix.solver.IState;
+
+/**
+ * Fresh variable and scope creation in the solver state, as done for every existential and new scope. Variables are
+ * created one by one, as before, and in one batch, as the solvers now do for existentials. The scope benchmarks create
+ * scopes and use them as map keys, as the scope graph and completeness do. Run with {@code -prof gc} to compare
+ * allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateBenchmark {
+
+    private static final String RESOURCE = "src/Main.java";
+
+    /** Number of variables introduced together, as by one existential. */
+    @Param({ "1", "4", "16" }) public int vars;
+
+    /** Number of scopes created and looked up. */
+    @Param({ "1000" }) public int scopes;
+
+    private IState.Immutable state;
+    private final List<ITermVar> existentials = new ArrayList<>();
+
+    @Setup public void setup() {
+        // a state that already contains variables, as in the middle of solving
+        state = mb.statix.solver.persistent.State.of().withResource(RESOURCE);
+        for(int i = 0; i < 1000; i++) {
+            state = state.freshVar(B.newVar("", "x"))._2();
+        }
+        for(int i = 0; i < vars; i++) {
+            existentials.add(B.newVar("", "e" + i));
+        }
+    }
+
+    @Benchmark public IState.Immutable freshVarOneByOne() {
+        IState.Immutable newState = state;
+        for(ITermVar var : existentials) {
+            final Tuple2<ITermVar, IState.Immutable> varAndState = newState.freshVar(var);
+            newState = varAndState._2();
+        }
+        return newState;
+    }
+
+    @Benchmark public Tuple2<Renaming, IState.Immutable> freshVarsBatch() {
+        return state.freshVars(existentials);
+    }
+
+    @Benchmark public IState.Immutable freshScopes() {
+        IState.Immutable newState = state;
+        for(int i = 0; i < scopes; i++) {
+            newState = newState.freshScope("s")._2();
+        }
+        return newState;
+    }
+
+    @Benchmark public void scopeMapPutGet(Blackhole bh) {
+        final Map<mb.statix.scopegraph.Scope, Integer> map = new HashMap<>();
+        for(int i = 0; i < scopes; i++) {
+            map.put(mb.statix.scopegraph.Scope.of(RESOURCE, "s-" + i), i);
+        }
+        for(int i = 0; i < scopes; i++) {
+            bh.consume(map.get(mb.statix.scopegraph.Scope.of(RESOURCE, "s-" + i)));
+        }
+    }
+
+}
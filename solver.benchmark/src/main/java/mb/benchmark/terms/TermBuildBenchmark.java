@@ -0,0 +1,77 @@
+package mb.benchmark.terms;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mb.nabl2.terms.ITerm;
+
+/**
+ * Term construction through {@link mb.nabl2.terms.build.TermBuild.B}, which hash-conses attachment-free terms. The
+ * single-threaded and all-threads variants build the same terms, so the difference shows contention on the interning
+ * table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TermBuildBenchmark {
+
+    /** Number of distinct names used for strings and constructors. */
+    @Param({ "100", "10000" }) public int names;
+
+    /** Depth of the type terms that are built. */
+    @Param({ "4" }) public int depth;
+
+    @Benchmark @Threads(1) public ITerm buildSingleThread() {
+        return buildType(depth);
+    }
+
+    @Benchmark @Threads(Threads.MAX) public ITerm buildAllThreads() {
+        return buildType(depth);
+    }
+
+    @Benchmark @Threads(1) public ITerm buildScalarSingleThread() {
+        return buildScalar();
+    }
+
+    @Benchmark @Threads(Threads.MAX) public ITerm buildScalarAllThreads() {
+        return buildScalar();
+    }
+
+    private ITerm buildScalar() {
+        final int n = ThreadLocalRandom.current().nextInt(names);
+        return B.newTuple(B.newString("x" + n), B.newInt(n));
+    }
+
+    private ITerm buildType(int depth) {
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        if(depth == 0) {
+            return B.newAppl("TClass", B.newString("C" + rnd.nextInt(names)));
+        }
+        switch(rnd.nextInt(3)) {
+            case 0:
+                return B.newAppl("TFun", B.newList(buildType(depth - 1), buildType(depth - 1)), buildType(depth - 1));
+            case 1:
+                return B.newAppl("TArray", buildType(depth - 1));
+            default:
+                return B.newAppl("TGen", B.newString("G" + rnd.nextInt(names)), B.newList(buildType(depth - 1)));
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package mb.benchmark.terms;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.build.Attachments;
+
+/**
+ * Map lookups keyed on large type terms, as done by the unifier, completeness and constraint stores. The lookup keys
+ * are equal to, but not the same objects as, the keys in the maps.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TermHashBenchmark {
+
+    private static final int KEYS = 1000;
+
+    /** Depth of the type terms used as keys. */
+    @Param({ "2", "6", "10" }) public int depth;
+
+    private final List<ITerm> keys = new ArrayList<>();
+    private final List<ITerm> lookups = new ArrayList<>();
+    private final Map<ITerm, Integer> hashMap = new HashMap<>();
+    private io.usethesource.capsule.Map.Immutable<ITerm, Integer> capsuleMap;
+
+    @Setup public void setup() {
+        final io.usethesource.capsule.Map.Transient<ITerm, Integer> capsuleMap = CapsuleUtil.transientMap();
+        for(int i = 0; i < KEYS; i++) {
+            final ITerm key = buildType(new Random(i), depth, false);
+            keys.add(key);
+            lookups.add(buildType(new Random(i), depth, true));
+            hashMap.put(key, i);
+            capsuleMap.__put(key, i);
+        }
+        this.capsuleMap = capsuleMap.freeze();
+    }
+
+    @Benchmark public void hashMapGet(Blackhole bh) {
+        for(ITerm key : lookups) {
+            bh.consume(hashMap.get(key));
+        }
+    }
+
+    @Benchmark public void capsuleMapGet(Blackhole bh) {
+        for(ITerm key : lookups) {
+            bh.consume(capsuleMap.get(key));
+        }
+    }
+
+    @Benchmark public void hashCodes(Blackhole bh) {
+        for(ITerm key : lookups) {
+            bh.consume(key.hashCode());
+        }
+    }
+
+    @Benchmark public void buildKeys(Blackhole bh) {
+        for(int i = 0; i < 10; i++) {
+            bh.consume(buildType(new Random(i), depth, false));
+        }
+    }
+
+    /**
+     * Build a binary type term of the given depth. Unshared terms get attachments on their leaves, which prevents
+     * hash-consing, so lookups cannot short-circuit on identity.
+     */
+    private static ITerm buildType(Random rnd, int depth, boolean unshared) {
+        if(depth == 0) {
+            final String name = "C" + rnd.nextInt(100);
+            return unshared ? B.newString(name, Attachments.of(String.class, "origin")) : B.newString(name);
+        }
+        return B.newAppl("TFun", B.newList(buildType(rnd, depth - 1, unshared)), buildType(rnd, depth - 1, unshared));
+    }
+
+}
@@ -0,0 +1,155 @@
+package mb.benchmark.terms;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.io.TermReader;
+import mb.nabl2.terms.io.TermWriter;
+import mb.nabl2.terms.stratego.TermIndex;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.ud.IUniDisunifier;
+import mb.nabl2.terms.unification.ud.PersistentUniDisunifier;
+import mb.nabl2.terms.unification.ud.UniDisunifierCodec;
+
+/**
+ * Writing and reading with the binary term format compared to Java serialization. The values are an AST-like term, in
+ * which every subterm has a term index, and a unifier that binds variables to types that share subterms. The sizes of
+ * the encodings are reported as the {@code encodedBytes} secondary result.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TermSerializationBenchmark {
+
+    private static final int AST_DEPTH = 12;
+    private static final int UNIFIER_VARS = 10_000;
+
+    /** Either the {@code binary} term format or {@code java} serialization. */
+    @Param({ "binary", "java" }) public String format;
+
+    /** Either an {@code ast} term or a {@code unifier}. */
+    @Param({ "ast", "unifier" }) public String value;
+
+    private Object object;
+    private byte[] bytes;
+
+    @Setup public void setup() throws IOException, ClassNotFoundException, OccursException {
+        object = value.equals("ast") ? ast(new Random(42), AST_DEPTH, new int[1]) : unifier(new Random(42));
+        bytes = encode();
+        if(object instanceof ITerm && !decode().equals(object)) {
+            throw new IllegalStateException("Read value differs from written value.");
+        }
+    }
+
+    @Benchmark public byte[] write(EncodedSize size) throws IOException {
+        return encode();
+    }
+
+    @Benchmark public Object read(EncodedSize size) throws IOException, ClassNotFoundException {
+        return decode();
+    }
+
+    private byte[] encode() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if(format.equals("binary")) {
+            try(final TermWriter writer = new TermWriter(out)) {
+                if(object instanceof ITerm) {
+                    writer.writeTerm((ITerm) object);
+                } else {
+                    UniDisunifierCodec.write(writer, (IUniDisunifier.Immutable) object);
+                }
+            }
+        } else {
+            try(final ObjectOutputStream writer = new ObjectOutputStream(out)) {
+                writer.writeObject(object);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private Object decode() throws IOException, ClassNotFoundException {
+        if(format.equals("binary")) {
+            try(final TermReader reader = new TermReader(new ByteArrayInputStream(bytes))) {
+                return object instanceof ITerm ? reader.readTerm() : UniDisunifierCodec.read(reader);
+            }
+        } else {
+            try(final ObjectInputStream reader = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return reader.readObject();
+            }
+        }
+    }
+
+    /**
+     * Size of the encoded value in bytes, reported by JMH next to the throughput.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodedSize {
+
+        public long encodedBytes;
+
+        @Setup(Level.Iteration) public void setup(TermSerializationBenchmark benchmark) {
+            encodedBytes = benchmark.bytes.length;
+        }
+
+    }
+
+    private static ITerm ast(Random rnd, int depth, int[] index) {
+        final ITerm term;
+        if(depth == 0) {
+            term = rnd.nextBoolean() ? B.newString("x" + rnd.nextInt(100)) : B.newInt(rnd.nextInt(100));
+        } else {
+            final List<ITerm> args = new ArrayList<>();
+            for(int i = rnd.nextInt(3); i >= 0; i--) {
+                args.add(ast(rnd, depth - 1, index));
+            }
+            term = rnd.nextBoolean() ? B.newAppl("C" + rnd.nextInt(20), args) : B.newList(args);
+        }
+        return TermIndex.of("resource", index[0]++).put(term);
+    }
+
+    private static IUniDisunifier.Immutable unifier(Random rnd) throws OccursException {
+        final List<ITerm> types = new ArrayList<>();
+        types.add(B.newAppl("INT"));
+        types.add(B.newAppl("BOOL"));
+        IUniDisunifier.Immutable unifier = PersistentUniDisunifier.Immutable.of();
+        for(int i = 0; i < UNIFIER_VARS; i++) {
+            final ITermVar var = B.newVar("resource", "t" + i);
+            final ITerm type = rnd.nextInt(4) == 0 ? types.get(rnd.nextInt(types.size()))
+                    : B.newAppl("FUN", types.get(rnd.nextInt(types.size())), types.get(rnd.nextInt(types.size())));
+            types.add(type);
+            unifier = unifier.unify(var, type)
+                    .orElseThrow(() -> new IllegalStateException("Equality does not unify.")).unifier();
+        }
+        return unifier;
+    }
+
+}
@@ -0,0 +1,107 @@
+package mb.benchmark.terms;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.Terms;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.u.IUnifier;
+import mb.nabl2.terms.unification.u.PersistentUnifier;
+import mb.nabl2.terms.unification.ud.PersistentUniDisunifier;
+
+/**
+ * Unification of sequences of equalities, starting from an empty unifier, as done by the solvers for equality
+ * constraints. Every equality is unified with the unifier resulting from the previous one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnificationBenchmark {
+
+    private static final int CHAIN = 1000;
+    private static final int TREES = 100;
+    private static final int TREE_DEPTH = 6;
+
+    /** Either the plain unifier ({@code u}) or the unifier that also supports disunification ({@code ud}). */
+    @Param({ "u", "ud" }) public String unifier;
+
+    /**
+     * Either a {@code chain} of variable-variable equalities that ends in a term, or equalities between {@code trees}
+     * that have variables in different positions on both sides.
+     */
+    @Param({ "chain", "trees" }) public String shape;
+
+    private final List<ITerm> lefts = new ArrayList<>();
+    private final List<ITerm> rights = new ArrayList<>();
+
+    @Setup public void setup() {
+        if(shape.equals("chain")) {
+            for(int i = 0; i < CHAIN; i++) {
+                lefts.add(B.newVar("", "x" + i));
+                rights.add(i < CHAIN - 1 ? B.newVar("", "x" + (i + 1)) : B.newAppl("T", B.newInt(i)));
+            }
+        } else {
+            final Random rnd = new Random(42);
+            for(int i = 0; i < TREES; i++) {
+                final ITerm tree = tree(rnd, TREE_DEPTH);
+                lefts.add(abstractTree(rnd, tree, "l" + i + "_", new int[1]));
+                rights.add(abstractTree(rnd, tree, "r" + i + "_", new int[1]));
+            }
+        }
+    }
+
+    @Benchmark public IUnifier.Immutable unify() throws OccursException {
+        IUnifier.Immutable result =
+                unifier.equals("u") ? PersistentUnifier.Immutable.of() : PersistentUniDisunifier.Immutable.of();
+        for(int i = 0; i < lefts.size(); i++) {
+            result = result.unify(lefts.get(i), rights.get(i))
+                    .orElseThrow(() -> new IllegalStateException("Equality does not unify.")).unifier();
+        }
+        return result;
+    }
+
+    private static ITerm tree(Random rnd, int depth) {
+        if(depth == 0) {
+            return B.newInt(rnd.nextInt(10));
+        }
+        return B.newAppl("N" + rnd.nextInt(3), tree(rnd, depth - 1), tree(rnd, depth - 1));
+    }
+
+    /**
+     * Replace random subtrees by fresh variables. Every variable occurs once, so equalities between different
+     * abstractions of the same tree always unify.
+     */
+    private static ITerm abstractTree(Random rnd, ITerm tree, String prefix, int[] fresh) {
+        if(rnd.nextInt(8) == 0) {
+            return B.newVar("", prefix + fresh[0]++);
+        }
+        return tree.match(Terms.<ITerm>cases().appl(appl -> {
+            final List<ITerm> args = new ArrayList<>();
+            for(ITerm arg : appl.getArgs()) {
+                args.add(abstractTree(rnd, arg, prefix, fresh));
+            }
+            return B.newAppl(appl.getOp(), args);
+        }).otherwise(t -> t));
+    }
+
+}
@@ -0,0 +1,106 @@
+package mb.benchmark.terms;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.usethesource.capsule.Map;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.u.PersistentUnifier;
+
+/**
+ * Lookups on immutable unifiers, as done by the solvers for every constraint. The unifiers are built directly, because
+ * unification keeps variable chains short. Long chains appear when unifiers are combined or built from solver results.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnifierBenchmark {
+
+    private static final int QUERIES = 1000;
+
+    /**
+     * Either {@code chain-N}, where N variables form a single chain that ends in a term, or {@code wide-N}, where N
+     * variables point directly to one of N/10 representatives, each bound to a term.
+     */
+    @Param({ "chain-10", "chain-1000", "wide-100000" }) public String shape;
+
+    private PersistentUnifier.Immutable unifier;
+    private final List<ITermVar> lookups = new ArrayList<>();
+
+    @Setup public void setup() {
+        final int size = Integer.parseInt(shape.substring(shape.indexOf('-') + 1));
+        final List<ITermVar> vars = new ArrayList<>();
+        for(int i = 0; i < size; i++) {
+            vars.add(B.newVar("", "x" + i));
+        }
+        final Map.Transient<ITermVar, ITermVar> reps = Map.Transient.of();
+        final Map.Transient<ITermVar, ITerm> terms = Map.Transient.of();
+        if(shape.startsWith("chain-")) {
+            for(int i = 0; i < size - 1; i++) {
+                reps.__put(vars.get(i), vars.get(i + 1));
+            }
+            terms.__put(vars.get(size - 1), B.newAppl("T", B.newInt(size)));
+        } else {
+            final int roots = size / 10;
+            for(int i = 0; i < roots; i++) {
+                terms.__put(vars.get(i), B.newAppl("T", B.newInt(i)));
+            }
+            for(int i = roots; i < size; i++) {
+                reps.__put(vars.get(i), vars.get(i % roots));
+            }
+        }
+        unifier = PersistentUnifier.Immutable.of(true, reps.freeze(), Map.Immutable.of(), terms.freeze());
+        final Random rnd = new Random(42);
+        for(int q = 0; q < QUERIES; q++) {
+            lookups.add(vars.get(rnd.nextInt(size)));
+        }
+    }
+
+    @Benchmark public void findRep(Blackhole bh) {
+        for(ITermVar var : lookups) {
+            bh.consume(unifier.findRep(var));
+        }
+    }
+
+    @Benchmark public void findTerm(Blackhole bh) {
+        for(ITermVar var : lookups) {
+            bh.consume(unifier.findTerm(var));
+        }
+    }
+
+    @Benchmark public void isGround(Blackhole bh) {
+        for(ITermVar var : lookups) {
+            bh.consume(unifier.isGround(var));
+        }
+    }
+
+    /**
+     * Derive a new unifier, which copies the compressed paths of the lookups.
+     */
+    @Benchmark public void unify(Blackhole bh) throws OccursException {
+        bh.consume(unifier.unify(B.newVar("", "y"), lookups.get(0)));
+    }
+
+}
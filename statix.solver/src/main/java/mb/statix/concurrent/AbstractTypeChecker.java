@@ -24,6 +24,9 @@ import mb.nabl2.terms.unification.ud.IUniDisunifier;
 import mb.p_raffrayi.ITypeChecker;
 import mb.p_raffrayi.ITypeCheckerContext;
 import mb.p_raffrayi.IUnitResult;
+import mb.statix.concurrent.cache.CachedUnitLibrary;
+import mb.statix.concurrent.cache.CachedUnitResult;
+import mb.statix.concurrent.cache.UnitCache;
 import mb.statix.scopegraph.Scope;
 import mb.statix.solver.Delay;
 import mb.statix.solver.IState;
@@ -43,10 +46,16 @@ public abstract class AbstractTypeChecker<R> implements ITypeChecker<Scope, ITer
 
     protected final Spec spec;
     protected final IDebugContext debug;
+    protected final UnitCache cache;
 
     protected AbstractTypeChecker(Spec spec, IDebugContext debug) {
+        this(spec, debug, UnitCache.none());
+    }
+
+    protected AbstractTypeChecker(Spec spec, IDebugContext debug, UnitCache cache) {
         this.spec = spec;
         this.debug = debug;
+        this.cache = cache;
     }
 
     private StatixSolver solver;
@@ -65,7 +74,8 @@ public abstract class AbstractTypeChecker<R> implements ITypeChecker<Scope, ITer
         for(Map.Entry<String, IStatixGroup> entry : groups.entrySet()) {
             final String key = entry.getKey();
             final IFuture<IUnitResult<Scope, ITerm, ITerm, GroupResult>> result =
-                    context.add(key, new GroupTypeChecker(entry.getValue(), spec, debug), Arrays.asList(parentScope));
+                    context.add(key, new GroupTypeChecker(entry.getValue(), spec, debug, cache),
+                            Arrays.asList(parentScope));
             results.add(result.thenApply(r -> Tuple2.of(key, r)).whenComplete((r, ex) -> {
                 logger.debug("checker {}: group {} returned.", context.id(), key);
             }));
@@ -82,8 +92,19 @@ public abstract class AbstractTypeChecker<R> implements ITypeChecker<Scope, ITer
         final List<IFuture<Tuple2<String, IUnitResult<Scope, ITerm, ITerm, UnitResult>>>> results = new ArrayList<>();
         for(Map.Entry<String, IStatixUnit> entry : units.entrySet()) {
             final String key = entry.getKey();
-            final IFuture<IUnitResult<Scope, ITerm, ITerm, UnitResult>> result =
-                    context.add(key, new UnitTypeChecker(entry.getValue(), spec, debug), Arrays.asList(parentScope));
+            final IStatixUnit unit = entry.getValue();
+            final List<Scope> rootScopes = Arrays.asList(parentScope);
+            final CachedUnitResult cached;
+            final IFuture<IUnitResult<Scope, ITerm, ITerm, UnitResult>> result;
+            if((cached = cache.restore(unit, rootScopes).orElse(null)) != null) {
+                result = restoreUnit(context, key, unit, cached, rootScopes);
+            } else {
+                result = context.add(key, new UnitTypeChecker(unit, spec, debug), rootScopes).whenComplete((r, ex) -> {
+                    if(r != null) {
+                        cache.store(unit, rootScopes, r);
+                    }
+                });
+            }
             results.add(result.thenApply(r -> Tuple2.of(key, r)).whenComplete((r, ex) -> {
                 logger.debug("checker {}: unit {} returned.", context.id(), key);
             }));
@@ -95,6 +116,21 @@ public abstract class AbstractTypeChecker<R> implements ITypeChecker<Scope, ITer
                 });
     }
 
+    /**
+     * Add a unit that serves the scope graph of a cached result, instead of solving the unit again.
+     */
+    private IFuture<IUnitResult<Scope, ITerm, ITerm, UnitResult>> restoreUnit(
+            ITypeCheckerContext<Scope, ITerm, ITerm> context, String key, IStatixUnit unit, CachedUnitResult cached,
+            List<Scope> rootScopes) {
+        final long t0 = System.currentTimeMillis();
+        final CachedUnitLibrary library = new CachedUnitLibrary(cached);
+        return context.add(key, library, rootScopes).thenApply(r -> {
+            final long dt = System.currentTimeMillis() - t0;
+            logger.debug("checker {}: unit {} restored from cache in {} s.", context.id(), key, (dt / 1_000d));
+            return library.unitResult(unit.resource(), r);
+        });
+    }
+
     protected IFuture<Map<String, IUnitResult<Scope, ITerm, ITerm, Unit>>> runLibraries(
             ITypeCheckerContext<Scope, ITerm, ITerm> context, Map<String, IStatixLibrary> libraries,
             Scope parentScope) {
@@ -12,6 +12,7 @@ import org.metaborg.util.log.LoggerUtils;
 import mb.nabl2.terms.ITerm;
 import mb.p_raffrayi.ITypeCheckerContext;
 import mb.p_raffrayi.IUnitResult;
+import mb.statix.concurrent.cache.UnitCache;
 import mb.statix.scopegraph.Scope;
 import mb.statix.solver.log.IDebugContext;
 import mb.statix.solver.persistent.SolverResult;
@@ -24,7 +25,11 @@ public class GroupTypeChecker extends AbstractTypeChecker<GroupResult> {
     private final IStatixGroup group;
 
     public GroupTypeChecker(IStatixGroup group, Spec spec, IDebugContext debug) {
-        super(spec, debug);
+        this(group, spec, debug, UnitCache.none());
+    }
+
+    public GroupTypeChecker(IStatixGroup group, Spec spec, IDebugContext debug, UnitCache cache) {
+        super(spec, debug, cache);
         this.group = group;
     }
 
@@ -13,6 +13,7 @@ import org.metaborg.util.unit.Unit;
 import mb.nabl2.terms.ITerm;
 import mb.p_raffrayi.ITypeCheckerContext;
 import mb.p_raffrayi.IUnitResult;
+import mb.statix.concurrent.cache.UnitCache;
 import mb.statix.scopegraph.Scope;
 import mb.statix.solver.log.IDebugContext;
 import mb.statix.solver.persistent.SolverResult;
@@ -25,7 +26,11 @@ public class ProjectTypeChecker extends AbstractTypeChecker<ProjectResult> {
     private final IStatixProject project;
 
     public ProjectTypeChecker(IStatixProject project, Spec spec, IDebugContext debug) {
-        super(spec, debug);
+        this(project, spec, debug, UnitCache.none());
+    }
+
+    public ProjectTypeChecker(IStatixProject project, Spec spec, IDebugContext debug, UnitCache cache) {
+        super(spec, debug, cache);
         this.project = project;
     }
 
@@ -22,6 +22,7 @@ import javax.annotation.Nullable;
 import org.metaborg.util.collection.CapsuleUtil;
 import org.metaborg.util.functions.CheckedAction0;
 import org.metaborg.util.functions.Function0;
+import org.metaborg.util.functions.Function1;
 import org.metaborg.util.future.CompletableFuture;
 import org.metaborg.util.future.IFuture;
 import org.metaborg.util.log.Level;
@@ -102,6 +103,7 @@ import mb.statix.solver.persistent.Solver;
 import mb.statix.solver.persistent.Solver.PreSolveResult;
 import mb.statix.solver.persistent.SolverResult;
 import mb.statix.solver.persistent.State;
+import mb.statix.solver.query.EqualityKey;
 import mb.statix.solver.query.QueryFilter;
 import mb.statix.solver.query.QueryMin;
 import mb.statix.solver.query.ResolutionDelayException;
@@ -109,6 +111,7 @@ import mb.statix.solver.store.BaseConstraintStore;
 import mb.statix.spec.ApplyMode;
 import mb.statix.spec.ApplyMode.Safety;
 import mb.statix.spec.ApplyResult;
+import mb.statix.spec.CompiledPredicate;
 import mb.statix.spec.Rule;
 import mb.statix.spec.RuleUtil;
 import mb.statix.spec.Spec;
@@ -498,15 +501,9 @@ public class StatixSolver {
             }
 
             @Override public Boolean caseExists(CExists c) throws InterruptedException {
-                final Renaming.Builder _existentials = Renaming.builder();
-                IState.Immutable newState = state;
-                for(ITermVar var : c.vars()) {
-                    final Tuple2<ITermVar, IState.Immutable> varAndState = newState.freshVar(var);
-                    final ITermVar freshVar = varAndState._1();
-                    newState = varAndState._2();
-                    _existentials.put(var, freshVar);
-                }
-                final Renaming existentials = _existentials.build();
+                final Tuple2<Renaming, IState.Immutable> existentialsAndState = state.freshVars(c.vars());
+                final Renaming existentials = existentialsAndState._1();
+                final IState.Immutable newState = existentialsAndState._2();
 
                 final ISubstitution.Immutable subst = existentials.asSubstitution();
                 final IConstraint newConstraint = c.constraint().apply(subst).withCause(c.cause().orElse(null));
@@ -773,7 +770,7 @@ public class StatixSolver {
 
                 final LazyDebugContext proxyDebug = new LazyDebugContext(debug);
 
-                final List<Rule> rules = spec.rules().getRules(name);
+                final List<Rule> rules = spec.rules().getCandidateRules(name, args, state.unifier());
                 // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
                 final Tuple3<Rule, ApplyResult, Boolean> result;
                 if((result = RuleUtil.applyOrderedOne(state.unifier(), rules, args, c, ApplyMode.RELAXED, Safety.UNSAFE)
@@ -1035,6 +1032,11 @@ public class StatixSolver {
         @Override public IFuture<Boolean> wf(ITerm datum, ITypeCheckerContext<Scope, ITerm, ITerm> context,
                 ICancel cancel) throws InterruptedException {
             try {
+                final CompiledPredicate predicate;
+                if((predicate = constraint.compiledPredicate().orElse(null)) != null) {
+                    return CompletableFuture.completedFuture(predicate.test(ImmutableList.of(datum), state.unifier()));
+                }
+
                 final ApplyResult applyResult;
                 // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
                 if((applyResult = RuleUtil.apply(state.unifier(), constraint, ImmutableList.of(datum), null,
@@ -1049,6 +1051,25 @@ public class StatixSolver {
             }
         }
 
+        @Override public boolean pure() {
+            return true;
+        }
+
+        @Override public int hashCode() {
+            return constraint.hashCode();
+        }
+
+        @Override public boolean equals(Object obj) {
+            if(this == obj)
+                return true;
+            if(obj == null)
+                return false;
+            if(getClass() != obj.getClass())
+                return false;
+            ConstraintDataWF other = (ConstraintDataWF) obj;
+            return spec == other.spec && constraint.equals(other.constraint);
+        }
+
         @Override public String toString() {
             return constraint.toString();
         }
@@ -1071,6 +1092,12 @@ public class StatixSolver {
                 ICancel cancel) throws InterruptedException {
             return absorbDelays(() -> {
                 try {
+                    final CompiledPredicate predicate;
+                    if((predicate = constraint.compiledPredicate().orElse(null)) != null) {
+                        return CompletableFuture
+                                .completedFuture(predicate.test(ImmutableList.of(datum), state.unifier()));
+                    }
+
                     final ApplyResult applyResult;
                     // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
                     if((applyResult = RuleUtil.apply(state.unifier(), constraint, ImmutableList.of(datum), null,
@@ -1108,6 +1135,12 @@ public class StatixSolver {
         @Override public IFuture<Boolean> leq(ITerm datum1, ITerm datum2,
                 ITypeCheckerContext<Scope, ITerm, ITerm> context, ICancel cancel) throws InterruptedException {
             try {
+                final CompiledPredicate predicate;
+                if((predicate = constraint.compiledPredicate().orElse(null)) != null) {
+                    return CompletableFuture
+                            .completedFuture(predicate.test(ImmutableList.of(datum1, datum2), state.unifier()));
+                }
+
                 final ApplyResult applyResult;
                 // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
                 if((applyResult = RuleUtil.apply(state.unifier(), constraint, ImmutableList.of(datum1, datum2), null,
@@ -1169,6 +1202,39 @@ public class StatixSolver {
             return alwaysTrue;
         }
 
+        @Override public @Nullable Function1<ITerm, Optional<?>> key() {
+            final EqualityKey key;
+            if((key = EqualityKey.of(constraint).orElse(null)) == null) {
+                return null;
+            }
+            return datum -> {
+                try {
+                    return key.apply(datum, state.unifier());
+                } catch(Delay e) {
+                    throw new IllegalStateException("Unexpected delay.", e);
+                }
+            };
+        }
+
+        @Override public boolean pure() {
+            return true;
+        }
+
+        @Override public int hashCode() {
+            return constraint.hashCode();
+        }
+
+        @Override public boolean equals(Object obj) {
+            if(this == obj)
+                return true;
+            if(obj == null)
+                return false;
+            if(getClass() != obj.getClass())
+                return false;
+            ConstraintDataEquiv other = (ConstraintDataEquiv) obj;
+            return spec == other.spec && constraint.equals(other.constraint);
+        }
+
         @Override public String toString() {
             return constraint.toString(state.unifier()::toString);
         }
@@ -1191,6 +1257,12 @@ public class StatixSolver {
                 ITypeCheckerContext<Scope, ITerm, ITerm> context, ICancel cancel) throws InterruptedException {
             return absorbDelays(() -> {
                 try {
+                    final CompiledPredicate predicate;
+                    if((predicate = constraint.compiledPredicate().orElse(null)) != null) {
+                        return CompletableFuture
+                                .completedFuture(predicate.test(ImmutableList.of(datum1, datum2), state.unifier()));
+                    }
+
                     final ApplyResult applyResult;
                     // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
                     if((applyResult = RuleUtil.apply(state.unifier(), constraint, ImmutableList.of(datum1, datum2),
@@ -0,0 +1,35 @@
+package mb.statix.concurrent.cache;
+
+import java.util.List;
+import java.util.Set;
+
+import org.immutables.value.Value;
+
+import mb.statix.scopegraph.Scope;
+import mb.statix.solver.persistent.SolverResult;
+
+@Value.Immutable
+public abstract class ACachedUnitResult {
+
+    /**
+     * Identifies the solver run that computed the result. Results are only restored together with the results of
+     * other units from the same run.
+     */
+    @Value.Parameter public abstract String runId();
+
+    /**
+     * Root scopes the unit was started with.
+     */
+    @Value.Parameter public abstract List<Scope> rootScopes();
+
+    /**
+     * Scopes owned by the unit.
+     */
+    @Value.Parameter public abstract Set<Scope> ownScopes();
+
+    /**
+     * Result of the unit. The scope graph of the state is the scope graph of the unit.
+     */
+    @Value.Parameter public abstract SolverResult result();
+
+}
@@ -0,0 +1,24 @@
+package mb.statix.concurrent.cache;
+
+import org.immutables.value.Value;
+
+/**
+ * Identifies a cached unit result. A result can only be reused if the project, including all its units, and the spec
+ * are unchanged.
+ */
+@Value.Immutable
+public abstract class AUnitCacheKey {
+
+    @Value.Parameter public abstract String resource();
+
+    /**
+     * Content hash of the project.
+     */
+    @Value.Parameter public abstract String projectHash();
+
+    /**
+     * Content hash of the spec.
+     */
+    @Value.Parameter public abstract String specHash();
+
+}
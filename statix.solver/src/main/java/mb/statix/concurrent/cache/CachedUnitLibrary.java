@@ -0,0 +1,66 @@
+package mb.statix.concurrent.cache;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.functions.Function1;
+import org.metaborg.util.tuple.Tuple2;
+
+import io.usethesource.capsule.Set;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.unification.ud.IUniDisunifier;
+import mb.p_raffrayi.IScopeGraphLibrary;
+import mb.p_raffrayi.IUnitResult;
+import mb.scopegraph.oopsla20.IScopeGraph;
+import mb.scopegraph.oopsla20.reference.ScopeGraph;
+import mb.statix.concurrent.UnitResult;
+import mb.statix.scopegraph.Scope;
+
+/**
+ * Library that serves the scope graph of a cached unit result, so that other units can query it without solving the
+ * unit again. Unlike {@link mb.statix.concurrent.StatixLibrary}, scopes are not renamed, because the cached result
+ * refers to them. The unit must be added with the same id and root scopes as when it was cached.
+ */
+public class CachedUnitLibrary implements IScopeGraphLibrary<Scope, ITerm, ITerm> {
+
+    private final CachedUnitResult cached;
+
+    public CachedUnitLibrary(CachedUnitResult cached) {
+        this.cached = cached;
+    }
+
+    @Override public Tuple2<Set.Immutable<Scope>, IScopeGraph.Immutable<Scope, ITerm, ITerm>>
+            initialize(List<Scope> rootScopes, @SuppressWarnings("unused") Function1<String, Scope> freshScope) {
+        if(!cached.rootScopes().equals(rootScopes)) {
+            throw new IllegalArgumentException("Root scopes do not match cached root scopes.");
+        }
+
+        // data is stored in its internal representation, and instantiated as in AbstractTypeChecker::getExternalDatum
+
+        final IUniDisunifier.Immutable unifier = cached.result().state().unifier();
+        final IScopeGraph.Immutable<Scope, ITerm, ITerm> unitGraph = cached.result().state().scopeGraph();
+        final IScopeGraph.Transient<Scope, ITerm, ITerm> scopeGraph = ScopeGraph.Transient.of();
+        for(Entry<? extends Entry<Scope, ITerm>, ? extends Iterable<Scope>> edges : unitGraph.getEdges().entrySet()) {
+            for(Scope target : edges.getValue()) {
+                scopeGraph.addEdge(edges.getKey().getKey(), edges.getKey().getValue(), target);
+            }
+        }
+        for(Entry<Scope, ITerm> datum : unitGraph.getData().entrySet()) {
+            scopeGraph.setDatum(datum.getKey(), unifier.findRecursive(datum.getValue()));
+        }
+
+        return Tuple2.of(CapsuleUtil.toSet(cached.ownScopes()), scopeGraph.freeze());
+    }
+
+    /**
+     * Give the result of the library unit the analysis of the cached unit.
+     */
+    public IUnitResult<Scope, ITerm, ITerm, UnitResult> unitResult(String resource,
+            IUnitResult<Scope, ITerm, ITerm, ?> result) {
+        return mb.p_raffrayi.impl.UnitResult.of(result.id(), result.scopeGraph(),
+                UnitResult.of(resource, cached.result(), null), result.failures(), result.subUnitResults(),
+                result.stats());
+    }
+
+}
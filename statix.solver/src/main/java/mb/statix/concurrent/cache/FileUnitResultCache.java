@@ -0,0 +1,114 @@
+package mb.statix.concurrent.cache;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+import mb.nabl2.terms.io.TermDigest;
+import mb.nabl2.terms.io.TermReader;
+import mb.nabl2.terms.io.TermWriter;
+import mb.statix.scopegraph.Scope;
+import mb.statix.scopegraph.ScopeGraphCodec;
+import mb.statix.solver.persistent.SolverResult;
+import mb.statix.solver.persistent.SolverResultCodec;
+import mb.statix.spec.Spec;
+
+/**
+ * Unit result cache that stores results in a directory, one file per resource. Files are written with
+ * {@link SolverResultCodec}, and replaced atomically, so concurrent solver runs never see partial results. Results that
+ * cannot be read are treated as missing.
+ */
+public class FileUnitResultCache implements IUnitResultCache {
+
+    private static final ILogger logger = LoggerUtils.logger(FileUnitResultCache.class);
+
+    private static final String EXTENSION = ".unit";
+
+    private final Path directory;
+
+    public FileUnitResultCache(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override public Optional<CachedUnitResult> get(UnitCacheKey key, Spec spec) {
+        final Path file = file(key);
+        try(final InputStream in = Files.newInputStream(file)) {
+            final TermReader reader = ScopeGraphCodec.reader(in);
+            if(!reader.readString().equals(key.resource()) || !reader.readString().equals(key.projectHash())
+                    || !reader.readString().equals(key.specHash())) {
+                return Optional.empty();
+            }
+            final String runId = reader.readString();
+            final List<Scope> rootScopes = new ArrayList<>();
+            for(int i = reader.readInt(); i > 0; i--) {
+                rootScopes.add(ScopeGraphCodec.readScope(reader));
+            }
+            final Set<Scope> ownScopes = new HashSet<>();
+            for(int i = reader.readInt(); i > 0; i--) {
+                ownScopes.add(ScopeGraphCodec.readScope(reader));
+            }
+            final SolverResult result = SolverResultCodec.read(reader, spec);
+            return Optional.of(CachedUnitResult.of(runId, rootScopes, ownScopes, result));
+        } catch(NoSuchFileException e) {
+            return Optional.empty();
+        } catch(IOException | RuntimeException e) {
+            logger.warn("Cannot read cached result {}", e, file);
+            return Optional.empty();
+        }
+    }
+
+    @Override public void put(UnitCacheKey key, CachedUnitResult result) {
+        final Path file = file(key);
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(directory);
+            tmpFile = Files.createTempFile(directory, null, EXTENSION);
+            try(final OutputStream out = Files.newOutputStream(tmpFile)) {
+                final TermWriter writer = new TermWriter(out);
+                writer.writeString(key.resource());
+                writer.writeString(key.projectHash());
+                writer.writeString(key.specHash());
+                writer.writeString(result.runId());
+                writer.writeInt(result.rootScopes().size());
+                for(Scope scope : result.rootScopes()) {
+                    writer.writeTerm(scope);
+                }
+                writer.writeInt(result.ownScopes().size());
+                for(Scope scope : result.ownScopes()) {
+                    writer.writeTerm(scope);
+                }
+                SolverResultCodec.write(writer, result.result());
+                writer.flush();
+            }
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException | RuntimeException e) {
+            logger.warn("Cannot write cached result {}", e, file);
+            if(tmpFile != null) {
+                try {
+                    Files.deleteIfExists(tmpFile);
+                } catch(IOException e2) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private Path file(UnitCacheKey key) {
+        return directory.resolve(TermDigest.of(B.newString(key.resource())) + EXTENSION);
+    }
+
+}
@@ -0,0 +1,23 @@
+package mb.statix.concurrent.cache;
+
+import java.util.Optional;
+
+import mb.statix.spec.Spec;
+
+/**
+ * Storage for results of units, which is used to restore unchanged units instead of solving them again. Must be safe to
+ * use from multiple threads.
+ */
+public interface IUnitResultCache {
+
+    /**
+     * Get the cached result for the given key, if any.
+     */
+    Optional<CachedUnitResult> get(UnitCacheKey key, Spec spec);
+
+    /**
+     * Cache the result for the given key, replacing any earlier result for the same resource.
+     */
+    void put(UnitCacheKey key, CachedUnitResult result);
+
+}
@@ -0,0 +1,208 @@
+package mb.statix.concurrent.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+import mb.nabl2.terms.ITerm;
+import mb.p_raffrayi.IUnitResult;
+import mb.scopegraph.oopsla20.IScopeGraph;
+import mb.statix.concurrent.IStatixGroup;
+import mb.statix.concurrent.IStatixProject;
+import mb.statix.concurrent.IStatixUnit;
+import mb.statix.concurrent.UnitResult;
+import mb.statix.scopegraph.Scope;
+import mb.statix.solver.persistent.SolverResult;
+import mb.statix.spec.Spec;
+
+/**
+ * Unit result cache for one solver run, which keys results by the project and the spec of the run.
+ *
+ * Cached results refer to scopes of other units, and scope names are only stable within one run. Results are therefore
+ * restored all together or not at all: only if every unit of the project has a cached result for the same project and
+ * spec, and all these results were computed in the same run. If any unit changed, all units are solved again.
+ */
+public class UnitCache {
+
+    private static final ILogger logger = LoggerUtils.logger(UnitCache.class);
+
+    private static final UnitCache NONE = new UnitCache(null, null, null, Collections.emptyMap());
+
+    private final @Nullable IUnitResultCache results;
+    private final @Nullable String projectHash;
+    private final @Nullable String specHash;
+
+    /**
+     * Identifies this run in the results it stores.
+     */
+    private final String runId = UUID.randomUUID().toString();
+
+    /**
+     * Cached results that are restored in this run, per unit resource. Empty if all units are solved.
+     */
+    private final Map<String, CachedUnitResult> restorable;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private volatile boolean consistent = true;
+
+    /**
+     * Create a cache for a run on the given project. The cached results of all units are read here, and are only
+     * restored if they are complete and consistent.
+     */
+    public UnitCache(IUnitResultCache results, Spec spec, String specHash, IStatixProject project,
+            String projectHash) {
+        this(results, projectHash, specHash, restorable(results, spec, specHash, project, projectHash));
+    }
+
+    private UnitCache(@Nullable IUnitResultCache results, @Nullable String projectHash, @Nullable String specHash,
+            Map<String, CachedUnitResult> restorable) {
+        this.results = results;
+        this.projectHash = projectHash;
+        this.specHash = specHash;
+        this.restorable = restorable;
+    }
+
+    public static UnitCache none() {
+        return NONE;
+    }
+
+    /**
+     * A cache for solving the same project again, which stores results but restores none.
+     */
+    public UnitCache withoutRestore() {
+        return new UnitCache(results, projectHash, specHash, Collections.emptyMap());
+    }
+
+    /**
+     * Get the cached result for the unit, if the results of all units are restored in this run, and the unit gets the
+     * same root scopes as when it was cached.
+     */
+    public Optional<CachedUnitResult> restore(IStatixUnit unit, List<Scope> rootScopes) {
+        final CachedUnitResult cached;
+        if((cached = restorable.get(unit.resource())) == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if(!cached.rootScopes().equals(rootScopes)) {
+            logger.debug("Cache miss for {}, root scopes changed", unit.resource());
+            consistent = false;
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        logger.debug("Cache hit for {}", unit.resource());
+        return Optional.of(cached);
+    }
+
+    /**
+     * Cache the result of the unit, if it completed without exceptions or failures.
+     */
+    public void store(IStatixUnit unit, List<Scope> rootScopes, IUnitResult<Scope, ITerm, ITerm, UnitResult> result) {
+        if(results == null) {
+            return;
+        }
+        final UnitResult unitResult = result.analysis();
+        if(unitResult == null || unitResult.solveResult() == null || unitResult.exception() != null
+                || !result.failures().isEmpty()) {
+            return;
+        }
+        final long t0 = System.currentTimeMillis();
+        final SolverResult solveResult = unitResult.solveResult()
+                .withState(unitResult.solveResult().state().withScopeGraph(result.scopeGraph()));
+        final Set<Scope> ownScopes = ownScopes(result.id(), result.scopeGraph());
+        results.put(key(unit.resource(), projectHash, specHash),
+                CachedUnitResult.of(runId, rootScopes, ownScopes, solveResult));
+        final long dt = System.currentTimeMillis() - t0;
+        logger.debug("Cached {} in {} s", unit.resource(), (dt / 1_000d));
+    }
+
+    /**
+     * False if a unit was solved while other units were restored, because its root scopes changed. The results of the
+     * run may then refer to scopes that no longer exist, and the project must be solved again without restoring units.
+     */
+    public boolean consistent() {
+        return consistent;
+    }
+
+    public int hits() {
+        return hits.get();
+    }
+
+    public int misses() {
+        return misses.get();
+    }
+
+    private static Map<String, CachedUnitResult> restorable(IUnitResultCache results, Spec spec, String specHash,
+            IStatixProject project, String projectHash) {
+        final long t0 = System.currentTimeMillis();
+        final Map<String, CachedUnitResult> restorable = new HashMap<>();
+        String runId = null;
+        for(IStatixUnit unit : units(project)) {
+            final CachedUnitResult cached;
+            if((cached = results.get(key(unit.resource(), projectHash, specHash), spec).orElse(null)) == null) {
+                logger.debug("Cache miss for {}, solving all units", unit.resource());
+                return Collections.emptyMap();
+            }
+            if(runId != null && !runId.equals(cached.runId())) {
+                logger.debug("Cached result for {} is from another run, solving all units", unit.resource());
+                return Collections.emptyMap();
+            }
+            runId = cached.runId();
+            restorable.put(unit.resource(), cached);
+        }
+        final long dt = System.currentTimeMillis() - t0;
+        logger.debug("Read {} cached results in {} s", restorable.size(), (dt / 1_000d));
+        return restorable;
+    }
+
+    private static UnitCacheKey key(String resource, String projectHash, String specHash) {
+        return UnitCacheKey.of(resource, projectHash, specHash);
+    }
+
+    /**
+     * All units of the project, including the units in its groups.
+     */
+    private static List<IStatixUnit> units(IStatixProject project) {
+        final List<IStatixUnit> units = new ArrayList<>(project.units().values());
+        for(IStatixGroup group : project.groups().values()) {
+            units(group, units);
+        }
+        return units;
+    }
+
+    private static void units(IStatixGroup group, List<IStatixUnit> units) {
+        units.addAll(group.units().values());
+        for(IStatixGroup subGroup : group.groups().values()) {
+            units(subGroup, units);
+        }
+    }
+
+    /**
+     * Scopes of the unit with the given id that occur in its scope graph.
+     */
+    private static Set<Scope> ownScopes(String id, IScopeGraph<Scope, ITerm, ITerm> scopeGraph) {
+        final Set<Scope> scopes = new HashSet<>();
+        for(Entry<? extends Entry<Scope, ITerm>, ? extends Iterable<Scope>> edges : scopeGraph.getEdges().entrySet()) {
+            scopes.add(edges.getKey().getKey());
+            edges.getValue().forEach(scopes::add);
+        }
+        scopes.addAll(scopeGraph.getData().keySet());
+        scopes.removeIf(s -> !s.getResource().equals(id));
+        return scopes;
+    }
+
+}
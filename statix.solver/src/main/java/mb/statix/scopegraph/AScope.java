@@ -54,6 +54,15 @@ public abstract class AScope extends AbstractApplTerm implements IScope, IApplTe
 
     // Object implementation
 
+    /**
+     * Equal to the hash of the term representation, {@code Objects.hash(getOp(), getArgs())}, but computed without
+     * building the arguments, which are only needed when the scope is inspected as a term.
+     */
+    @Override protected int getStructuralHash() {
+        final int args = 31 * (31 + (31 + getResource().hashCode())) + (31 + getName().hashCode());
+        return 31 * (31 + OP.hashCode()) + args;
+    }
+
     @Override public int hashCode() {
         // We use the super-class hashcode to ensure that an AScope and an IApplTerm
         // with the same term representation have the same hash code.
@@ -0,0 +1,86 @@
+package mb.statix.scopegraph;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import mb.nabl2.terms.IApplTerm;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.io.TermReader;
+import mb.nabl2.terms.io.TermWriter;
+import mb.scopegraph.oopsla20.IScopeGraph;
+import mb.scopegraph.oopsla20.reference.ScopeGraph;
+
+/**
+ * Writes and reads Statix scope graphs with the binary term format. The labels of the scope graph are not written,
+ * because they are the labels of its edges.
+ */
+public final class ScopeGraphCodec {
+
+    private ScopeGraphCodec() {
+    }
+
+    /**
+     * Create a reader that restores scopes in terms.
+     */
+    public static TermReader reader(InputStream in) throws IOException {
+        return new TermReader(in, ScopeGraphCodec::restoreScope);
+    }
+
+    public static void write(TermWriter out, IScopeGraph<Scope, ITerm, ITerm> scopeGraph) throws IOException {
+        out.writeInt(scopeGraph.getEdges().size());
+        for(Entry<? extends Entry<Scope, ITerm>, ? extends Iterable<Scope>> e : scopeGraph.getEdges().entrySet()) {
+            out.writeTerm(e.getKey().getKey());
+            out.writeTerm(e.getKey().getValue());
+            final List<Scope> targets = new ArrayList<>();
+            e.getValue().forEach(targets::add);
+            out.writeInt(targets.size());
+            for(Scope target : targets) {
+                out.writeTerm(target);
+            }
+        }
+        out.writeInt(scopeGraph.getData().size());
+        for(Entry<Scope, ITerm> e : scopeGraph.getData().entrySet()) {
+            out.writeTerm(e.getKey());
+            out.writeTerm(e.getValue());
+        }
+    }
+
+    /**
+     * Read a scope graph. The edges are added in reverse, so that their order is the same as in the written scope
+     * graph.
+     */
+    public static IScopeGraph.Immutable<Scope, ITerm, ITerm> read(TermReader in) throws IOException {
+        final ScopeGraph.Transient<Scope, ITerm, ITerm> scopeGraph = ScopeGraph.Transient.of();
+        for(int i = in.readInt(); i > 0; i--) {
+            final Scope source = readScope(in);
+            final ITerm label = in.readTerm();
+            final List<Scope> targets = new ArrayList<>();
+            for(int j = in.readInt(); j > 0; j--) {
+                targets.add(readScope(in));
+            }
+            for(int j = targets.size() - 1; j >= 0; j--) {
+                scopeGraph.addEdge(source, label, targets.get(j));
+            }
+        }
+        for(int i = in.readInt(); i > 0; i--) {
+            final Scope scope = readScope(in);
+            scopeGraph.setDatum(scope, in.readTerm());
+        }
+        return scopeGraph.freeze();
+    }
+
+    public static Scope readScope(TermReader in) throws IOException {
+        final ITerm term = in.readTerm();
+        return Scope.matcher().match(term)
+                .orElseThrow(() -> new StreamCorruptedException("Expected scope, got " + term));
+    }
+
+    private static ITerm restoreScope(IApplTerm appl) {
+        return Scope.matcher().match(appl).<ITerm>map(scope -> scope).orElse(appl);
+    }
+
+}
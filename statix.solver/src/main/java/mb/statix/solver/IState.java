@@ -35,6 +35,13 @@ public interface IState {
 
         Tuple2<ITermVar, IState.Immutable> freshVar(ITermVar var);
 
+        /**
+         * Create fresh variables for the given variables, and return the renaming from the given to the fresh
+         * variables. The state is only rebuilt once, which is cheaper than repeated calls to
+         * {@link #freshVar(ITermVar)}.
+         */
+        Tuple2<Renaming, IState.Immutable> freshVars(Iterable<ITermVar> vars);
+
         Tuple2<Scope, IState.Immutable> freshScope(String base);
 
         IState.Immutable add(IState.Immutable other);
@@ -119,11 +126,9 @@ public interface IState {
 
         public IRenaming freshVars(java.util.Set<ITermVar> vars) {
             freezeTwiceShameOnYou();
-            Renaming.Builder renaming = Renaming.builder();
-            for(ITermVar var : vars) {
-                renaming.put(var, freshVar(var));
-            }
-            return renaming.build();
+            final Tuple2<Renaming, Immutable> result = state.freshVars(vars);
+            state = result._2();
+            return result._1();
         }
 
         public ITermVar freshWld() {
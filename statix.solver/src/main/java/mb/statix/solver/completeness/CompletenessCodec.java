@@ -0,0 +1,61 @@
+package mb.statix.solver.completeness;
+
+import java.io.IOException;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+import org.metaborg.util.collection.MultiSet;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.io.TermReader;
+import mb.nabl2.terms.io.TermWriter;
+import mb.nabl2.terms.unification.u.PersistentUnifier;
+import mb.scopegraph.oopsla20.reference.EdgeOrData;
+
+/**
+ * Writes and reads completeness with the binary term format. Every incomplete label is written with its count.
+ */
+public final class CompletenessCodec {
+
+    private CompletenessCodec() {
+    }
+
+    public static void write(TermWriter out, ICompleteness.Immutable completeness) throws IOException {
+        out.writeInt(completeness.entrySet().size());
+        for(Entry<ITerm, MultiSet.Immutable<EdgeOrData<ITerm>>> e : completeness.entrySet()) {
+            out.writeTerm(e.getKey());
+            out.writeInt(e.getValue().elementSet().size());
+            for(EdgeOrData<ITerm> label : e.getValue().elementSet()) {
+                writeLabel(out, label);
+                out.writeInt(e.getValue().count(label));
+            }
+        }
+    }
+
+    public static ICompleteness.Immutable read(TermReader in) throws IOException {
+        final Completeness.Transient completeness = Completeness.Transient.of();
+        for(int i = in.readInt(); i > 0; i--) {
+            final ITerm scopeOrVar = in.readTerm();
+            for(int j = in.readInt(); j > 0; j--) {
+                final EdgeOrData<ITerm> label = readLabel(in);
+                for(int k = in.readInt(); k > 0; k--) {
+                    completeness.add(scopeOrVar, label, PersistentUnifier.Immutable.of());
+                }
+            }
+        }
+        return completeness.freeze();
+    }
+
+    public static void writeLabel(TermWriter out, EdgeOrData<ITerm> label) throws IOException {
+        final Optional<ITerm> edgeLabel = label.match(Optional::empty, Optional::of);
+        out.writeBoolean(edgeLabel.isPresent());
+        if(edgeLabel.isPresent()) {
+            out.writeTerm(edgeLabel.get());
+        }
+    }
+
+    public static EdgeOrData<ITerm> readLabel(TermReader in) throws IOException {
+        return in.readBoolean() ? EdgeOrData.edge(in.readTerm()) : EdgeOrData.data();
+    }
+
+}
@@ -15,6 +15,7 @@ import mb.nabl2.terms.IAttachments;
 import mb.nabl2.terms.ITerm;
 import mb.nabl2.terms.ITermVar;
 import mb.nabl2.terms.stratego.TermIndex;
+import mb.nabl2.terms.substitution.Renaming;
 import mb.nabl2.terms.unification.OccursException;
 import mb.nabl2.terms.unification.Unifiers;
 import mb.nabl2.terms.unification.ud.IUniDisunifier;
@@ -81,12 +82,28 @@ public abstract class AState implements IState.Immutable {
 
     private Tuple2<ITermVar, IState.Immutable> freshVar(String name, @Nullable IAttachments attachments) {
         final int i = __varCounter() + 1;
-        final String newName = name.replace('-', '_') + "-" + i;
-        final ITermVar newVar = B.newVar(resource(), newName, attachments);
+        final ITermVar newVar = B.newVar(resource(), freshName(name, i), attachments);
         final Set.Immutable<ITermVar> vars = __vars().__insert(newVar);
         return Tuple2.of(newVar, State.builder().from(this).__varCounter(i).__vars(vars).build());
     }
 
+    @Override public Tuple2<Renaming, IState.Immutable> freshVars(Iterable<ITermVar> vars) {
+        int i = __varCounter();
+        final Set.Transient<ITermVar> newVars = __vars().asTransient();
+        final Renaming.Builder renaming = Renaming.builder();
+        for(ITermVar var : vars) {
+            i += 1;
+            final ITermVar newVar = B.newVar(resource(), freshName(var.getName(), i), var.getAttachments());
+            newVars.__insert(newVar);
+            renaming.put(var, newVar);
+        }
+        if(i == __varCounter()) {
+            return Tuple2.of(renaming.build(), this);
+        }
+        return Tuple2.of(renaming.build(),
+                State.builder().from(this).__varCounter(i).__vars(newVars.freeze()).build());
+    }
+
     @Override public Set.Immutable<ITermVar> vars() {
         return __vars();
     }
@@ -103,8 +120,7 @@ public abstract class AState implements IState.Immutable {
 
     @Override public Tuple2<Scope, IState.Immutable> freshScope(String base) {
         final int i = __scopeCounter() + 1;
-        final String name = base.replace('-', '_') + "-" + i;
-        final Scope scope = Scope.of(resource(), name);
+        final Scope scope = Scope.of(resource(), freshName(base, i));
         final Set.Immutable<Scope> scopes = __scopes().__insert(scope);
         return Tuple2.of(scope, State.builder().from(this).__scopeCounter(i).__scopes(scopes).build());
     }
@@ -113,6 +129,11 @@ public abstract class AState implements IState.Immutable {
         return __scopes();
     }
 
+    private static String freshName(String base, int i) {
+        final String name = base.indexOf('-') < 0 ? base : base.replace('-', '_');
+        return new StringBuilder(name.length() + 11).append(name).append('-').append(i).toString();
+    }
+
     // --- solution ---
 
     @Value.Parameter @Override public abstract IUniDisunifier.Immutable unifier();
@@ -81,7 +81,9 @@ import mb.statix.solver.persistent.query.ConstraintQueries;
 import mb.statix.solver.query.QueryFilter;
 import mb.statix.solver.query.QueryMin;
 import mb.statix.solver.query.ResolutionDelayException;
-import mb.statix.solver.store.BaseConstraintStore;
+import mb.statix.solver.store.ISchedulingPolicy;
+import mb.statix.solver.store.PriorityConstraintStore;
+import mb.statix.solver.store.SchedulingPolicies;
 import mb.statix.spec.ApplyMode;
 import mb.statix.spec.ApplyMode.Safety;
 import mb.statix.spec.ApplyResult;
@@ -123,6 +125,11 @@ class GreedySolver {
 
     public GreedySolver(Spec spec, IState.Immutable state, IConstraint initialConstraint, IsComplete _isComplete,
             IDebugContext debug, IProgress progress, ICancel cancel, int flags) {
+        this(spec, state, initialConstraint, _isComplete, debug, progress, cancel, flags, SchedulingPolicies.LIFO);
+    }
+
+    public GreedySolver(Spec spec, IState.Immutable state, IConstraint initialConstraint, IsComplete _isComplete,
+            IDebugContext debug, IProgress progress, ICancel cancel, int flags, ISchedulingPolicy policy) {
         if(INCREMENTAL_CRITICAL_EDGES && !spec.hasPrecomputedCriticalEdges()) {
             debug.warn("Leaving precomputing critical edges to solver may result in duplicate work.");
             this.spec = spec.precomputeCriticalEdges();
@@ -131,7 +138,7 @@ class GreedySolver {
         }
         this.state = state;
         this.debug = debug;
-        this.constraints = new BaseConstraintStore(debug);
+        this.constraints = new PriorityConstraintStore(debug, policy);
         final ICompleteness.Transient _completeness = Completeness.Transient.of();
         if(INCREMENTAL_CRITICAL_EDGES) {
             final Tuple2<IConstraint, ICompleteness.Immutable> initialConstraintAndCriticalEdges =
@@ -158,7 +165,7 @@ class GreedySolver {
         this.spec = spec;
         this.state = state;
         this.debug = debug;
-        this.constraints = new BaseConstraintStore(debug);
+        this.constraints = new PriorityConstraintStore(debug);
         this.constraints.addAll(constraints);
         this.constraints.delayAll(delays.entrySet());
         this.completeness = completeness;
@@ -387,15 +394,9 @@ class GreedySolver {
             }
 
             @Override public Boolean caseExists(CExists c) throws InterruptedException {
-                final Renaming.Builder _existentials = Renaming.builder();
-                IState.Immutable newState = state;
-                for(ITermVar var : c.vars()) {
-                    final Tuple2<ITermVar, IState.Immutable> varAndState = newState.freshVar(var);
-                    final ITermVar freshVar = varAndState._1();
-                    newState = varAndState._2();
-                    _existentials.put(var, freshVar);
-                }
-                final Renaming existentials = _existentials.build();
+                final Tuple2<Renaming, IState.Immutable> existentialsAndState = state.freshVars(c.vars());
+                final Renaming existentials = existentialsAndState._1();
+                final IState.Immutable newState = existentialsAndState._2();
 
                 final ISubstitution.Immutable subst = existentials.asSubstitution();
                 final IConstraint newConstraint = c.constraint().apply(subst).withCause(c.cause().orElse(null));
@@ -649,7 +650,7 @@ class GreedySolver {
                 final LazyDebugContext proxyDebug = new LazyDebugContext(debug);
                 final IDebugContext debug = params.debug();
 
-                final List<Rule> rules = spec.rules().getRules(name);
+                final List<Rule> rules = spec.rules().getCandidateRules(name, args, state.unifier());
                 // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
                 final Tuple3<Rule, ApplyResult, Boolean> result;
                 if((result = RuleUtil.applyOrderedOne(state.unifier(), rules, args, c, ApplyMode.RELAXED, Safety.UNSAFE)
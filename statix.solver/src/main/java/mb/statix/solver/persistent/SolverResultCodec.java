@@ -0,0 +1,198 @@
+package mb.statix.solver.persistent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.metaborg.util.collection.CapsuleUtil;
+import org.metaborg.util.tuple.Tuple2;
+
+import io.usethesource.capsule.Set;
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.io.TermReader;
+import mb.nabl2.terms.io.TermWriter;
+import mb.nabl2.terms.stratego.TermIndex;
+import mb.nabl2.terms.unification.ud.UniDisunifierCodec;
+import mb.statix.constraints.messages.IMessage;
+import mb.statix.scopegraph.Scope;
+import mb.statix.scopegraph.ScopeGraphCodec;
+import mb.statix.solver.CriticalEdge;
+import mb.statix.solver.Delay;
+import mb.statix.solver.IConstraint;
+import mb.statix.solver.IState;
+import mb.statix.solver.ITermProperty;
+import mb.statix.solver.ITermProperty.Multiplicity;
+import mb.statix.solver.completeness.CompletenessCodec;
+import mb.statix.spec.Spec;
+
+/**
+ * Writes and reads solver results with the binary term format, as a more compact and faster alternative to Java
+ * serialization. Terms are shared between all parts of the result.
+ *
+ * The specification is not written, because it is the same for all results of a project, and must be given when
+ * reading. Messages and delays contain constraints, which are written with Java serialization.
+ */
+public final class SolverResultCodec {
+
+    private static final int VERSION = 1;
+
+    private SolverResultCodec() {
+    }
+
+    public static void write(OutputStream out, SolverResult result) throws IOException {
+        final TermWriter writer = new TermWriter(out);
+        write(writer, result);
+        writer.flush();
+    }
+
+    public static SolverResult read(InputStream in, Spec spec) throws IOException {
+        return read(ScopeGraphCodec.reader(in), spec);
+    }
+
+    public static void write(TermWriter out, SolverResult result) throws IOException {
+        out.writeInt(VERSION);
+        writeState(out, result.state());
+        out.writeSerializable(result.messages());
+        out.writeSerializable(result.delays());
+        out.writeInt(result.existentials().size());
+        for(Entry<ITermVar, ITermVar> e : result.existentials().entrySet()) {
+            out.writeTerm(e.getKey());
+            out.writeTerm(e.getValue());
+        }
+        out.writeInt(result.updatedVars().size());
+        for(ITermVar var : result.updatedVars()) {
+            out.writeTerm(var);
+        }
+        out.writeInt(result.removedEdges().size());
+        for(CriticalEdge edge : result.removedEdges()) {
+            out.writeTerm(edge.scope());
+            CompletenessCodec.writeLabel(out, edge.edgeOrData());
+        }
+        CompletenessCodec.write(out, result.completeness());
+        out.writeInt(result.totalSolved());
+        out.writeInt(result.totalCriticalEdges());
+    }
+
+    @SuppressWarnings("unchecked") public static SolverResult read(TermReader in, Spec spec) throws IOException {
+        final int version = in.readInt();
+        if(version != VERSION) {
+            throw new StreamCorruptedException(
+                    "Unsupported solver result version " + version + ", expected " + VERSION + ".");
+        }
+        final SolverResult.Builder result = SolverResult.builder().spec(spec);
+        result.state(readState(in));
+        result.putAllMessages((Map<IConstraint, IMessage>) in.readSerializable());
+        result.putAllDelays((Map<IConstraint, Delay>) in.readSerializable());
+        for(int i = in.readInt(); i > 0; i--) {
+            final ITermVar var = in.readVar();
+            result.putExistentials(var, in.readVar());
+        }
+        for(int i = in.readInt(); i > 0; i--) {
+            result.addUpdatedVars(in.readVar());
+        }
+        for(int i = in.readInt(); i > 0; i--) {
+            final ITerm scope = in.readTerm();
+            result.addRemovedEdges(CriticalEdge.of(scope, CompletenessCodec.readLabel(in)));
+        }
+        result.completeness(CompletenessCodec.read(in));
+        result.totalSolved(in.readInt());
+        result.totalCriticalEdges(in.readInt());
+        return result.build();
+    }
+
+    public static void writeState(TermWriter out, IState.Immutable state) throws IOException {
+        if(!(state instanceof State)) {
+            throw new IllegalArgumentException("Cannot write state of " + state.getClass());
+        }
+        final State persistent = (State) state;
+        out.writeString(persistent.resource());
+        out.writeInt(persistent.__varCounter());
+        out.writeInt(persistent.__vars().size());
+        for(ITermVar var : persistent.__vars()) {
+            out.writeTerm(var);
+        }
+        out.writeInt(persistent.__scopeCounter());
+        out.writeInt(persistent.__scopes().size());
+        for(Scope scope : persistent.__scopes()) {
+            out.writeTerm(scope);
+        }
+        UniDisunifierCodec.write(out, persistent.unifier());
+        ScopeGraphCodec.write(out, persistent.scopeGraph());
+        out.writeInt(persistent.termProperties().size());
+        for(Entry<Tuple2<TermIndex, ITerm>, ITermProperty> e : persistent.termProperties().entrySet()) {
+            out.writeString(e.getKey()._1().getResource());
+            out.writeInt(e.getKey()._1().getId());
+            out.writeTerm(e.getKey()._2());
+            writeTermProperty(out, e.getValue());
+        }
+    }
+
+    public static State readState(TermReader in) throws IOException {
+        final State.Builder state = State.builder();
+        state.resource(in.readString());
+        state.__varCounter(in.readInt());
+        final Set.Transient<ITermVar> vars = CapsuleUtil.transientSet();
+        for(int i = in.readInt(); i > 0; i--) {
+            vars.__insert(in.readVar());
+        }
+        state.__vars(vars.freeze());
+        state.__scopeCounter(in.readInt());
+        final Set.Transient<Scope> scopes = CapsuleUtil.transientSet();
+        for(int i = in.readInt(); i > 0; i--) {
+            scopes.__insert(ScopeGraphCodec.readScope(in));
+        }
+        state.__scopes(scopes.freeze());
+        state.unifier(UniDisunifierCodec.read(in));
+        state.scopeGraph(ScopeGraphCodec.read(in));
+        final io.usethesource.capsule.Map.Transient<Tuple2<TermIndex, ITerm>, ITermProperty> termProperties =
+                io.usethesource.capsule.Map.Transient.of();
+        for(int i = in.readInt(); i > 0; i--) {
+            final String resource = in.readString();
+            final TermIndex index = TermIndex.of(resource, in.readInt());
+            final ITerm name = in.readTerm();
+            termProperties.__put(Tuple2.of(index, name), readTermProperty(in));
+        }
+        state.termProperties(termProperties.freeze());
+        return state.build();
+    }
+
+    private static void writeTermProperty(TermWriter out, ITermProperty property) throws IOException {
+        out.writeBoolean(property.multiplicity().equals(Multiplicity.BAG));
+        if(property.multiplicity().equals(Multiplicity.BAG)) {
+            final List<ITerm> values = new ArrayList<>();
+            property.values().forEach(values::add);
+            out.writeInt(values.size());
+            for(ITerm value : values) {
+                out.writeTerm(value);
+            }
+        } else {
+            out.writeTerm(property.value());
+        }
+    }
+
+    /**
+     * Read a term property. Bag values are added in reverse, so that their order is the same as in the written
+     * property.
+     */
+    private static ITermProperty readTermProperty(TermReader in) throws IOException {
+        if(!in.readBoolean()) {
+            return SingletonTermProperty.of(in.readTerm());
+        }
+        final List<ITerm> values = new ArrayList<>();
+        for(int i = in.readInt(); i > 0; i--) {
+            values.add(in.readTerm());
+        }
+        ITermProperty property = BagTermProperty.of();
+        for(int i = values.size() - 1; i >= 0; i--) {
+            property = property.addValue(values.get(i));
+        }
+        return property;
+    }
+
+}
@@ -2,6 +2,8 @@ package mb.statix.solver.persistent.query;
 
 import java.util.Collections;
 
+import javax.annotation.Nullable;
+
 import org.metaborg.util.task.NullCancel;
 import org.metaborg.util.task.NullProgress;
 
@@ -16,10 +18,12 @@ import mb.statix.solver.IState;
 import mb.statix.solver.completeness.IsComplete;
 import mb.statix.solver.log.NullDebugContext;
 import mb.statix.solver.persistent.Solver;
+import mb.statix.solver.query.EqualityKey;
 import mb.statix.solver.query.ResolutionDelayException;
 import mb.statix.spec.ApplyMode;
 import mb.statix.spec.ApplyMode.Safety;
 import mb.statix.spec.ApplyResult;
+import mb.statix.spec.CompiledPredicate;
 import mb.statix.spec.Rule;
 import mb.statix.spec.RuleUtil;
 import mb.statix.spec.Spec;
@@ -39,6 +43,11 @@ class ConstraintDataLeq implements DataLeq<ITerm> {
 
     @Override public boolean leq(ITerm datum1, ITerm datum2) throws ResolutionException, InterruptedException {
         try {
+            final CompiledPredicate predicate;
+            if((predicate = constraint.compiledPredicate().orElse(null)) != null) {
+                return predicate.test(ImmutableList.of(datum1, datum2), state.unifier());
+            }
+
             final ApplyResult applyResult;
             // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
             if((applyResult = RuleUtil.apply(state.unifier(), constraint, ImmutableList.of(datum1, datum2), null,
@@ -58,6 +67,20 @@ class ConstraintDataLeq implements DataLeq<ITerm> {
         return constraint.isAlways().orElse(false);
     }
 
+    @Override public @Nullable Key<ITerm> key() {
+        final EqualityKey key;
+        if((key = EqualityKey.of(constraint).orElse(null)) == null) {
+            return null;
+        }
+        return datum -> {
+            try {
+                return key.apply(datum, state.unifier());
+            } catch(Delay d) {
+                throw new ResolutionDelayException("Data order delayed.", d);
+            }
+        };
+    }
+
     @Override public String toString() {
         return constraint.toString(state.unifier()::toString);
     }
@@ -20,6 +20,7 @@ import mb.statix.solver.query.ResolutionDelayException;
 import mb.statix.spec.ApplyMode;
 import mb.statix.spec.ApplyMode.Safety;
 import mb.statix.spec.ApplyResult;
+import mb.statix.spec.CompiledPredicate;
 import mb.statix.spec.Rule;
 import mb.statix.spec.RuleUtil;
 import mb.statix.spec.Spec;
@@ -39,6 +40,11 @@ class ConstraintDataWF implements DataWF<ITerm> {
 
     @Override public boolean wf(ITerm datum) throws ResolutionException, InterruptedException {
         try {
+            final CompiledPredicate predicate;
+            if((predicate = constraint.compiledPredicate().orElse(null)) != null) {
+                return predicate.test(ImmutableList.of(datum), state.unifier());
+            }
+
             final ApplyResult applyResult;
             // UNSAFE : we assume the resource of spec variables is empty and of state variables non-empty
             if((applyResult = RuleUtil
@@ -0,0 +1,74 @@
+package mb.statix.solver.query;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableList;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.matching.Pattern;
+import mb.nabl2.terms.substitution.ISubstitution;
+import mb.nabl2.terms.unification.u.IUnifier;
+import mb.statix.constraints.Constraints;
+import mb.statix.solver.Delay;
+import mb.statix.spec.Rule;
+
+/**
+ * Key for data order rules that are equality on a projection of the datum. A rule has that shape if both parameters
+ * are the same pattern, and its body is true, such as {@code { (x, _), (x, _) }}. Then d1 <= d2 holds iff both data
+ * match the pattern with the same values for the pattern variables, and the key of a datum is the list of these
+ * values. Keys of different data can be compared with {@code equals}, which resolution uses to shadow with a hash
+ * lookup instead of solving the rule for every pair of data.
+ */
+public class EqualityKey {
+
+    private final Pattern pattern;
+    private final List<ITermVar> vars;
+
+    private EqualityKey(Pattern pattern) {
+        this.pattern = pattern;
+        this.vars = ImmutableList.copyOf(pattern.getVars());
+    }
+
+    /**
+     * Compute the key of the datum, or nothing if the datum does not match the pattern, and is related to no datum.
+     *
+     * @throws Delay
+     *             if the datum is not instantiated enough to decide the order
+     */
+    public Optional<List<ITerm>> apply(ITerm datum, IUnifier.Immutable unifier) throws Delay {
+        final ISubstitution.Immutable subst;
+        if((subst = pattern.match(datum, unifier).orElseThrow(vs -> Delay.ofVars(vs)).orElse(null)) == null) {
+            return Optional.empty();
+        }
+        final ImmutableList.Builder<ITerm> key = ImmutableList.builderWithExpectedSize(vars.size());
+        for(ITermVar var : vars) {
+            final ITerm value = unifier.findRecursive(subst.apply(var));
+            if(!value.isGround()) {
+                throw Delay.ofVars(value.getVars());
+            }
+            key.add(value);
+        }
+        return Optional.of(key.build());
+    }
+
+    /**
+     * Get the key for the data order rule, if it has the shape of an equality on a projection of the datum.
+     */
+    public static Optional<EqualityKey> of(Rule rule) {
+        if(rule.params().size() != 2 || !Constraints.trivial(rule.body()).orElse(false)) {
+            return Optional.empty();
+        }
+        final Pattern pattern = rule.params().get(0);
+        if(!pattern.equals(rule.params().get(1))) {
+            return Optional.empty();
+        }
+        return Optional.of(new EqualityKey(pattern));
+    }
+
+    @Override public String toString() {
+        return "EqualityKey(" + pattern + ")";
+    }
+
+}
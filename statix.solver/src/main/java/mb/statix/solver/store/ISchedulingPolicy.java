@@ -0,0 +1,21 @@
+package mb.statix.solver.store;
+
+import mb.statix.solver.IConstraint;
+
+/**
+ * Decides the order in which active constraints are solved. Constraints are grouped in a fixed number of priority
+ * classes. Classes with a lower number are solved first, and constraints within a class are solved last-in, first-out.
+ */
+public interface ISchedulingPolicy {
+
+    /**
+     * The number of priority classes.
+     */
+    int priorities();
+
+    /**
+     * The priority class of the constraint, between 0 (inclusive) and {@link #priorities()} (exclusive).
+     */
+    int priority(IConstraint constraint);
+
+}
@@ -0,0 +1,278 @@
+package mb.statix.solver.store;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.util.log.Level;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import mb.nabl2.terms.ITermVar;
+import mb.statix.solver.CriticalEdge;
+import mb.statix.solver.Delay;
+import mb.statix.solver.IConstraint;
+import mb.statix.solver.IConstraintStore;
+import mb.statix.solver.log.IDebugContext;
+
+/**
+ * Constraint store for single-threaded solvers, in which the order of active constraints is decided by a
+ * {@link ISchedulingPolicy}.
+ *
+ * Active constraints are kept in an array-backed stack per priority class. Delayed constraints are kept in reusable
+ * slots, and the variables and critical edges they are waiting on are numbered. The constraints waiting on a variable
+ * or edge are kept as an array of slot references. A reference includes the slot's stamp, which changes when the slot
+ * is freed, so references left behind by constraints that were activated by another variable or edge are ignored.
+ *
+ * This store is not thread-safe.
+ */
+public class PriorityConstraintStore implements IConstraintStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    final IDebugContext debug;
+    private final ISchedulingPolicy policy;
+    private final boolean prioritized;
+
+    private final ArrayDeque<IConstraint>[] active;
+    private int activeSize = 0;
+
+    private IConstraint[] delayedConstraints = new IConstraint[INITIAL_CAPACITY];
+    private Delay[] delays = new Delay[INITIAL_CAPACITY];
+    private int[] stamps = new int[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount = 0;
+    private int slotCount = 0;
+    private int delayedSize = 0;
+
+    private final Buckets<ITermVar> stuckOnVar = new Buckets<>();
+    private final Buckets<CriticalEdge> stuckOnEdge = new Buckets<>();
+
+    private @Nullable Map<IConstraint, Delay> delayed = null;
+
+    public PriorityConstraintStore(IDebugContext debug) {
+        this(debug, SchedulingPolicies.LIFO);
+    }
+
+    @SuppressWarnings("unchecked") public PriorityConstraintStore(IDebugContext debug, ISchedulingPolicy policy) {
+        this.debug = debug;
+        this.policy = policy;
+        this.prioritized = policy.priorities() > 1;
+        this.active = new ArrayDeque[policy.priorities()];
+        for(int i = 0; i < active.length; i++) {
+            active[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override public int activeSize() {
+        return activeSize;
+    }
+
+    @Override public int delayedSize() {
+        return delayedSize;
+    }
+
+    @Override public void add(IConstraint constraint) {
+        active[prioritized ? policy.priority(constraint) : 0].push(constraint);
+        activeSize += 1;
+    }
+
+    @Override public @Nullable IConstraint remove() {
+        for(ArrayDeque<IConstraint> constraints : active) {
+            final IConstraint constraint;
+            if((constraint = constraints.poll()) != null) {
+                activeSize -= 1;
+                return constraint;
+            }
+        }
+        return null;
+    }
+
+    @Override public void delay(IConstraint constraint, Delay delay) {
+        if(!delay.vars().isEmpty()) {
+            if(debug.isEnabled(Level.Debug)) {
+                debug.debug("delayed {} on vars {}", constraint, delay.vars());
+            }
+            final long ref = allocate(constraint, delay);
+            for(ITermVar var : delay.vars()) {
+                stuckOnVar.put(var, ref);
+            }
+        } else if(!delay.criticalEdges().isEmpty()) {
+            if(debug.isEnabled(Level.Debug)) {
+                debug.debug("delayed {} on critical edges {}", constraint, delay.criticalEdges());
+            }
+            final long ref = allocate(constraint, delay);
+            for(CriticalEdge edge : delay.criticalEdges()) {
+                stuckOnEdge.put(edge, ref);
+            }
+        } else {
+            throw new IllegalArgumentException("delayed for no apparent reason");
+        }
+    }
+
+    @Override public void activateFromVars(Iterable<? extends ITermVar> vars, IDebugContext debug) {
+        for(ITermVar var : vars) {
+            final int bucket;
+            if((bucket = stuckOnVar.remove(var)) >= 0) {
+                activate(stuckOnVar, bucket, debug);
+            }
+        }
+    }
+
+    @Override public void activateFromEdges(Iterable<? extends CriticalEdge> edges, IDebugContext debug) {
+        for(CriticalEdge edge : edges) {
+            final int bucket;
+            if((bucket = stuckOnEdge.remove(edge)) >= 0) {
+                activate(stuckOnEdge, bucket, debug);
+            }
+        }
+    }
+
+    private void activate(Buckets<?> buckets, int bucket, IDebugContext debug) {
+        final long[] refs = buckets.refs[bucket];
+        final int size = buckets.sizes[bucket];
+        for(int i = 0; i < size; i++) {
+            final IConstraint constraint;
+            if((constraint = free(refs[i])) != null) {
+                if(debug.isEnabled(Level.Debug)) {
+                    debug.debug("activating {}", constraint);
+                }
+                add(constraint);
+            }
+        }
+        buckets.release(bucket);
+    }
+
+    /**
+     * The delayed constraints, with the variables they are waiting on, or the critical edges if they are not waiting
+     * on variables. The result is cached until the delayed constraints change.
+     */
+    @Override public Map<IConstraint, Delay> delayed() {
+        if(delayed == null) {
+            final Map<IConstraint, Delay> delayed = Maps.newHashMapWithExpectedSize(delayedSize);
+            for(int slot = 0; slot < slotCount; slot++) {
+                final IConstraint constraint;
+                if((constraint = delayedConstraints[slot]) == null) {
+                    continue;
+                }
+                final Delay delay = delays[slot];
+                final Delay reason = delay.vars().isEmpty() || delay.criticalEdges().isEmpty() ? delay
+                        : Delay.ofVars(delay.vars());
+                final Delay previous;
+                if((previous = delayed.put(constraint, reason)) != null) {
+                    delayed.put(constraint, Delay.of(ImmutableList.of(previous, reason)));
+                }
+            }
+            this.delayed = ImmutableMap.copyOf(delayed);
+        }
+        return delayed;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // slots
+    ///////////////////////////////////////////////////////////////////////////
+
+    private long allocate(IConstraint constraint, Delay delay) {
+        final int slot;
+        if(freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if(slotCount == delayedConstraints.length) {
+                final int capacity = 2 * slotCount;
+                delayedConstraints = Arrays.copyOf(delayedConstraints, capacity);
+                delays = Arrays.copyOf(delays, capacity);
+                stamps = Arrays.copyOf(stamps, capacity);
+                freeSlots = Arrays.copyOf(freeSlots, capacity);
+            }
+            slot = slotCount++;
+        }
+        delayedConstraints[slot] = constraint;
+        delays[slot] = delay;
+        delayedSize += 1;
+        delayed = null;
+        return ((long) stamps[slot] << 32) | slot;
+    }
+
+    /**
+     * Free the slot the reference points to, and return its constraint, or null if the reference is stale.
+     */
+    private @Nullable IConstraint free(long ref) {
+        final int slot = (int) ref;
+        final IConstraint constraint = delayedConstraints[slot];
+        if(constraint == null || stamps[slot] != (int) (ref >>> 32)) {
+            return null;
+        }
+        delayedConstraints[slot] = null;
+        delays[slot] = null;
+        stamps[slot] += 1;
+        freeSlots[freeSlotCount++] = slot;
+        delayedSize -= 1;
+        delayed = null;
+        return constraint;
+    }
+
+    /**
+     * Slot references per key. Keys are numbered, and the numbers and reference arrays of removed keys are reused.
+     */
+    private static class Buckets<K> {
+
+        private static final int MAX_RETAINED_CAPACITY = 64;
+
+        private final Map<K, Integer> ids = Maps.newHashMap();
+        private long[][] refs = new long[INITIAL_CAPACITY][];
+        private int[] sizes = new int[INITIAL_CAPACITY];
+        private int[] freeIds = new int[INITIAL_CAPACITY];
+        private int freeIdCount = 0;
+        private int idCount = 0;
+
+        private void put(K key, long ref) {
+            Integer id;
+            if((id = ids.get(key)) == null) {
+                ids.put(key, (id = allocate()));
+            }
+            long[] bucket = refs[id];
+            final int size = sizes[id];
+            if(size == bucket.length) {
+                refs[id] = (bucket = Arrays.copyOf(bucket, 2 * size));
+            }
+            bucket[size] = ref;
+            sizes[id] = size + 1;
+        }
+
+        /**
+         * Remove the key, and return its bucket, or -1 if it has none. The bucket must be released after use.
+         */
+        private int remove(K key) {
+            final Integer id = ids.remove(key);
+            return id != null ? id : -1;
+        }
+
+        private void release(int id) {
+            sizes[id] = 0;
+            if(refs[id].length > MAX_RETAINED_CAPACITY) {
+                refs[id] = new long[4];
+            }
+            freeIds[freeIdCount++] = id;
+        }
+
+        private int allocate() {
+            if(freeIdCount > 0) {
+                return freeIds[--freeIdCount];
+            }
+            if(idCount == refs.length) {
+                final int capacity = 2 * idCount;
+                refs = Arrays.copyOf(refs, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                freeIds = Arrays.copyOf(freeIds, capacity);
+            }
+            refs[idCount] = new long[4];
+            return idCount++;
+        }
+
+    }
+
+}
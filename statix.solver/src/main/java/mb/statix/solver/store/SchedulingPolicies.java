@@ -0,0 +1,62 @@
+package mb.statix.solver.store;
+
+import mb.statix.constraints.Constraints;
+import mb.statix.solver.IConstraint;
+
+public final class SchedulingPolicies {
+
+    private SchedulingPolicies() {
+    }
+
+    /**
+     * All constraints in a single class, which is the order of {@link BaseConstraintStore}.
+     */
+    public static final ISchedulingPolicy LIFO = new ISchedulingPolicy() {
+
+        @Override public int priorities() {
+            return 1;
+        }
+
+        @Override public int priority(IConstraint constraint) {
+            return 0;
+        }
+
+        @Override public String toString() {
+            return "LIFO";
+        }
+
+    };
+
+    /**
+     * Solve cheap constraints that only affect the unifier first, and queries last. Solving equalities early gives
+     * other constraints more information, and delaying queries gives scope graph edges a chance to be closed, so
+     * queries are delayed less often.
+     */
+    public static final ISchedulingPolicy EQUALITIES_FIRST_QUERIES_LAST = new ISchedulingPolicy() {
+
+        // @formatter:off
+        private final IConstraint.Cases<Integer> priorities = Constraints.<Integer>cases()
+            .equal(c -> 0)
+            .inequal(c -> 0)
+            ._true(c -> 0)
+            ._false(c -> 0)
+            .arith(c -> 0)
+            .resolveQuery(c -> 2)
+            .otherwise(c -> 1);
+        // @formatter:on
+
+        @Override public int priorities() {
+            return 3;
+        }
+
+        @Override public int priority(IConstraint constraint) {
+            return constraint.match(priorities);
+        }
+
+        @Override public String toString() {
+            return "EQUALITIES_FIRST_QUERIES_LAST";
+        }
+
+    };
+
+}
@@ -2,15 +2,15 @@ package mb.statix.spec;
 
 import java.util.Optional;
 
-import org.immutables.serial.Serial;
 import org.immutables.value.Value;
+import org.metaborg.util.functions.Function0;
+import org.metaborg.util.tuple.Tuple2;
 
 import mb.nabl2.terms.unification.ud.Diseq;
 import mb.statix.solver.IConstraint;
 import mb.statix.solver.completeness.ICompleteness;
 
 @Value.Immutable
-@Serial.Version(42L)
 public abstract class AApplyResult {
 
     /**
@@ -19,14 +19,29 @@ public abstract class AApplyResult {
      */
     @Value.Parameter public abstract Optional<Diseq> guard();
 
+    /**
+     * Instantiation of the rule body and its critical edges. Callers try several rules, and often only use the guard of
+     * the results, so the body is instantiated when it is first used, and only once.
+     */
+    @Value.Parameter @Value.Auxiliary protected abstract Function0<Tuple2<IConstraint, ICompleteness.Immutable>>
+            instantiate();
+
+    @Value.Lazy protected Tuple2<IConstraint, ICompleteness.Immutable> instance() {
+        return instantiate().apply();
+    }
+
     /**
      * The applied rule body.
      */
-    @Value.Parameter public abstract IConstraint body();
+    public IConstraint body() {
+        return instance()._1();
+    }
 
     /**
      * Critical edges that are introduced by the application of this rule.
      */
-    @Value.Parameter public abstract ICompleteness.Immutable criticalEdges();
+    public ICompleteness.Immutable criticalEdges() {
+        return instance()._2();
+    }
 
-}
\ No newline at end of file
+}
@@ -74,6 +74,15 @@ public abstract class ARule {
         return Constraints.trivial(body());
     }
 
+    /**
+     * The rule compiled to a direct check, if it is a predicate over its parameters that can be decided without a
+     * sub-solver. Closed rules, such as query filters, are shared by all applications of the spec rule that contains
+     * them, so they are compiled once.
+     */
+    @Value.Lazy public Optional<CompiledPredicate> compiledPredicate() {
+        return CompiledPredicate.of((Rule) this);
+    }
+
 
     private volatile Set.Immutable<ITermVar> freeVars;
 
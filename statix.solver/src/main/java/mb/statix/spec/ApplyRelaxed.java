@@ -5,6 +5,8 @@ import static mb.nabl2.terms.matching.TermPattern.P;
 import java.util.List;
 import java.util.Optional;
 
+import org.metaborg.util.tuple.Tuple2;
+
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
 
@@ -14,6 +16,7 @@ import mb.nabl2.terms.ITermVar;
 import mb.nabl2.terms.matching.MatchResult;
 import mb.nabl2.terms.matching.VarProvider;
 import mb.nabl2.terms.substitution.FreshVars;
+import mb.nabl2.terms.substitution.ISubstitution;
 import mb.nabl2.terms.unification.OccursException;
 import mb.nabl2.terms.unification.u.IUnifier;
 import mb.nabl2.terms.unification.ud.Diseq;
@@ -30,13 +33,17 @@ class ApplyRelaxed extends ApplyMode<VoidException> {
 
     @Override Optional<ApplyResult> apply(IUniDisunifier.Immutable unifier, Rule rule, List<? extends ITerm> args,
             IConstraint cause, Safety safety) throws VoidException {
-        Set.Immutable<ITermVar> freeVars = rule.freeVars();
+        // the free variables of the rule and the arguments are not collected into one set, because that is done for
+        // every rule that is tried, and fresh variables are only needed if the match generates equalities
+        final FreshVars fresh = new FreshVars();
+        fresh.add(rule.freeVars());
         for(ITerm arg : args) {
-            freeVars = freeVars.__insertAll(arg.getVars());
+            if(!arg.isGround()) {
+                fresh.add(arg.getVars());
+            }
         }
 
         // match and create equality constraints
-        final FreshVars fresh = new FreshVars(freeVars);
         final VarProvider freshProvider = VarProvider.of(v -> fresh.fresh(v), () -> fresh.fresh("_"));
         final MatchResult matchResult;
         if((matchResult = P.matchWithEqs(rule.params(), args, unifier, freshProvider).orElse(null)) == null) {
@@ -49,16 +56,7 @@ class ApplyRelaxed extends ApplyMode<VoidException> {
         // non-generated variables that are constrained by the match
         final SetView<ITermVar> constrainedVars = Sets.difference(matchResult.constrainedVars(), generatedVars);
 
-        final IConstraint appliedBody;
-        if(safety.equals(Safety.UNSAFE)) {
-            appliedBody = rule.body().unsafeApply(matchResult.substitution()).withCause(cause);
-        } else {
-            appliedBody = rule.body().apply(matchResult.substitution()).withCause(cause);
-        }
-        final ICompleteness.Immutable appliedCriticalEdges =
-                rule.bodyCriticalEdges() == null ? null : rule.bodyCriticalEdges().apply(matchResult.substitution());
-
-        // simplify guard constraints
+        // simplify guard constraints, before the body is instantiated
         final IUniDisunifier.Result<IUnifier.Immutable> unifyResult;
         try {
             if((unifyResult = unifier.unify(matchResult.equalities()).orElse(null)) == null) {
@@ -70,27 +68,36 @@ class ApplyRelaxed extends ApplyMode<VoidException> {
         final IUnifier.Immutable diff = unifyResult.result();
 
         // construct guard
-        final IConstraint newBody;
-        final ICompleteness.Immutable newCriticalEdges;
-        final Optional<Diseq> diseq;
         final IUnifier.Immutable guard = diff.retainAll(constrainedVars).unifier();
-        if(guard.isEmpty()) {
-            newBody = appliedBody;
-            newCriticalEdges = appliedCriticalEdges;
-            diseq = Optional.empty();
-        } else {
-            final ICompleteness.Immutable newBodyCriticalEdges =
-                    appliedCriticalEdges == null ? null : appliedCriticalEdges.retainAll(generatedVars, unifier);
-            newBody = new CExists(generatedVars, Constraints.conjoin(StateUtil.asEqualities(diff), appliedBody), cause,
-                    newBodyCriticalEdges);
-            newCriticalEdges =
-                    appliedCriticalEdges == null ? null : appliedCriticalEdges.removeAll(generatedVars, unifier);
-            diseq = Optional.of(Diseq.of(generatedVars, guard));
-        }
+        final Optional<Diseq> diseq = guard.isEmpty() ? Optional.empty() : Optional.of(Diseq.of(generatedVars, guard));
+
+        // construct result, which instantiates the body when it is used
+        final ISubstitution.Immutable subst = matchResult.substitution();
+        final ApplyResult applyResult = ApplyResult.of(diseq, () -> {
+            final IConstraint appliedBody;
+            if(safety.equals(Safety.UNSAFE)) {
+                appliedBody = rule.body().unsafeApply(subst).withCause(cause);
+            } else {
+                appliedBody = rule.body().apply(subst).withCause(cause);
+            }
+            final ICompleteness.Immutable appliedCriticalEdges =
+                    rule.bodyCriticalEdges() == null ? null : rule.bodyCriticalEdges().apply(subst);
 
-        // construct result
-        final ApplyResult applyResult = ApplyResult.of(diseq, newBody,
-                newCriticalEdges != null ? newCriticalEdges : Completeness.Immutable.of());
+            final IConstraint newBody;
+            final ICompleteness.Immutable newCriticalEdges;
+            if(!diseq.isPresent()) {
+                newBody = appliedBody;
+                newCriticalEdges = appliedCriticalEdges;
+            } else {
+                final ICompleteness.Immutable newBodyCriticalEdges =
+                        appliedCriticalEdges == null ? null : appliedCriticalEdges.retainAll(generatedVars, unifier);
+                newBody = new CExists(generatedVars, Constraints.conjoin(StateUtil.asEqualities(diff), appliedBody),
+                        cause, newBodyCriticalEdges);
+                newCriticalEdges =
+                        appliedCriticalEdges == null ? null : appliedCriticalEdges.removeAll(generatedVars, unifier);
+            }
+            return Tuple2.of(newBody, newCriticalEdges != null ? newCriticalEdges : Completeness.Immutable.of());
+        });
 
         return Optional.of(applyResult);
     }
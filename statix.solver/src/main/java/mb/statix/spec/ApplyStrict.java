@@ -5,6 +5,8 @@ import static mb.nabl2.terms.matching.TermPattern.P;
 import java.util.List;
 import java.util.Optional;
 
+import org.metaborg.util.tuple.Tuple2;
+
 import mb.nabl2.terms.ITerm;
 import mb.nabl2.terms.substitution.ISubstitution;
 import mb.nabl2.terms.unification.ud.IUniDisunifier;
@@ -22,16 +24,18 @@ class ApplyStrict extends ApplyMode<Delay> {
                 P.match(rule.params(), args, unifier).orElseThrow(vars -> Delay.ofVars(vars)).orElse(null)) == null) {
             return Optional.empty();
         }
-        final IConstraint newBody;
-        if(safety.equals(Safety.UNSAFE)) {
-            newBody = rule.body().unsafeApply(subst).withCause(cause);
-        } else {
-            newBody = rule.body().apply(subst).withCause(cause);
-        }
-        final ICompleteness.Immutable newBodyCriticalEdges =
-                rule.bodyCriticalEdges() == null ? null : rule.bodyCriticalEdges().apply(subst);
-        final ApplyResult applyResult = ApplyResult.of(Optional.empty(), newBody,
-                newBodyCriticalEdges != null ? newBodyCriticalEdges : Completeness.Immutable.of());
+        final ApplyResult applyResult = ApplyResult.of(Optional.empty(), () -> {
+            final IConstraint newBody;
+            if(safety.equals(Safety.UNSAFE)) {
+                newBody = rule.body().unsafeApply(subst).withCause(cause);
+            } else {
+                newBody = rule.body().apply(subst).withCause(cause);
+            }
+            final ICompleteness.Immutable newBodyCriticalEdges =
+                    rule.bodyCriticalEdges() == null ? null : rule.bodyCriticalEdges().apply(subst);
+            return Tuple2.of(newBody,
+                    newBodyCriticalEdges != null ? newBodyCriticalEdges : Completeness.Immutable.of());
+        });
         return Optional.of(applyResult);
     }
 
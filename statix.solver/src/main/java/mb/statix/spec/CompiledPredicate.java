@@ -0,0 +1,110 @@
+package mb.statix.spec;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static mb.nabl2.terms.matching.TermPattern.P;
+
+import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.util.functions.Predicate1;
+
+import com.google.common.collect.ImmutableList;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.matching.Pattern;
+import mb.nabl2.terms.substitution.ISubstitution;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.RigidException;
+import mb.nabl2.terms.unification.ud.IUniDisunifier;
+import mb.statix.constraints.CEqual;
+import mb.statix.constraints.CInequal;
+import mb.statix.constraints.Constraints;
+import mb.statix.solver.Delay;
+import mb.statix.solver.IConstraint;
+
+/**
+ * Predicate rule compiled to a direct check against the unifier. Only rules whose body is a conjunction of equalities,
+ * disequalities without universals, and true, over the rule parameters, can be compiled. Such rules are used as query
+ * filters and data orders, and checking their entailment does not need a sub-solver: all variables in the arguments
+ * belong to the outer state, and are rigid, so every conjunct either holds, fails, or needs a variable to be
+ * instantiated.
+ */
+public class CompiledPredicate {
+
+    private static final Predicate1<ITermVar> RIGID = v -> true;
+
+    private final Pattern params;
+    private final List<IConstraint> conjuncts;
+
+    private CompiledPredicate(List<Pattern> params, List<IConstraint> conjuncts) {
+        this.params = P.newTuple(params);
+        this.conjuncts = conjuncts;
+    }
+
+    /**
+     * Check whether the rule applies to the arguments, and its body is entailed, as {@link RuleUtil#apply} in
+     * {@link ApplyMode#STRICT} mode, followed by an entailment check of the body.
+     *
+     * @throws Delay
+     *             if the arguments are not instantiated enough to decide
+     */
+    public boolean test(List<? extends ITerm> args, IUniDisunifier.Immutable unifier) throws Delay {
+        final ISubstitution.Immutable subst;
+        if((subst = params.match(B.newTuple(args), unifier).orElseThrow(vars -> Delay.ofVars(vars))
+                .orElse(null)) == null) {
+            return false;
+        }
+        @Nullable Delay delay = null;
+        for(IConstraint conjunct : conjuncts) {
+            try {
+                if(conjunct instanceof CEqual) {
+                    final CEqual equal = (CEqual) conjunct;
+                    if(!unifier.unify(subst.apply(equal.term1()), subst.apply(equal.term2()), RIGID).isPresent()) {
+                        return false;
+                    }
+                } else {
+                    final CInequal inequal = (CInequal) conjunct;
+                    if(!unifier.disunify(subst.apply(inequal.term1()), subst.apply(inequal.term2()), RIGID)
+                            .isPresent()) {
+                        return false;
+                    }
+                }
+            } catch(OccursException e) {
+                return false;
+            } catch(RigidException e) {
+                // a later conjunct may still fail, which decides the predicate regardless of the delay
+                if(delay == null) {
+                    delay = Delay.ofVars(e.vars());
+                }
+            }
+        }
+        if(delay != null) {
+            throw delay;
+        }
+        return true;
+    }
+
+    /**
+     * Compile the rule, if its body only consists of equalities, disequalities without universals, and true.
+     */
+    public static Optional<CompiledPredicate> of(Rule rule) {
+        if(!rule.freeVars().isEmpty()) {
+            return Optional.empty();
+        }
+        final ImmutableList.Builder<IConstraint> conjuncts = ImmutableList.builder();
+        for(IConstraint conjunct : Constraints.disjoin(rule.body())) {
+            if(conjunct instanceof CEqual) {
+                conjuncts.add(conjunct);
+            } else if(conjunct instanceof CInequal && ((CInequal) conjunct).universals().isEmpty()) {
+                conjuncts.add(conjunct);
+            } else if(!Constraints.trivial(conjunct).orElse(false)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new CompiledPredicate(rule.params(), conjuncts.build()));
+    }
+
+}
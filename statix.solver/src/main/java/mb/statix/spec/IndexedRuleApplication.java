@@ -18,6 +18,7 @@ import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 import org.metaborg.util.task.NullCancel;
 import org.metaborg.util.task.NullProgress;
+import org.metaborg.util.tuple.Tuple2;
 
 import com.google.common.collect.Sets;
 
@@ -133,15 +134,11 @@ public class IndexedRuleApplication {
     }
 
     public static Optional<IndexedRuleApplication> of(Spec spec, Rule rule) throws Delay, InterruptedException {
-        final IState.Transient state = State.of().melt();
-        final Renaming.Builder _renaming = Renaming.builder();
-        for(ITermVar freeVar : rule.freeVars()) {
-            _renaming.put(freeVar, state.freshVar(freeVar));
-        }
-        final IRenaming renaming = _renaming.build();
+        final Tuple2<Renaming, IState.Immutable> renamingAndState = State.of().freshVars(rule.freeVars());
+        final IRenaming renaming = renamingAndState._1();
         final IndexedRuleApplication newRule;
         try {
-            if((newRule = of(state.freeze(), spec, rule.apply(renaming)).orElse(null)) == null) {
+            if((newRule = of(renamingAndState._2(), spec, rule.apply(renaming)).orElse(null)) == null) {
                 return Optional.empty();
             }
         } catch(Delay d) {
@@ -0,0 +1,118 @@
+package mb.statix.spec;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.matching.Pattern;
+import mb.nabl2.terms.matching.TermHead;
+import mb.nabl2.terms.unification.u.IUnifier;
+
+/**
+ * A discrimination index over the ordered rules for a single constraint name.
+ *
+ * For every parameter position, the index records which rules can match an argument with a particular head. Rules with
+ * a variable or wildcard pattern in a position match every head in that position. Selecting candidates for a list of
+ * arguments removes only rules that can never match the arguments in the current unifier, so applying the candidates
+ * in order gives the same result as applying all rules.
+ */
+final class RuleIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The rules, ordered from most specific to least specific guard. */
+    private final ImmutableList<Rule> rules;
+
+    /** Per parameter position, the rules that can match an argument with a given head. */
+    private final List<Map<TermHead, BitSet>> byHead;
+
+    /** Per parameter position, the rules that can match an argument with a head not in byHead. */
+    private final List<BitSet> anyHead;
+
+    /** Rules with a different number of parameters than the index, which are never excluded. */
+    private final BitSet otherArity;
+
+    private final int arity;
+
+    RuleIndex(ImmutableList<Rule> rules) {
+        this.rules = rules;
+        this.arity = rules.isEmpty() ? 0 : rules.get(0).params().size();
+        this.otherArity = new BitSet(rules.size());
+
+        final ImmutableList.Builder<Map<TermHead, BitSet>> byHead = ImmutableList.builderWithExpectedSize(arity);
+        final ImmutableList.Builder<BitSet> anyHead = ImmutableList.builderWithExpectedSize(arity);
+        for(int pos = 0; pos < arity; pos++) {
+            final Map<TermHead, BitSet> heads = new HashMap<>();
+            final BitSet any = new BitSet(rules.size());
+            for(int idx = 0; idx < rules.size(); idx++) {
+                final List<Pattern> params = rules.get(idx).params();
+                if(params.size() != arity) {
+                    otherArity.set(idx);
+                    continue;
+                }
+                final @Nullable TermHead head = params.get(pos).getHead();
+                if(head == null) {
+                    any.set(idx);
+                } else {
+                    heads.computeIfAbsent(head, h -> new BitSet(rules.size())).set(idx);
+                }
+            }
+            any.or(otherArity);
+            for(BitSet matches : heads.values()) {
+                matches.or(any);
+            }
+            byHead.add(heads);
+            anyHead.add(any);
+        }
+        this.byHead = byHead.build();
+        this.anyHead = anyHead.build();
+    }
+
+    /**
+     * Return the rules that may match the given arguments, in the same order as they appear in the rule set. Arguments
+     * are resolved in the given unifier. Arguments that are unbound variables, or do not have a head, do not exclude
+     * any rules.
+     */
+    ImmutableList<Rule> candidates(List<? extends ITerm> args, IUnifier unifier) {
+        if(args.size() != arity) {
+            return rules;
+        }
+        BitSet candidates = null;
+        for(int pos = 0; pos < arity; pos++) {
+            final Map<TermHead, BitSet> heads = byHead.get(pos);
+            if(heads.isEmpty()) {
+                continue; // every rule matches any term in this position
+            }
+            final @Nullable TermHead head = TermHead.of(unifier.findTerm(args.get(pos)));
+            if(head == null) {
+                continue;
+            }
+            final BitSet matches = heads.getOrDefault(head, anyHead.get(pos));
+            if(candidates == null) {
+                candidates = (BitSet) matches.clone();
+            } else {
+                candidates.and(matches);
+            }
+        }
+        if(candidates == null) {
+            return rules;
+        }
+        final int count = candidates.cardinality();
+        if(count == rules.size()) {
+            return rules;
+        }
+        final ImmutableList.Builder<Rule> result = ImmutableList.builderWithExpectedSize(count);
+        for(int idx = candidates.nextSetBit(0); idx >= 0; idx = candidates.nextSetBit(idx + 1)) {
+            result.add(rules.get(idx));
+        }
+        return result.build();
+    }
+
+}
@@ -3,6 +3,7 @@ package mb.statix.spec;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.metaborg.util.tuple.Tuple2;
@@ -10,11 +11,13 @@ import org.metaborg.util.tuple.Tuple2;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.SetMultimap;
 
 import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.unification.u.IUnifier;
 import mb.statix.solver.completeness.CompletenessUtil;
 
 
@@ -27,6 +30,11 @@ public final class RuleSet implements Serializable {
 
     /** The rules, ordered from most specific o least specific guard. */
     private final ImmutableListMultimap<String, Rule> rules;
+    /**
+     * The discrimination indices for selecting candidate rules, per rule name. The indices are not serialized, but
+     * rebuilt from the rules in {@link #readResolve()}.
+     */
+    private final transient ImmutableMap<String, RuleIndex> indices;
     /**
      * The independent rules. If a rule name is not in this map, an independent version of its rules has not yet been
      * created.
@@ -57,6 +65,9 @@ public final class RuleSet implements Serializable {
      */
     public RuleSet(ListMultimap<String, Rule> rules) {
         this.rules = ImmutableListMultimap.copyOf(rules);
+        final ImmutableMap.Builder<String, RuleIndex> indices = ImmutableMap.builder();
+        this.rules.keySet().forEach(name -> indices.put(name, new RuleIndex(this.rules.get(name))));
+        this.indices = indices.build();
     }
 
     /**
@@ -103,6 +114,31 @@ public final class RuleSet implements Serializable {
         return this.rules.get(name);
     }
 
+    /**
+     * Gets the rules with the specified name that may apply to the given arguments.
+     *
+     * Rules are excluded only if the head of an argument, as resolved in the unifier, does not match the head of the
+     * rule pattern in that position. Arguments that are unbound variables exclude no rules. Applying the candidate
+     * rules in order therefore gives the same result as applying all rules returned by {@link #getRules(String)}.
+     *
+     * The rules are returned in order from most specific to least specific guard.
+     *
+     * @param name
+     *            the name of the rules to find
+     * @param args
+     *            the arguments the rules will be applied to
+     * @param unifier
+     *            the unifier in which the arguments are resolved
+     * @return the rules with the specified name that may apply to the arguments
+     */
+    public ImmutableList<Rule> getCandidateRules(String name, List<? extends ITerm> args, IUnifier unifier) {
+        final RuleIndex index = this.indices.get(name);
+        if(index == null) {
+            return ImmutableList.of();
+        }
+        return index.candidates(args, unifier);
+    }
+
     /**
      * Gets a map of lists of rules, where the match order is reflected in (dis)equality constraints in the rule bodies.
      * The resulting rules can be applied independent of the other rules in the set.
@@ -169,4 +205,8 @@ public final class RuleSet implements Serializable {
         return new RuleSet(newRules.build());
     }
 
+    private Object readResolve() {
+        return new RuleSet(rules);
+    }
+
 }
@@ -37,10 +37,7 @@ public class STX_solve_constraint extends StatixPrimitive {
     @Override protected Optional<? extends ITerm> call(IContext env, ITerm term, List<ITerm> terms)
             throws InterpreterException {
 
-        final ITerm specTerm = terms.get(0);
-        final Spec spec = StatixTerms.spec().match(specTerm)
-                .orElseThrow(() -> new InterpreterException("Expected spec, got " + specTerm));
-        reportOverlappingRules(spec);
+        final Spec spec = getSpec(terms.get(0));
 
         final IDebugContext debug = getDebugContext(terms.get(1));
         final IProgress progress = getProgress(terms.get(2));
@@ -2,6 +2,7 @@ package mb.statix.spoofax;
 
 import static mb.nabl2.terms.build.TermBuild.B;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -10,6 +11,8 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
+import javax.annotation.Nullable;
+
 import org.metaborg.util.future.IFuture;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
@@ -25,6 +28,7 @@ import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
 import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.io.TermDigest;
 import mb.p_raffrayi.IScopeImpl;
 import mb.p_raffrayi.IUnitResult;
 import mb.p_raffrayi.impl.Broker;
@@ -34,6 +38,9 @@ import mb.statix.concurrent.IStatixResult;
 import mb.statix.concurrent.ProjectResult;
 import mb.statix.concurrent.ProjectTypeChecker;
 import mb.statix.concurrent.UnitResult;
+import mb.statix.concurrent.cache.FileUnitResultCache;
+import mb.statix.concurrent.cache.IUnitResultCache;
+import mb.statix.concurrent.cache.UnitCache;
 import mb.statix.concurrent.nameresolution.ScopeImpl;
 import mb.statix.constraints.CFalse;
 import mb.statix.constraints.messages.IMessage;
@@ -49,15 +56,30 @@ import mb.statix.spec.Spec;
 public class STX_solve_multi extends StatixPrimitive {
     private static final ILogger logger = LoggerUtils.logger(STX_solve_multi.class);
 
+    /**
+     * System property with a directory in which unit results are cached between calls.
+     */
+    public static final String CACHE_DIR_PROPERTY = "statix.solve_multi.cache";
+
+    private @Nullable IUnitResultCache unitResultCache;
+
     @Inject public STX_solve_multi() {
         super(STX_solve_multi.class.getSimpleName(), 4);
+        final String cacheDir = System.getProperty(CACHE_DIR_PROPERTY);
+        this.unitResultCache = cacheDir != null ? new FileUnitResultCache(Paths.get(cacheDir)) : null;
+    }
+
+    /**
+     * Set the cache for unit results. If the project is unchanged, units are restored from the cache instead of being
+     * solved again.
+     */
+    @Inject(optional = true) public void setUnitResultCache(IUnitResultCache unitResultCache) {
+        this.unitResultCache = unitResultCache;
     }
 
     @Override protected Optional<? extends ITerm> call(IContext env, ITerm term, List<ITerm> terms)
             throws InterpreterException {
-        final Spec spec =
-                StatixTerms.spec().match(terms.get(0)).orElseThrow(() -> new InterpreterException("Expected spec."));
-        reportOverlappingRules(spec);
+        final Spec spec = getSpec(terms.get(0));
 
         final IDebugContext debug = getDebugContext(terms.get(1));
         final IProgress progress = getProgress(terms.get(2));
@@ -66,23 +88,33 @@ public class STX_solve_multi extends StatixPrimitive {
         final IStatixProject project =
                 IStatixProject.matcher().match(term).orElseThrow(() -> new InterpreterException("Expected project."));
 
-        final IScopeImpl<Scope, ITerm> scopeImpl = new ScopeImpl();
+        final UnitCache cache = unitResultCache != null
+                ? new UnitCache(unitResultCache, spec, SpecCache.hash(terms.get(0)), project, TermDigest.of(term))
+                : UnitCache.none();
 
         final List<ITerm> results = Lists.newArrayList();
         try {
             logger.info("Analyzing files");
 
             final double t0 = System.currentTimeMillis();
-            final IFuture<IUnitResult<Scope, ITerm, ITerm, ProjectResult>> futureResult = Broker.run(project.resource(),
-                    new ProjectTypeChecker(project, spec, debug), scopeImpl, spec.allLabels(), cancel);
-
-            final IUnitResult<Scope, ITerm, ITerm, ProjectResult> result = futureResult.asJavaCompletion().get();
+            UnitCache usedCache = cache;
+            IUnitResult<Scope, ITerm, ITerm, ProjectResult> result = solve(project, spec, debug, usedCache, cancel);
+            if(!usedCache.consistent()) {
+                // restored units may refer to scopes of units that were solved again, so solve all units
+                logger.info("Cached results are inconsistent, analyzing all files again");
+                usedCache = cache.withoutRestore();
+                result = solve(project, spec, debug, usedCache, cancel);
+            }
             final double dt = System.currentTimeMillis() - t0;
 
             final Map<String, SolverResult> resultMap = flattenResult(spec, result);
             // PRaffrayiUtil.writeStatsCsvFromResult(result, System.out);
 
             logger.info("Files analyzed in {} s", (dt / 1_000d));
+            if(unitResultCache != null) {
+                logger.info("Restored {} of {} units from cache", usedCache.hits(),
+                        usedCache.hits() + usedCache.misses());
+            }
 
             for(Entry<String, SolverResult> entry : resultMap.entrySet()) {
                 results.add(B.newTuple(B.newString(entry.getKey()), B.newBlob(entry.getValue())));
@@ -105,6 +137,14 @@ public class STX_solve_multi extends StatixPrimitive {
         return Optional.of(B.newList(results));
     }
 
+    private IUnitResult<Scope, ITerm, ITerm, ProjectResult> solve(IStatixProject project, Spec spec,
+            IDebugContext debug, UnitCache cache, ICancel cancel) throws InterruptedException, ExecutionException {
+        final IScopeImpl<Scope, ITerm> scopeImpl = new ScopeImpl();
+        final IFuture<IUnitResult<Scope, ITerm, ITerm, ProjectResult>> futureResult = Broker.run(project.resource(),
+                new ProjectTypeChecker(project, spec, debug, cache), scopeImpl, spec.allLabels(), cancel);
+        return futureResult.asJavaCompletion().get();
+    }
+
     private Map<String, SolverResult> flattenResult(Spec spec, IUnitResult<Scope, ITerm, ITerm, ProjectResult> result) {
         final Map<String, SolverResult> resourceResults = new HashMap<>();
         final ProjectResult projectResult = result.analysis();
@@ -0,0 +1,74 @@
+package mb.statix.spoofax;
+
+import java.util.concurrent.ExecutionException;
+
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+import org.spoofax.interpreter.core.InterpreterException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.io.TermDigest;
+import mb.statix.spec.Spec;
+
+/**
+ * Process-wide cache of specifications decoded from spec terms, shared by the solver primitives.
+ *
+ * Specs are keyed by the spec term. Primitives receive a fresh spec term on every call, so lookups compare terms
+ * structurally, which is much cheaper than decoding the spec and ordering its rules again. Decoding, which includes
+ * precomputing critical edges, and the overlapping rules check happen once per spec. Concurrent requests for the
+ * same spec wait for a single decoding. Content hashes of spec terms, which identify specs between runs, are cached in
+ * the same way.
+ */
+final class SpecCache {
+
+    private static final ILogger logger = LoggerUtils.logger(SpecCache.class);
+
+    private static final int MAX_SPECS = 8;
+
+    private static final Cache<ITerm, Spec> specs = CacheBuilder.newBuilder().maximumSize(MAX_SPECS).build();
+
+    private static final Cache<ITerm, String> hashes = CacheBuilder.newBuilder().maximumSize(MAX_SPECS).build();
+
+    private SpecCache() {
+    }
+
+    /**
+     * Get the spec for the given spec term, with precomputed critical edges.
+     */
+    static Spec get(ITerm specTerm) throws InterpreterException {
+        try {
+            return specs.get(specTerm, () -> decode(specTerm));
+        } catch(ExecutionException | UncheckedExecutionException ex) {
+            if(ex.getCause() instanceof InterpreterException) {
+                throw (InterpreterException) ex.getCause();
+            }
+            throw new InterpreterException("Decoding spec failed.", ex.getCause());
+        }
+    }
+
+    /**
+     * Get the content hash of the given spec term.
+     */
+    static String hash(ITerm specTerm) throws InterpreterException {
+        try {
+            return hashes.get(specTerm, () -> TermDigest.of(specTerm));
+        } catch(ExecutionException | UncheckedExecutionException ex) {
+            throw new InterpreterException("Hashing spec failed.", ex.getCause());
+        }
+    }
+
+    private static Spec decode(ITerm specTerm) throws InterpreterException {
+        final double t0 = System.currentTimeMillis();
+        final Spec spec = StatixTerms.spec().match(specTerm)
+                .orElseThrow(() -> new InterpreterException("Expected spec, got " + specTerm));
+        StatixPrimitive.reportOverlappingRules(spec);
+        final double dt = System.currentTimeMillis() - t0;
+        logger.debug("Spec decoded in {} s", (dt / 1_000d));
+        return spec;
+    }
+
+}
@@ -78,9 +78,9 @@ public abstract class StatixPrimitive extends AbstractPrimitive {
             throw new InterpreterException("Expected " + tvars + " term arguments, but got " + sterms.size());
         }
         final StrategoTerms strategoTerms = new StrategoTerms(factory);
-        final ITerm term = strategoTerms.fromStratego(sterm);
+        final ITerm term = strategoTerms.lazyFromStratego(sterm);
         final List<ITerm> terms =
-                sterms.stream().map(strategoTerms::fromStratego).collect(ImmutableList.toImmutableList());
+                sterms.stream().map(strategoTerms::lazyFromStratego).collect(ImmutableList.toImmutableList());
         final Optional<? extends ITerm> result = call(env, term, terms);
         return result.map(strategoTerms::toStratego);
     }
@@ -92,7 +92,15 @@ public abstract class StatixPrimitive extends AbstractPrimitive {
     // Helper methods for checking specs //
     ///////////////////////////////////////
 
-    protected void reportOverlappingRules(final Spec spec) {
+    /**
+     * Get the spec for a spec term, with precomputed critical edges. Specs are decoded and checked once, and cached for
+     * later calls.
+     */
+    protected Spec getSpec(ITerm specTerm) throws InterpreterException {
+        return SpecCache.get(specTerm);
+    }
+
+    protected static void reportOverlappingRules(final Spec spec) {
         final ListMultimap<String, Rule> rulesWithEquivalentPatterns = spec.rules().getAllEquivalentRules();
         if(!rulesWithEquivalentPatterns.isEmpty()) {
             logger.error("+--------------------------------------+");
@@ -0,0 +1,137 @@
+package mb.statix.concurrent.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import mb.statix.concurrent.IStatixGroup;
+import mb.statix.concurrent.IStatixProject;
+import mb.statix.concurrent.IStatixUnit;
+import mb.statix.concurrent.StatixGroup;
+import mb.statix.concurrent.StatixProject;
+import mb.statix.concurrent.StatixUnit;
+import mb.statix.scopegraph.Scope;
+import mb.statix.solver.persistent.SolverResult;
+import mb.statix.spec.Spec;
+
+public class UnitCacheTest {
+
+    private static final String SPEC = "spec";
+    private static final String PROJECT = "project";
+    private static final String CHANGED_PROJECT = "changed project";
+
+    private final Spec spec = Spec.of();
+    private final Scope root = Scope.of("/", "root");
+    private final List<Scope> rootScopes = ImmutableList.of(root);
+
+    /** Unit A, which refers to scopes of its dependency B. */
+    private final IStatixUnit a = StatixUnit.of("a", Optional.empty());
+    /** Unit B, in a group, so units are found in groups too. */
+    private final IStatixUnit b = StatixUnit.of("b", Optional.empty());
+    private final IStatixProject project = StatixProject.of("/", Optional.empty(),
+            ImmutableMap.<String, IStatixGroup>of("g",
+                    StatixGroup.of(Optional.empty(), Collections.emptyMap(), ImmutableMap.of("b", b))),
+            ImmutableMap.of("a", a), Collections.emptyMap());
+
+    @Test public void testUnchangedProjectRestoresAllUnits() {
+        final MemoryCache results = new MemoryCache();
+        results.putRun("run", PROJECT, a, b);
+        final UnitCache cache = new UnitCache(results, spec, SPEC, project, PROJECT);
+        assertTrue(cache.restore(a, rootScopes).isPresent());
+        assertTrue(cache.restore(b, rootScopes).isPresent());
+        assertEquals(2, cache.hits());
+        assertTrue(cache.consistent());
+    }
+
+    @Test public void testChangedDependencyDoesNotRestoreDependentUnit() {
+        final MemoryCache results = new MemoryCache();
+        results.putRun("run", PROJECT, a, b);
+        // B changed, so the project hash changed, and A, which did not change, must be solved against the new B
+        final UnitCache cache = new UnitCache(results, spec, SPEC, project, CHANGED_PROJECT);
+        assertFalse(cache.restore(a, rootScopes).isPresent());
+        assertFalse(cache.restore(b, rootScopes).isPresent());
+        assertEquals(0, cache.hits());
+        assertEquals(2, cache.misses());
+        assertTrue(cache.consistent());
+    }
+
+    @Test public void testChangedDependencyRevertedDoesNotMixRuns() {
+        final MemoryCache results = new MemoryCache();
+        results.putRun("run1", PROJECT, a, b);
+        results.putRun("run2", CHANGED_PROJECT, a, b);
+        // B changed back, but only B was solved in the run for the reverted project
+        results.putRun("run3", PROJECT, b);
+        final UnitCache cache = new UnitCache(results, spec, SPEC, project, PROJECT);
+        assertFalse(cache.restore(a, rootScopes).isPresent());
+        assertFalse(cache.restore(b, rootScopes).isPresent());
+    }
+
+    @Test public void testMissingUnitDoesNotRestoreOtherUnits() {
+        final MemoryCache results = new MemoryCache();
+        results.putRun("run", PROJECT, a);
+        final UnitCache cache = new UnitCache(results, spec, SPEC, project, PROJECT);
+        assertFalse(cache.restore(a, rootScopes).isPresent());
+    }
+
+    @Test public void testChangedRootScopesMakeRunInconsistent() {
+        final MemoryCache results = new MemoryCache();
+        results.putRun("run", PROJECT, a, b);
+        final UnitCache cache = new UnitCache(results, spec, SPEC, project, PROJECT);
+        assertTrue(cache.restore(a, rootScopes).isPresent());
+        assertFalse(cache.restore(b, ImmutableList.of(Scope.of("/", "other"))).isPresent());
+        assertFalse(cache.consistent());
+        final UnitCache rerun = cache.withoutRestore();
+        assertFalse(rerun.restore(a, rootScopes).isPresent());
+        assertFalse(rerun.restore(b, rootScopes).isPresent());
+        assertTrue(rerun.consistent());
+    }
+
+    @Test public void testNoneRestoresNothing() {
+        assertFalse(UnitCache.none().restore(a, rootScopes).isPresent());
+        assertTrue(UnitCache.none().consistent());
+    }
+
+    /**
+     * In-memory cache that keeps one result per resource, like {@link FileUnitResultCache}.
+     */
+    private class MemoryCache implements IUnitResultCache {
+
+        private final Map<String, UnitCacheKey> keys = new HashMap<>();
+        private final Map<String, CachedUnitResult> results = new HashMap<>();
+
+        private void putRun(String runId, String projectHash, IStatixUnit... units) {
+            for(IStatixUnit unit : units) {
+                final Scope own = Scope.of(unit.resource(), "s");
+                put(UnitCacheKey.of(unit.resource(), projectHash, SPEC),
+                        CachedUnitResult.of(runId, rootScopes, ImmutableSet.of(own), SolverResult.of(spec)));
+            }
+        }
+
+        @Override public Optional<CachedUnitResult> get(UnitCacheKey key,
+                @SuppressWarnings("unused") Spec spec) {
+            if(!key.equals(keys.get(key.resource()))) {
+                return Optional.empty();
+            }
+            return Optional.of(results.get(key.resource()));
+        }
+
+        @Override public void put(UnitCacheKey key, CachedUnitResult result) {
+            keys.put(key.resource(), key);
+            results.put(key.resource(), result);
+        }
+
+    }
+
+}
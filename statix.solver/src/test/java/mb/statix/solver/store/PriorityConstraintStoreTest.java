@@ -0,0 +1,66 @@
+package mb.statix.solver.store;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import mb.nabl2.terms.ITermVar;
+import mb.statix.constraints.CEqual;
+import mb.statix.constraints.CUser;
+import mb.statix.solver.Delay;
+import mb.statix.solver.IConstraint;
+import mb.statix.solver.log.IDebugContext;
+import mb.statix.solver.log.NullDebugContext;
+
+public class PriorityConstraintStoreTest {
+
+    private static final IDebugContext debug = new NullDebugContext();
+
+    private static final ITermVar x = B.newVar("", "x");
+    private static final ITermVar y = B.newVar("", "y");
+
+    private static final IConstraint c1 = new CUser("c", ImmutableList.of(x));
+    private static final IConstraint c2 = new CUser("c", ImmutableList.of(y));
+    private static final IConstraint eq = new CEqual(x, y);
+
+    @Test public void testActiveConstraintsAreLastInFirstOut() {
+        final PriorityConstraintStore store = new PriorityConstraintStore(debug);
+        store.add(c1);
+        store.add(c2);
+        assertEquals(2, store.activeSize());
+        assertSame(c2, store.remove());
+        assertSame(c1, store.remove());
+        assertNull(store.remove());
+    }
+
+    @Test public void testPolicyOrdersActiveConstraints() {
+        final PriorityConstraintStore store =
+                new PriorityConstraintStore(debug, SchedulingPolicies.EQUALITIES_FIRST_QUERIES_LAST);
+        store.add(eq);
+        store.add(c1);
+        assertSame(eq, store.remove());
+        assertSame(c1, store.remove());
+    }
+
+    @Test public void testConstraintIsActivatedOnce() {
+        final PriorityConstraintStore store = new PriorityConstraintStore(debug);
+        store.delay(c1, Delay.ofVars(ImmutableList.of(x, y)));
+        assertEquals(1, store.delayedSize());
+        assertEquals(ImmutableSet.of(c1), store.delayed().keySet());
+        store.activateFromVars(ImmutableList.of(x), debug);
+        assertEquals(0, store.delayedSize());
+        assertSame(c1, store.remove());
+        // the stale reference from y must not activate the constraint delayed in the reused slot
+        store.delay(c2, Delay.ofVar(x));
+        store.activateFromVars(ImmutableList.of(y), debug);
+        assertEquals(0, store.activeSize());
+        assertEquals(ImmutableSet.of(c2), store.delayed().keySet());
+    }
+
+}
@@ -0,0 +1,64 @@
+package mb.statix.spec;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static mb.nabl2.terms.matching.TermPattern.P;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.unification.ud.IUniDisunifier;
+import mb.nabl2.terms.unification.ud.PersistentUniDisunifier;
+import mb.statix.constraints.CConj;
+import mb.statix.constraints.CEqual;
+import mb.statix.constraints.CInequal;
+import mb.statix.constraints.CTrue;
+import mb.statix.constraints.CUser;
+import mb.statix.solver.Delay;
+
+public class CompiledPredicateTest {
+
+    private static final ITermVar x = B.newVar("", "x");
+    private static final ITermVar y = B.newVar("", "y");
+    private static final ITermVar z = B.newVar("r", "z");
+
+    private static final Rule sameName = Rule.of("", Arrays.asList(P.newTuple(P.newVar(x), P.newWld()),
+            P.newTuple(P.newVar(y), P.newWld())), new CConj(new CTrue(), new CEqual(x, y)));
+    private static final Rule notA =
+            Rule.of("", Arrays.asList(P.newVar(x)), new CInequal(ImmutableList.of(), x, B.newString("a")));
+    private static final Rule user = Rule.of("", Arrays.asList(P.newVar(x)), new CUser("c", Arrays.asList(x)));
+
+    private final IUniDisunifier.Immutable unifier = PersistentUniDisunifier.Immutable.of();
+
+    @Test public void testEqualityOnProjection() throws Delay {
+        final CompiledPredicate predicate = sameName.compiledPredicate().get();
+        assertTrue(predicate.test(ImmutableList.of(decl("a", 1), decl("a", 2)), unifier));
+        assertFalse(predicate.test(ImmutableList.of(decl("a", 1), decl("b", 1)), unifier));
+        assertFalse(predicate.test(ImmutableList.of(decl("a", 1), B.newString("a")), unifier));
+    }
+
+    @Test public void testInequality() throws Delay {
+        final CompiledPredicate predicate = notA.compiledPredicate().get();
+        assertTrue(predicate.test(ImmutableList.of(B.newString("b")), unifier));
+        assertFalse(predicate.test(ImmutableList.of(B.newString("a")), unifier));
+    }
+
+    @Test(expected = Delay.class) public void testUnboundVariableDelays() throws Delay {
+        sameName.compiledPredicate().get().test(ImmutableList.of(B.newTuple(z, B.newInt(1)), decl("a", 1)), unifier);
+    }
+
+    @Test public void testUserConstraintIsNotCompiled() {
+        assertFalse(user.compiledPredicate().isPresent());
+    }
+
+    private static ITerm decl(String name, int i) {
+        return B.newTuple(B.newString(name), B.newInt(i));
+    }
+
+}
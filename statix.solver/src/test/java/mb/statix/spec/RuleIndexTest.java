@@ -0,0 +1,62 @@
+package mb.statix.spec;
+
+import static mb.nabl2.terms.build.TermBuild.B;
+import static mb.nabl2.terms.matching.TermPattern.P;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import mb.nabl2.terms.ITerm;
+import mb.nabl2.terms.ITermVar;
+import mb.nabl2.terms.unification.OccursException;
+import mb.nabl2.terms.unification.u.IUnifier;
+import mb.nabl2.terms.unification.ud.PersistentUniDisunifier;
+import mb.statix.constraints.CTrue;
+
+public class RuleIndexTest {
+
+    private static final ITermVar x = B.newVar("", "x");
+    private static final ITermVar y = B.newVar("", "y");
+
+    private static final Rule intRule =
+            Rule.of("c", Arrays.asList(P.newAppl("Int", P.newWld()), P.newWld()), new CTrue());
+    private static final Rule oneRule =
+            Rule.of("c", Arrays.asList(P.newAppl("Int", P.newInt(1)), P.newWld()), new CTrue());
+    private static final Rule addRule =
+            Rule.of("c", Arrays.asList(P.newAppl("Add", P.newWld(), P.newWld()), P.newString("a")), new CTrue());
+    private static final Rule nilRule = Rule.of("c", Arrays.asList(P.newWld(), P.newNil()), new CTrue());
+    private static final Rule anyRule = Rule.of("c", Arrays.asList(P.newWld(), P.newWld()), new CTrue());
+
+    private final RuleSet ruleSet = RuleSet.of(Arrays.asList(intRule, oneRule, addRule, nilRule, anyRule));
+
+    @Test public void testUnboundArgumentsReturnAllRules() {
+        final IUnifier.Immutable unifier = PersistentUniDisunifier.Immutable.of();
+        assertEquals(ruleSet.getRules("c"), ruleSet.getCandidateRules("c", Arrays.asList(x, y), unifier));
+    }
+
+    @Test public void testHeadSelectsRulesInOrder() {
+        final IUnifier.Immutable unifier = PersistentUniDisunifier.Immutable.of();
+        final List<ITerm> args = Arrays.asList(B.newAppl("Int", B.newInt(2)), y);
+        final ImmutableList<Rule> expected = ruleSet.getRules("c").stream()
+                .filter(r -> r != addRule).collect(ImmutableList.toImmutableList());
+        assertEquals(expected, ruleSet.getCandidateRules("c", args, unifier));
+    }
+
+    @Test public void testArgumentsAreResolvedInUnifier() throws OccursException {
+        final IUnifier.Immutable unifier = PersistentUniDisunifier.Immutable.of()
+                .unify(x, B.newAppl("Add", B.newInt(1), B.newInt(2))).get().unifier()
+                .unify(y, B.newString("b")).get().unifier();
+        assertEquals(ImmutableList.of(anyRule), ruleSet.getCandidateRules("c", Arrays.asList(x, y), unifier));
+    }
+
+    @Test public void testUnknownName() {
+        final IUnifier.Immutable unifier = PersistentUniDisunifier.Immutable.of();
+        assertEquals(ImmutableList.of(), ruleSet.getCandidateRules("d", Arrays.asList(x), unifier));
+    }
+
+}